@@ -16,6 +16,13 @@ public interface DEClientConstants extends Constants {
      */
     String fileUploadServlet();
 
+    /**
+     * The Servlet path (relative URL) for chunked, resumable file uploads.
+     *
+     * @return the requested URL.
+     */
+    String chunkedUploadServlet();
+
     /**
      * The Servlet path (relative URL) for file downloads.
      * 
@@ -23,6 +30,27 @@ public interface DEClientConstants extends Constants {
      */
     String fileDownloadServlet();
 
+    /**
+     * The Servlet path (relative URL) for streamed service responses.
+     *
+     * @return the requested URL.
+     */
+    String serviceDataStreamServlet();
+
+    /**
+     * The Servlet path (relative URL) for patches of the user's session.
+     *
+     * @return the requested URL.
+     */
+    String sessionPatchServlet();
+
+    /**
+     * The Servlet path (relative URL) for the user's initial state, prefetched at login.
+     *
+     * @return the requested URL.
+     */
+    String initialStateServlet();
+
     /**
      * URL to redirect the browser to when the user logs out.
      * 
@@ -41,6 +41,11 @@ public class DEProperties {
      */
     private static final String NOTIFICATION_POLL_INTERVAL = "org.iplantc.discoveryenvironment.notifications.poll-interval";
 
+    /**
+     * Properties key of the notification push enabled option
+     */
+    private static final String NOTIFICATION_PUSH_ENABLED = "org.iplantc.discoveryenvironment.notifications.push.enabled";
+
     /**
      * Properties key of the context click enabled option
      */
@@ -117,6 +122,11 @@ public class DEProperties {
      */
     private int notificationPollInterval;
 
+    /**
+     * Notification push option
+     */
+    private boolean notificationPushEnabled;
+
     /**
      * Context click option
      */
@@ -225,6 +235,7 @@ public class DEProperties {
         defaultTrashCategoryId = properties.get(DEFAULT_TRASH_CATEGORY_ID);
         contextClickEnabled = getBoolean(properties, CONTEXT_CLICK_ENABLED, false);
         notificationPollInterval = getInt(properties, NOTIFICATION_POLL_INTERVAL, 60);
+        notificationPushEnabled = getBoolean(properties, NOTIFICATION_PUSH_ENABLED, false);
         keepaliveTarget = properties.get(KEEPALIVE_TARGET);
         keepaliveInterval = getInt(properties, KEEPALIVE_INTERVAL, -1);
         pathListFileIdentifier = properties.get(PATH_LIST_FILE_IDENTIFIER);
@@ -273,6 +284,13 @@ public class DEProperties {
         return notificationPollInterval;
     }
 
+    /**
+     * @return true if notification counts may be pushed to the desktop instead of polled.
+     */
+    public boolean isNotificationPushEnabled() {
+        return notificationPushEnabled;
+    }
+
     /**
      * Gets the base URL of the data management services.
      *
@@ -25,7 +25,8 @@ public enum ServiceErrorCode {
     ERR_UNCHECKED_EXCEPTION("ERR_UNCHECKED_EXCEPTION"), 
     ERR_NOT_OWNER("ERR_NOT_OWNER"), 
     ERR_INVALID_COPY("ERR_INVALID_COPY"),
-    ERR_NOT_UNIQUE("ERR_NOT_UNIQUE");
+    ERR_NOT_UNIQUE("ERR_NOT_UNIQUE"),
+    ERR_SERVICE_UNAVAILABLE("ERR_SERVICE_UNAVAILABLE");
 
     private String errMsg;
 
@@ -15,6 +15,17 @@ public interface UserSessionServiceFacade {
 
     Request saveUserSession(List<WindowState> windowStates, AsyncCallback<Void> callback);
 
+    /**
+     * Saves a patch of the user's window states, containing only the windows which were opened,
+     * changed or closed since the last save. Fails with an {@code HttpException} with status 409 if
+     * the server can't apply the patch, in which case a patch with {@code reset} set should be sent.
+     *
+     * @param patch the patch, as described by {@code org.iplantc.de.server.SessionPatcher}.
+     * @param callback called when the patch has been saved.
+     * @return the request.
+     */
+    Request patchUserSession(Splittable patch, AsyncCallback<Void> callback);
+
     Request getUserPreferences(AsyncCallback<String> callback);
 
     void saveUserPreferences(Splittable json, AsyncCallback<Void> callback);
@@ -23,6 +34,14 @@ public interface UserSessionServiceFacade {
 
     Request bootstrap(AsyncCallback<String> callback);
 
+    /**
+     * Loads the responses the server prefetched when the user logged in, so that the calls made to
+     * start the desktop are answered without further round trips.
+     *
+     * @param callback called once the prefetched responses are loaded, or couldn't be.
+     */
+    void loadInitialState(AsyncCallback<Void> callback);
+
     void logout(AsyncCallback<String> callback);
 
 }
\ No newline at end of file
@@ -223,6 +223,7 @@ public class AnalysisServiceFacadeImpl implements AnalysisServiceFacade {
         }
 
         ServiceCallWrapper wrapper = new ServiceCallWrapper(address.toString());
+        wrapper.setStreamed(true);
         deServiceFacade.getServiceData(wrapper, new AsyncCallbackConverter<String, PagingLoadResultBean<Analysis>>(callback) {
 
             @Override
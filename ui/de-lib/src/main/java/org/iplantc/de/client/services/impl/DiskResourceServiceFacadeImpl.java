@@ -34,16 +34,20 @@ import org.iplantc.de.client.services.DiskResourceServiceFacade;
 import org.iplantc.de.client.services.converters.AsyncCallbackConverter;
 import org.iplantc.de.client.services.impl.models.DiskResourceMetadataBatchRequest;
 import org.iplantc.de.client.util.DiskResourceUtil;
+import org.iplantc.de.diskResource.client.events.FileUploadedEvent;
 import org.iplantc.de.shared.services.DiscEnvApiService;
 import org.iplantc.de.shared.services.ServiceCallWrapper;
 
+import com.google.common.base.Objects;
 import com.google.common.base.Strings;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.http.client.URL;
 import com.google.gwt.json.client.JSONArray;
+import com.google.gwt.json.client.JSONBoolean;
 import com.google.gwt.json.client.JSONObject;
 import com.google.gwt.json.client.JSONString;
 import com.google.gwt.user.client.rpc.AsyncCallback;
@@ -62,9 +66,10 @@ import com.sencha.gxt.data.shared.SortInfoBean;
 import com.sencha.gxt.data.shared.TreeStore;
 import com.sencha.gxt.data.shared.loader.FilterPagingLoadConfigBean;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Provides access to remote services for folder operations.
@@ -82,6 +87,15 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
     private final UserInfo userInfo;
     @Inject DiskResourceUtil diskResourceUtil;
     @Inject EventBus eventBus;
+    /**
+     * The callbacks waiting for the subfolder listings in progress, by folder path.
+     */
+    private final Map<String, List<AsyncCallback<List<Folder>>>> pendingSubFolders = Maps.newHashMap();
+    /**
+     * Batch and cache the stat and existence lookups of all callers.
+     */
+    private final PathLookupBatcher<String> statBatcher;
+    private final PathLookupBatcher<Boolean> existsBatcher;
 
     @Inject
     public DiskResourceServiceFacadeImpl(final DiscEnvApiService deServiceFacade,
@@ -103,6 +117,24 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         this.constants = constants;
         this.factory = factory;
         this.userInfo = userInfo;
+        this.statBatcher = new PathLookupBatcher<>(new PathLookupBatcher.Lookup<String>() {
+            @Override
+            public void lookUp(List<String> paths, AsyncCallback<Map<String, String>> callback) {
+                statPaths(paths, callback);
+            }
+        });
+        this.existsBatcher = new PathLookupBatcher<>(new PathLookupBatcher.Lookup<Boolean>() {
+            @Override
+            public void lookUp(List<String> paths, AsyncCallback<Map<String, Boolean>> callback) {
+                checkPathsExist(paths, callback);
+            }
+        });
+        eventBus.addHandler(FileUploadedEvent.TYPE, new FileUploadedEvent.FileUploadedEventHandler() {
+            @Override
+            public void onFileUploaded(FileUploadedEvent event) {
+                invalidatePathLookups();
+            }
+        });
         GWT.log("DISK RESOURCE SERVICE FACADE CONSTRUCTOR");
     }
 
@@ -139,6 +171,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         } else {
             String address = deProperties.getDataMgmtBaseUrl() + "root"; //$NON-NLS-1$
             ServiceCallWrapper wrapper = new ServiceCallWrapper(address);
+            wrapper.setBatchable(true);
 
             callService(wrapper, new AsyncCallbackConverter<String, RootFolders>(callback) {
                 @Override
@@ -191,6 +224,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
             }
         }
         ServiceCallWrapper wrapper = new ServiceCallWrapper(address);
+        wrapper.setStreamed(true);
         callService(wrapper, new AsyncCallbackConverter<String, Folder>(callback) {
 
             @Override
@@ -208,20 +242,58 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         if (hasFoldersLoaded(folder)) {
             callback.onSuccess(getSubFolders(folder));
         } else {
-            String address = getDirectoryListingEndpoint(parent.getPath(), false);
-            ServiceCallWrapper wrapper = new ServiceCallWrapper(address);
-            callService(wrapper, new AsyncCallbackConverter<String, List<Folder>>(callback) {
+            listSubFolders(parent, callback);
+        }
+    }
 
-                @Override
-                protected List<Folder> convertFrom(String result) {
-                    // Decode JSON result into a folder
-                    Folder folderListing = decode(Folder.class, result);
+    /**
+     * Lists the folder's subfolders from the server, and applies the listing to the cached tree.
+     */
+    void listSubFolders(final Folder parent, final AsyncCallback<List<Folder>> callback) {
+        // Share a listing which is already in progress, e.g. one being prefetched.
+        final String path = Strings.nullToEmpty(parent.getPath());
+        final List<AsyncCallback<List<Folder>>> pending = pendingSubFolders.get(path);
+        if (pending != null) {
+            pending.add(callback);
+            return;
+        }
+        final List<AsyncCallback<List<Folder>>> waiting = Lists.newArrayList(callback);
+        pendingSubFolders.put(path, waiting);
 
-                    // Store or update the folder's subfolders.
-                    return saveSubFolders(folderListing);
+        String address = getDirectoryListingEndpoint(parent.getPath(), false);
+        ServiceCallWrapper wrapper = new ServiceCallWrapper(address);
+        wrapper.setBatchable(true);
+        callService(wrapper, new AsyncCallbackConverter<String, List<Folder>>(new AsyncCallback<List<Folder>>() {
+            @Override
+            public void onSuccess(List<Folder> result) {
+                if (pendingSubFolders.get(path) == waiting) {
+                    pendingSubFolders.remove(path);
                 }
-            });
-        }
+                for (AsyncCallback<List<Folder>> cb : waiting) {
+                    cb.onSuccess(result);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable caught) {
+                if (pendingSubFolders.get(path) == waiting) {
+                    pendingSubFolders.remove(path);
+                }
+                for (AsyncCallback<List<Folder>> cb : waiting) {
+                    cb.onFailure(caught);
+                }
+            }
+        }) {
+
+            @Override
+            protected List<Folder> convertFrom(String result) {
+                // Decode JSON result into a folder
+                Folder folderListing = decode(Folder.class, result);
+
+                // Store or update the folder's subfolders.
+                return saveSubFolders(folderListing);
+            }
+        });
     }
 
     private List<Folder> saveSubFolders(final Folder folder) {
@@ -233,19 +305,65 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         List<Folder> subfolders = filterRoots(folder.getFolders());
 
         Folder parent = findModel(folder);
-        if (parent != null && subfolders != null) {
-            parent.setFolders(subfolders);
+        if (parent != null) {
+            return syncSubFolders(parent, subfolders);
+        }
 
-            for (Folder child : subfolders) {
-                Folder current = findModel(child);
-                if (current == null) {
-                    add(parent, child);
-                } else {
-                    child.setFolders(current.getFolders());
-                    update(child);
-                }
+        return subfolders;
+    }
+
+    /**
+     * Applies a listing of a cached folder's subfolders to the cache, in time linear in the number
+     * of subfolders, so that a listed folder's cached subtree is kept unless its contents have
+     * changed:
+     * <ul>
+     * <li>Subfolders which are no longer listed are removed, along with their subtrees.</li>
+     * <li>New subfolders are inserted at their position in the listing.</li>
+     * <li>Subfolders whose modification date has changed are updated, and their subtrees are
+     * dropped, so that they are listed again when they are next needed.</li>
+     * <li>Subfolders whose other properties have changed are updated, keeping their subtrees.</li>
+     * <li>Unchanged subfolders are left as they are.</li>
+     * </ul>
+     *
+     * @return the parent's subfolders, as cached.
+     */
+    List<Folder> syncSubFolders(final Folder parent, final List<Folder> listing) {
+        final Map<String, Folder> listed = Maps.newHashMap();
+        for (Folder child : listing) {
+            listed.put(child.getId(), child);
+        }
+        final Map<String, Folder> cached = Maps.newHashMap();
+        for (Folder child : Lists.newArrayList(getChildren(parent))) {
+            if (listed.containsKey(child.getId())) {
+                cached.put(child.getId(), child);
+            } else {
+                remove(child);
+            }
+        }
+
+        final List<Folder> subfolders = Lists.newArrayListWithCapacity(listing.size());
+        for (Folder child : listing) {
+            final Folder current = cached.get(child.getId());
+            if (current == null) {
+                insert(parent, subfolders.size(), child);
+                subfolders.add(child);
+            } else if (!Objects.equal(current.getLastModified(), child.getLastModified())
+                           || current.hasSubDirs() != child.hasSubDirs()) {
+                removeChildren(current);
+                child.setFolders(null);
+                update(child);
+                subfolders.add(child);
+            } else if (current.getPermission() != child.getPermission()
+                           || current.getShareCount() != child.getShareCount()
+                           || current.isFavorite() != child.isFavorite()) {
+                child.setFolders(current.getFolders());
+                update(child);
+                subfolders.add(child);
+            } else {
+                subfolders.add(current);
             }
         }
+        parent.setFolders(subfolders);
 
         return subfolders;
     }
@@ -275,10 +393,12 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         List<Folder> filteredFolders = Lists.newArrayList();
 
         if (subfolders != null) {
-            List<Folder> roots = getRootItems();
+            Set<String> rootIds = Sets.newHashSet();
+            for (Folder root : getRootItems()) {
+                rootIds.add(root.getId());
+            }
             for (Folder f : subfolders) {
-                Folder current = findModel(f);
-                if (current == null || !roots.contains(current)) {
+                if (!rootIds.contains(f.getId())) {
                     filteredFolders.add(f);
                 }
             }
@@ -308,7 +428,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         JSONObject obj = new JSONObject();
         obj.put("path", new JSONString(parentId + "/" + newFolderName));
         ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, fullAddress, obj.toString());
-        callService(wrapper, new AsyncCallbackConverter<String, Folder>(callback) {
+        callService(wrapper, invalidatingPathLookups(new AsyncCallbackConverter<String, Folder>(callback) {
 
             @Override
             protected Folder convertFrom(String result) {
@@ -326,7 +446,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
 
                 return folder;
             }
-        });
+        }));
     }
 
     @Override
@@ -344,7 +464,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         }
         obj.put("paths", arr);
         ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, fullAddress, obj.toString());
-        callService(wrapper, callback);
+        callService(wrapper, invalidatingPathLookups(callback));
     }
 
     private void addFolder(String parentId, Folder child) {
@@ -361,14 +481,33 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
     @Override
     public final void diskResourcesExist(final HasPaths diskResourcePaths,
                                          final AsyncCallback<DiskResourceExistMap> callback) {
+        existsBatcher.lookUp(diskResourcePaths.getPaths(), new AsyncCallbackConverter<Map<String, Boolean>, DiskResourceExistMap>(callback) {
+            @Override
+            protected DiskResourceExistMap convertFrom(final Map<String, Boolean> exists) {
+                JSONObject paths = new JSONObject();
+                for (Map.Entry<String, Boolean> entry : exists.entrySet()) {
+                    paths.put(entry.getKey(), JSONBoolean.getInstance(entry.getValue()));
+                }
+                JSONObject result = new JSONObject();
+                result.put("paths", paths); //$NON-NLS-1$
+                return decode(DiskResourceExistMap.class, result.toString());
+            }
+        });
+    }
+
+    /**
+     * Checks whether a batch of paths exist, for the {@link #existsBatcher}.
+     */
+    private void checkPathsExist(final List<String> paths, final AsyncCallback<Map<String, Boolean>> callback) {
         String address = deProperties.getDataMgmtBaseUrl() + "exists"; //$NON-NLS-1$
-        final String body = encode(diskResourcePaths);
-        ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, address, body);
-        callService(wrapper, new AsyncCallbackConverter<String, DiskResourceExistMap>(callback) {
+        HasPaths pathsAb = decode(HasPaths.class, "{}");
+        pathsAb.setPaths(paths);
+        ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, address, encode(pathsAb));
+        callService(wrapper, new AsyncCallbackConverter<String, Map<String, Boolean>>(callback) {
             @Override
-            protected DiskResourceExistMap convertFrom(final String json) {
+            protected Map<String, Boolean> convertFrom(final String json) {
                 // TODO Verify this facade's store against these results?
-                return decode(DiskResourceExistMap.class, json);
+                return decode(DiskResourceExistMap.class, json).getMap();
             }
         });
     }
@@ -386,7 +525,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
 
         ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, address, encode(request));
 
-        callService(wrapper, new AsyncCallbackConverter<String, DiskResourceMove>(callback) {
+        callService(wrapper, invalidatingPathLookups(new AsyncCallbackConverter<String, DiskResourceMove>(callback) {
 
             @Override
             protected DiskResourceMove convertFrom(String result) {
@@ -397,7 +536,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
 
                 return resourcesMoved;
             }
-        });
+        }));
     }
 
     private void moveFolders(DiskResourceMove resourcesMoved) {
@@ -463,7 +602,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         request.setDest(diskResourceUtil.appendNameToPath(diskResourceUtil.parseParent(srcId), destName));
 
         ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, fullAddress, encode(request));
-        callService(wrapper, new AsyncCallbackConverter<String, DiskResource>(callback) {
+        callService(wrapper, invalidatingPathLookups(new AsyncCallbackConverter<String, DiskResource>(callback) {
 
             @Override
             protected DiskResource convertFrom(String result) {
@@ -486,7 +625,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
 
                 return newDr;
             }
-        });
+        }));
     }
 
     private void renameFolder(Folder src, Folder renamed) {
@@ -525,10 +664,12 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
             return;
         }
 
-        removeChildren(folder);
-        folder.setFolders(null);
+        // Don't share a listing which was requested before the refresh.
+        pendingSubFolders.remove(Strings.nullToEmpty(folder.getPath()));
+        invalidatePathLookups();
 
-        getSubFolders(folder, new AsyncCallback<List<Folder>>() {
+        // The cached subfolders are kept until the new listing has been applied to them.
+        listSubFolders(folder, new AsyncCallback<List<Folder>>() {
             @Override
             public void onSuccess(List<Folder> result) {
                 callback.onSuccess(result);
@@ -563,7 +704,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         body.put("address", new JSONString(url)); //$NON-NLS-1$
 
         ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, fullAddress, body.toString());
-        callService(wrapper, callback);
+        callService(wrapper, invalidatingPathLookups(callback));
     }
 
     @Override
@@ -591,7 +732,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         String fullAddress = deProperties.getDataMgmtBaseUrl() + "delete"; //$NON-NLS-1$
         final String body = encode(diskResources);
         ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, fullAddress, body);
-        callService(wrapper, new AsyncCallbackConverter<String, HasPaths>(callback) {
+        callService(wrapper, invalidatingPathLookups(new AsyncCallbackConverter<String, HasPaths>(callback) {
             @Override
             protected HasPaths convertFrom(final String json) {
                 HasPaths deletedPaths = decode(HasPaths.class, json);
@@ -603,7 +744,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
 
                 return deletedPaths;
             }
-        });
+        }));
     }
 
     private void removeFoldersByPath(List<String> deletedPaths) {
@@ -662,7 +803,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
 
         deServiceFacade.getServiceData(wrapper,
                                        mdcMap,
-                                       callback);
+                                       invalidatingPathLookups(callback));
     }
 
     @Override
@@ -675,7 +816,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
 
         deServiceFacade.getServiceData(wrapper,
                                        mdcMap,
-                                       callback);
+                                       invalidatingPathLookups(callback));
     }
 
     @Override
@@ -688,21 +829,14 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
     @Override
     public final void getStat(final FastMap<TYPE> paths,
                               final AsyncCallback<FastMap<DiskResource>> callback) {
-        String address = deProperties.getDataMgmtBaseUrl() + "stat"; //$NON-NLS-1$
-        HasPaths pathsAb = decode(HasPaths.class, "{}");
-        pathsAb.setPaths(new ArrayList<>(paths.keySet()));
-        final String body = encode(pathsAb);
-        ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, address, body);
-        callService(wrapper, new AsyncCallbackConverter<String, FastMap<DiskResource>>(callback) {
+        statBatcher.lookUp(paths.keySet(), new AsyncCallbackConverter<Map<String, String>, FastMap<DiskResource>>(callback) {
             @Override
-            protected FastMap<DiskResource> convertFrom(final String json) {
+            protected FastMap<DiskResource> convertFrom(final Map<String, String> payloads) {
+                // Decode a new resource for each caller, since callers may modify them.
                 FastMap<DiskResource> map = new FastMap<>();
-                Splittable obj = StringQuoter.split(json);
-                Splittable pathSplittable = obj.get("paths");
                 for (String key : paths.keySet()) {
-                    Splittable dr = pathSplittable.get(key);
-                    if (dr != null) {
-                        String payload = dr.getPayload();
+                    String payload = payloads.get(key);
+                    if (payload != null) {
                         if (paths.get(key).equals(TYPE.FILE)) {
                             File decodeFile = decode(File.class, payload);
                             decodeFile.setStatLoaded(true);
@@ -721,6 +855,62 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         });
     }
 
+    /**
+     * Looks up a batch of paths, for the {@link #statBatcher}.
+     */
+    private void statPaths(final List<String> paths, final AsyncCallback<Map<String, String>> callback) {
+        String address = deProperties.getDataMgmtBaseUrl() + "stat"; //$NON-NLS-1$
+        HasPaths pathsAb = decode(HasPaths.class, "{}");
+        pathsAb.setPaths(paths);
+        final String body = encode(pathsAb);
+        ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, address, body);
+        callService(wrapper, new AsyncCallbackConverter<String, Map<String, String>>(callback) {
+            @Override
+            protected Map<String, String> convertFrom(final String json) {
+                Map<String, String> payloads = Maps.newHashMap();
+                Splittable obj = StringQuoter.split(json);
+                Splittable pathSplittable = obj.get("paths");
+                for (String key : paths) {
+                    Splittable dr = pathSplittable.get(key);
+                    if (dr != null) {
+                        payloads.put(key, dr.getPayload());
+                    }
+                }
+
+                return payloads;
+            }
+        });
+    }
+
+    /**
+     * Drops the cached stat and existence lookups, once data has changed.
+     */
+    void invalidatePathLookups() {
+        statBatcher.invalidate();
+        existsBatcher.invalidate();
+    }
+
+    /**
+     * Wraps the callback of a call which changes data, so that the stat and existence lookups cached
+     * before the change are dropped once the call has completed.
+     */
+    private <T> AsyncCallback<T> invalidatingPathLookups(final AsyncCallback<T> callback) {
+        return new AsyncCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+                invalidatePathLookups();
+                callback.onSuccess(result);
+            }
+
+            @Override
+            public void onFailure(Throwable caught) {
+                // The change may have been partially applied.
+                invalidatePathLookups();
+                callback.onFailure(caught);
+            }
+        };
+    }
+
     /**
      * Performs the actual service call.
      * 
@@ -736,14 +926,14 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         final String fullAddress = deProperties.getDataMgmtBaseUrl() + "restore"; //$NON-NLS-1$
         final String body = encode(request);
         final ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, fullAddress, body);
-        callService(wrapper, callback);
+        callService(wrapper, invalidatingPathLookups(callback));
     }
 
     @Override
     public void emptyTrash(String user, AsyncCallback<String> callback) {
         String address = deProperties.getDataMgmtBaseUrl() + "trash"; //$NON-NLS-1$
         ServiceCallWrapper wrapper = new ServiceCallWrapper(DELETE, address);
-        callService(wrapper, callback);
+        callService(wrapper, invalidatingPathLookups(callback));
     }
 
     @Override
@@ -824,6 +1014,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         String address = deProperties.getMuleServiceBaseUrl() + "filetypes/type-list";
 
         ServiceCallWrapper wrapper = new ServiceCallWrapper(GET, address);
+        wrapper.setBatchable(true);
         deServiceFacade.getServiceData(wrapper, new AsyncCallbackConverter<String, List<InfoType>>(callback) {
             @Override
             protected List<InfoType> convertFrom(String object) {
@@ -848,7 +1039,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
 
         String address = deProperties.getMuleServiceBaseUrl() + "filetypes/type";
         ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, address, obj.toString());
-        deServiceFacade.getServiceData(wrapper, callback);
+        deServiceFacade.getServiceData(wrapper, invalidatingPathLookups(callback));
     }
 
     @Override
@@ -868,7 +1059,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
 
         ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, address, encode(request));
 
-        callService(wrapper, new AsyncCallbackConverter<String, DiskResourceMove>(callback) {
+        callService(wrapper, invalidatingPathLookups(new AsyncCallbackConverter<String, DiskResourceMove>(callback) {
 
             @Override
             protected DiskResourceMove convertFrom(String result) {
@@ -879,7 +1070,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
 
                 return resourcesMoved;
             }
-        });
+        }));
 
     }
 
@@ -888,7 +1079,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         String fullAddress = deProperties.getDataMgmtBaseUrl() + "delete-contents"; //$NON-NLS-1$
         ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, fullAddress, "{\"path\":\""
                 + selectedFolderId + "\"}");
-        callService(wrapper, new AsyncCallbackConverter<String, HasPaths>(callback) {
+        callService(wrapper, invalidatingPathLookups(new AsyncCallbackConverter<String, HasPaths>(callback) {
             @Override
             protected HasPaths convertFrom(final String json) {
                 HasPaths deletedPaths = decode(HasPaths.class, json);
@@ -900,20 +1091,21 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
 
                 return deletedPaths;
             }
-        });
+        }));
     }
 
     @Override
     public void restoreAll(AsyncCallback<String> callback) {
         final String fullAddress = deProperties.getDataMgmtBaseUrl() + "restore-all"; //$NON-NLS-1$
         final ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, fullAddress, "{}");
-        callService(wrapper, callback);
+        callService(wrapper, invalidatingPathLookups(callback));
     }
 
     @Override
     public void getMetadataTemplateListing(AsyncCallback<List<MetadataTemplateInfo>> callback) {
         String address = deProperties.getDataMgmtBaseUrl() + "metadata/templates";
         final ServiceCallWrapper wrapper = new ServiceCallWrapper(GET, address);
+        wrapper.setBatchable(true);
         callService(wrapper, new AsyncCallbackConverter<String, List<MetadataTemplateInfo>>(callback) {
             @Override
             protected List<MetadataTemplateInfo> convertFrom(String object) {
@@ -942,7 +1134,7 @@ public class DiskResourceServiceFacadeImpl extends TreeStore<Folder> implements
         String address = deProperties.getDataMgmtBaseUrl() + "anon-files"; //$NON-NLS-1$
         final String body = encode(diskResourcePaths);
         ServiceCallWrapper wrapper = new ServiceCallWrapper(POST, address, body);
-        callService(wrapper, callback);
+        callService(wrapper, invalidatingPathLookups(callback));
     }
 
     @Override
@@ -0,0 +1,251 @@
+package org.iplantc.de.client.services.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.gwt.user.client.Timer;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coalesces the path lookups which widgets request independently, such as the stat and existence
+ * checks of the file selectors, upload dialogs and drag and drop handlers, into batched service
+ * calls.
+ *
+ * The paths requested within {@link #WINDOW_MS} of each other are looked up together, each one
+ * once, and joined by the requests for paths which are already being looked up. Results are cached
+ * for {@link #TTL_MS}, or until {@link #invalidate()} is called after data has changed.
+ *
+ * A service may fail a whole lookup because one of its paths wasn't found. So that a caller isn't
+ * failed by another caller's path, a failed batch which served several callers is looked up again
+ * for each caller on its own, and only those lookups' failures are passed on. Failures are never
+ * cached.
+ *
+ * @param <V> the type of the value looked up for each path.
+ */
+class PathLookupBatcher<V> {
+
+    static final int WINDOW_MS = 20;
+    static final long TTL_MS = 15 * 1000;
+
+    /**
+     * Looks up a batch of paths from the service.
+     */
+    interface Lookup<V> {
+        /**
+         * @param callback receives the values by path, or a failure of the whole lookup, which may
+         *                 be caused by a single path which wasn't found.
+         */
+        void lookUp(List<String> paths, AsyncCallback<Map<String, V>> callback);
+    }
+
+    private static final class Cached<V> {
+        private final V value;
+        private final long time;
+
+        Cached(V value, long time) {
+            this.value = value;
+            this.time = time;
+        }
+    }
+
+    /**
+     * A caller's lookup, which completes once each of its paths has been looked up.
+     */
+    private final class Request {
+        private final AsyncCallback<Map<String, V>> callback;
+        private final Map<String, V> results = Maps.newHashMap();
+        private int remaining;
+        private boolean failed;
+
+        Request(AsyncCallback<Map<String, V>> callback) {
+            this.callback = callback;
+        }
+
+        void resolved(String path, V value) {
+            if (value != null) {
+                results.put(path, value);
+            }
+            if (--remaining == 0 && !failed) {
+                callback.onSuccess(results);
+            }
+        }
+
+        void failed(Throwable caught) {
+            if (!failed) {
+                failed = true;
+                callback.onFailure(caught);
+            }
+        }
+    }
+
+    /**
+     * The paths looked up by one service call, with the requests waiting for each of them.
+     */
+    private final class Batch {
+        private final Map<String, List<Request>> requests = Maps.newLinkedHashMap();
+        private int generation;
+    }
+
+    private final Lookup<V> lookup;
+    private final Map<String, Cached<V>> cache = Maps.newHashMap();
+    private final Map<String, Batch> inFlight = Maps.newHashMap();
+    private Batch next = new Batch();
+    /**
+     * Incremented by {@link #invalidate()}, so that lookups started before then aren't cached.
+     */
+    private int generation;
+    private final Timer timer = new Timer() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+    private boolean scheduled;
+
+    PathLookupBatcher(final Lookup<V> lookup) {
+        this.lookup = lookup;
+    }
+
+    /**
+     * Looks up the given paths, along with those requested by other callers in the meantime.
+     *
+     * @param callback receives the values by path, or the failure of a lookup of this caller's
+     *                 paths.
+     */
+    void lookUp(final Collection<String> paths, final AsyncCallback<Map<String, V>> callback) {
+        final Request request = new Request(callback);
+        final long now = System.currentTimeMillis();
+        for (String path : paths == null ? Sets.<String>newLinkedHashSet() : Sets.newLinkedHashSet(paths)) {
+            final Cached<V> cached = cache.get(path);
+            if (cached != null && now - cached.time <= TTL_MS) {
+                if (cached.value != null) {
+                    request.results.put(path, cached.value);
+                }
+                continue;
+            }
+            Batch batch = inFlight.get(path);
+            if (batch == null || batch.generation != generation) {
+                batch = next;
+            }
+            List<Request> waiting = batch.requests.get(path);
+            if (waiting == null) {
+                waiting = Lists.newArrayList();
+                batch.requests.put(path, waiting);
+            }
+            waiting.add(request);
+            request.remaining++;
+        }
+
+        if (request.remaining == 0) {
+            callback.onSuccess(request.results);
+        } else if (!next.requests.isEmpty() && !scheduled) {
+            scheduled = true;
+            timer.schedule(WINDOW_MS);
+        }
+    }
+
+    /**
+     * Drops the cached results, after data has changed.
+     */
+    void invalidate() {
+        cache.clear();
+        generation++;
+    }
+
+    /**
+     * Looks up the paths requested since the last batch.
+     */
+    void flush() {
+        scheduled = false;
+        final Batch batch = next;
+        next = new Batch();
+        if (batch.requests.isEmpty()) {
+            return;
+        }
+        batch.generation = generation;
+        for (String path : batch.requests.keySet()) {
+            inFlight.put(path, batch);
+        }
+
+        lookup.lookUp(Lists.newArrayList(batch.requests.keySet()), new AsyncCallback<Map<String, V>>() {
+            @Override
+            public void onSuccess(Map<String, V> result) {
+                for (String path : batch.requests.keySet()) {
+                    finished(batch, path);
+                }
+                resolve(batch.requests, result, batch.generation);
+            }
+
+            @Override
+            public void onFailure(Throwable caught) {
+                final Map<Request, List<String>> pathsByRequest = Maps.newLinkedHashMap();
+                for (Map.Entry<String, List<Request>> entry : batch.requests.entrySet()) {
+                    finished(batch, entry.getKey());
+                    for (Request request : entry.getValue()) {
+                        List<String> paths = pathsByRequest.get(request);
+                        if (paths == null) {
+                            paths = Lists.newArrayList();
+                            pathsByRequest.put(request, paths);
+                        }
+                        paths.add(entry.getKey());
+                    }
+                }
+
+                if (pathsByRequest.size() == 1) {
+                    pathsByRequest.keySet().iterator().next().failed(caught);
+                    return;
+                }
+                for (Map.Entry<Request, List<String>> entry : pathsByRequest.entrySet()) {
+                    lookUpAlone(entry.getKey(), entry.getValue(), batch.generation);
+                }
+            }
+        });
+    }
+
+    /**
+     * Looks up a caller's paths from a failed batch again, without the other callers' paths.
+     */
+    private void lookUpAlone(final Request request, final List<String> paths, final int lookupGeneration) {
+        lookup.lookUp(paths, new AsyncCallback<Map<String, V>>() {
+            @Override
+            public void onSuccess(Map<String, V> result) {
+                final Map<String, List<Request>> requests = Maps.newLinkedHashMap();
+                for (String path : paths) {
+                    requests.put(path, Lists.newArrayList(request));
+                }
+                resolve(requests, result, lookupGeneration);
+            }
+
+            @Override
+            public void onFailure(Throwable caught) {
+                request.failed(caught);
+            }
+        });
+    }
+
+    private void resolve(final Map<String, List<Request>> requests,
+                         final Map<String, V> result,
+                         final int lookupGeneration) {
+        final long now = System.currentTimeMillis();
+        for (Map.Entry<String, List<Request>> entry : requests.entrySet()) {
+            final String path = entry.getKey();
+            final V value = result == null ? null : result.get(path);
+            if (lookupGeneration == generation) {
+                cache.put(path, new Cached<>(value, now));
+            }
+            for (Request request : entry.getValue()) {
+                request.resolved(path, value);
+            }
+        }
+    }
+
+    private void finished(final Batch batch, final String path) {
+        if (inFlight.get(path) == batch) {
+            inFlight.remove(path);
+        }
+    }
+}
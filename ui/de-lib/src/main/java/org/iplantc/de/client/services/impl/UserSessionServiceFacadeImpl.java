@@ -1,6 +1,7 @@
 package org.iplantc.de.client.services.impl;
 
 import static org.iplantc.de.shared.services.BaseServiceCallWrapper.Type.*;
+import org.iplantc.de.client.DEClientConstants;
 import org.iplantc.de.client.models.CommonModelAutoBeanFactory;
 import org.iplantc.de.client.models.DEProperties;
 import org.iplantc.de.client.models.UserInfo;
@@ -36,6 +37,7 @@ public class UserSessionServiceFacadeImpl implements UserSessionServiceFacade {
     private final UserInfo userInfo;
     private final CommonModelAutoBeanFactory factory;
     private final DiscEnvApiService deServiceFacade;
+    @Inject DEClientConstants constants;
 
     @Inject
     public UserSessionServiceFacadeImpl(final DiscEnvApiService deServiceFacade,
@@ -71,6 +73,13 @@ public class UserSessionServiceFacadeImpl implements UserSessionServiceFacade {
         return deServiceFacade.getServiceData(wrapper, new StringToVoidCallbackConverter(callback));
     }
 
+    @Override
+    public Request patchUserSession(final Splittable patch, AsyncCallback<Void> callback) {
+        return deServiceFacade.postJson(constants.sessionPatchServlet(),
+                                        patch.getPayload(),
+                                        new StringToVoidCallbackConverter(callback));
+    }
+
     @Override
     public Request getUserPreferences(AsyncCallback<String> callback) {
         String address = deProperties.getMuleServiceBaseUrl() + "preferences"; //$NON-NLS-1$
@@ -102,6 +111,11 @@ public class UserSessionServiceFacadeImpl implements UserSessionServiceFacade {
         return deServiceFacade.getServiceData(wrapper, callback);
     }
 
+    @Override
+    public void loadInitialState(AsyncCallback<Void> callback) {
+        deServiceFacade.loadPrefetchedResponses(constants.initialStateServlet(), callback);
+    }
+
     @Override
     public void logout(AsyncCallback<String> callback) {
         String address = LOGOUT + "?login-time=" + userInfo.getLoginTime();
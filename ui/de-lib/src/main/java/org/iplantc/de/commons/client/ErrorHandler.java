@@ -167,6 +167,13 @@ public class ErrorHandler {
 
             if (!message.isEmpty() || !name.isEmpty()) {
                 exceptionMessage = appearance.errorReport(name, message);
+            } else {
+                // Service errors, such as those sent when a backend service is unavailable.
+                String errorCode = JsonUtil.getInstance().getString(jsonError, "error_code"); //$NON-NLS-1$
+                String reason = JsonUtil.getInstance().getString(jsonError, "reason"); //$NON-NLS-1$
+                if (!reason.isEmpty()) {
+                    exceptionMessage = appearance.errorReport(errorCode, reason);
+                }
             }
         }
 
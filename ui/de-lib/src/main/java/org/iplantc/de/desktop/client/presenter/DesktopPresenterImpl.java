@@ -14,6 +14,7 @@ import org.iplantc.de.client.models.analysis.AnalysesAutoBeanFactory;
 import org.iplantc.de.client.models.analysis.Analysis;
 import org.iplantc.de.client.models.diskResources.DiskResourceAutoBeanFactory;
 import org.iplantc.de.client.models.diskResources.File;
+import org.iplantc.de.client.models.notifications.Counts;
 import org.iplantc.de.client.models.notifications.NotificationAutoBeanFactory;
 import org.iplantc.de.client.models.notifications.NotificationCategory;
 import org.iplantc.de.client.models.notifications.NotificationMessage;
@@ -45,6 +46,7 @@ import org.iplantc.de.commons.client.views.window.configs.DiskResourceWindowConf
 import org.iplantc.de.commons.client.views.window.configs.WindowConfig;
 import org.iplantc.de.desktop.client.DesktopView;
 import org.iplantc.de.desktop.client.presenter.util.MessagePoller;
+import org.iplantc.de.desktop.client.presenter.util.NotificationPushChannel;
 import org.iplantc.de.desktop.client.views.windows.IPlantWindowInterface;
 import org.iplantc.de.desktop.shared.DeModule;
 import org.iplantc.de.fileViewers.client.callbacks.LoadGenomeInCoGeCallback;
@@ -59,6 +61,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.Strings;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.gwt.core.client.GWT;
 import com.google.gwt.debug.client.DebugInfo;
 import com.google.gwt.dom.client.NativeEvent;
 import com.google.gwt.http.client.Request;
@@ -112,11 +115,17 @@ public class DesktopPresenterImpl implements DesktopView.Presenter {
         String DATA = "data";
     }
 
+    /**
+     * The path of the notification event stream, relative to the host page.
+     */
+    static final String NOTIFICATION_STREAM_PATH = "secured/notifications/stream";
+
     final DesktopWindowManager desktopWindowManager;
     @Inject IplantAnnouncer announcer;
     @Inject CommonUiConstants commonUiConstants;
     @Inject DEClientConstants deClientConstants;
     @Inject DEProperties deProperties;
+    @Inject NotificationPushChannel notificationPushChannel;
     @Inject Provider<ErrorHandler> errorHandlerProvider;
     @Inject Provider<DEFeedbackServiceFacade> feedbackServiceProvider;
     @Inject Provider<FileEditorServiceFacade> fileEditorServiceProvider;
@@ -180,6 +189,9 @@ public class DesktopPresenterImpl implements DesktopView.Presenter {
     public void doLogout() {
         // Need to stop polling
         messagePoller.stop();
+        if (notificationPushChannel != null) {
+            notificationPushChannel.close();
+        }
 //        cleanUp();
 
         userSessionService.logout(new RuntimeCallbacks.LogoutCallback(userSessionService,
@@ -243,6 +255,9 @@ public class DesktopPresenterImpl implements DesktopView.Presenter {
 
     @Override
     public void go(final Panel panel) {
+        // Load the initial state prefetched at login while the DE properties are fetched
+        final InitializationCallbacks.InitialStateCallback initialStateCallback = new InitializationCallbacks.InitialStateCallback();
+        userSessionService.loadInitialState(initialStateCallback);
         // Fetch DE properties, the rest of DE initialization is performed in callback
         propertyServiceFacade.getProperties(new InitializationCallbacks.PropertyServiceCallback(deProperties,
                                                                         userInfo,
@@ -251,7 +266,8 @@ public class DesktopPresenterImpl implements DesktopView.Presenter {
                                                                         errorHandlerProvider,
                                                                         appearance,
                                                                         panel,
-                                                                        this));
+                                                                        this,
+                                                                        initialStateCallback));
     }
 
     @Override
@@ -505,24 +521,54 @@ public class DesktopPresenterImpl implements DesktopView.Presenter {
         }
 
         /*
-         * Start periodic message count polling
+         * Start receiving message count updates
          * Do an initial fetch of message counts, otherwise the initial count will not be fetched
-         * until after an entire poll-length of the MessagePoller's timer (15 seconds by default).
+         * until after an entire poll-length of the MessagePoller's timer (15 seconds by default),
+         * or until the counts are first pushed.
          */
         GetMessageCounts notificationCounts = new GetMessageCounts(eventBus, messageServiceFacade, view, this);
         notificationCounts.run();
-        messagePoller.addTask(notificationCounts);
-        messagePoller.start();
+        startMessageCountUpdates(notificationCounts);
         initKBShortCuts();
         panel.add(view);
         processQueryStrings();
         messageServiceFacade.getRecentMessages(new InitializationCallbacks.GetInitialNotificationsCallback(view, appearance, announcer));
     }
 
+    /**
+     * Subscribes to pushed message counts if the server and browser support it, and polls for them
+     * otherwise, or once the push channel turns out to be unavailable.
+     */
+    void startMessageCountUpdates(final GetMessageCounts notificationCounts) {
+        if (!deProperties.isNotificationPushEnabled() || !NotificationPushChannel.isSupported()) {
+            messagePoller.addTask(notificationCounts);
+            messagePoller.start();
+            return;
+        }
+
+        notificationPushChannel.open(GWT.getHostPageBaseURL() + NOTIFICATION_STREAM_PATH,
+                                     new NotificationPushChannel.Listener() {
+                                         @Override
+                                         public void onCounts(String json) {
+                                             notificationCounts.update(AutoBeanCodex.decode(notificationFactory,
+                                                                                            Counts.class,
+                                                                                            json).as());
+                                         }
+
+                                         @Override
+                                         public void onUnavailable() {
+                                             notificationCounts.run();
+                                             messagePoller.addTask(notificationCounts);
+                                             messagePoller.start();
+                                         }
+                                     });
+    }
+
     void restoreWindows(List<WindowState> windowStates) {
         for (WindowState ws : windowStates) {
             desktopWindowManager.show(ws);
         }
+        userInfo.setSavedOrderedWindowStates(windowStates);
     }
 
     private void getUserSession(final boolean urlHasDataTypeParameter) {
@@ -542,7 +588,10 @@ public class DesktopPresenterImpl implements DesktopView.Presenter {
                 @Override
                 public void onDialogHide(DialogHideEvent event) {
                     if (Dialog.PredefinedButton.CANCEL.equals(event.getHideButton())) {
-                        req.cancel();
+                        // The request is null if the session was prefetched at login.
+                        if (req != null) {
+                            req.cancel();
+                        }
                         SafeHtml msg = appearance.sessionRestoreCancelled();
                         announcer.schedule(new SuccessAnnouncementConfig(msg, true, 5000));
                     }
@@ -200,6 +200,7 @@ public class DesktopPresenterWindowEventHandler implements EditAppEvent.EditAppE
                                        eventBus,
                                        diskResourceUtil,
                                        UriUtils.fromTrustedString(clientConstants.fileUploadServlet()),
+                                       UriUtils.fromTrustedString(clientConstants.chunkedUploadServlet()),
                                        userInfo.getUsername()).show();
         }
     }
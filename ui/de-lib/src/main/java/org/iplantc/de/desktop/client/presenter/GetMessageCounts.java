@@ -4,19 +4,23 @@ import org.iplantc.de.client.events.EventBus;
 import org.iplantc.de.systemMessages.client.events.NewSystemMessagesEvent;
 import org.iplantc.de.client.models.notifications.Counts;
 import org.iplantc.de.desktop.client.DesktopView;
+import org.iplantc.de.desktop.client.presenter.util.AdaptiveTask;
 import org.iplantc.de.client.services.MessageServiceFacade;
 
 import com.google.gwt.user.client.rpc.AsyncCallback;
 
 /**
- * This task requests the message counts from the backend
+ * This task requests the message counts from the backend. Counts pushed by the server are
+ * applied with {@link #update(Counts)}. Runs which return the same counts as the previous one are
+ * reported as unchanged, so that polling backs off while nothing is happening.
  */
-final class GetMessageCounts implements Runnable {
+final class GetMessageCounts implements AdaptiveTask {
 
     private final EventBus eventBus;
     private final MessageServiceFacade messageServiceFacade;
     private final DesktopView view;
     private final DesktopPresenterImpl presenter;
+    private String lastCounts;
 
     GetMessageCounts(final EventBus eventBus,
                      final MessageServiceFacade messageServiceFacade,
@@ -30,19 +34,45 @@ final class GetMessageCounts implements Runnable {
 
     @Override
     public void run() {
+        run(null);
+    }
+
+    @Override
+    public void run(final Outcome outcome) {
         messageServiceFacade.getMessageCounts(new AsyncCallback<Counts>() {
             @Override
             public void onFailure(final Throwable caught) {
+                if (outcome != null) {
+                    outcome.failed();
+                }
             }
 
             @Override
             public void onSuccess(final Counts cnts) {
-                fireEvents(cnts);
+                final boolean changed = update(cnts);
+                if (outcome == null) {
+                    return;
+                }
+                if (changed) {
+                    outcome.changed();
+                } else {
+                    outcome.unchanged();
+                }
             }
         });
     }
 
-    private void fireEvents(final Counts counts) {
+    /**
+     * @return true if the counts differ from the previous ones.
+     */
+    boolean update(final Counts counts) {
+        final String current = counts.getUnseenNotificationCount() + "/"
+                                   + counts.getSystemMessageCount() + "/"
+                                   + counts.getNewSystemMessageCount() + "/"
+                                   + counts.getUnseenSystemMessageCount();
+        final boolean changed = !current.equals(lastCounts);
+        lastCounts = current;
+
         final int unseenNoteCnt = counts.getUnseenNotificationCount();
         presenter.fetchRecentNotifications(unseenNoteCnt);
         view.setUnseenNotificationCount(unseenNoteCnt);
@@ -53,6 +83,7 @@ final class GetMessageCounts implements Runnable {
         if (counts.getNewSystemMessageCount() > 0) {
             eventBus.fireEvent(new NewSystemMessagesEvent());
         }
+        return changed;
     }
 
 }
@@ -11,6 +11,7 @@ import org.iplantc.de.commons.client.info.ErrorAnnouncementConfig;
 import org.iplantc.de.commons.client.info.IplantAnnouncer;
 import org.iplantc.de.desktop.client.DesktopView;
 
+import com.google.gwt.user.client.Command;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.gwt.user.client.ui.Panel;
 import com.google.inject.Provider;
@@ -110,6 +111,48 @@ class InitializationCallbacks {
         }
     }
 
+    /**
+     * Tracks the loading of the initial state prefetched by the server, which is requested at the
+     * same time as the DE properties. Initialization continues once both have arrived, whether or
+     * not the initial state could be loaded.
+     */
+    static class InitialStateCallback implements AsyncCallback<Void> {
+        private final Logger LOG = Logger.getLogger(InitialStateCallback.class.getName());
+        private boolean loaded;
+        private Command pending;
+
+        @Override
+        public void onFailure(Throwable caught) {
+            LOG.fine("Unable to load the initial state: " + caught.getMessage());
+            onLoaded();
+        }
+
+        @Override
+        public void onSuccess(Void result) {
+            onLoaded();
+        }
+
+        /**
+         * Runs the command once the initial state has been loaded, or couldn't be.
+         */
+        void whenLoaded(final Command command) {
+            if (loaded) {
+                command.execute();
+            } else {
+                pending = command;
+            }
+        }
+
+        private void onLoaded() {
+            loaded = true;
+            if (pending != null) {
+                final Command command = pending;
+                pending = null;
+                command.execute();
+            }
+        }
+    }
+
     static class PropertyServiceCallback implements AsyncCallback<HashMap<String, String>> {
         private final DEProperties deProps;
         private final Provider<ErrorHandler> errorHandlerProvider;
@@ -119,6 +162,7 @@ class InitializationCallbacks {
         private final UserInfo userInfo;
         private final UserSessionServiceFacade userSessionService;
         private final UserSettings userSettings;
+        private final InitialStateCallback initialStateCallback;
 
         public PropertyServiceCallback(DEProperties deProperties,
                                        UserInfo userInfo,
@@ -127,7 +171,8 @@ class InitializationCallbacks {
                                        Provider<ErrorHandler> errorHandlerProvider,
                                        DesktopView.Presenter.DesktopPresenterAppearance appearance,
                                        Panel panel,
-                                       DesktopPresenterImpl presenter) {
+                                       DesktopPresenterImpl presenter,
+                                       InitialStateCallback initialStateCallback) {
             this.deProps = deProperties;
             this.userInfo = userInfo;
             this.userSettings = userSettings;
@@ -136,6 +181,7 @@ class InitializationCallbacks {
             this.appearance = appearance;
             this.panel = panel;
             this.presenter = presenter;
+            this.initialStateCallback = initialStateCallback;
         }
 
         @Override
@@ -151,12 +197,17 @@ class InitializationCallbacks {
                                                                                                 userSettings,
                                                                                                 errorHandlerProvider,
                                                                                                 appearance);
-            userSessionService.bootstrap(new BootstrapCallback(presenter,
-                                                               userInfo,
-                                                               errorHandlerProvider,
-                                                               appearance,
-                                                               userSessionService,
-                                                               userPreferencesCallback));
+            initialStateCallback.whenLoaded(new Command() {
+                @Override
+                public void execute() {
+                    userSessionService.bootstrap(new BootstrapCallback(presenter,
+                                                                       userInfo,
+                                                                       errorHandlerProvider,
+                                                                       appearance,
+                                                                       userSessionService,
+                                                                       userPreferencesCallback));
+                }
+            });
         }
     }
 
@@ -1,24 +1,34 @@
 package org.iplantc.de.desktop.client.presenter;
 
-import org.iplantc.de.client.models.CommonModelAutoBeanFactory;
 import org.iplantc.de.desktop.client.DesktopView;
 import org.iplantc.de.client.gin.ServicesInjector;
 import org.iplantc.de.client.models.UserInfo;
-import org.iplantc.de.client.models.UserSession;
 import org.iplantc.de.client.models.WindowState;
+import org.iplantc.de.desktop.client.presenter.util.AdaptiveTask;
+import org.iplantc.de.shared.exceptions.HttpException;
 
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.user.client.rpc.AsyncCallback;
-import com.google.web.bindery.autobean.shared.AutoBean;
-import com.google.web.bindery.autobean.shared.AutoBeanCodex;
-import com.google.web.bindery.autobean.shared.Splittable;
 
 import java.util.List;
 
-public class SaveSessionPeriodic implements Runnable {
+/**
+ * Saves the user's session whenever the desktop's windows have changed since the last save. Runs
+ * which find nothing to save are reported as unchanged, so that they back off while the desktop
+ * is left alone.
+ *
+ * Only the windows which were opened, changed or closed since the last save are sent, as a patch
+ * built by {@link WindowStateTracker}. If the server can't apply a patch, the complete window
+ * state is sent instead.
+ */
+public class SaveSessionPeriodic implements AdaptiveTask {
+
+    private static final int SC_CONFLICT = 409;
 
     private final DesktopView.Presenter presenter;
-    private final CommonModelAutoBeanFactory factory = GWT.create(CommonModelAutoBeanFactory.class);
+    private final WindowStateTracker tracker = new WindowStateTracker();
+    private boolean seeded;
+    private boolean saving;
 
     public SaveSessionPeriodic(DesktopView.Presenter presenter) {
         this.presenter = presenter;
@@ -26,48 +36,63 @@ public class SaveSessionPeriodic implements Runnable {
 
     @Override
     public void run() {
-        AutoBean<UserSession> userSession = factory.userSession();
-        final List<WindowState> orderedWindowStates = presenter.getOrderedWindowStates();
-        userSession.as().setWindowStates(orderedWindowStates);
-        Splittable spl = AutoBeanCodex.encode(userSession);
-        if (isStateChanged(orderedWindowStates, spl)) {
-            GWT.log("saving periodic...");
-            ServicesInjector.INSTANCE.getUserSessionServiceFacade().saveUserSession(userSession.as().getWindowStates(), new AsyncCallback<Void>() {
-
-                @Override
-                public void onSuccess(Void result) {
-                    // cache the update
-                    UserInfo info = UserInfo.getInstance();
-                    info.setSavedOrderedWindowStates(orderedWindowStates);
-                }
-
-                @Override
-                public void onFailure(Throwable caught) {
-                    GWT.log("Session periodic save failed");
-                }
-            });
-        }
+        run(null);
     }
 
-    private boolean isStateChanged(List<WindowState> orderedWindowStates, Splittable splOws) {
-        if (splOws == null || orderedWindowStates == null) {
-            return false;
+    @Override
+    public void run(final Outcome outcome) {
+        if (!seeded) {
+            seeded = true;
+            // The windows restored from the saved session don't need to be saved again.
+            final List<WindowState> restoredWindowStates = UserInfo.getInstance().getSavedOrderedWindowStates();
+            if (restoredWindowStates != null) {
+                tracker.seed(restoredWindowStates);
+            }
         }
+        final List<WindowState> orderedWindowStates = presenter.getOrderedWindowStates();
+        final WindowStateTracker.Patch patch = saving ? null : tracker.diff(orderedWindowStates);
+        if (patch == null) {
+            if (outcome != null) {
+                outcome.unchanged();
+            }
+            return;
+        }
+        GWT.log("saving periodic...");
+        save(patch, orderedWindowStates, outcome);
+    }
 
-        UserInfo info = UserInfo.getInstance();
-        List<WindowState> savedStates = info.getSavedOrderedWindowStates();
+    private void save(final WindowStateTracker.Patch patch,
+                      final List<WindowState> orderedWindowStates,
+                      final Outcome outcome) {
+        saving = true;
+        ServicesInjector.INSTANCE.getUserSessionServiceFacade().patchUserSession(patch.getPayload(), new AsyncCallback<Void>() {
 
-        if (savedStates == null) {
-            if (orderedWindowStates.size() == 0) {
-                return false;
-            } else {
-                return true;
+            @Override
+            public void onSuccess(Void result) {
+                saving = false;
+                tracker.commit(patch);
+                // cache the update
+                UserInfo.getInstance().setSavedOrderedWindowStates(orderedWindowStates);
+                if (outcome != null) {
+                    outcome.changed();
+                }
             }
-        }
 
-        AutoBean<UserSession> savedUserSession = factory.userSession();
-        savedUserSession.as().setWindowStates(savedStates);
-        Splittable savedSpl = AutoBeanCodex.encode(savedUserSession);
-        return !savedSpl.getPayload().equals(splOws.getPayload());
+            @Override
+            public void onFailure(Throwable caught) {
+                saving = false;
+                if (!patch.isReset()
+                        && caught instanceof HttpException
+                        && ((HttpException)caught).getStatusCode() == SC_CONFLICT) {
+                    GWT.log("Session patch refused, saving the complete session");
+                    save(tracker.full(orderedWindowStates), orderedWindowStates, outcome);
+                    return;
+                }
+                GWT.log("Session periodic save failed");
+                if (outcome != null) {
+                    outcome.failed();
+                }
+            }
+        });
     }
 }
@@ -0,0 +1,228 @@
+package org.iplantc.de.desktop.client.presenter;
+
+import org.iplantc.de.client.models.WindowState;
+
+import com.google.web.bindery.autobean.shared.AutoBeanCodex;
+import com.google.web.bindery.autobean.shared.AutoBeanUtils;
+import com.google.web.bindery.autobean.shared.Splittable;
+import com.google.web.bindery.autobean.shared.impl.StringQuoter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks which windows changed since the user's session was last saved, and builds the patches
+ * which save only those changes.
+ *
+ * Each window is identified by its type and tag, like the window manager does, and compared by a
+ * structural hash of its window state, so unchanged windows are never encoded. The first patch,
+ * like any patch built by {@link #full(List)}, replaces the whole saved session. Windows restored
+ * from the saved session are recorded with {@link #seed(List)}, so that nothing is saved until they
+ * change.
+ */
+final class WindowStateTracker {
+
+    /**
+     * A patch of the saved window states, and the saved state it leads to.
+     */
+    static final class Patch {
+        private final Splittable payload;
+        private final Map<String, Integer> hashes;
+        private final List<String> order;
+        private final boolean reset;
+
+        private Patch(final Splittable payload,
+                      final Map<String, Integer> hashes,
+                      final List<String> order,
+                      final boolean reset) {
+            this.payload = payload;
+            this.hashes = hashes;
+            this.order = order;
+            this.reset = reset;
+        }
+
+        Splittable getPayload() {
+            return payload;
+        }
+
+        boolean isReset() {
+            return reset;
+        }
+    }
+
+    private Map<String, Integer> savedHashes = new HashMap<>();
+    private List<String> savedOrder = new ArrayList<>();
+    private boolean savedOnServer;
+
+    /**
+     * Records the window states which were restored from the saved session as the saved state.
+     * The server doesn't know what this desktop last saved, so the first patch still replaces the
+     * whole session, but it's only sent once the windows change.
+     *
+     * @param windowStates the restored window states, in stacking order.
+     */
+    void seed(final List<WindowState> windowStates) {
+        savedOrder = keys(windowStates);
+        savedHashes = new HashMap<>();
+        for (int i = 0; i < windowStates.size(); i++) {
+            savedHashes.put(savedOrder.get(i), hash(windowStates.get(i)));
+        }
+    }
+
+    /**
+     * @param windowStates the current window states, in stacking order.
+     * @return a patch of the windows which changed since the last save, or null if none did.
+     */
+    Patch diff(final List<WindowState> windowStates) {
+        final List<String> keys = keys(windowStates);
+        final Map<String, Integer> hashes = new HashMap<>();
+        final List<Integer> changed = new ArrayList<>();
+        for (int i = 0; i < windowStates.size(); i++) {
+            final int hash = hash(windowStates.get(i));
+            hashes.put(keys.get(i), hash);
+            final Integer savedHash = savedHashes.get(keys.get(i));
+            if (savedHash == null || savedHash != hash) {
+                changed.add(i);
+            }
+        }
+        if (changed.isEmpty() && keys.equals(savedOrder)) {
+            return null;
+        }
+        if (!savedOnServer) {
+            return full(windowStates);
+        }
+
+        final Splittable payload = StringQuoter.createSplittable();
+        final Splittable put = StringQuoter.createSplittable();
+        for (int i : changed) {
+            encode(windowStates.get(i)).assign(put, keys.get(i));
+        }
+        put.assign(payload, "put");
+        final Splittable remove = StringQuoter.createIndexed();
+        for (String key : savedOrder) {
+            if (!hashes.containsKey(key)) {
+                StringQuoter.create(key).assign(remove, remove.size());
+            }
+        }
+        remove.assign(payload, "remove");
+        toIndexed(keys).assign(payload, "order");
+        return new Patch(payload, hashes, keys, false);
+    }
+
+    /**
+     * @param windowStates the current window states, in stacking order.
+     * @return a patch which replaces the whole saved session with the current window states.
+     */
+    Patch full(final List<WindowState> windowStates) {
+        final List<String> keys = keys(windowStates);
+        final Map<String, Integer> hashes = new HashMap<>();
+        final Splittable payload = StringQuoter.createSplittable();
+        final Splittable put = StringQuoter.createSplittable();
+        for (int i = 0; i < windowStates.size(); i++) {
+            hashes.put(keys.get(i), hash(windowStates.get(i)));
+            encode(windowStates.get(i)).assign(put, keys.get(i));
+        }
+        StringQuoter.create(true).assign(payload, "reset");
+        put.assign(payload, "put");
+        toIndexed(keys).assign(payload, "order");
+        return new Patch(payload, hashes, keys, true);
+    }
+
+    /**
+     * Records that a patch was saved.
+     */
+    void commit(final Patch patch) {
+        savedHashes = patch.hashes;
+        savedOrder = patch.order;
+        savedOnServer = true;
+    }
+
+    /**
+     * @return the keys of the windows, made unique by their position if there is more than one window
+     * with the same type and tag.
+     */
+    static List<String> keys(final List<WindowState> windowStates) {
+        final List<String> keys = new ArrayList<>();
+        final Map<String, Integer> counts = new HashMap<>();
+        for (WindowState windowState : windowStates) {
+            String key = windowState.getConfigType() + "_" + getTag(windowState.getWindowConfig());
+            final Integer count = counts.get(key);
+            counts.put(key, count == null ? 1 : count + 1);
+            if (count != null) {
+                key += "#" + count;
+            }
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /**
+     * @return a hash of the window's state, without encoding the window state itself.
+     */
+    static int hash(final WindowState windowState) {
+        int hash = String.valueOf(windowState.getConfigType()).hashCode();
+        hash = 31 * hash + (windowState.isMaximized() ? 1 : 0);
+        hash = 31 * hash + (windowState.isMinimized() ? 1 : 0);
+        hash = 31 * hash + windowState.getWinLeft();
+        hash = 31 * hash + windowState.getWinTop();
+        hash = 31 * hash + windowState.getWidth();
+        hash = 31 * hash + windowState.getHeight();
+        return 31 * hash + hash(windowState.getWindowConfig());
+    }
+
+    /**
+     * Hashes a window config by walking its values, since serializing it to compare payloads would
+     * encode every window on every check. Like {@link Map#hashCode()}, the hash of an object doesn't
+     * depend on the order of its properties.
+     */
+    static int hash(final Splittable value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value.isString()) {
+            return value.asString().hashCode();
+        }
+        if (value.isNumber()) {
+            return Double.valueOf(value.asNumber()).hashCode();
+        }
+        if (value.isBoolean()) {
+            return value.asBoolean() ? 1231 : 1237;
+        }
+        if (value.isIndexed()) {
+            int hash = 1;
+            for (int i = 0; i < value.size(); i++) {
+                hash = 31 * hash + hash(value.get(i));
+            }
+            return hash;
+        }
+        if (value.isKeyed()) {
+            int hash = 0;
+            for (String key : value.getPropertyKeys()) {
+                hash += key.hashCode() ^ (value.isNull(key) ? 0 : hash(value.get(key)));
+            }
+            return hash;
+        }
+        return 0;
+    }
+
+    private static String getTag(final Splittable config) {
+        if (config == null || config.isUndefined("tag") || config.isNull("tag") || !config.get("tag").isString()) {
+            return "";
+        }
+        return config.get("tag").asString();
+    }
+
+    private static Splittable encode(final WindowState windowState) {
+        return AutoBeanCodex.encode(AutoBeanUtils.getAutoBean(windowState));
+    }
+
+    private static Splittable toIndexed(final List<String> keys) {
+        final Splittable indexed = StringQuoter.createIndexed();
+        for (String key : keys) {
+            StringQuoter.create(key).assign(indexed, indexed.size());
+        }
+        return indexed;
+    }
+}
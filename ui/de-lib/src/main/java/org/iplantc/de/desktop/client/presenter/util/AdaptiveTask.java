@@ -0,0 +1,36 @@
+package org.iplantc.de.desktop.client.presenter.util;
+
+/**
+ * A periodic task which reports whether each run found anything new, so that the
+ * {@link TaskRunner} can run it less often while nothing is changing.
+ */
+public interface AdaptiveTask extends Runnable {
+
+    /**
+     * Receives the outcome of one run of a task. Exactly one method must be called per run.
+     */
+    interface Outcome {
+
+        /**
+         * The run found something new; the task goes back to its base interval.
+         */
+        void changed();
+
+        /**
+         * The run found nothing new; the task's interval is backed off.
+         */
+        void unchanged();
+
+        /**
+         * The run failed; the task's interval is backed off.
+         */
+        void failed();
+    }
+
+    /**
+     * Runs the task.
+     *
+     * @param outcome receives the outcome once the run completes, which may be asynchronous.
+     */
+    void run(Outcome outcome);
+}
@@ -0,0 +1,120 @@
+package org.iplantc.de.desktop.client.presenter.util;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * Receives notification count changes pushed by the server as Server-Sent Events.
+ *
+ * The browser reconnects by itself when the connection drops. The channel is given up, and its
+ * listener told to fall back to polling, when the server refuses the stream or when it can't be
+ * opened after {@link #MAX_CONNECT_ATTEMPTS} attempts in a row.
+ */
+public class NotificationPushChannel {
+
+    /**
+     * Receives the events of the channel.
+     */
+    public interface Listener {
+
+        /**
+         * @param json the user's message counts, in the format returned by the count-messages service.
+         */
+        void onCounts(String json);
+
+        /**
+         * Called once, if the channel can't be used. The channel is closed.
+         */
+        void onUnavailable();
+    }
+
+    /**
+     * The number of failed connection attempts after which polling is used instead.
+     */
+    static final int MAX_CONNECT_ATTEMPTS = 3;
+
+    /**
+     * The value of {@code EventSource.readyState} once the browser has stopped reconnecting.
+     */
+    private static final int CLOSED = 2;
+
+    private JavaScriptObject eventSource;
+    private Listener listener;
+    private int failedAttempts;
+
+    /**
+     * @return true if the browser supports Server-Sent Events.
+     */
+    public static native boolean isSupported() /*-{
+        return !!$wnd.EventSource;
+    }-*/;
+
+    /**
+     * Opens the channel, closing it first if it's already open.
+     *
+     * @param url the URL of the event stream.
+     * @param listener receives the events of the channel.
+     */
+    public void open(final String url, final Listener listener) {
+        close();
+        this.listener = listener;
+        failedAttempts = 0;
+        eventSource = openEventSource(url);
+    }
+
+    /**
+     * Closes the channel. No more events are delivered to its listener.
+     */
+    public void close() {
+        if (eventSource != null) {
+            closeEventSource(eventSource);
+            eventSource = null;
+        }
+        listener = null;
+    }
+
+    /**
+     * @return true if the channel is open, or is reconnecting.
+     */
+    public boolean isOpen() {
+        return eventSource != null;
+    }
+
+    void onOpen() {
+        failedAttempts = 0;
+    }
+
+    void onCounts(final String json) {
+        if (listener != null) {
+            listener.onCounts(json);
+        }
+    }
+
+    void onError(final int readyState) {
+        if (readyState == CLOSED || ++failedAttempts >= MAX_CONNECT_ATTEMPTS) {
+            final Listener unavailableListener = listener;
+            close();
+            if (unavailableListener != null) {
+                unavailableListener.onUnavailable();
+            }
+        }
+    }
+
+    private native JavaScriptObject openEventSource(String url) /*-{
+        var self = this;
+        var source = new $wnd.EventSource(url);
+        source.onopen = $entry(function () {
+            self.@org.iplantc.de.desktop.client.presenter.util.NotificationPushChannel::onOpen()();
+        });
+        source.onerror = $entry(function () {
+            self.@org.iplantc.de.desktop.client.presenter.util.NotificationPushChannel::onError(I)(source.readyState);
+        });
+        source.addEventListener("counts", $entry(function (event) {
+            self.@org.iplantc.de.desktop.client.presenter.util.NotificationPushChannel::onCounts(Ljava/lang/String;)(event.data);
+        }), false);
+        return source;
+    }-*/;
+
+    private native void closeEventSource(JavaScriptObject source) /*-{
+        source.close();
+    }-*/;
+}
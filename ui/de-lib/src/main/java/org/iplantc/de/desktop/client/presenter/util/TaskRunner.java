@@ -2,15 +2,31 @@ package org.iplantc.de.desktop.client.presenter.util;
 
 import org.iplantc.de.client.models.DEProperties;
 
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.user.client.Random;
 import com.google.gwt.user.client.Timer;
 
 import java.util.ArrayList;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Periodically performs registered tasks.
+ *
+ * Each task has its own interval. Tasks which implement {@link AdaptiveTask} back off
+ * exponentially, up to {@link #MAX_BACKOFF_FACTOR} times their base interval, while their runs find
+ * nothing new or fail, and return to their base interval as soon as a run finds something.
+ *
+ * No task runs while the page is hidden; when it becomes visible again, or when the user interacts
+ * with the page, every task returns to its base interval and any task which was backed off or
+ * overdue runs straight away. Every delay has up to {@link #JITTER} of random jitter added, and the
+ * first run of each task is spread over its first interval, so that browsers which were all
+ * reloaded at once, e.g. after a deployment, don't poll in step.
+ *
+ * Call {@code deTaskRunnerStatus()} in the browser console to see each task's interval, the time
+ * until it next runs, and the latencies of its recent runs.
  */
 public class TaskRunner {
 
@@ -20,7 +36,27 @@ public class TaskRunner {
     private static final int DEFAULT_INTERVAL = 15;
 
     /**
-     * The interval for repeating tasks, in milliseconds.
+     * The maximum backoff, as a multiple of a task's base interval.
+     */
+    static final int MAX_BACKOFF_FACTOR = 8;
+
+    /**
+     * The maximum random jitter, as a fraction of a delay.
+     */
+    static final double JITTER = 0.2;
+
+    /**
+     * The number of recent run latencies kept for each task.
+     */
+    private static final int LATENCY_HISTORY = 5;
+
+    /**
+     * The minimum time between resets caused by user activity, in milliseconds.
+     */
+    private static final int ACTIVITY_THROTTLE = 5000;
+
+    /**
+     * The default interval for repeating tasks, in milliseconds.
      */
     private int interval;
 
@@ -32,38 +68,83 @@ public class TaskRunner {
     /**
      * The list of tasks to perform.
      */
-    private final List<Runnable> tasks = new ArrayList<Runnable>();
+    private final List<ScheduledTask> tasks = new ArrayList<ScheduledTask>();
 
     /**
-     * The timer to use for repeating tasks.
+     * The timer to use for repeating tasks, scheduled for the next task which is due.
      */
     private final Timer timer;
 
+    /**
+     * True while the page is hidden.
+     */
+    private boolean hidden;
+
+    /**
+     * The last time user activity reset the tasks.
+     */
+    private double lastActivityReset;
+
+    /**
+     * The source of the current time.
+     */
+    private final Clock clock;
+
+    /**
+     * The source of the random jitter.
+     */
+    private final RandomSource random;
+
     /**
      * Used to log failed tasks.
      */
     private final Logger logger = Logger.getLogger("TaskRunner");
 
     private TaskRunner() {
-        // get interval in seconds
-        interval = DEProperties.getInstance().getNotificationPollInterval();
-
-        if (interval == 0) {
-            interval = DEFAULT_INTERVAL;
-        }
+        this(getDefaultInterval(), new Clock() {
+            @Override
+            public double now() {
+                return Duration.currentTimeMillis();
+            }
+        }, new RandomSource() {
+            @Override
+            public double nextDouble() {
+                return Random.nextDouble();
+            }
+        });
+    }
 
-        interval *= 1000;
+    /**
+     * @param interval the default interval for repeating tasks, in milliseconds.
+     * @param clock the source of the current time.
+     * @param random the source of the random jitter.
+     */
+    TaskRunner(int interval, Clock clock, RandomSource random) {
+        this.interval = interval;
+        this.clock = clock;
+        this.random = random;
 
         timer = new Timer() {
 
             @Override
             public void run() {
-                runTasks();
-                timer.schedule(interval);
+                runDueTasks();
             }
         };
 
-        timer.schedule(interval);
+        hidden = isPageHidden();
+        listenForPageEvents();
+    }
+
+    private static int getDefaultInterval() {
+        // get interval in seconds
+        int interval = DEProperties.getInstance().getNotificationPollInterval();
+
+        if (interval == 0) {
+            interval = DEFAULT_INTERVAL;
+        }
+
+        return interval * 1000;
     }
 
     /**
@@ -77,35 +158,262 @@ public class TaskRunner {
     }
 
     /**
-     * Adds a task to the list of tasks to be performed.
-     * 
+     * Adds a task to the list of tasks to be performed, at the default interval.
+     *
      * @param task the task to add.
      */
     public void addTask(Runnable task) {
+        addTask(task, interval / 1000);
+    }
+
+    /**
+     * Adds a task to the list of tasks to be performed.
+     *
+     * @param task the task to add.
+     * @param intervalSeconds the base interval of the task, in seconds.
+     */
+    public void addTask(Runnable task, int intervalSeconds) {
         if (task == null) {
             throw new NullPointerException("the task may not be null");
         }
-        tasks.add(task);
+        final ScheduledTask scheduledTask = new ScheduledTask(task, intervalSeconds * 1000);
+        // Spread the first runs of the task over its whole first interval.
+        scheduledTask.nextRun = now() + scheduledTask.baseInterval * random.nextDouble();
+        tasks.add(scheduledTask);
+        scheduleTimer();
     }
 
     /**
      * Removes a task from the list of tasks to be performed.
-     * 
+     *
      * @param task the task to remove.
      */
     public void removeTask(Runnable task) {
         if (task == null) {
             throw new NullPointerException("the task may not be null");
         }
-        tasks.remove(task);
+        final ScheduledTask scheduledTask = find(task);
+        if (scheduledTask != null) {
+            scheduledTask.removed = true;
+            tasks.remove(scheduledTask);
+        }
+        scheduleTimer();
     }
 
-    private void runTasks() {
-        for (Runnable task : tasks) {
+    /**
+     * Returns every task to its base interval, running straight away any task which was backed off
+     * or is overdue.
+     */
+    public void reset() {
+        final double now = now();
+        for (ScheduledTask task : tasks) {
+            final boolean backedOff = task.currentInterval > task.baseInterval;
+            task.currentInterval = task.baseInterval;
+            if (backedOff || task.nextRun < now) {
+                task.nextRun = now;
+            }
+        }
+        scheduleTimer();
+    }
+
+    /**
+     * @return a description of each task's interval, next run and recent latencies.
+     */
+    public String getStatus() {
+        final double now = now();
+        final StringBuilder status = new StringBuilder(hidden ? "paused (page hidden)\n" : "running\n");
+        for (ScheduledTask task : tasks) {
+            status.append(task.getName())
+                  .append(": interval ").append(seconds(task.currentInterval))
+                  .append(" (base ").append(seconds(task.baseInterval)).append(")")
+                  .append(task.running ? ", running" : ", next run in " + seconds(Math.max(0, task.nextRun - now)))
+                  .append(", recent latencies ").append(task.latencies)
+                  .append(" ms\n");
+        }
+        return status.toString();
+    }
+
+    void runDueTasks() {
+        if (hidden) {
+            return;
+        }
+        final double now = now();
+        // Copy the list, since tasks may add or remove tasks.
+        for (ScheduledTask task : new ArrayList<ScheduledTask>(tasks)) {
+            if (!task.running && task.nextRun <= now) {
+                task.start();
+            }
+        }
+        scheduleTimer();
+    }
+
+    /**
+     * Schedules the timer for the next task which is due, or cancels it if none are.
+     */
+    private void scheduleTimer() {
+        timer.cancel();
+        if (hidden) {
+            return;
+        }
+        double next = Double.MAX_VALUE;
+        for (ScheduledTask task : tasks) {
+            if (!task.running) {
+                next = Math.min(next, task.nextRun);
+            }
+        }
+        if (next < Double.MAX_VALUE) {
+            timer.schedule((int)Math.max(1, next - now()));
+        }
+    }
+
+    private ScheduledTask find(Runnable task) {
+        for (ScheduledTask scheduledTask : tasks) {
+            if (scheduledTask.task == task) {
+                return scheduledTask;
+            }
+        }
+        return null;
+    }
+
+    void onVisibilityChange(boolean pageHidden) {
+        hidden = pageHidden;
+        if (hidden) {
+            timer.cancel();
+        } else {
+            reset();
+        }
+    }
+
+    void onUserActivity() {
+        final double now = now();
+        if (now - lastActivityReset >= ACTIVITY_THROTTLE) {
+            lastActivityReset = now;
+            reset();
+        }
+    }
+
+    private double now() {
+        return clock.now();
+    }
+
+    private static String seconds(double millis) {
+        return Math.round(millis / 100) / 10.0 + "s";
+    }
+
+    private static native boolean isPageHidden() /*-{
+        return !!$doc.hidden;
+    }-*/;
+
+    private native void listenForPageEvents() /*-{
+        var self = this;
+        $doc.addEventListener("visibilitychange", $entry(function () {
+            self.@org.iplantc.de.desktop.client.presenter.util.TaskRunner::onVisibilityChange(Z)(!!$doc.hidden);
+        }), false);
+        var onActivity = $entry(function () {
+            self.@org.iplantc.de.desktop.client.presenter.util.TaskRunner::onUserActivity()();
+        });
+        $doc.addEventListener("mousedown", onActivity, true);
+        $doc.addEventListener("keydown", onActivity, true);
+        $wnd.deTaskRunnerStatus = $entry(function () {
+            return self.@org.iplantc.de.desktop.client.presenter.util.TaskRunner::getStatus()();
+        });
+    }-*/;
+
+    /**
+     * Gets the current time, in milliseconds.
+     */
+    interface Clock {
+        double now();
+    }
+
+    /**
+     * Gets random numbers which are at least 0 and less than 1.
+     */
+    interface RandomSource {
+        double nextDouble();
+    }
+
+    /**
+     * A registered task and its schedule.
+     */
+    private final class ScheduledTask implements AdaptiveTask.Outcome {
+        private final Runnable task;
+        private final int baseInterval;
+        private final LinkedList<Integer> latencies = new LinkedList<Integer>();
+        private double currentInterval;
+        private double nextRun;
+        private double startTime;
+        private boolean running;
+        private boolean removed;
+
+        ScheduledTask(Runnable task, int baseInterval) {
+            this.task = task;
+            this.baseInterval = baseInterval;
+            this.currentInterval = baseInterval;
+        }
+
+        String getName() {
+            final String name = task.getClass().getName();
+            return name.substring(name.lastIndexOf('.') + 1);
+        }
+
+        void start() {
+            running = true;
+            startTime = now();
             try {
-                task.run();
+                if (task instanceof AdaptiveTask) {
+                    ((AdaptiveTask)task).run(this);
+                } else {
+                    // Plain tasks can't report their outcome, so they keep their base interval.
+                    task.run();
+                    changed();
+                }
             } catch (RuntimeException e) {
                 logger.log(Level.SEVERE, "timed task failed", e);
+                if (running) {
+                    failed();
+                }
+            }
+        }
+
+        @Override
+        public void changed() {
+            finish(1);
+        }
+
+        @Override
+        public void unchanged() {
+            finish(2);
+        }
+
+        @Override
+        public void failed() {
+            finish(2);
+        }
+
+        /**
+         * Records the end of a run and schedules the next one.
+         *
+         * @param backoff the factor to multiply the task's interval by, or 1 to return it to its
+         * base interval.
+         */
+        private void finish(int backoff) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            final double finishTime = now();
+            latencies.addLast((int)(finishTime - startTime));
+            if (latencies.size() > LATENCY_HISTORY) {
+                latencies.removeFirst();
+            }
+
+            currentInterval = backoff == 1
+                              ? baseInterval
+                              : Math.min(currentInterval * backoff, baseInterval * MAX_BACKOFF_FACTOR);
+            nextRun = finishTime + currentInterval * (1 + random.nextDouble() * JITTER);
+            if (!removed) {
+                scheduleTimer();
             }
         }
     }
@@ -6,6 +6,7 @@ import org.iplantc.de.client.models.diskResources.DiskResource;
 import org.iplantc.de.client.models.diskResources.Folder;
 import org.iplantc.de.diskResource.client.events.DiskResourceNameSelectedEvent.DiskResourceNameSelectedEventHandler;
 import org.iplantc.de.diskResource.client.events.DiskResourcePathSelectedEvent.DiskResourcePathSelectedEventHandler;
+import org.iplantc.de.diskResource.client.events.FolderHoveredEvent.HasFolderHoveredEventHandlers;
 import org.iplantc.de.diskResource.client.events.FolderSelectionEvent.HasFolderSelectionEventHandlers;
 import org.iplantc.de.diskResource.client.events.RootFoldersRetrievedEvent.HasRootFoldersRetrievedEventHandlers;
 import org.iplantc.de.diskResource.client.events.SavedSearchesRetrievedEvent.HasSavedSearchesRetrievedEventHandlers;
@@ -35,6 +36,7 @@ import java.util.List;
  */
 public interface NavigationView extends IsWidget,
                                         HasFolderSelectionEventHandlers,
+                                        HasFolderHoveredEventHandlers,
                                         HasDeleteSavedSearchClickedEventHandlers {
     interface Appearance {
 
@@ -0,0 +1,44 @@
+package org.iplantc.de.diskResource.client.events;
+
+import org.iplantc.de.client.models.diskResources.Folder;
+import org.iplantc.de.diskResource.client.events.FolderHoveredEvent.FolderHoveredEventHandler;
+
+import com.google.gwt.event.shared.EventHandler;
+import com.google.gwt.event.shared.GwtEvent;
+import com.google.gwt.event.shared.HandlerRegistration;
+
+/**
+ * Fired when the pointer moves onto a folder in the navigation tree.
+ */
+public class FolderHoveredEvent extends GwtEvent<FolderHoveredEventHandler> {
+
+    public interface FolderHoveredEventHandler extends EventHandler {
+        void onFolderHovered(FolderHoveredEvent event);
+    }
+
+    public static interface HasFolderHoveredEventHandlers {
+        HandlerRegistration addFolderHoveredEventHandler(FolderHoveredEventHandler handler);
+    }
+
+    private final Folder hoveredFolder;
+
+    public FolderHoveredEvent(Folder hoveredFolder) {
+        this.hoveredFolder = hoveredFolder;
+    }
+
+    public Folder getHoveredFolder() {
+        return hoveredFolder;
+    }
+
+    public static final GwtEvent.Type<FolderHoveredEventHandler> TYPE = new GwtEvent.Type<>();
+
+    @Override
+    public GwtEvent.Type<FolderHoveredEventHandler> getAssociatedType() {
+        return TYPE;
+    }
+
+    @Override
+    protected void dispatch(FolderHoveredEventHandler handler) {
+        handler.onFolderHovered(this);
+    }
+}
@@ -0,0 +1,281 @@
+package org.iplantc.de.diskResource.client.presenters.grid.proxy;
+
+import org.iplantc.de.client.events.EventBus;
+import org.iplantc.de.client.events.diskResources.FolderRefreshedEvent;
+import org.iplantc.de.client.models.HasPath;
+import org.iplantc.de.client.models.diskResources.DiskResource;
+import org.iplantc.de.client.models.diskResources.Folder;
+import org.iplantc.de.client.models.diskResources.TYPE;
+import org.iplantc.de.client.models.viewer.InfoType;
+import org.iplantc.de.diskResource.client.events.DiskResourceRenamedEvent;
+import org.iplantc.de.diskResource.client.events.DiskResourcesDeletedEvent;
+import org.iplantc.de.diskResource.client.events.DiskResourcesMovedEvent;
+import org.iplantc.de.diskResource.client.events.FileUploadedEvent;
+import org.iplantc.de.diskResource.client.events.FolderCreatedEvent;
+
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.collect.Iterables;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.google.web.bindery.autobean.shared.AutoBean;
+import com.google.web.bindery.autobean.shared.AutoBeanCodex;
+import com.google.web.bindery.autobean.shared.AutoBeanUtils;
+
+import com.sencha.gxt.data.shared.SortDir;
+import com.sencha.gxt.data.shared.SortInfoBean;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used cache of the folder pages loaded by
+ * {@link FolderContentsRpcProxyImpl}, shared by all data windows.
+ *
+ * Pages are keyed by folder path, offset, limit, sort, entity type and info-type filters. A cached
+ * page is shown right away, and is then revalidated by the proxy; see {@link #put(Key, Folder)}.
+ * Pages are dropped when the data events for uploads, refreshes, moves, renames, deletes and new
+ * folders report that their folder has changed.
+ *
+ * Call {@code deFolderContentsCacheStats()} in the browser console to see the cache's hit and miss
+ * counts.
+ */
+@Singleton
+public class FolderContentsCache {
+
+    static final int MAX_PAGES = 50;
+    /**
+     * Pages older than this are not shown before being revalidated.
+     */
+    static final long MAX_AGE_MS = 10 * 60 * 1000;
+
+    /**
+     * Identifies a folder page.
+     */
+    public static final class Key {
+        private final String path;
+        private final String id;
+
+        Key(String path, String id) {
+            this.path = path;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && id.equals(((Key)o).id);
+        }
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return id;
+        }
+    }
+
+    private static final class Entry {
+        private final String path;
+        private final Folder page;
+        private final String payload;
+        private final long loaded;
+
+        Entry(String path, Folder page, String payload, long loaded) {
+            this.path = path;
+            this.page = page;
+            this.payload = payload;
+            this.loaded = loaded;
+        }
+    }
+
+    private final Map<Key, Entry> pages = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() > MAX_PAGES) {
+                evictions++;
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private int hits;
+    private int misses;
+    private int staleHits;
+    private int evictions;
+    private int invalidations;
+
+    @Inject
+    FolderContentsCache(final EventBus eventBus) {
+        eventBus.addHandler(FileUploadedEvent.TYPE, new FileUploadedEvent.FileUploadedEventHandler() {
+            @Override
+            public void onFileUploaded(FileUploadedEvent event) {
+                invalidate(event.getUploadDestFolder(), false);
+            }
+        });
+        eventBus.addHandler(FolderRefreshedEvent.TYPE, new FolderRefreshedEvent.FolderRefreshedEventHandler() {
+            @Override
+            public void onFolderRefreshed(FolderRefreshedEvent event) {
+                invalidate(event.getFolder(), false);
+            }
+        });
+        eventBus.addHandler(FolderCreatedEvent.TYPE, new FolderCreatedEvent.FolderCreatedEventHandler() {
+            @Override
+            public void onFolderCreated(Folder parentFolder, Folder newFolder) {
+                invalidate(parentFolder, false);
+            }
+        });
+        eventBus.addHandler(DiskResourcesMovedEvent.TYPE, new DiskResourcesMovedEvent.DiskResourcesMovedEventHandler() {
+            @Override
+            public void onDiskResourcesMoved(DiskResourcesMovedEvent event) {
+                invalidate(event.getSrcFolder(), event.isMoveContents());
+                invalidate(event.getDestinationFolder(), false);
+                invalidateAll(event.getResourcesToMove());
+            }
+        });
+        eventBus.addHandler(DiskResourcesDeletedEvent.TYPE, new DiskResourcesDeletedEvent.DiskResourcesDeletedEventHandler() {
+            @Override
+            public void onDiskResourcesDeleted(Collection<DiskResource> resources, Folder parentFolder) {
+                invalidate(parentFolder, false);
+                invalidateAll(resources);
+            }
+        });
+        eventBus.addHandler(DiskResourceRenamedEvent.TYPE, new DiskResourceRenamedEvent.DiskResourceRenamedEventHandler() {
+            @Override
+            public void onRename(DiskResource originalDr, DiskResource newDr) {
+                invalidate(parentPath(originalDr), false);
+                invalidate(originalDr, true);
+            }
+        });
+        exportStats();
+    }
+
+    /**
+     * @return the cache key of the requested folder page.
+     */
+    public Key getKey(final Folder folder,
+                      final List<InfoType> infoTypeFilterList,
+                      final TYPE entityType,
+                      final FolderContentsLoadConfig loadConfig) {
+        // Same default sort as the folder contents service call.
+        SortInfoBean sortInfo = Iterables.getFirst(loadConfig.getSortInfo(), new SortInfoBean("NAME", SortDir.ASC));
+        String id = Joiner.on('|').useForNull("").join(folder.getPath(),
+                                                       loadConfig.getOffset(),
+                                                       loadConfig.getLimit(),
+                                                       sortInfo.getSortField(),
+                                                       sortInfo.getSortDir(),
+                                                       entityType,
+                                                       infoTypeFilterList == null ? "" : Joiner.on(',').join(infoTypeFilterList));
+        return new Key(Strings.nullToEmpty(folder.getPath()), id);
+    }
+
+    /**
+     * @return the cached page, or null if it isn't cached or is too old to be shown.
+     */
+    public Folder get(final Key key) {
+        Entry entry = pages.get(key);
+        if (entry != null && System.currentTimeMillis() - entry.loaded > MAX_AGE_MS) {
+            pages.remove(key);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.page;
+    }
+
+    /**
+     * @return true if the page is cached and recent enough to be shown, without counting a hit or miss.
+     */
+    public boolean contains(final Key key) {
+        Entry entry = pages.get(key);
+        return entry != null && System.currentTimeMillis() - entry.loaded <= MAX_AGE_MS;
+    }
+
+    /**
+     * Caches a page which was loaded from the server.
+     *
+     * @return true if the page differs from the one which was cached for the same key, so that a
+     * cached page which was already shown must be replaced.
+     */
+    public boolean put(final Key key, final Folder page) {
+        final String payload = encode(page);
+        final Entry previous = pages.put(key, new Entry(key.path, page, payload, System.currentTimeMillis()));
+        final boolean changed = previous == null || payload == null || !payload.equals(previous.payload);
+        if (changed && previous != null) {
+            staleHits++;
+        }
+        return changed;
+    }
+
+    void invalidate(final HasPath folder, final boolean withSubfolders) {
+        if (folder != null) {
+            invalidate(folder.getPath(), withSubfolders);
+        }
+    }
+
+    void invalidate(final String path, final boolean withSubfolders) {
+        if (Strings.isNullOrEmpty(path)) {
+            return;
+        }
+        final String prefix = path + "/";
+        for (Iterator<Entry> it = pages.values().iterator(); it.hasNext(); ) {
+            final Entry entry = it.next();
+            if (entry.path.equals(path) || (withSubfolders && entry.path.startsWith(prefix))) {
+                it.remove();
+                invalidations++;
+            }
+        }
+    }
+
+    /**
+     * Drops the pages of the given resources, and of all their subfolders, since the paths of those
+     * subfolders no longer exist.
+     */
+    private void invalidateAll(final Collection<? extends DiskResource> resources) {
+        if (resources != null) {
+            for (DiskResource resource : resources) {
+                invalidate(resource, true);
+            }
+        }
+    }
+
+    private static String parentPath(final HasPath resource) {
+        if (resource == null || Strings.isNullOrEmpty(resource.getPath())) {
+            return null;
+        }
+        final String path = resource.getPath();
+        return path.substring(0, Math.max(0, path.lastIndexOf('/')));
+    }
+
+    private static String encode(final Folder page) {
+        final AutoBean<Folder> bean = AutoBeanUtils.getAutoBean(page);
+        return bean == null ? null : AutoBeanCodex.encode(bean).getPayload();
+    }
+
+    String getStats() {
+        final int requests = hits + misses;
+        return "pages: " + pages.size() + "/" + MAX_PAGES
+                   + ", hits: " + hits
+                   + ", misses: " + misses
+                   + ", hit rate: " + (requests == 0 ? 0 : Math.round(100.0 * hits / requests)) + "%"
+                   + ", stale hits: " + staleHits
+                   + ", evictions: " + evictions
+                   + ", invalidations: " + invalidations;
+    }
+
+    private native void exportStats() /*-{
+        var self = this;
+        $wnd.deFolderContentsCacheStats = $entry(function () {
+            return self.@org.iplantc.de.diskResource.client.presenters.grid.proxy.FolderContentsCache::getStats()();
+        });
+    }-*/;
+}
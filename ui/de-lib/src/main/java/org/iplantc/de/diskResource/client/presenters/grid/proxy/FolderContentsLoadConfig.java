@@ -21,4 +21,17 @@ public class FolderContentsLoadConfig extends FilterPagingLoadConfigBean {
         return folder;
     }
 
+    /**
+     * @return a copy of this config, which loads the page of the same size at the given offset.
+     */
+    public FolderContentsLoadConfig withOffset(int offset) {
+        FolderContentsLoadConfig config = new FolderContentsLoadConfig();
+        config.setFolder(folder);
+        config.setLimit(getLimit());
+        config.setOffset(offset);
+        config.setSortInfo(getSortInfo());
+        config.setFilters(getFilters());
+        return config;
+    }
+
 }
@@ -12,6 +12,7 @@ import org.iplantc.de.client.services.SearchServiceFacade;
 import org.iplantc.de.commons.client.info.ErrorAnnouncementConfig;
 import org.iplantc.de.commons.client.info.IplantAnnouncer;
 import org.iplantc.de.diskResource.client.GridView;
+import org.iplantc.de.diskResource.client.presenters.prefetch.DiskResourcePrefetcher;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
@@ -20,6 +21,7 @@ import com.google.common.collect.Lists;
 import com.google.gwt.safehtml.client.HasSafeHtml;
 import com.google.gwt.safehtml.shared.SafeHtmlUtils;
 import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 
@@ -28,6 +30,7 @@ import com.sencha.gxt.data.shared.loader.PagingLoadResult;
 import com.sencha.gxt.data.shared.loader.PagingLoadResultBean;
 
 import java.util.List;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -107,16 +110,26 @@ public class FolderContentsRpcProxyImpl extends RpcProxy<FolderContentsLoadConfi
 
     /**
      * Constructs a valid {@link PagingLoadResultBean} from the given {@link Folder} result.
+     *
+     * When the page was already shown from the {@link FolderContentsCache}, the result revalidates
+     * it: the page is only shown again if it has changed, and if no other page has been requested
+     * since.
      * 
      * @author jstroot
      * 
      */
     static class FolderContentsCallback implements AsyncCallback<Folder> {
+        private static final Logger LOG = Logger.getLogger(FolderContentsCallback.class.getName());
         private final FolderContentsLoadConfig loadConfig;
         private final AsyncCallback<PagingLoadResult<DiskResource>> callback;
         private final IplantAnnouncer announcer;
         private final HasSafeHtml hasSafeHtml1;
         private final GridView.Presenter.Appearance appearance;
+        private FolderContentsCache cache;
+        private FolderContentsCache.Key cacheKey;
+        private boolean shownFromCache;
+        private FolderContentsRpcProxyImpl proxy;
+        private int loadCount;
 
         public FolderContentsCallback(final IplantAnnouncer announcer,
                                       final FolderContentsLoadConfig loadConfig,
@@ -130,12 +143,39 @@ public class FolderContentsRpcProxyImpl extends RpcProxy<FolderContentsLoadConfi
             this.appearance = appearance;
         }
 
+        /**
+         * Caches the result under the given key, and revalidates the cached page if it was shown.
+         */
+        void cacheAs(final FolderContentsCache cache,
+                     final FolderContentsCache.Key cacheKey,
+                     final FolderContentsRpcProxyImpl proxy) {
+            this.cache = cache;
+            this.cacheKey = cacheKey;
+            this.proxy = proxy;
+            this.loadCount = proxy.loadCount;
+        }
+
+        void showCached(final Folder cached) {
+            shownFromCache = true;
+            show(cached);
+        }
+
         @Override
         public void onSuccess(Folder result) {
             if (callback == null || result == null) {
                 onFailure(null);
                 return;
             }
+            if (cache != null) {
+                final boolean changed = cache.put(cacheKey, result);
+                if (shownFromCache && (!changed || proxy.loadCount != loadCount)) {
+                    return;
+                }
+            }
+            show(result);
+        }
+
+        private void show(Folder result) {
             // Create list of all items within the result folder
             List<DiskResource> list = Lists.newArrayList(Iterables.concat(result.getFolders(), result.getFiles()));
             // Update the loadConfig folder with the totalFiltered count.
@@ -146,10 +186,19 @@ public class FolderContentsRpcProxyImpl extends RpcProxy<FolderContentsLoadConfi
 
             /* Set search results header to a non-breaking space to ensure it retains its height. */
             hasSafeHtml1.setHTML(SafeHtmlUtils.fromString((result.getName() != null) ? result.getName() : ""));
+
+            if (proxy != null) {
+                proxy.onPageShown(loadConfig, loadCount, result.getTotal());
+            }
         }
 
         @Override
         public void onFailure(Throwable caught) {
+            if (shownFromCache) {
+                // Keep showing the cached page.
+                LOG.log(Level.INFO, "Unable to revalidate " + cacheKey, caught);
+                return;
+            }
             if (loadConfig.getFolder() instanceof DiskResourceQueryTemplate) {
                 announcer.schedule(new ErrorAnnouncementConfig(SafeHtmlUtils.fromString(appearance.searchFailure()), true));
             }
@@ -211,6 +260,12 @@ public class FolderContentsRpcProxyImpl extends RpcProxy<FolderContentsLoadConfi
     private TYPE entityType = null;
     private HasSafeHtml hasSafeHtml;
     private final List<InfoType> infoTypeFilterList;
+    @Inject FolderContentsCache cache;
+    @Inject DiskResourcePrefetcher prefetcher;
+    /**
+     * Counts the loads, so that a revalidated page is only shown if it is still the latest one.
+     */
+    private int loadCount;
 
     final Logger LOG = Logger.getLogger(FolderContentsRpcProxyImpl.class.getName());
 
@@ -233,6 +288,10 @@ public class FolderContentsRpcProxyImpl extends RpcProxy<FolderContentsLoadConfi
 
     @Override
     public void load(final FolderContentsLoadConfig loadConfig, final AsyncCallback<PagingLoadResult<DiskResource>> callback) {
+        loadCount++;
+        if (prefetcher != null) {
+            prefetcher.cancel(this);
+        }
         final Folder folder = loadConfig.getFolder();
         if (folder.isFilter()) {
             if (callback != null) {
@@ -266,18 +325,183 @@ public class FolderContentsRpcProxyImpl extends RpcProxy<FolderContentsLoadConfi
                                                                                   callback,
                                                                                   appearance,
                                                                                   hasSafeHtml));
+        } else if (cache != null
+                       && loadConfig.getLimit() > 0
+                       && loadConfig.getOffset() % loadConfig.getLimit() != 0) {
+            loadWindow(folder, loadConfig, callback);
         } else {
+            final FolderContentsCallback folderContentsCallback = new FolderContentsCallback(announcer,
+                                                                                             loadConfig,
+                                                                                             callback,
+                                                                                             hasSafeHtml,
+                                                                                             appearance);
+            if (cache != null) {
+                final FolderContentsCache.Key cacheKey = cache.getKey(folder, infoTypeFilterList, entityType, loadConfig);
+                folderContentsCallback.cacheAs(cache, cacheKey, this);
+                final Folder cached = cache.get(cacheKey);
+                if (cached != null) {
+                    folderContentsCallback.showCached(cached);
+                } else if (prefetcher != null
+                               && prefetcher.joinPrefetch(cacheKey, new AsyncCallback<Folder>() {
+                                   @Override
+                                   public void onSuccess(Folder result) {
+                                       folderContentsCallback.onSuccess(result);
+                                   }
+
+                                   @Override
+                                   public void onFailure(Throwable caught) {
+                                       // Request the page ourselves.
+                                       drService.getFolderContents(folder,
+                                                                   infoTypeFilterList,
+                                                                   entityType,
+                                                                   loadConfig,
+                                                                   folderContentsCallback);
+                                   }
+                               })) {
+                    return;
+                }
+            }
             drService.getFolderContents(folder,
                                         infoTypeFilterList,
                                         entityType,
                                         loadConfig,
-                                        new FolderContentsCallback(announcer,
-                                                                   loadConfig,
-                                                                   callback,
-                                                                   hasSafeHtml,
-                                                                   appearance));
+                                        folderContentsCallback);
+        }
+
+    }
+
+    /**
+     * Loads a window of the folder which doesn't start on a page boundary, as the grid's live view
+     * requests while it is scrolled, from the one or two pages which hold it.
+     *
+     * Those pages are cached and prefetched like the windows which do start on a page boundary, so
+     * that scrolling through a large folder only requests each page once. They aren't revalidated,
+     * since the cache already drops them when their folder changes or when they get too old.
+     */
+    private void loadWindow(final Folder folder,
+                            final FolderContentsLoadConfig loadConfig,
+                            final AsyncCallback<PagingLoadResult<DiskResource>> callback) {
+        final int offset = loadConfig.getOffset();
+        final int load = loadCount;
+        final FolderContentsLoadConfig firstPage = loadConfig.withOffset(offset - offset % loadConfig.getLimit());
+        final FolderContentsLoadConfig secondPage = loadConfig.withOffset(firstPage.getOffset() + firstPage.getLimit());
+        loadPage(folder, firstPage, new AsyncCallback<Folder>() {
+            @Override
+            public void onSuccess(final Folder first) {
+                if (first.getTotal() <= secondPage.getOffset()) {
+                    showWindow(loadConfig, offset, callback, load, firstPage, firstPage, first);
+                    return;
+                }
+                loadPage(folder, secondPage, new AsyncCallback<Folder>() {
+                    @Override
+                    public void onSuccess(Folder second) {
+                        showWindow(loadConfig, offset, callback, load, firstPage, secondPage, first, second);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable caught) {
+                        callback.onFailure(caught);
+                    }
+                });
+            }
+
+            @Override
+            public void onFailure(Throwable caught) {
+                callback.onFailure(caught);
+            }
+        });
+    }
+
+    /**
+     * Loads a page from the cache, from the prefetcher, or from the server, and caches it.
+     */
+    private void loadPage(final Folder folder,
+                          final FolderContentsLoadConfig pageConfig,
+                          final AsyncCallback<Folder> callback) {
+        final FolderContentsCache.Key cacheKey = cache.getKey(folder, infoTypeFilterList, entityType, pageConfig);
+        final Folder cached = cache.get(cacheKey);
+        if (cached != null) {
+            callback.onSuccess(cached);
+            return;
+        }
+        final AsyncCallback<Folder> cachingCallback = new AsyncCallback<Folder>() {
+            @Override
+            public void onSuccess(Folder result) {
+                if (result == null) {
+                    onFailure(null);
+                    return;
+                }
+                cache.put(cacheKey, result);
+                callback.onSuccess(result);
+            }
+
+            @Override
+            public void onFailure(Throwable caught) {
+                callback.onFailure(caught);
+            }
+        };
+        if (prefetcher != null
+                && prefetcher.joinPrefetch(cacheKey, new AsyncCallback<Folder>() {
+                    @Override
+                    public void onSuccess(Folder result) {
+                        // The prefetcher has already cached the page.
+                        if (result == null) {
+                            onFailure(null);
+                            return;
+                        }
+                        callback.onSuccess(result);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable caught) {
+                        // Request the page ourselves.
+                        drService.getFolderContents(folder, infoTypeFilterList, entityType, pageConfig, cachingCallback);
+                    }
+                })) {
+            return;
+        }
+        drService.getFolderContents(folder, infoTypeFilterList, entityType, pageConfig, cachingCallback);
+    }
+
+    /**
+     * Shows the requested window of the given consecutive pages.
+     */
+    private void showWindow(final FolderContentsLoadConfig loadConfig,
+                            final int offset,
+                            final AsyncCallback<PagingLoadResult<DiskResource>> callback,
+                            final int load,
+                            final FolderContentsLoadConfig firstPageConfig,
+                            final FolderContentsLoadConfig lastPageConfig,
+                            final Folder... pages) {
+        final List<DiskResource> rows = Lists.newArrayList();
+        for (Folder page : pages) {
+            Iterables.addAll(rows, Iterables.concat(page.getFolders(), page.getFiles()));
         }
+        final int from = Math.min(rows.size(), offset - firstPageConfig.getOffset());
+        final int to = Math.min(rows.size(), from + lastPageConfig.getLimit());
+        final Folder lastPage = pages[pages.length - 1];
+
+        loadConfig.getFolder().setTotalFiltered(lastPage.getTotalFiltered());
+        callback.onSuccess(new PagingLoadResultBean<>(Lists.newArrayList(rows.subList(from, to)),
+                                                      lastPage.getTotal(),
+                                                      offset));
+        hasSafeHtml.setHTML(SafeHtmlUtils.fromString((lastPage.getName() != null) ? lastPage.getName() : ""));
+
+        onPageShown(lastPageConfig, load, lastPage.getTotal());
+    }
 
+    /**
+     * Prefetches the page following the one which was just shown, if it is still the latest one.
+     */
+    void onPageShown(final FolderContentsLoadConfig loadConfig, final int load, final int totalLength) {
+        if (prefetcher != null && load == loadCount) {
+            prefetcher.prefetchNextPage(this,
+                                        loadConfig.getFolder(),
+                                        infoTypeFilterList,
+                                        entityType,
+                                        loadConfig,
+                                        totalLength);
+        }
     }
 
     @Override
@@ -18,6 +18,7 @@ import org.iplantc.de.diskResource.client.events.DiskResourceRenamedEvent;
 import org.iplantc.de.diskResource.client.events.DiskResourcesDeletedEvent;
 import org.iplantc.de.diskResource.client.events.DiskResourcesMovedEvent;
 import org.iplantc.de.diskResource.client.events.FolderCreatedEvent;
+import org.iplantc.de.diskResource.client.events.FolderHoveredEvent;
 import org.iplantc.de.diskResource.client.events.FolderSelectionEvent;
 import org.iplantc.de.diskResource.client.events.RequestImportFromUrlEvent;
 import org.iplantc.de.diskResource.client.events.RequestSimpleUploadEvent;
@@ -31,11 +32,14 @@ import org.iplantc.de.diskResource.client.gin.factory.NavigationViewFactory;
 import org.iplantc.de.diskResource.client.presenters.grid.proxy.FolderContentsLoadConfig;
 import org.iplantc.de.diskResource.client.presenters.navigation.proxy.CachedFolderTreeStoreBinding;
 import org.iplantc.de.diskResource.client.presenters.navigation.proxy.SelectFolderByPathLoadHandler;
+import org.iplantc.de.diskResource.client.presenters.prefetch.DiskResourcePrefetcher;
 import org.iplantc.de.diskResource.client.views.navigation.NavigationViewDnDHandler;
 
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.dom.client.Element;
 import com.google.gwt.event.shared.HandlerRegistration;
@@ -44,11 +48,15 @@ import com.google.inject.Inject;
 import com.sencha.gxt.data.shared.TreeStore;
 import com.sencha.gxt.data.shared.event.StoreDataChangeEvent;
 import com.sencha.gxt.data.shared.loader.BeforeLoadEvent;
+import com.sencha.gxt.data.shared.loader.LoadEvent;
+import com.sencha.gxt.data.shared.loader.LoadHandler;
 import com.sencha.gxt.data.shared.loader.TreeLoader;
 import com.sencha.gxt.widget.core.client.tree.Tree;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author jstroot
@@ -56,6 +64,7 @@ import java.util.List;
 public class NavigationPresenterImpl implements
                                     NavigationView.Presenter,
                                     FolderSelectionEvent.FolderSelectionEventHandler,
+                                    FolderHoveredEvent.FolderHoveredEventHandler,
                                     FolderRefreshedEvent.FolderRefreshedEventHandler,
                                     DiskResourcesDeletedEvent.DiskResourcesDeletedEventHandler,
                                     DiskResourceRenamedEvent.DiskResourceRenamedEventHandler,
@@ -94,6 +103,7 @@ public class NavigationPresenterImpl implements
     @Inject NavigationView.Presenter.Appearance appearance;
     private final DiskResourceUtil diskResourceUtil;
     @Inject UserInfo userInfo;
+    @Inject DiskResourcePrefetcher prefetcher;
     private final EventBus eventBus;
     private final DiskResourceView.FolderRpcProxy folderRpcProxy;
     private final List<HandlerRegistration> handlerRegistrations;
@@ -101,6 +111,11 @@ public class NavigationPresenterImpl implements
     private final NavigationView view;
     private IsMaskable maskable;
     private DiskResourceView.Presenter parentPresenter;
+    /**
+     * The ids of the folders which were expanded in each dropped subtree, keyed by the id of the
+     * subtree's root, so that they are expanded again once they are reloaded.
+     */
+    private final Map<String, Set<String>> foldersToExpand = Maps.newHashMap();
 
     @Inject
     NavigationPresenterImpl(final NavigationViewFactory viewFactory,
@@ -120,9 +135,21 @@ public class NavigationPresenterImpl implements
         handlerRegistrations = Lists.newArrayList();
 
         view.addFolderSelectedEventHandler(this);
+        view.addFolderHoveredEventHandler(this);
         this.treeStore.addStoreDataChangeHandler(new FolderStoreDataChangeHandler(view.getTree(),
                                                                                   appearance));
-        this.treeLoader.addLoadHandler(new CachedFolderTreeStoreBinding(treeStore));
+        this.treeLoader.addLoadHandler(new CachedFolderTreeStoreBinding(treeStore) {
+            @Override
+            protected void dropSubtree(Folder folder) {
+                dropChangedSubtree(folder);
+            }
+        });
+        this.treeLoader.addLoadHandler(new LoadHandler<Folder, List<Folder>>() {
+            @Override
+            public void onLoad(LoadEvent<Folder, List<Folder>> event) {
+                expandReloadedFolders();
+            }
+        });
 
         // Wire up global event handlers
         handlerRegistrations.add(eventBus.addHandler(FolderRefreshedEvent.TYPE, this));
@@ -221,8 +248,16 @@ public class NavigationPresenterImpl implements
         reloadTreeStoreFolderChildren(parentFolder);
     }
 
+    @Override
+    public void onFolderHovered(FolderHoveredEvent event) {
+        prefetcher.prefetchSubFolders(this, event.getHoveredFolder());
+    }
+
     @Override
     public void onFolderSelected(FolderSelectionEvent event) {
+        // Folders hovered on the way to this one are no longer of interest.
+        prefetcher.cancel(this);
+        prefetcher.prefetchSubFolders(this, event.getSelectedFolder());
         if (event.getSelectedFolder() instanceof DiskResourceQueryTemplate) {
             // If the given query has not been saved, we need to deselect everything
             DiskResourceQueryTemplate searchQuery = (DiskResourceQueryTemplate)event.getSelectedFolder();
@@ -308,6 +343,7 @@ public class NavigationPresenterImpl implements
         for (HandlerRegistration hr : handlerRegistrations) {
             eventBus.removeHandler(hr);
         }
+        prefetcher.cancel(this);
     }
 
     @Override
@@ -389,21 +425,16 @@ public class NavigationPresenterImpl implements
             isDescendant = diskResourceUtil.isDescendantOfFolder(folder, selectedFolder);
         }
 
-        removeChildren(folder);
-
         if (isCurrent || isDescendant) {
             if (!(selectedFolder instanceof DiskResourceQueryTemplate)) {
                 // Re-select selectedFolder to cause a selection changed event
-                // or to trigger lazy-loading
                 setSelectedFolder((HasPath)selectedFolder);
             }
         }
 
-        if (!isDescendant) {
-            // Only trigger a load of the refreshed folder if selectedFolder is not its descendant,
-            // otherwise the lazy-loader will handle expanding and loading the refreshed folder.
-            treeLoader.load(folder);
-        }
+        // The folder's subtree is kept, and the reloaded listing is applied to it, so that its
+        // unchanged subfolders stay expanded and selected.
+        treeLoader.load(folder);
     }
 
     @Override
@@ -470,6 +501,63 @@ public class NavigationPresenterImpl implements
         view.getTree().getSelectionModel().deselectAll();
     }
 
+    /**
+     * Drops the subtree of a reloaded folder whose contents have changed, remembering which of its
+     * folders were expanded. If the selected folder was in the subtree, it is selected again, which
+     * lazy-loads the subtree down to it.
+     */
+    void dropChangedSubtree(Folder folder) {
+        final Tree<Folder, Folder> tree = view.getTree();
+        Set<String> expanded = foldersToExpand.get(folder.getId());
+        if (expanded == null) {
+            expanded = Sets.newLinkedHashSet();
+        }
+        if (tree.isExpanded(folder)) {
+            expanded.add(folder.getId());
+            tree.setExpanded(folder, false);
+        }
+        for (Folder child : treeStore.getAllChildren(folder)) {
+            if (tree.isExpanded(child)) {
+                expanded.add(child.getId());
+            }
+        }
+        if (!expanded.isEmpty()) {
+            foldersToExpand.put(folder.getId(), expanded);
+        }
+
+        final Folder selectedFolder = getSelectedFolder();
+        final boolean selectionDropped = selectedFolder != null
+                                             && diskResourceUtil.isDescendantOfFolder(folder, selectedFolder);
+
+        removeChildren(folder);
+
+        if (selectionDropped && !(selectedFolder instanceof DiskResourceQueryTemplate)) {
+            setSelectedFolder((HasPath)selectedFolder);
+        }
+    }
+
+    /**
+     * Expands the folders of dropped subtrees which were expanded before they were dropped, once
+     * they are back in the tree store. Expanding a folder may load it, and call this again.
+     */
+    void expandReloadedFolders() {
+        for (String subtreeId : Lists.newArrayList(foldersToExpand.keySet())) {
+            final Set<String> expanded = foldersToExpand.get(subtreeId);
+            if (expanded == null) {
+                continue;
+            }
+            for (String id : Lists.newArrayList(expanded)) {
+                final Folder folder = treeStore.findModelWithKey(id);
+                if (folder != null && expanded.remove(id)) {
+                    view.getTree().setExpanded(folder, true);
+                }
+            }
+            if (expanded.isEmpty() && foldersToExpand.get(subtreeId) == expanded) {
+                foldersToExpand.remove(subtreeId);
+            }
+        }
+    }
+
     void removeChildren(Folder folder) {
         if (folder == null || treeStore.findModel(folder) == null) {
             return;
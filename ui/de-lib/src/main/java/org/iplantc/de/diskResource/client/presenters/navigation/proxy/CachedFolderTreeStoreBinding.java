@@ -2,12 +2,18 @@ package org.iplantc.de.diskResource.client.presenters.navigation.proxy;
 
 import org.iplantc.de.client.models.diskResources.Folder;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
 import com.sencha.gxt.data.shared.TreeStore;
 import com.sencha.gxt.data.shared.loader.ChildTreeStoreBinding;
 import com.sencha.gxt.data.shared.loader.LoadEvent;
 import com.sencha.gxt.data.shared.loader.LoadHandler;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * A LoadHandler, based on {@link ChildTreeStoreBinding}, that will recursively load all subfolders found
@@ -15,6 +21,12 @@ import java.util.List;
  * by the service facade. This will also prevent a view from firing a Refresh event if some child isn't
  * already loaded in the TreeStore, even though it may be cached by the service facade (a Refresh event
  * will cause the folder to be loaded from the service regardless its cached status).
+ * <p/>
+ * Subfolders which are already in the TreeStore are kept, along with their subtrees, so that reloading
+ * a folder doesn't collapse or deselect its unchanged subfolders. Only the differences from the service
+ * facade's cached subfolders are applied: subfolders which are no longer listed are removed, new ones are
+ * inserted, and changed ones are updated. A changed subfolder whose subfolders are no longer cached by the
+ * service facade has its subtree dropped, see {@link #dropSubtree(Folder)}.
  * 
  * @author psarando
  * 
@@ -33,7 +45,22 @@ public class CachedFolderTreeStoreBinding implements LoadHandler<Folder, List<Fo
 
     @Override
     public void onLoad(LoadEvent<Folder, List<Folder>> event) {
-        replaceSubfolders(event.getLoadConfig(), event.getLoadResult());
+        final Folder parent = event.getLoadConfig();
+        if (parent == null || store.findModel(parent) == null) {
+            replaceSubfolders(parent, event.getLoadResult());
+        } else {
+            syncSubfolders(parent, event.getLoadResult());
+        }
+    }
+
+    /**
+     * Removes the subfolders of a folder whose contents have changed, so that they are loaded again
+     * when they are next needed.
+     *
+     * @param folder the folder, as found in the store.
+     */
+    protected void dropSubtree(Folder folder) {
+        store.removeChildren(folder);
     }
 
     private void replaceSubfolders(Folder parent, List<Folder> subfolders) {
@@ -44,4 +71,42 @@ public class CachedFolderTreeStoreBinding implements LoadHandler<Folder, List<Fo
             }
         }
     }
+
+    private void syncSubfolders(Folder parent, List<Folder> subfolders) {
+        if (subfolders == null) {
+            return;
+        }
+
+        final Set<String> listed = Sets.newHashSet();
+        for (Folder folder : subfolders) {
+            listed.add(folder.getId());
+        }
+        final Map<String, Folder> current = Maps.newHashMap();
+        for (Folder child : Lists.newArrayList(store.getChildren(parent))) {
+            if (listed.contains(child.getId())) {
+                current.put(child.getId(), child);
+            } else {
+                store.remove(child);
+            }
+        }
+
+        for (int i = 0; i < subfolders.size(); i++) {
+            final Folder folder = subfolders.get(i);
+            final Folder child = current.get(folder.getId());
+            if (child == null) {
+                // The folder may have been moved here from elsewhere in the tree.
+                final Folder moved = store.findModel(folder);
+                if (moved != null) {
+                    store.remove(moved);
+                }
+                store.insert(parent, i, folder);
+            } else if (child != folder) {
+                if (folder.getFolders() == null && store.hasChildren(child)) {
+                    dropSubtree(child);
+                }
+                store.update(folder);
+            }
+            syncSubfolders(folder, folder.getFolders());
+        }
+    }
 }
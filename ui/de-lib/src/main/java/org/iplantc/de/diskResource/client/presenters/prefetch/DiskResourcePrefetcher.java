@@ -0,0 +1,231 @@
+package org.iplantc.de.diskResource.client.presenters.prefetch;
+
+import org.iplantc.de.client.models.diskResources.DiskResourceFavorite;
+import org.iplantc.de.client.models.diskResources.Folder;
+import org.iplantc.de.client.models.diskResources.TYPE;
+import org.iplantc.de.client.models.search.DiskResourceQueryTemplate;
+import org.iplantc.de.client.models.viewer.InfoType;
+import org.iplantc.de.client.services.DiskResourceServiceFacade;
+import org.iplantc.de.diskResource.client.presenters.grid.proxy.FolderContentsCache;
+import org.iplantc.de.diskResource.client.presenters.grid.proxy.FolderContentsLoadConfig;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fetches the data the user is likely to ask for next, while the browser is idle: the next page of
+ * the folder shown in a data window's grid, and the subfolders of the folders hovered or selected
+ * in its navigation tree.
+ *
+ * Pages are stored in the {@link FolderContentsCache}, and subfolders in the tree store maintained
+ * by the {@link DiskResourceServiceFacade}, so they are shown without a round-trip once requested.
+ * At most {@link #MAX_CONCURRENT} prefetches run at a time; the most recently requested ones run
+ * first, and those still queued are dropped when their requester navigates away.
+ */
+@Singleton
+public class DiskResourcePrefetcher {
+
+    static final int MAX_CONCURRENT = 2;
+    static final int MAX_QUEUED = 10;
+
+    private static final Logger LOG = Logger.getLogger(DiskResourcePrefetcher.class.getName());
+
+    /**
+     * A queued prefetch.
+     */
+    private abstract class Job {
+        private final Object owner;
+        private final String key;
+
+        Job(Object owner, String key) {
+            this.owner = owner;
+            this.key = key;
+        }
+
+        /**
+         * Starts the prefetch, which must call {@link DiskResourcePrefetcher#finished(Job)} once it has completed.
+         */
+        abstract void run();
+    }
+
+    private final DiskResourceServiceFacade drService;
+    private final FolderContentsCache cache;
+    private final IdleScheduler idleScheduler;
+    private final LinkedList<Job> queue = Lists.newLinkedList();
+    private final Set<String> running = Sets.newHashSet();
+    private final Map<FolderContentsCache.Key, List<AsyncCallback<Folder>>> pagesInFlight = Maps.newHashMap();
+    private boolean scheduled;
+
+    @Inject
+    DiskResourcePrefetcher(final DiskResourceServiceFacade drService,
+                           final FolderContentsCache cache,
+                           final IdleScheduler idleScheduler) {
+        this.drService = drService;
+        this.cache = cache;
+        this.idleScheduler = idleScheduler;
+    }
+
+    /**
+     * Prefetches the page which follows the one which was just shown.
+     *
+     * @param owner the requester, whose queued prefetches are dropped by {@link #cancel(Object)}.
+     * @param loadConfig the load config of the page which was just shown.
+     * @param totalLength the number of items in the folder.
+     */
+    public void prefetchNextPage(final Object owner,
+                                 final Folder folder,
+                                 final List<InfoType> infoTypeFilterList,
+                                 final TYPE entityType,
+                                 final FolderContentsLoadConfig loadConfig,
+                                 final int totalLength) {
+        final int nextOffset = loadConfig.getOffset() + loadConfig.getLimit();
+        if (loadConfig.getLimit() <= 0 || nextOffset >= totalLength) {
+            return;
+        }
+        final FolderContentsLoadConfig nextConfig = loadConfig.withOffset(nextOffset);
+
+        final FolderContentsCache.Key key = cache.getKey(folder, infoTypeFilterList, entityType, nextConfig);
+        if (cache.contains(key)) {
+            return;
+        }
+        enqueue(new Job(owner, "page:" + key) {
+            @Override
+            void run() {
+                final Job job = this;
+                pagesInFlight.put(key, Lists.<AsyncCallback<Folder>>newArrayList());
+                drService.getFolderContents(folder, infoTypeFilterList, entityType, nextConfig, new AsyncCallback<Folder>() {
+                    @Override
+                    public void onSuccess(Folder result) {
+                        finished(job);
+                        if (result != null) {
+                            cache.put(key, result);
+                        }
+                        for (AsyncCallback<Folder> waiting : pagesInFlight.remove(key)) {
+                            waiting.onSuccess(result);
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Throwable caught) {
+                        finished(job);
+                        LOG.log(Level.INFO, "Unable to prefetch " + key, caught);
+                        for (AsyncCallback<Folder> waiting : pagesInFlight.remove(key)) {
+                            waiting.onFailure(caught);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Prefetches the subfolders of a folder which the user may expand.
+     *
+     * @param owner the requester, whose queued prefetches are dropped by {@link #cancel(Object)}.
+     */
+    public void prefetchSubFolders(final Object owner, final Folder folder) {
+        if (folder == null
+                || folder.isFilter()
+                || folder instanceof DiskResourceQueryTemplate
+                || folder instanceof DiskResourceFavorite
+                || !folder.hasSubDirs()
+                || folder.getFolders() != null) {
+            return;
+        }
+        enqueue(new Job(owner, "folders:" + folder.getPath()) {
+            @Override
+            void run() {
+                final Job job = this;
+                drService.getSubFolders(folder, new AsyncCallback<List<Folder>>() {
+                    @Override
+                    public void onSuccess(List<Folder> result) {
+                        finished(job);
+                    }
+
+                    @Override
+                    public void onFailure(Throwable caught) {
+                        LOG.log(Level.INFO, "Unable to prefetch the subfolders of " + folder.getPath(), caught);
+                        finished(job);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Waits for a page which is being prefetched, instead of requesting it again.
+     *
+     * @return true if the page is being prefetched, and the callback will receive it.
+     */
+    public boolean joinPrefetch(final FolderContentsCache.Key key, final AsyncCallback<Folder> callback) {
+        final List<AsyncCallback<Folder>> waiting = pagesInFlight.get(key);
+        if (waiting == null) {
+            return false;
+        }
+        waiting.add(callback);
+        return true;
+    }
+
+    /**
+     * Drops the queued prefetches of a requester, which has navigated away.
+     */
+    public void cancel(final Object owner) {
+        for (Iterator<Job> it = queue.iterator(); it.hasNext(); ) {
+            if (it.next().owner == owner) {
+                it.remove();
+            }
+        }
+    }
+
+    private void enqueue(final Job job) {
+        if (running.contains(job.key)) {
+            return;
+        }
+        for (Iterator<Job> it = queue.iterator(); it.hasNext(); ) {
+            if (it.next().key.equals(job.key)) {
+                it.remove();
+            }
+        }
+        queue.addFirst(job);
+        if (queue.size() > MAX_QUEUED) {
+            queue.removeLast();
+        }
+        schedule();
+    }
+
+    private void finished(final Job job) {
+        running.remove(job.key);
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled || queue.isEmpty() || running.size() >= MAX_CONCURRENT) {
+            return;
+        }
+        scheduled = true;
+        idleScheduler.scheduleIdle(new Command() {
+            @Override
+            public void execute() {
+                scheduled = false;
+                while (!queue.isEmpty() && running.size() < MAX_CONCURRENT) {
+                    final Job job = queue.removeFirst();
+                    running.add(job.key);
+                    job.run();
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,25 @@
+package org.iplantc.de.diskResource.client.presenters.prefetch;
+
+import com.google.gwt.user.client.Command;
+
+/**
+ * Runs commands when the browser is idle, or after a short delay in browsers which can't tell.
+ */
+public class IdleScheduler {
+
+    /**
+     * Schedules a command to run once the browser is idle.
+     *
+     * @param command the command to run.
+     */
+    public native void scheduleIdle(Command command) /*-{
+        var run = $entry(function () {
+            command.@com.google.gwt.user.client.Command::execute()();
+        });
+        if ($wnd.requestIdleCallback) {
+            $wnd.requestIdleCallback(run, {timeout: 2000});
+        } else {
+            $wnd.setTimeout(run, 250);
+        }
+    }-*/;
+}
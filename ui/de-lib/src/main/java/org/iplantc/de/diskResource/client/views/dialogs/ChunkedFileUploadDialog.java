@@ -0,0 +1,248 @@
+package org.iplantc.de.diskResource.client.views.dialogs;
+
+import org.iplantc.de.client.events.EventBus;
+import org.iplantc.de.client.models.HasPath;
+import org.iplantc.de.client.models.HasPaths;
+import org.iplantc.de.client.models.diskResources.DiskResourceAutoBeanFactory;
+import org.iplantc.de.client.services.DiskResourceServiceFacade;
+import org.iplantc.de.client.util.DiskResourceUtil;
+import org.iplantc.de.commons.client.info.ErrorAnnouncementConfig;
+import org.iplantc.de.commons.client.info.IplantAnnouncer;
+import org.iplantc.de.commons.client.views.dialogs.IPlantDialog;
+import org.iplantc.de.diskResource.client.events.FileUploadedEvent;
+import org.iplantc.de.diskResource.client.views.dialogs.ChunkedFileUploader.NativeFile;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.event.dom.client.ChangeEvent;
+import com.google.gwt.event.dom.client.ChangeHandler;
+import com.google.gwt.safehtml.shared.SafeHtml;
+import com.google.gwt.safehtml.shared.SafeUri;
+import com.google.gwt.user.client.ui.FileUpload;
+import com.google.gwt.user.client.ui.HTML;
+
+import com.sencha.gxt.widget.core.client.ProgressBar;
+import com.sencha.gxt.widget.core.client.box.ConfirmMessageBox;
+import com.sencha.gxt.widget.core.client.container.VerticalLayoutContainer;
+import com.sencha.gxt.widget.core.client.container.VerticalLayoutContainer.VerticalLayoutData;
+import com.sencha.gxt.widget.core.client.event.DialogHideEvent;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uploads large files through the chunked upload servlet, showing the combined progress of all
+ * selected files.
+ *
+ * Each file is uploaded by a {@link ChunkedFileUploader}, so interrupted uploads can be resumed by
+ * selecting the same files again.
+ */
+public class ChunkedFileUploadDialog extends IPlantDialog {
+
+    public interface ChunkedFileUploadDialogAppearance {
+
+        String closeConfirmMessage();
+
+        String confirmAction();
+
+        String fileExist();
+
+        String fileUploadsFailed(List<String> strings);
+
+        String heading();
+
+        SafeHtml renderDestinationPathLabel(String destPath, String parentPath);
+
+        String upload();
+
+        String uploadProgress(int filesDone, int fileCount, int percent);
+    }
+
+    private static final String DIALOG_WIDTH = "475";
+    private final DiskResourceAutoBeanFactory FS_FACTORY = GWT.create(DiskResourceAutoBeanFactory.class);
+
+    private final HasPath uploadDest;
+    private final DiskResourceServiceFacade drService;
+    private final EventBus eventBus;
+    private final DiskResourceUtil diskResourceUtil;
+    private final SafeUri chunkedUploadServlet;
+    private final ChunkedFileUploadDialogAppearance appearance;
+    private final FileUpload fileInput = new FileUpload();
+    private final ProgressBar progressBar = new ProgressBar();
+    private final List<ChunkedFileUploader> activeUploads = Lists.newArrayList();
+    private final Map<ChunkedFileUploader, Double> bytesSent = Maps.newHashMap();
+    private int fileCount;
+    private int filesDone;
+    private double totalSize;
+
+    public ChunkedFileUploadDialog(final HasPath uploadDest,
+                                   final DiskResourceServiceFacade drService,
+                                   final EventBus eventBus,
+                                   final DiskResourceUtil diskResourceUtil,
+                                   final SafeUri chunkedUploadServlet) {
+        this.uploadDest = uploadDest;
+        this.drService = drService;
+        this.eventBus = eventBus;
+        this.diskResourceUtil = diskResourceUtil;
+        this.chunkedUploadServlet = chunkedUploadServlet;
+        appearance = GWT.create(ChunkedFileUploadDialogAppearance.class);
+        setAutoHide(false);
+        setHideOnButtonClick(false);
+        setModal(false);
+        setHeadingText(appearance.heading());
+        getOkButton().setText(appearance.upload());
+        getOkButton().setEnabled(false);
+        addCancelButtonSelectHandler(new HideSelectHandler(this));
+
+        fileInput.getElement().setPropertyBoolean("multiple", true);
+        fileInput.addChangeHandler(new ChangeHandler() {
+            @Override
+            public void onChange(ChangeEvent event) {
+                getOkButton().setEnabled(getSelectedFiles().length() > 0);
+            }
+        });
+        progressBar.setVisible(false);
+
+        final String destPath = uploadDest.getPath();
+        final HTML destText = new HTML(appearance.renderDestinationPathLabel(destPath,
+                                                                             diskResourceUtil.parseNameFromPath(destPath)));
+        final VerticalLayoutContainer container = new VerticalLayoutContainer();
+        container.setWidth(DIALOG_WIDTH);
+        container.add(destText, new VerticalLayoutData(1, -1));
+        container.add(fileInput, new VerticalLayoutData(1, -1));
+        container.add(progressBar, new VerticalLayoutData(1, -1));
+        add(container);
+    }
+
+    @Override
+    protected void onOkButtonClicked() {
+        final JsArray<NativeFile> files = getSelectedFiles();
+        final Map<String, NativeFile> destResourceMap = Maps.newHashMap();
+        for (int i = 0; i < files.length(); i++) {
+            destResourceMap.put(uploadDest.getPath() + "/" + files.get(i).getName(), files.get(i));
+        }
+        if (destResourceMap.isEmpty()) {
+            return;
+        }
+
+        getOkButton().setEnabled(false);
+        final List<String> ids = Lists.newArrayList(destResourceMap.keySet());
+        final HasPaths dto = FS_FACTORY.pathsList().as();
+        dto.setPaths(ids);
+        drService.diskResourcesExist(dto, new DuplicateDiskResourceCallback(ids, null) {
+            @Override
+            public void markDuplicates(Collection<String> duplicates) {
+                if (duplicates != null && !duplicates.isEmpty()) {
+                    final List<String> names = Lists.newArrayList();
+                    for (String id : duplicates) {
+                        names.add(destResourceMap.get(id).getName());
+                    }
+                    IplantAnnouncer.getInstance().schedule(new ErrorAnnouncementConfig(appearance.fileExist() + " " + names));
+                    getOkButton().setEnabled(true);
+                } else {
+                    startUploads(destResourceMap.values());
+                }
+            }
+        });
+    }
+
+    @Override
+    public void hide() {
+        if (activeUploads.isEmpty()) {
+            super.hide();
+            return;
+        }
+
+        final ConfirmMessageBox cmb = new ConfirmMessageBox(appearance.confirmAction(),
+                                                            appearance.closeConfirmMessage());
+        cmb.addDialogHideHandler(new DialogHideEvent.DialogHideHandler() {
+            @Override
+            public void onDialogHide(DialogHideEvent event) {
+                if (PredefinedButton.YES.equals(event.getHideButton())) {
+                    for (ChunkedFileUploader uploader : activeUploads) {
+                        uploader.cancel();
+                    }
+                    activeUploads.clear();
+                    ChunkedFileUploadDialog.super.hide();
+                }
+            }
+        });
+        cmb.show();
+    }
+
+    private void startUploads(final Collection<NativeFile> files) {
+        fileInput.setEnabled(false);
+        progressBar.setVisible(true);
+        fileCount = files.size();
+        for (NativeFile file : files) {
+            totalSize += file.getSize();
+        }
+        updateProgress();
+
+        for (NativeFile file : files) {
+            final UploadCallback callback = new UploadCallback(file);
+            final ChunkedFileUploader uploader = new ChunkedFileUploader(chunkedUploadServlet.asString(),
+                                                                         uploadDest.getPath(),
+                                                                         file,
+                                                                         callback);
+            callback.uploader = uploader;
+            activeUploads.add(uploader);
+            bytesSent.put(uploader, 0d);
+            uploader.start();
+        }
+    }
+
+    private void updateProgress() {
+        double sent = 0;
+        for (Double bytes : bytesSent.values()) {
+            sent += bytes;
+        }
+        final double fraction = totalSize > 0 ? sent / totalSize : 0;
+        progressBar.updateProgress(fraction, appearance.uploadProgress(filesDone, fileCount, (int)(100 * fraction)));
+    }
+
+    private void onUploadFinished(final ChunkedFileUploader uploader) {
+        activeUploads.remove(uploader);
+        filesDone++;
+        updateProgress();
+        if (activeUploads.isEmpty()) {
+            hide();
+        }
+    }
+
+    private JsArray<NativeFile> getSelectedFiles() {
+        return ChunkedFileUploader.getFiles(fileInput.getElement());
+    }
+
+    private final class UploadCallback implements ChunkedFileUploader.Callback {
+        private final NativeFile file;
+        private ChunkedFileUploader uploader;
+
+        UploadCallback(final NativeFile file) {
+            this.file = file;
+        }
+
+        @Override
+        public void onProgress(double sent, double size) {
+            bytesSent.put(uploader, sent);
+            updateProgress();
+        }
+
+        @Override
+        public void onSuccess(String results) {
+            eventBus.fireEvent(new FileUploadedEvent(uploadDest, file.getName(), results));
+            onUploadFinished(uploader);
+        }
+
+        @Override
+        public void onFailure(String message) {
+            GWT.log("Chunked upload of " + file.getName() + " failed: " + message);
+            IplantAnnouncer.getInstance().schedule(
+                    new ErrorAnnouncementConfig(appearance.fileUploadsFailed(Lists.newArrayList(file.getName()))));
+            onUploadFinished(uploader);
+        }
+    }
+}
@@ -0,0 +1,410 @@
+package org.iplantc.de.diskResource.client.views.dialogs;
+
+import com.google.common.collect.Lists;
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.http.client.URL;
+import com.google.gwt.storage.client.Storage;
+import com.google.web.bindery.autobean.shared.Splittable;
+import com.google.web.bindery.autobean.shared.impl.StringQuoter;
+
+import java.util.LinkedList;
+
+/**
+ * Uploads a single file to the chunked upload servlet.
+ *
+ * The file is sliced into the chunks described by the server, and up to {@link #MAX_PARALLEL_CHUNKS}
+ * chunks are sent at a time, each with its CRC-32 so that the server can reject corrupted chunks.
+ * Failed chunks are retried a few times before the upload is abandoned. The upload ID is kept in
+ * local storage, so an upload of the same file to the same folder which was interrupted, e.g. by
+ * closing the browser, resumes from the chunks the server already holds.
+ */
+public class ChunkedFileUploader {
+
+    public interface Callback {
+
+        void onProgress(double bytesSent, double size);
+
+        void onSuccess(String results);
+
+        void onFailure(String message);
+    }
+
+    /**
+     * A browser {@code File} object.
+     */
+    public static final class NativeFile extends JavaScriptObject {
+
+        protected NativeFile() {
+        }
+
+        public native String getName() /*-{
+            return this.name;
+        }-*/;
+
+        public native double getSize() /*-{
+            return this.size;
+        }-*/;
+
+        public native double getLastModified() /*-{
+            return this.lastModified || (this.lastModifiedDate ? this.lastModifiedDate.getTime() : 0);
+        }-*/;
+    }
+
+    /**
+     * Receives the events of a single chunk request from native code.
+     */
+    interface ChunkCallback {
+
+        void onProgress(double loaded);
+
+        void onComplete(int status, String text);
+    }
+
+    static final String CHUNK_CRC_HEADER = "X-DE-Chunk-CRC32";
+    static final int MAX_PARALLEL_CHUNKS = 3;
+    static final int MAX_CHUNK_ATTEMPTS = 3;
+    /**
+     * The status the server rejects chunks with while its staging quota is used up.
+     */
+    static final int SC_INSUFFICIENT_STORAGE = 507;
+    private static final String STORAGE_KEY_PREFIX = "de.chunkedUpload.";
+
+    private static JavaScriptObject crcTable;
+
+    private final String servletUrl;
+    private final String dest;
+    private final NativeFile file;
+    private final Callback callback;
+    private final Storage storage = Storage.getLocalStorageIfSupported();
+    private final LinkedList<Integer> pendingChunks = Lists.newLinkedList();
+    private final double[] chunkProgress = new double[MAX_PARALLEL_CHUNKS];
+    private final boolean[] busySlots = new boolean[MAX_PARALLEL_CHUNKS];
+    private int[] attempts;
+    private double chunkSize;
+    private double bytesConfirmed;
+    private String uploadId;
+    private int activeChunks;
+    private boolean failed;
+    private boolean cancelled;
+
+    public ChunkedFileUploader(final String servletUrl,
+                               final String dest,
+                               final NativeFile file,
+                               final Callback callback) {
+        this.servletUrl = servletUrl;
+        this.dest = dest;
+        this.file = file;
+        this.callback = callback;
+    }
+
+    /**
+     * @return true if the browser can slice files and send them with XMLHttpRequest.
+     */
+    public static native boolean isSupported() /*-{
+        return !!($wnd.File && $wnd.Blob && $wnd.FileReader && $wnd.Uint8Array
+            && $wnd.Blob.prototype.slice && $wnd.XMLHttpRequest);
+    }-*/;
+
+    /**
+     * @param input a file input element.
+     * @return the files selected in the input.
+     */
+    public static native JsArray<NativeFile> getFiles(Element input) /*-{
+        var files = input.files || [];
+        var result = [];
+        for (var i = 0; i < files.length; i++) {
+            result.push(files[i]);
+        }
+        return result;
+    }-*/;
+
+    public NativeFile getFile() {
+        return file;
+    }
+
+    /**
+     * Starts the upload, resuming a previous upload of the same file if the server still has it.
+     */
+    public void start() {
+        final String savedId = storage == null ? null : storage.getItem(getStorageKey());
+        if (savedId == null) {
+            startNewUpload();
+            return;
+        }
+
+        send(RequestBuilder.GET, servletUrl + "/" + URL.encodePathSegment(savedId), new RequestCallback() {
+            @Override
+            public void onResponseReceived(Request request, Response response) {
+                if (response.getStatusCode() == Response.SC_OK) {
+                    beginChunks(StringQuoter.split(response.getText()));
+                } else {
+                    startNewUpload();
+                }
+            }
+
+            @Override
+            public void onError(Request request, Throwable exception) {
+                startNewUpload();
+            }
+        });
+    }
+
+    /**
+     * Stops sending chunks and discards the chunks already held by the server.
+     */
+    public void cancel() {
+        if (cancelled) {
+            return;
+        }
+        cancelled = true;
+        if (uploadId != null) {
+            forgetUploadId();
+            send(RequestBuilder.DELETE, getUploadUrl(), null);
+        }
+    }
+
+    private void startNewUpload() {
+        final String url = servletUrl + "?dest=" + URL.encodeQueryString(dest)
+                               + "&fileName=" + URL.encodeQueryString(file.getName())
+                               + "&size=" + (long)file.getSize();
+        send(RequestBuilder.POST, url, new RequestCallback() {
+            @Override
+            public void onResponseReceived(Request request, Response response) {
+                if (response.getStatusCode() == Response.SC_CREATED) {
+                    beginChunks(StringQuoter.split(response.getText()));
+                } else {
+                    fail(response.getText());
+                }
+            }
+
+            @Override
+            public void onError(Request request, Throwable exception) {
+                fail(exception.getMessage());
+            }
+        });
+    }
+
+    private void beginChunks(final Splittable status) {
+        if (cancelled) {
+            return;
+        }
+        uploadId = status.get("uploadId").asString();
+        chunkSize = status.get("chunkSize").asNumber();
+        bytesConfirmed = status.get("bytesReceived").asNumber();
+        if (storage != null) {
+            storage.setItem(getStorageKey(), uploadId);
+        }
+
+        final int chunkCount = (int)status.get("chunkCount").asNumber();
+        final boolean[] received = new boolean[chunkCount];
+        final Splittable receivedChunks = status.get("received");
+        for (int i = 0; i < receivedChunks.size(); i++) {
+            received[(int)receivedChunks.get(i).asNumber()] = true;
+        }
+        attempts = new int[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            if (!received[i]) {
+                pendingChunks.add(i);
+            }
+        }
+
+        reportProgress();
+        sendNextChunks();
+    }
+
+    private void sendNextChunks() {
+        if (pendingChunks.isEmpty() && activeChunks == 0) {
+            completeUpload();
+            return;
+        }
+        for (int slot = 0; slot < MAX_PARALLEL_CHUNKS && !pendingChunks.isEmpty() && !failed && !cancelled; slot++) {
+            if (!busySlots[slot]) {
+                sendChunk(slot, pendingChunks.removeFirst());
+            }
+        }
+    }
+
+    private void sendChunk(final int slot, final int index) {
+        busySlots[slot] = true;
+        activeChunks++;
+        attempts[index]++;
+        chunkProgress[slot] = 0;
+
+        final double start = index * chunkSize;
+        final double end = Math.min(start + chunkSize, file.getSize());
+        final String url = getUploadUrl() + "/" + index;
+        sendNativeChunk(url, file, start, end, CHUNK_CRC_HEADER, new ChunkCallback() {
+            @Override
+            public void onProgress(double loaded) {
+                chunkProgress[slot] = loaded;
+                reportProgress();
+            }
+
+            @Override
+            public void onComplete(int status, String text) {
+                busySlots[slot] = false;
+                activeChunks--;
+                chunkProgress[slot] = 0;
+                if (cancelled || failed) {
+                    return;
+                }
+                if (status == Response.SC_OK) {
+                    bytesConfirmed += end - start;
+                } else if (status == Response.SC_NOT_FOUND) {
+                    // The server has expired the upload, so none of its chunks can be used.
+                    forgetUploadId();
+                    fail(text);
+                    return;
+                } else if (status == SC_INSUFFICIENT_STORAGE) {
+                    // Retrying won't help until other uploads finish, but the chunks received so
+                    // far are kept, so the upload ID is too.
+                    fail(text);
+                    return;
+                } else if (attempts[index] < MAX_CHUNK_ATTEMPTS) {
+                    pendingChunks.addFirst(index);
+                } else {
+                    fail(text);
+                    return;
+                }
+                reportProgress();
+                sendNextChunks();
+            }
+        });
+    }
+
+    private void completeUpload() {
+        send(RequestBuilder.POST, getUploadUrl() + "/complete", new RequestCallback() {
+            @Override
+            public void onResponseReceived(Request request, Response response) {
+                if (response.getStatusCode() == Response.SC_OK) {
+                    forgetUploadId();
+                    callback.onSuccess(response.getText());
+                } else {
+                    fail(response.getText());
+                }
+            }
+
+            @Override
+            public void onError(Request request, Throwable exception) {
+                fail(exception.getMessage());
+            }
+        });
+    }
+
+    private void reportProgress() {
+        double bytesSent = bytesConfirmed;
+        for (double loaded : chunkProgress) {
+            bytesSent += loaded;
+        }
+        callback.onProgress(Math.min(bytesSent, file.getSize()), file.getSize());
+    }
+
+    private void fail(final String message) {
+        if (failed || cancelled) {
+            return;
+        }
+        failed = true;
+        callback.onFailure(message);
+    }
+
+    private void forgetUploadId() {
+        if (storage != null) {
+            storage.removeItem(getStorageKey());
+        }
+    }
+
+    private String getUploadUrl() {
+        return servletUrl + "/" + URL.encodePathSegment(uploadId);
+    }
+
+    private String getStorageKey() {
+        return STORAGE_KEY_PREFIX + dest + "/" + file.getName() + ":" + (long)file.getSize() + ":"
+                   + (long)file.getLastModified();
+    }
+
+    private void send(final RequestBuilder.Method method, final String url, final RequestCallback requestCallback) {
+        final RequestBuilder builder = new RequestBuilder(method, url);
+        try {
+            builder.sendRequest(null, requestCallback == null ? new RequestCallback() {
+                @Override
+                public void onResponseReceived(Request request, Response response) {
+                }
+
+                @Override
+                public void onError(Request request, Throwable exception) {
+                }
+            } : requestCallback);
+        } catch (RequestException e) {
+            GWT.log("Unable to send chunked upload request", e);
+            fail(e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a slice of the file, computes its CRC-32 and PUTs it to the given URL.
+     */
+    private static native void sendNativeChunk(String url,
+                                               NativeFile file,
+                                               double start,
+                                               double end,
+                                               String crcHeader,
+                                               ChunkCallback callback) /*-{
+        var complete = $entry(function (status, text) {
+            callback.@org.iplantc.de.diskResource.client.views.dialogs.ChunkedFileUploader.ChunkCallback::onComplete(ILjava/lang/String;)(status, text || "");
+        });
+        var reader = new $wnd.FileReader();
+        reader.onerror = function () {
+            complete(0, "unable to read " + file.name);
+        };
+        reader.onload = function () {
+            var bytes = new $wnd.Uint8Array(reader.result);
+            var crc = @org.iplantc.de.diskResource.client.views.dialogs.ChunkedFileUploader::crc32(Lcom/google/gwt/core/client/JavaScriptObject;)(bytes);
+            var xhr = new $wnd.XMLHttpRequest();
+            xhr.open("PUT", url, true);
+            xhr.setRequestHeader("Content-Type", "application/octet-stream");
+            xhr.setRequestHeader(crcHeader, crc);
+            xhr.upload.onprogress = $entry(function (e) {
+                callback.@org.iplantc.de.diskResource.client.views.dialogs.ChunkedFileUploader.ChunkCallback::onProgress(D)(e.loaded);
+            });
+            xhr.onload = function () {
+                complete(xhr.status, xhr.responseText);
+            };
+            xhr.onerror = function () {
+                complete(0, "unable to send " + file.name);
+            };
+            xhr.send(bytes);
+        };
+        reader.readAsArrayBuffer(file.slice(start, end));
+    }-*/;
+
+    /**
+     * @return the CRC-32 of the bytes, as a hexadecimal string.
+     */
+    private static native String crc32(JavaScriptObject bytes) /*-{
+        var table = @org.iplantc.de.diskResource.client.views.dialogs.ChunkedFileUploader::crcTable;
+        if (!table) {
+            table = new $wnd.Int32Array(256);
+            for (var n = 0; n < 256; n++) {
+                var c = n;
+                for (var k = 0; k < 8; k++) {
+                    c = (c & 1) ? (0xEDB88320 ^ (c >>> 1)) : (c >>> 1);
+                }
+                table[n] = c;
+            }
+            @org.iplantc.de.diskResource.client.views.dialogs.ChunkedFileUploader::crcTable = table;
+        }
+        var crc = -1;
+        for (var i = 0, len = bytes.length; i < len; i++) {
+            crc = (crc >>> 8) ^ table[(crc ^ bytes[i]) & 0xFF];
+        }
+        return ((crc ^ -1) >>> 0).toString(16);
+    }-*/;
+}
@@ -19,14 +19,22 @@ import com.google.gwt.core.client.GWT;
 import com.google.gwt.event.dom.client.ChangeEvent;
 import com.google.gwt.event.dom.client.KeyCodes;
 import com.google.gwt.event.dom.client.KeyUpEvent;
+import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.http.client.URL;
 import com.google.gwt.resources.client.ImageResource;
 import com.google.gwt.safehtml.shared.SafeHtml;
 import com.google.gwt.safehtml.shared.SafeUri;
+import com.google.gwt.safehtml.shared.UriUtils;
 import com.google.gwt.uibinder.client.UiBinder;
 import com.google.gwt.uibinder.client.UiFactory;
 import com.google.gwt.uibinder.client.UiField;
 import com.google.gwt.uibinder.client.UiHandler;
 import com.google.gwt.uibinder.client.UiTemplate;
+import com.google.gwt.user.client.Timer;
 import com.google.gwt.user.client.ui.HTML;
 import com.google.gwt.user.client.ui.Hidden;
 import com.google.gwt.user.client.ui.Widget;
@@ -54,7 +62,9 @@ import com.sencha.gxt.widget.core.client.form.TextField;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author jstroot
@@ -63,6 +73,8 @@ public class SimpleFileUploadDialog extends IPlantDialog {
 
     public interface SimpleFileUploadDialogAppearance {
 
+        String chunkedUpload();
+
         String confirmAction();
 
         String fileExist();
@@ -80,6 +92,8 @@ public class SimpleFileUploadDialog extends IPlantDialog {
         String reset();
 
         String upload();
+
+        String uploadProgress(int percent);
     }
 
     private static final String FORM_WIDTH = "475";
@@ -88,6 +102,8 @@ public class SimpleFileUploadDialog extends IPlantDialog {
     public static final String HDN_USER_ID_KEY = "user";
     public static final String FILE_TYPE = "type";
     public static final String URL_FIELD = "url";
+    public static final String UPLOAD_ID_KEY = "uploadId";
+    private static final int PROGRESS_POLL_INTERVAL_MS = 2000;
 
     private final DiskResourceAutoBeanFactory FS_FACTORY = GWT.create(DiskResourceAutoBeanFactory.class);
     private final SimpleFileUploadPanelUiBinder BINDER = GWT.create(SimpleFileUploadPanelUiBinder.class);
@@ -111,21 +127,31 @@ public class SimpleFileUploadDialog extends IPlantDialog {
     private final DiskResourceServiceFacade drService;
     private final List<FormPanel> submittedForms = Lists.newArrayList();
     private final SafeUri fileUploadServlet;
+    private final SafeUri chunkedUploadServlet;
     private final String userName;
     private final EventBus eventBus;
     private final DiskResourceUtil diskResourceUtil;
+    private final Map<FormPanel, String> uploadIds = new HashMap<>();
+    private final Timer progressTimer = new Timer() {
+        @Override
+        public void run() {
+            pollUploadProgress();
+        }
+    };
 
     public SimpleFileUploadDialog(final HasPath uploadDest,
                                   final DiskResourceServiceFacade drService,
                                   final EventBus eventBus,
                                   final DiskResourceUtil diskResourceUtil,
                                   final SafeUri fileUploadServlet,
+                                  final SafeUri chunkedUploadServlet,
                                   final String userName) {
         this.uploadDest = uploadDest;
         this.drService = drService;
         this.eventBus = eventBus;
         this.diskResourceUtil = diskResourceUtil;
         this.fileUploadServlet = fileUploadServlet;
+        this.chunkedUploadServlet = chunkedUploadServlet;
         this.userName = userName;
         appearance = GWT.create(SimpleFileUploadDialogAppearance.class);
         setAutoHide(false);
@@ -135,6 +161,9 @@ public class SimpleFileUploadDialog extends IPlantDialog {
         getOkButton().setEnabled(false);
         setHeadingText(appearance.upload());
         addCancelButtonSelectHandler(new HideSelectHandler(this));
+        if (ChunkedFileUploader.isSupported()) {
+            getButtonBar().insert(createChunkedUploadButton(), 0);
+        }
 
         add(BINDER.createAndBindUi(this));
 
@@ -149,6 +178,29 @@ public class SimpleFileUploadDialog extends IPlantDialog {
     }
     
     
+    /**
+     * Files larger than the simple upload limit can be uploaded in resumable chunks instead, which
+     * is offered from this dialog so that users don't have to look for a separate upload action.
+     */
+    private TextButton createChunkedUploadButton() {
+        final TextButton button = new TextButton(appearance.chunkedUpload());
+        button.addSelectHandler(new SelectEvent.SelectHandler() {
+            @Override
+            public void onSelect(SelectEvent event) {
+                if (!submittedForms.isEmpty()) {
+                    return;
+                }
+                hide();
+                new ChunkedFileUploadDialog(uploadDest,
+                                            drService,
+                                            eventBus,
+                                            diskResourceUtil,
+                                            chunkedUploadServlet).show();
+            }
+        });
+        return button;
+    }
+
     private void addValidators() {
         for (IPCFileUploadField f : fufList) {
             f.addValidator(new DiskResourceNameValidator());
@@ -220,6 +272,12 @@ public class SimpleFileUploadDialog extends IPlantDialog {
         getOkButton().setEnabled(false);
     }
 
+    @Override
+    protected void onHide() {
+        super.onHide();
+        progressTimer.cancel();
+    }
+
     @Override
     public void hide() {
         if (submittedForms.size() > 0) {
@@ -246,8 +304,12 @@ public class SimpleFileUploadDialog extends IPlantDialog {
     void onSubmitComplete(SubmitCompleteEvent event) {
         if (submittedForms.contains(event.getSource())) {
             submittedForms.remove(event.getSource());
+            uploadIds.remove(event.getSource());
             statList.get(formList.indexOf(event.getSource())).clearStatus("");
         }
+        if (submittedForms.isEmpty()) {
+            progressTimer.cancel();
+        }
 
         String results2 = event.getResults();
         String results = Format.stripTags(results2);
@@ -284,6 +346,45 @@ public class SimpleFileUploadDialog extends IPlantDialog {
         }
     }
 
+    /**
+     * Requests the progress of each submitted upload from the server, and shows it in the upload's
+     * status.
+     */
+    void pollUploadProgress() {
+        for (final FormPanel form : submittedForms) {
+            final String uploadId = uploadIds.get(form);
+            if (uploadId == null) {
+                continue;
+            }
+            final String url = fileUploadServlet.asString() + "/progress?" + UPLOAD_ID_KEY + "="
+                                   + URL.encodeQueryString(uploadId);
+            RequestBuilder builder = new RequestBuilder(RequestBuilder.GET, url);
+            try {
+                builder.sendRequest(null, new RequestCallback() {
+                    @Override
+                    public void onResponseReceived(Request request, Response response) {
+                        if (response.getStatusCode() != Response.SC_OK || !submittedForms.contains(form)) {
+                            return;
+                        }
+                        Splittable progress = StringQuoter.split(response.getText());
+                        double contentLength = progress.get("contentLength").asNumber();
+                        if (contentLength > 0) {
+                            int percent = (int)(100 * progress.get("bytesRead").asNumber() / contentLength);
+                            statList.get(formList.indexOf(form)).setBusy(appearance.uploadProgress(percent));
+                        }
+                    }
+
+                    @Override
+                    public void onError(Request request, Throwable exception) {
+                        // Progress is informational only; the next poll will try again.
+                    }
+                });
+            } catch (RequestException e) {
+                GWT.log("Unable to request upload progress", e);
+            }
+        }
+    }
+
     @Override
     protected void onOkButtonClicked() {
         doUpload();
@@ -346,9 +447,15 @@ public class SimpleFileUploadDialog extends IPlantDialog {
                             getOkButton().disable();
                         }
                     });
+                    final String uploadId = System.currentTimeMillis() + "-" + index;
+                    form.setAction(UriUtils.fromTrustedString(fileUploadServlet.asString() + "?"
+                                                                  + UPLOAD_ID_KEY + "="
+                                                                  + URL.encodeQueryString(uploadId)));
+                    uploadIds.put(form, uploadId);
                     form.submit();
                     submittedForms.add(form);
                 }
+                progressTimer.scheduleRepeating(PROGRESS_POLL_INTERVAL_MS);
             }
 
         }
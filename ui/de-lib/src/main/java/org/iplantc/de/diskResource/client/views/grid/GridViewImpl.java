@@ -61,6 +61,13 @@ public class GridViewImpl extends ContentPanel implements GridView,
                                                           SelectionChangedEvent.SelectionChangedHandler<DiskResource> {
     interface GridViewImplUiBinder extends UiBinder<VerticalLayoutContainer, GridViewImpl> {
     }
+
+    /**
+     * The number of rows the live grid view keeps loaded around the visible ones. Only the visible
+     * rows are rendered; the others are swapped in as the grid is scrolled, and windows of this
+     * size are loaded from the proxy when the grid is scrolled past them.
+     */
+    static final int LIVE_GRID_CACHE_SIZE = 500;
     @UiField(provided = true) final GridView.Appearance appearance;
     @UiField(provided = true) final ListStore<DiskResource> listStore;
     @UiField ColumnModel<DiskResource> cm;
@@ -267,7 +274,7 @@ public class GridViewImpl extends ContentPanel implements GridView,
                 setRowHeight(appearance.liveGridViewRowHeight());
             }
         };
-        liveGridView.setCacheSize(500);
+        liveGridView.setCacheSize(LIVE_GRID_CACHE_SIZE);
         return liveGridView;
     }
 
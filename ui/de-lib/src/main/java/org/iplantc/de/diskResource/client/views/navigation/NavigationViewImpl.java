@@ -2,12 +2,16 @@ package org.iplantc.de.diskResource.client.views.navigation;
 
 import org.iplantc.de.client.models.diskResources.Folder;
 import org.iplantc.de.diskResource.client.NavigationView;
+import org.iplantc.de.diskResource.client.events.FolderHoveredEvent;
 import org.iplantc.de.diskResource.client.events.FolderSelectionEvent;
 import org.iplantc.de.diskResource.client.events.search.DeleteSavedSearchClickedEvent;
 import org.iplantc.de.diskResource.client.views.navigation.cells.TreeCell;
 import org.iplantc.de.diskResource.share.DiskResourceModule;
 
 import com.google.gwt.core.client.GWT;
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.event.dom.client.MouseOverEvent;
+import com.google.gwt.event.dom.client.MouseOverHandler;
 import com.google.gwt.event.logical.shared.SelectionEvent;
 import com.google.gwt.event.logical.shared.SelectionHandler;
 import com.google.gwt.event.shared.HandlerRegistration;
@@ -67,6 +71,30 @@ public class NavigationViewImpl extends ContentPanel implements NavigationView {
         }
     }
 
+    /**
+     * Fires a {@link FolderHoveredEvent} when the pointer moves onto another folder in the tree.
+     */
+    private static class FolderHoverHandler implements MouseOverHandler {
+        private final IsWidget isWidget;
+        private final Tree<Folder, Folder> tree;
+        private Folder lastHovered;
+
+        public FolderHoverHandler(IsWidget isWidget, Tree<Folder, Folder> tree) {
+            this.isWidget = isWidget;
+            this.tree = tree;
+        }
+
+        @Override
+        public void onMouseOver(MouseOverEvent event) {
+            final Tree.TreeNode<Folder> node = tree.findNode(Element.as(event.getNativeEvent().getEventTarget()));
+            if (node == null || node.getModel() == lastHovered) {
+                return;
+            }
+            lastHovered = node.getModel();
+            isWidget.asWidget().fireEvent(new FolderHoveredEvent(lastHovered));
+        }
+    }
+
     /**
      * Performs action when the tree collapse button is clicked.
      */
@@ -138,6 +166,11 @@ public class NavigationViewImpl extends ContentPanel implements NavigationView {
     public HandlerRegistration addFolderSelectedEventHandler(FolderSelectionEvent.FolderSelectionEventHandler handler) {
         return addHandler(handler, FolderSelectionEvent.TYPE);
     }
+
+    @Override
+    public HandlerRegistration addFolderHoveredEventHandler(FolderHoveredEvent.FolderHoveredEventHandler handler) {
+        return addHandler(handler, FolderHoveredEvent.TYPE);
+    }
     //</editor-fold>
 
     @Override
@@ -163,6 +196,7 @@ public class NavigationViewImpl extends ContentPanel implements NavigationView {
         final TreeSelectionModel<Folder> selectionModel = tree.getSelectionModel();
         selectionModel.setSelectionMode(SINGLE);
         selectionModel.addSelectionHandler(new FolderSelectionHandler(this, tree));
+        tree.addDomHandler(new FolderHoverHandler(this, tree), MouseOverEvent.getType());
 
         final TreeCell treeCell = new TreeCell(tree);
         treeCell.setHasHandlers(this);
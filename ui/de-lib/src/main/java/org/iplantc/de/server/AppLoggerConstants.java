@@ -36,6 +36,46 @@ public interface AppLoggerConstants {
 
     String USER_IP_KEY = "clientip";
 
+    /**
+     * The key used to log backend HTTP connection pool utilisation.
+     */
+    String HTTP_POOL_KEY = "http-pool";
+
+    /**
+     * The key used to log the size and throughput of file transfers relayed by the webapp.
+     */
+    String TRANSFER_KEY = "transfer";
+
+    /**
+     * The key used to log how many backend calls were shared by concurrent, identical requests.
+     */
+    String COALESCER_KEY = "coalescer";
+
+    /**
+     * The key used to log how many requests are parked, waiting on backends, or active on servlet threads.
+     */
+    String ASYNC_KEY = "async";
+
+    /**
+     * The key used to log circuit breaker state changes and calls rejected by service bulkheads.
+     */
+    String BULKHEAD_KEY = "bulkhead";
+
+    /**
+     * The key used to log the stream counts and latencies of backend calls sent over HTTP/2.
+     */
+    String HTTP2_KEY = "http2";
+
+    /**
+     * The key used to log the subscribers, polls and events of the notification push channel.
+     */
+    String PUSH_KEY = "push";
+
+    /**
+     * The key used to log the hit and miss counts of the signed JWT cache.
+     */
+    String JWT_CACHE_KEY = "jwt-cache";
+
     String USER_IP_HEADER_NAME = "x-real-ip";
     String REQUEST_ID_HEADER = "X-DE-request-id";
     String REQUEST_ID_HEADER_FWD = "X-DE-forwarded-request-id";
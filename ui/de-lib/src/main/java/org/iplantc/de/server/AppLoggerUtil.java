@@ -1,46 +1,188 @@
 package org.iplantc.de.server;
 
 import static org.iplantc.de.server.AppLoggerConstants.REQUEST_ID_HEADER;
+import static org.iplantc.de.server.AppLoggerConstants.REQUEST_KEY;
+import static org.iplantc.de.server.AppLoggerConstants.RESPONSE_KEY;
+import static org.iplantc.de.server.AppLoggerConstants.TRANSFER_KEY;
 import org.iplantc.de.shared.services.BaseServiceCallWrapper;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
+import org.apache.commons.io.output.StringBuilderWriter;
 import org.apache.http.Header;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.jasig.cas.client.authentication.AttributePrincipal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.security.cas.authentication.CasAuthenticationToken;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility for creating objects for logging context.
+ *
+ * JSON for the {@link MDC} is written by a single, shared {@link ObjectWriter} into a buffer which
+ * is reused by each thread. The {@code logRequest} and {@code logResponse} methods only build and
+ * render their MDC values once the API metrics logger is known to accept the event.
+ *
+ * Components which periodically log their statistics register a {@link StatsSource} with
+ * {@link #scheduleStats}; the statistics of all of them are logged from a single, shared thread.
+ *
  * @author jstroot
  */
 public class AppLoggerUtil {
 
-    private static AppLoggerUtil INSTANCE;
+    /**
+     * Supplies the statistics a component periodically writes to the API metrics log.
+     */
+    public interface StatsSource {
+
+        /**
+         * Only called when the statistics will be logged, so counters may be reset here.
+         *
+         * @return the statistics, or null if there are none to log.
+         */
+        Map<String, Object> createStatsMap();
+    }
+
+    /**
+     * Buffers which have grown beyond this many characters, e.g. while rendering a trace-level
+     * body, are discarded instead of being kept by the thread.
+     */
+    private static final int MAX_RETAINED_BUFFER_SIZE = 16 * 1024;
+
+    private static final AppLoggerUtil INSTANCE = new AppLoggerUtil();
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writer();
+    private static final ThreadLocal<StringBuilderWriter> JSON_BUFFER = new ThreadLocal<StringBuilderWriter>() {
+        @Override
+        protected StringBuilderWriter initialValue() {
+            return new StringBuilderWriter(1024);
+        }
+    };
+
     private final Logger API_METRICS_LOG = LoggerFactory.getLogger(AppLoggerConstants.API_METRICS_LOGGER);
 
+    /**
+     * Created when the first component registers its statistics.
+     */
+    private static final class StatsExecutorHolder {
+        private static final ScheduledExecutorService EXECUTOR =
+                Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("api-metrics-stats")
+                                                                                     .setDaemon(true)
+                                                                                     .build());
+    }
+
     AppLoggerUtil() {
     }
 
     public static AppLoggerUtil getInstance(){
-        if(INSTANCE == null){
-            INSTANCE = new AppLoggerUtil();
-        }
         return INSTANCE;
     }
 
+    /**
+     * @return true if events sent to the API metrics logger will be logged.
+     */
+    public boolean isApiMetricsEnabled() {
+        return API_METRICS_LOG.isInfoEnabled();
+    }
+
+    /**
+     * Serializes a value to JSON using the shared writer and the current thread's buffer.
+     *
+     * @param value the value to serialize.
+     * @return the JSON representation of the value.
+     * @throws JsonProcessingException if the value can't be serialized.
+     */
+    public String toJson(final Object value) throws JsonProcessingException {
+        final StringBuilderWriter buffer = JSON_BUFFER.get();
+        final StringBuilder builder = buffer.getBuilder();
+        builder.setLength(0);
+        try {
+            JSON_WRITER.writeValue(buffer, value);
+            return builder.toString();
+        } catch (JsonProcessingException e) {
+            throw e;
+        } catch (IOException e) {
+            // Writing to a StringBuilder doesn't perform any I/O.
+            throw new IllegalStateException("unexpected error writing JSON to a string buffer", e);
+        } finally {
+            if (builder.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                JSON_BUFFER.remove();
+            }
+        }
+    }
+
+    /**
+     * Logs an outgoing API request to the API metrics log, with the request in the {@link MDC}.
+     * Nothing is built if the event would not be logged.
+     *
+     * @param request the outgoing request.
+     * @param body the request body, which is only logged at the trace level. May be null.
+     * @param method the request method to log.
+     * @param endpoint the endpoint to log.
+     */
+    public void logRequest(final HttpRequestBase request,
+                           final String body,
+                           final String method,
+                           final String endpoint) {
+        if (!isApiMetricsEnabled()) {
+            return;
+        }
+        try {
+            MDC.put(REQUEST_KEY, toJson(createMdcRequestMap(request, body)));
+            API_METRICS_LOG.info("{} {}", method, endpoint);
+        } catch (JsonProcessingException e) {
+            API_METRICS_LOG.error(method + " " + endpoint, e);
+        } finally {
+            MDC.remove(REQUEST_KEY);
+        }
+    }
+
+    /**
+     * Logs the response to an API request to the API metrics log, with the response in the
+     * {@link MDC}. Nothing is built if the event would not be logged.
+     *
+     * @param response the response received from the API.
+     * @param type the request method.
+     * @param endpoint the endpoint to log.
+     * @param body the response body, which is only logged at the trace level. May be null.
+     * @param requestTime the time taken by the request, in milliseconds.
+     */
+    public void logResponse(final HttpResponse response,
+                            final BaseServiceCallWrapper.Type type,
+                            final String endpoint,
+                            final String body,
+                            final long requestTime) {
+        if (!isApiMetricsEnabled()) {
+            return;
+        }
+        try {
+            MDC.put(RESPONSE_KEY, createMdcResponseMapJson(response, type, endpoint, body, requestTime));
+            API_METRICS_LOG.info("{} {}", type, endpoint);
+        } catch (JsonProcessingException e) {
+            API_METRICS_LOG.error(type + " " + endpoint, e);
+        } finally {
+            MDC.remove(RESPONSE_KEY);
+        }
+    }
+
     public <T extends HttpRequestBase> T addRequestIdHeader(T request) {
         final String requestId = "UI-" + UUID.randomUUID().toString();
         API_METRICS_LOG.trace("Adding unique request id to constructed request. Request-Id = {}", requestId);
@@ -70,23 +212,22 @@ public class AppLoggerUtil {
             requestMap.put("body", body);
         }
 
-        requestMap.put("uri", request.getURI().getPath());
-        requestMap.put("path-info", request.getURI().getPath());
+        final URI uri = request.getURI();
+        requestMap.put("uri", uri.getPath());
+        requestMap.put("path-info", uri.getPath());
         requestMap.put("protocol", request.getProtocolVersion().toString());
         requestMap.put("headers", getHeaderMap(request.getAllHeaders()));
-        requestMap.put("server-port", Integer.toString(request.getURI().getPort()));
-        requestMap.put("server-name", request.getURI().getHost());
-        requestMap.put("query-string", request.getURI().getQuery());
-        requestMap.put("query-params", getQueryStringMap(request.getURI().getQuery()));
-        requestMap.put("scheme", request.getURI().getScheme());
+        requestMap.put("server-port", Integer.toString(uri.getPort()));
+        requestMap.put("server-name", uri.getHost());
+        requestMap.put("query-string", uri.getQuery());
+        requestMap.put("query-params", getQueryStringMap(uri.getQuery()));
+        requestMap.put("scheme", uri.getScheme());
         requestMap.put("request-method", request.getMethod());
         return requestMap;
     }
 
     public String createMdcRequestMapAsJsonString(final HttpRequestBase request) throws JsonProcessingException {
-        Map<String, Object> requestMap = createMdcRequestMap(request, null);
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.writeValueAsString(requestMap);
+        return toJson(createMdcRequestMap(request, null));
     }
 
     public Map<String, Object> createMdcResponseMap(final HttpResponse response,
@@ -115,9 +256,92 @@ public class AppLoggerUtil {
                                            final String endpoint,
                                            final String body,
                                            final long requestTime) throws JsonProcessingException {
-        final Map<String, Object> map = createMdcResponseMap(response, type, endpoint, body, requestTime);
-        ObjectMapper mapper = new ObjectMapper();
-        return mapper.writeValueAsString(map);
+        return toJson(createMdcResponseMap(response, type, endpoint, body, requestTime));
+    }
+
+    /**
+     * Logs the size and throughput of a completed (or aborted) file transfer to the API metrics log,
+     * with the transfer statistics in the {@link MDC}.
+     *
+     * @param method the request method to log.
+     * @param endpoint the endpoint to log.
+     * @param status the status code returned for the transfer.
+     * @param bytes the number of bytes transferred.
+     * @param elapsedMillis the time taken by the transfer, in milliseconds.
+     */
+    public void logTransfer(final String method,
+                            final String endpoint,
+                            final int status,
+                            final long bytes,
+                            final long elapsedMillis) {
+        if (!isApiMetricsEnabled()) {
+            return;
+        }
+        Map<String, Object> transferMap = Maps.newHashMap();
+        transferMap.put("status", status);
+        transferMap.put("bytes", bytes);
+        transferMap.put("transfer-time", elapsedMillis);
+        transferMap.put("bytes-per-second", elapsedMillis > 0 ? bytes * 1000 / elapsedMillis : bytes);
+        try {
+            MDC.put(TRANSFER_KEY, toJson(transferMap));
+            API_METRICS_LOG.info("{} {} transferred", method, endpoint);
+        } catch (JsonProcessingException e) {
+            API_METRICS_LOG.error(method + " " + endpoint, e);
+        } finally {
+            MDC.remove(TRANSFER_KEY);
+        }
+    }
+
+    /**
+     * Logs a component's statistics to the API metrics log every {@code intervalSeconds}, under the
+     * given {@link MDC} key.
+     *
+     * @param mdcKey the MDC key of the statistics.
+     * @param message the message to log, e.g. "Request coalescer stats".
+     * @param intervalSeconds the logging interval, in seconds.
+     * @param source supplies the statistics.
+     * @return the scheduled logging, to be cancelled when the component is destroyed.
+     */
+    public ScheduledFuture<?> scheduleStats(final String mdcKey,
+                                            final String message,
+                                            final long intervalSeconds,
+                                            final StatsSource source) {
+        return StatsExecutorHolder.EXECUTOR.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                if (!isApiMetricsEnabled()) {
+                    return;
+                }
+                try {
+                    logStats(mdcKey, message, source.createStatsMap());
+                } catch (RuntimeException e) {
+                    // Keep logging the statistics of this and the other components.
+                    API_METRICS_LOG.error(message, e);
+                }
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Logs statistics, or another event, to the API metrics log with the given value in the
+     * {@link MDC}.
+     *
+     * @param mdcKey the MDC key of the value.
+     * @param message the message to log.
+     * @param value the value, or null if there is nothing to log.
+     */
+    public void logStats(final String mdcKey, final String message, final Map<String, ?> value) {
+        if (value == null || !isApiMetricsEnabled()) {
+            return;
+        }
+        try {
+            MDC.put(mdcKey, toJson(value));
+            API_METRICS_LOG.info(message);
+        } catch (JsonProcessingException e) {
+            API_METRICS_LOG.error(message, e);
+        } finally {
+            MDC.remove(mdcKey);
+        }
     }
 
     public Map<String, Object> createUserInfoMap(CasAuthenticationToken authenticationToken){
@@ -142,11 +366,25 @@ public class AppLoggerUtil {
 
     private Map<String, String> getQueryStringMap(final String queryString){
         final Map<String, String> queryStringMap = Maps.newHashMap();
-        String[] params = queryString.split("&");
-        for(String param : params){
-            String name = param.split("=")[0];
-            String value = param.split("=")[1];
-            queryStringMap.put(name, value);
+        if (Strings.isNullOrEmpty(queryString)) {
+            return queryStringMap;
+        }
+        int start = 0;
+        while (start <= queryString.length()) {
+            int end = queryString.indexOf('&', start);
+            if (end < 0) {
+                end = queryString.length();
+            }
+            if (end > start) {
+                final int equals = queryString.indexOf('=', start);
+                if (equals < 0 || equals > end) {
+                    queryStringMap.put(queryString.substring(start, end), "");
+                } else {
+                    queryStringMap.put(queryString.substring(start, equals),
+                                       queryString.substring(equals + 1, end));
+                }
+            }
+            start = end + 1;
         }
         return queryStringMap;
     }
@@ -0,0 +1,239 @@
+package org.iplantc.de.server;
+
+import static org.iplantc.de.server.AppLoggerConstants.ASYNC_KEY;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounds and tracks requests which are proxied to backend services asynchronously.
+ *
+ * An asynchronous request is parked while it waits on a backend: it holds no servlet thread until
+ * the response arrives. At most {@code max-concurrent} backend calls are in flight at once; further
+ * calls wait in a queue of at most {@code max-queued} entries, and calls beyond that are rejected.
+ *
+ * Each backend call gets the socket timeout of the first rule in {@code timeouts} (a comma-separated
+ * list of {@code path=milliseconds} rules, matched against the end of the endpoint path) or the
+ * HTTP client's default. A parked request which isn't answered within {@code request-timeout-ms}
+ * fails regardless, and its call is removed from the queue if it hasn't started yet.
+ *
+ * The number of parked requests, requests active on servlet threads, and queued backend calls are
+ * periodically written to the API metrics log under the {@link AppLoggerConstants#ASYNC_KEY} MDC key.
+ */
+@Component
+public class AsyncRequestLimiter implements InitializingBean, DisposableBean, AppLoggerUtil.StatsSource {
+
+    private final Logger LOG = LoggerFactory.getLogger(AsyncRequestLimiter.class);
+
+    @Value("${org.iplantc.discoveryenvironment.async.enabled:true}") private boolean enabled = true;
+    @Value("${org.iplantc.discoveryenvironment.async.max-concurrent:200}") private int maxConcurrent = 200;
+    @Value("${org.iplantc.discoveryenvironment.async.max-queued:1000}") private int maxQueued = 1000;
+    @Value("${org.iplantc.discoveryenvironment.async.request-timeout-ms:300000}") private long requestTimeout = 300000;
+    @Value("${org.iplantc.discoveryenvironment.async.timeouts:index=120000,read-csv-chunk=120000}")
+    private String timeouts = "";
+    @Value("${org.iplantc.discoveryenvironment.async.metrics-interval-seconds:60}") private long metricsInterval;
+
+    private final Queue<Runnable> queuedCalls = new ArrayDeque<>();
+    private int runningCalls;
+    private final AtomicInteger parkedRequests = new AtomicInteger();
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final AtomicLong rejectedCalls = new AtomicLong();
+    private final AtomicLong timedOutRequests = new AtomicLong();
+    private List<Timeout> timeoutRules = Lists.newArrayList();
+    private ScheduledFuture<?> statsLogging;
+
+    void setMaxConcurrent(final int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    void setMaxQueued(final int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    void setTimeouts(final String timeouts) {
+        this.timeouts = timeouts;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        timeoutRules = parseTimeouts(timeouts);
+        LOG.info("Asynchronous requests {}: max-concurrent = {}, max-queued = {}, timeouts = {}",
+                 enabled ? "enabled" : "disabled", maxConcurrent, maxQueued, timeoutRules);
+
+        if (enabled && metricsInterval > 0) {
+            statsLogging = AppLoggerUtil.getInstance().scheduleStats(ASYNC_KEY,
+                                                                     "Asynchronous request stats",
+                                                                     metricsInterval,
+                                                                     this);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (statsLogging != null) {
+            statsLogging.cancel(false);
+        }
+    }
+
+    /**
+     * @return true if proxied calls should be processed asynchronously.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the time, in milliseconds, after which a parked request fails.
+     */
+    public long getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * Gets the socket timeout for calls to an endpoint.
+     *
+     * @param endpoint the path of the service address.
+     * @return the timeout in milliseconds, or -1 to use the HTTP client's default.
+     */
+    public int getTimeout(final String endpoint) {
+        for (Timeout rule : timeoutRules) {
+            if (endpoint.endsWith(rule.path)) {
+                return rule.millis;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Starts a backend call now if fewer than {@code max-concurrent} calls are running, or queues it
+     * until one finishes. Every call which is started must be followed by a call to
+     * {@link #release()} once it completes.
+     *
+     * @param call starts the backend call; it must not block.
+     * @return false if the queue is full and the call was rejected.
+     */
+    public boolean tryExecute(final Runnable call) {
+        synchronized (queuedCalls) {
+            if (runningCalls >= maxConcurrent) {
+                if (queuedCalls.size() >= maxQueued) {
+                    rejectedCalls.incrementAndGet();
+                    return false;
+                }
+                queuedCalls.add(call);
+                return true;
+            }
+            runningCalls++;
+        }
+        call.run();
+        return true;
+    }
+
+    /**
+     * Removes a call which is still waiting in the queue, so that it never starts.
+     *
+     * @param call a call which was passed to {@link #tryExecute(Runnable)}.
+     * @return true if the call was queued and has been removed.
+     */
+    public boolean cancel(final Runnable call) {
+        synchronized (queuedCalls) {
+            return queuedCalls.remove(call);
+        }
+    }
+
+    /**
+     * Marks a backend call as complete, starting the next queued call if there is one.
+     */
+    public void release() {
+        final Runnable next;
+        synchronized (queuedCalls) {
+            next = queuedCalls.poll();
+            if (next == null) {
+                runningCalls--;
+            }
+        }
+        if (next != null) {
+            next.run();
+        }
+    }
+
+    public void requestParked() {
+        parkedRequests.incrementAndGet();
+    }
+
+    public void requestResumed() {
+        parkedRequests.decrementAndGet();
+    }
+
+    public void requestTimedOut() {
+        timedOutRequests.incrementAndGet();
+    }
+
+    public void requestActive() {
+        activeRequests.incrementAndGet();
+    }
+
+    public void requestInactive() {
+        activeRequests.decrementAndGet();
+    }
+
+    /**
+     * Creates a map describing the current load; the rejected and timed out counts are reset.
+     *
+     * @return the gauges and counters.
+     */
+    @Override
+    public Map<String, Object> createStatsMap() {
+        Map<String, Object> statsMap = Maps.newHashMap();
+        synchronized (queuedCalls) {
+            statsMap.put("running-calls", runningCalls);
+            statsMap.put("queued-calls", queuedCalls.size());
+        }
+        statsMap.put("parked", parkedRequests.get());
+        statsMap.put("active", activeRequests.get());
+        statsMap.put("rejected", rejectedCalls.getAndSet(0));
+        statsMap.put("timed-out", timedOutRequests.getAndSet(0));
+        return statsMap;
+    }
+
+    static List<Timeout> parseTimeouts(final String spec) {
+        final List<Timeout> rules = Lists.newArrayList();
+        for (String rule : spec.split(",")) {
+            final int equals = rule.indexOf('=');
+            if (equals > 0) {
+                rules.add(new Timeout(rule.substring(0, equals).trim(),
+                                      Integer.parseInt(rule.substring(equals + 1).trim())));
+            }
+        }
+        return rules;
+    }
+
+    static final class Timeout {
+        private final String path;
+        private final int millis;
+
+        Timeout(final String path, final int millis) {
+            this.path = path.startsWith("/") ? path : "/" + path;
+            this.millis = millis;
+        }
+
+        @Override
+        public String toString() {
+            return path + "=" + millis + "ms";
+        }
+    }
+}
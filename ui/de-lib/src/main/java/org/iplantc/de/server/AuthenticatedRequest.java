@@ -0,0 +1,78 @@
+package org.iplantc.de.server;
+
+import org.apache.http.HttpHeaders;
+
+import java.security.Principal;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * A servlet request which carries its authenticated user with it.
+ *
+ * The user principal of a servlet request is looked up in the security context of the request's
+ * thread, so it isn't available to calls made on the request's behalf from other threads, or before
+ * the security context has been populated. Wrap the request with the principal it was made by
+ * before handing it to such calls. Calls which may outlive the request itself need a
+ * {@link #detach detached} copy instead.
+ */
+public class AuthenticatedRequest extends HttpServletRequestWrapper {
+    private final Principal principal;
+
+    /**
+     * Wraps a request with the principal of the current thread's security context.
+     *
+     * @param request the request, which must be made on the thread which is serving it.
+     */
+    public AuthenticatedRequest(final HttpServletRequest request) {
+        this(request, request.getUserPrincipal());
+    }
+
+    /**
+     * @param request the request.
+     * @param principal the user the request was made by.
+     */
+    public AuthenticatedRequest(final HttpServletRequest request, final Principal principal) {
+        super(request);
+        this.principal = principal;
+    }
+
+    /**
+     * Copies the parts of a request which are needed to call backend services on the user's behalf:
+     * its principal, remote address and {@code User-Agent} header. The copy never reads from the
+     * request, so it remains usable after the request has completed and been recycled by the
+     * container; it has no other headers.
+     *
+     * @param request the request, which must be made on the thread which is serving it.
+     * @return the copy.
+     */
+    public static AuthenticatedRequest detach(final HttpServletRequest request) {
+        return new Detached(request);
+    }
+
+    @Override
+    public Principal getUserPrincipal() {
+        return principal;
+    }
+
+    private static final class Detached extends AuthenticatedRequest {
+        private final String remoteAddr;
+        private final String userAgent;
+
+        Detached(final HttpServletRequest request) {
+            super(request);
+            this.remoteAddr = request.getRemoteAddr();
+            this.userAgent = request.getHeader(HttpHeaders.USER_AGENT);
+        }
+
+        @Override
+        public String getRemoteAddr() {
+            return remoteAddr;
+        }
+
+        @Override
+        public String getHeader(final String name) {
+            return HttpHeaders.USER_AGENT.equalsIgnoreCase(name) ? userAgent : null;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package org.iplantc.de.server;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.Configurable;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+
+/**
+ * Sends the requests of one backend service over an HTTP/2 capable client, behind the HttpClient
+ * interface used by the rest of the webapp.
+ *
+ * Requests which set {@code Accept-Encoding} receive the encoded response, as they would from the
+ * non-blocking client; other responses are decoded transparently, as they would be by the pooled
+ * client. A socket timeout set on an individual request replaces the read timeout for that call.
+ */
+class Http2Client extends CloseableHttpClient {
+
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+    private final String serviceKey;
+    private final OkHttpClient client;
+    private final Http2Transport.StreamStats stats;
+
+    Http2Client(final String serviceKey, final OkHttpClient client, final Http2Transport.StreamStats stats) {
+        this.serviceKey = serviceKey;
+        this.client = client;
+        this.stats = stats;
+    }
+
+    String getServiceKey() {
+        return serviceKey;
+    }
+
+    Http2Transport.StreamStats getStats() {
+        return stats;
+    }
+
+    @Override
+    protected CloseableHttpResponse doExecute(final HttpHost target,
+                                              final HttpRequest request,
+                                              final HttpContext context) throws IOException {
+        final Response response;
+        try {
+            response = newCall(target, request).execute();
+        } catch (IOException e) {
+            stats.failed();
+            throw e;
+        }
+        stats.completed(response);
+        return new Http2Response(response);
+    }
+
+    /**
+     * Sends a request without blocking. The callback runs on one of the client's dispatcher threads.
+     *
+     * @param request the outgoing request.
+     * @param callback receives the response, which the callback must close or fully consume.
+     */
+    void execute(final HttpUriRequest request, final FutureCallback<HttpResponse> callback) {
+        final Call call;
+        try {
+            call = newCall(null, request);
+        } catch (IOException e) {
+            callback.failed(e);
+            return;
+        }
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                stats.failed();
+                if (call.isCanceled()) {
+                    callback.cancelled();
+                } else {
+                    callback.failed(e);
+                }
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                stats.completed(response);
+                final Http2Response httpResponse = new Http2Response(response);
+                try {
+                    callback.completed(httpResponse);
+                } finally {
+                    httpResponse.close();
+                }
+            }
+        });
+    }
+
+    private Call newCall(final HttpHost target, final HttpRequest request) throws IOException {
+        final URI uri;
+        if (request instanceof HttpUriRequest && ((HttpUriRequest)request).getURI().isAbsolute()) {
+            uri = ((HttpUriRequest)request).getURI();
+        } else if (target != null) {
+            uri = URI.create(target.toURI() + request.getRequestLine().getUri());
+        } else {
+            throw new ClientProtocolException("No target host for " + request.getRequestLine().getUri());
+        }
+
+        final Request.Builder builder = new Request.Builder().url(uri.toString());
+        for (Header header : request.getAllHeaders()) {
+            if (!isConnectionHeader(header.getName())) {
+                builder.addHeader(header.getName(), header.getValue());
+            }
+        }
+
+        final String method = request.getRequestLine().getMethod();
+        RequestBody body = null;
+        if (request instanceof HttpEntityEnclosingRequest && ((HttpEntityEnclosingRequest)request).getEntity() != null) {
+            body = new EntityRequestBody(((HttpEntityEnclosingRequest)request).getEntity());
+        } else if (requiresBody(method)) {
+            body = RequestBody.create(null, new byte[0]);
+        }
+        builder.method(method, body);
+
+        OkHttpClient callClient = client;
+        final RequestConfig config = request instanceof Configurable ? ((Configurable)request).getConfig() : null;
+        if (config != null && config.getSocketTimeout() >= 0 && config.getSocketTimeout() != client.readTimeoutMillis()) {
+            callClient = client.newBuilder().readTimeout(config.getSocketTimeout(), TimeUnit.MILLISECONDS).build();
+        }
+        return callClient.newCall(builder.build());
+    }
+
+    private static boolean requiresBody(final String method) {
+        return "POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method);
+    }
+
+    /**
+     * @return true for headers which describe the HTTP/1.1 connection or message framing, which the
+     * client sets itself.
+     */
+    private static boolean isConnectionHeader(final String name) {
+        return HttpHeaders.HOST.equalsIgnoreCase(name)
+                   || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)
+                   || HttpHeaders.TRANSFER_ENCODING.equalsIgnoreCase(name)
+                   || HttpHeaders.CONNECTION.equalsIgnoreCase(name)
+                   || "Keep-Alive".equalsIgnoreCase(name);
+    }
+
+    @Override
+    public void close() {
+        // The underlying client is owned by the Http2Transport.
+    }
+
+    @Override
+    @Deprecated
+    public HttpParams getParams() {
+        return new BasicHttpParams();
+    }
+
+    /**
+     * HTTP/2 connections are pooled by the underlying client, which is shut down by the
+     * {@link Http2Transport}, so there is no connection manager to expose.
+     *
+     * @return null; nothing in the webapp uses the connection managers of its clients.
+     */
+    @Override
+    @Deprecated
+    public ClientConnectionManager getConnectionManager() {
+        return null;
+    }
+
+    /**
+     * Streams a request entity into the request body.
+     */
+    private static final class EntityRequestBody extends RequestBody {
+        private final HttpEntity entity;
+
+        EntityRequestBody(final HttpEntity entity) {
+            this.entity = entity;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return entity.getContentType() == null ? null : MediaType.parse(entity.getContentType().getValue());
+        }
+
+        @Override
+        public long contentLength() {
+            return entity.getContentLength();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            entity.writeTo(sink.outputStream());
+        }
+    }
+
+    /**
+     * A response whose entity streams the response body; closing it ends the stream.
+     */
+    private static final class Http2Response extends BasicHttpResponse implements CloseableHttpResponse {
+        private final Response response;
+
+        Http2Response(final Response response) {
+            super(new BasicStatusLine(response.protocol() == Protocol.HTTP_1_1 ? HttpVersion.HTTP_1_1 : HTTP_2,
+                                      response.code(),
+                                      response.message()));
+            this.response = response;
+            final Headers headers = response.headers();
+            for (int i = 0; i < headers.size(); i++) {
+                addHeader(headers.name(i), headers.value(i));
+            }
+
+            final ResponseBody body = response.body();
+            if (body != null) {
+                final BasicHttpEntity entity = new BasicHttpEntity();
+                entity.setContent(body.byteStream());
+                entity.setContentLength(body.contentLength());
+                entity.setContentType(getFirstHeader(HttpHeaders.CONTENT_TYPE));
+                entity.setContentEncoding(getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+                setEntity(entity);
+            }
+        }
+
+        @Override
+        public void close() {
+            response.close();
+        }
+    }
+}
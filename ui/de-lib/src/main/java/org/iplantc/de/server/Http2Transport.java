@@ -0,0 +1,212 @@
+package org.iplantc.de.server;
+
+import static org.iplantc.de.server.AppLoggerConstants.HTTP2_KEY;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+
+/**
+ * Provides HTTP/2 transports for the backend services which support them, so that concurrent calls
+ * to a service are multiplexed as streams over a few connections instead of each holding an
+ * HTTP/1.1 connection of its own.
+ *
+ * The transport of each service is chosen in {@code http2.services}, a comma-separated list of
+ * {@code service-key=mode} rules using the service keys known to the {@link ServiceCallResolver}.
+ * The mode is either {@code h2c}, for cleartext HTTP/2 with prior knowledge, or {@code h2}, for
+ * HTTP/2 negotiated over TLS. Negotiating HTTP/2 over TLS needs ALPN support in the JVM; without
+ * it, {@code h2} services are called over HTTP/1.1 with the same client. Services without a rule
+ * use the {@link HttpClientPool}'s clients.
+ *
+ * The number of streams, how many of them were carried over HTTP/2, and the time from sending each
+ * request to receiving its response headers are periodically written to the API metrics log under
+ * the {@link AppLoggerConstants#HTTP2_KEY} MDC key, along with the connection count.
+ */
+@Component
+public class Http2Transport implements InitializingBean, DisposableBean, AppLoggerUtil.StatsSource {
+
+    private final Logger LOG = LoggerFactory.getLogger(Http2Transport.class);
+
+    static final String H2C = "h2c";
+    static final String H2 = "h2";
+
+    @Value("${org.iplantc.discoveryenvironment.http2.services:}") private String services = "";
+    @Value("${org.iplantc.discoveryenvironment.http2.max-requests:200}") private int maxRequests = 200;
+    @Value("${org.iplantc.discoveryenvironment.http2.max-requests-per-host:100}") private int maxRequestsPerHost = 100;
+    @Value("${org.iplantc.discoveryenvironment.http2.max-idle-connections:5}") private int maxIdleConnections = 5;
+    @Value("${org.iplantc.discoveryenvironment.http-client.connect-timeout-ms:10000}") private int connectTimeout = 10000;
+    @Value("${org.iplantc.discoveryenvironment.http-client.socket-timeout-ms:300000}") private int socketTimeout = 300000;
+    @Value("${org.iplantc.discoveryenvironment.http-client.idle-timeout-ms:60000}") private long idleTimeout = 60000;
+    @Value("${org.iplantc.discoveryenvironment.http2.metrics-interval-seconds:60}") private long metricsInterval;
+
+    private ConnectionPool connectionPool;
+    private Dispatcher dispatcher;
+    private Map<String, Http2Client> clients = Collections.emptyMap();
+    private ScheduledFuture<?> statsLogging;
+
+    void setServices(final String services) {
+        this.services = services;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        final Map<String, String> modes = parseServices(services);
+        if (modes.isEmpty()) {
+            LOG.info("HTTP/2 transport disabled: no services configured");
+            return;
+        }
+
+        connectionPool = new ConnectionPool(maxIdleConnections, idleTimeout, TimeUnit.MILLISECONDS);
+        dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(maxRequests);
+        dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+        final OkHttpClient baseClient = new OkHttpClient.Builder().connectionPool(connectionPool)
+                                                                  .dispatcher(dispatcher)
+                                                                  .connectTimeout(connectTimeout, TimeUnit.MILLISECONDS)
+                                                                  .readTimeout(socketTimeout, TimeUnit.MILLISECONDS)
+                                                                  .writeTimeout(socketTimeout, TimeUnit.MILLISECONDS)
+                                                                  .followRedirects(false)
+                                                                  .followSslRedirects(false)
+                                                                  .build();
+        final OkHttpClient h2cClient = baseClient.newBuilder()
+                                                 .protocols(ImmutableList.of(Protocol.H2_PRIOR_KNOWLEDGE))
+                                                 .build();
+        final OkHttpClient h2Client = baseClient.newBuilder()
+                                                .protocols(ImmutableList.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                                                .build();
+
+        final Map<String, Http2Client> clientMap = Maps.newHashMap();
+        for (Map.Entry<String, String> entry : modes.entrySet()) {
+            final OkHttpClient client = H2C.equals(entry.getValue()) ? h2cClient : h2Client;
+            clientMap.put(entry.getKey(), new Http2Client(entry.getKey(), client, new StreamStats()));
+        }
+        clients = clientMap;
+        LOG.info("HTTP/2 transport enabled for {}: max-requests = {}, max-requests-per-host = {}",
+                 modes, maxRequests, maxRequestsPerHost);
+
+        if (metricsInterval > 0) {
+            statsLogging = AppLoggerUtil.getInstance().scheduleStats(HTTP2_KEY,
+                                                                     "HTTP/2 transport stats",
+                                                                     metricsInterval,
+                                                                     this);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (statsLogging != null) {
+            statsLogging.cancel(false);
+        }
+        if (dispatcher != null) {
+            dispatcher.executorService().shutdown();
+            connectionPool.evictAll();
+        }
+    }
+
+    /**
+     * @param serviceKey the key of a backend service, or null.
+     * @return the client for the service, or null if the service isn't called over HTTP/2.
+     */
+    Http2Client getClient(final String serviceKey) {
+        return serviceKey == null ? null : clients.get(serviceKey);
+    }
+
+    /**
+     * Creates a map describing the streams sent since the last call; the counts are reset.
+     *
+     * @return the per-service stream counts and latencies, and the connection and call gauges.
+     */
+    @Override
+    public Map<String, Object> createStatsMap() {
+        final Map<String, Object> statsMap = Maps.newHashMap();
+        if (dispatcher == null) {
+            return statsMap;
+        }
+        statsMap.put("connections", connectionPool.connectionCount());
+        statsMap.put("idle-connections", connectionPool.idleConnectionCount());
+        statsMap.put("running-calls", dispatcher.runningCallsCount());
+        statsMap.put("queued-calls", dispatcher.queuedCallsCount());
+        final Map<String, Object> serviceStats = Maps.newHashMap();
+        for (Http2Client client : clients.values()) {
+            serviceStats.put(client.getServiceKey(), client.getStats().createStatsMap());
+        }
+        statsMap.put("services", serviceStats);
+        return statsMap;
+    }
+
+    static Map<String, String> parseServices(final String spec) {
+        final Map<String, String> modes = Maps.newLinkedHashMap();
+        final List<String> rules = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(spec);
+        for (String rule : rules) {
+            final int equals = rule.lastIndexOf('=');
+            final String mode = equals < 0 ? "" : rule.substring(equals + 1).trim();
+            if (!H2C.equals(mode) && !H2.equals(mode)) {
+                throw new IllegalArgumentException("Invalid HTTP/2 service rule, expected service-key=h2c|h2: " + rule);
+            }
+            modes.put(rule.substring(0, equals).trim(), mode);
+        }
+        return modes;
+    }
+
+    /**
+     * Counts the streams sent to one service and the latency of their responses.
+     */
+    static final class StreamStats {
+        private final AtomicLong streams = new AtomicLong();
+        private final AtomicLong http2Streams = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong totalLatency = new AtomicLong();
+        private final AtomicLong maxLatency = new AtomicLong();
+
+        void completed(final Response response) {
+            streams.incrementAndGet();
+            if (response.protocol() == Protocol.HTTP_2 || response.protocol() == Protocol.H2_PRIOR_KNOWLEDGE) {
+                http2Streams.incrementAndGet();
+            }
+            final long latency = response.receivedResponseAtMillis() - response.sentRequestAtMillis();
+            totalLatency.addAndGet(latency);
+            long max;
+            do {
+                max = maxLatency.get();
+            } while (latency > max && !maxLatency.compareAndSet(max, latency));
+        }
+
+        void failed() {
+            streams.incrementAndGet();
+            failures.incrementAndGet();
+        }
+
+        Map<String, Object> createStatsMap() {
+            final long count = streams.getAndSet(0);
+            final long failed = failures.getAndSet(0);
+            final long latency = totalLatency.getAndSet(0);
+            final Map<String, Object> statsMap = Maps.newHashMap();
+            statsMap.put("streams", count);
+            statsMap.put("http2-streams", http2Streams.getAndSet(0));
+            statsMap.put("failures", failed);
+            statsMap.put("mean-latency-ms", count > failed ? latency / (count - failed) : 0);
+            statsMap.put("max-latency-ms", maxLatency.getAndSet(0));
+            return statsMap;
+        }
+    }
+}
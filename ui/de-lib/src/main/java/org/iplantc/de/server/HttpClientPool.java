@@ -0,0 +1,266 @@
+package org.iplantc.de.server;
+
+import static org.iplantc.de.server.AppLoggerConstants.HTTP_POOL_KEY;
+
+import com.google.common.collect.Maps;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.pool.PoolStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the single, keep-alive HTTP client used by the webapp to talk to backend services.
+ *
+ * Connections are pooled per route, idle and expired connections are evicted in the background,
+ * and pool utilisation is periodically written to the API metrics log under the
+ * {@link AppLoggerConstants#HTTP_POOL_KEY} MDC key so the pool can be sized under load.
+ *
+ * Callers must never close the client returned by {@link #getClient()}; they only need to close
+ * (or fully consume) each response so that its connection is released back to the pool.
+ *
+ * A non-blocking client with its own pool, {@link #getAsyncClient()}, serves requests processed
+ * asynchronously, so that waiting on a backend holds neither a servlet thread nor a client thread.
+ *
+ * Services configured for HTTP/2 in the {@link Http2Transport} are called over it instead, by
+ * {@link #getClient(String)}, {@link #getPassthroughClient(String)} and {@link #executeAsync}.
+ */
+@Component
+public class HttpClientPool implements InitializingBean, DisposableBean {
+
+    private final Logger LOG = LoggerFactory.getLogger(HttpClientPool.class);
+
+    @Value("${org.iplantc.discoveryenvironment.http-client.max-total:200}") private int maxTotal;
+    @Value("${org.iplantc.discoveryenvironment.http-client.max-per-route:50}") private int maxPerRoute;
+    @Value("${org.iplantc.discoveryenvironment.http-client.connect-timeout-ms:10000}") private int connectTimeout;
+    @Value("${org.iplantc.discoveryenvironment.http-client.socket-timeout-ms:300000}") private int socketTimeout;
+    @Value("${org.iplantc.discoveryenvironment.http-client.connection-request-timeout-ms:10000}") private int connectionRequestTimeout;
+    @Value("${org.iplantc.discoveryenvironment.http-client.idle-timeout-ms:60000}") private long idleTimeout;
+    @Value("${org.iplantc.discoveryenvironment.http-client.time-to-live-ms:300000}") private long timeToLive;
+    @Value("${org.iplantc.discoveryenvironment.http-client.validate-after-inactivity-ms:2000}") private int validateAfterInactivity;
+    @Value("${org.iplantc.discoveryenvironment.http-client.metrics-interval-seconds:60}") private long metricsInterval;
+    @Value("${org.iplantc.discoveryenvironment.http-client.io-threads:0}") private int ioThreads;
+
+    @Autowired private Http2Transport http2Transport;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+    private PoolingNHttpClientConnectionManager asyncConnectionManager;
+    private RequestConfig requestConfig;
+    private CloseableHttpClient client;
+    private CloseableHttpClient passthroughClient;
+    private CloseableHttpAsyncClient asyncClient;
+    private ScheduledExecutorService maintenanceExecutor;
+    private ScheduledFuture<?> statsLogging;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        connectionManager = new PoolingHttpClientConnectionManager(timeToLive, TimeUnit.MILLISECONDS);
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(validateAfterInactivity);
+
+        requestConfig = RequestConfig.custom()
+                                     .setConnectTimeout(connectTimeout)
+                                     .setSocketTimeout(socketTimeout)
+                                     .setConnectionRequestTimeout(connectionRequestTimeout)
+                                     .setRedirectsEnabled(false)
+                                     .build();
+
+        client = HttpClients.custom()
+                            .setConnectionManager(connectionManager)
+                            .setDefaultRequestConfig(requestConfig)
+                            .evictExpiredConnections()
+                            .evictIdleConnections(idleTimeout, TimeUnit.MILLISECONDS)
+                            .build();
+        // Shares the pool above, but leaves response content encoding untouched.
+        passthroughClient = HttpClients.custom()
+                                       .setConnectionManager(connectionManager)
+                                       .setConnectionManagerShared(true)
+                                       .setDefaultRequestConfig(requestConfig)
+                                       .disableContentCompression()
+                                       .build();
+
+        final IOReactorConfig.Builder reactorConfig = IOReactorConfig.custom()
+                                                                     .setConnectTimeout(connectTimeout)
+                                                                     .setSoTimeout(socketTimeout);
+        if (ioThreads > 0) {
+            reactorConfig.setIoThreadCount(ioThreads);
+        }
+        asyncConnectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(reactorConfig.build()));
+        asyncConnectionManager.setMaxTotal(maxTotal);
+        asyncConnectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        asyncClient = HttpAsyncClients.custom()
+                                      .setConnectionManager(asyncConnectionManager)
+                                      .setDefaultRequestConfig(requestConfig)
+                                      .build();
+        asyncClient.start();
+        LOG.info("HTTP connection pools created: max-total = {}, max-per-route = {}", maxTotal, maxPerRoute);
+
+        maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "http-client-pool-maintenance");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        // The non-blocking pool has no eviction thread of its own.
+        final long evictionInterval = Math.max(1000, idleTimeout / 2);
+        maintenanceExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                asyncConnectionManager.closeExpiredConnections();
+                asyncConnectionManager.closeIdleConnections(idleTimeout, TimeUnit.MILLISECONDS);
+            }
+        }, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+        if (metricsInterval > 0) {
+            final AppLoggerUtil.StatsSource stats = new AppLoggerUtil.StatsSource() {
+                @Override
+                public Map<String, Object> createStatsMap() {
+                    return createPoolStatsMap();
+                }
+            };
+            statsLogging = AppLoggerUtil.getInstance().scheduleStats(HTTP_POOL_KEY,
+                                                                     "HTTP connection pool stats",
+                                                                     metricsInterval,
+                                                                     stats);
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (statsLogging != null) {
+            statsLogging.cancel(false);
+        }
+        maintenanceExecutor.shutdownNow();
+        asyncClient.close();
+        passthroughClient.close();
+        client.close();
+    }
+
+    /**
+     * @return the shared, pooled HTTP client. It must not be closed by callers.
+     */
+    public CloseableHttpClient getClient() {
+        return client;
+    }
+
+    /**
+     * Gets the client for calls to a backend service: its HTTP/2 client if it has one, or the
+     * shared, pooled client. It must not be closed by callers.
+     *
+     * @param serviceKey the key of the service, or null if it isn't known.
+     * @return the HTTP client.
+     */
+    public CloseableHttpClient getClient(final String serviceKey) {
+        final CloseableHttpClient http2Client = http2Transport.getClient(serviceKey);
+        return http2Client == null ? client : http2Client;
+    }
+
+    /**
+     * Gets a client for calls to a backend service which neither requests nor decodes compressed
+     * responses, so that encoded response bodies can be relayed to the browser as-is: the service's
+     * HTTP/2 client if it has one, which passes on the responses to requests that set
+     * {@code Accept-Encoding}, or a client which shares the connection pool. It must not be closed
+     * by callers.
+     *
+     * @param serviceKey the key of the service, or null if it isn't known.
+     * @return the pass-through HTTP client.
+     */
+    public CloseableHttpClient getPassthroughClient(final String serviceKey) {
+        final CloseableHttpClient http2Client = http2Transport.getClient(serviceKey);
+        return http2Client == null ? passthroughClient : http2Client;
+    }
+
+    /**
+     * Gets the non-blocking client, whose callbacks run on its I/O threads and so must never block.
+     * It must not be closed by callers.
+     *
+     * @return the shared, pooled non-blocking HTTP client.
+     */
+    public CloseableHttpAsyncClient getAsyncClient() {
+        return asyncClient;
+    }
+
+    /**
+     * Sends a request to a backend service without blocking, over its HTTP/2 client if it has one,
+     * or the non-blocking client. The callback must never block the client's I/O threads.
+     *
+     * @param serviceKey the key of the service, or null if it isn't known.
+     * @param request the outgoing request.
+     * @param callback receives the response.
+     */
+    public void executeAsync(final String serviceKey,
+                             final HttpUriRequest request,
+                             final FutureCallback<HttpResponse> callback) {
+        final Http2Client http2Client = http2Transport.getClient(serviceKey);
+        if (http2Client == null) {
+            asyncClient.execute(request, callback);
+        } else {
+            http2Client.execute(request, callback);
+        }
+    }
+
+    /**
+     * @return the default configuration of requests sent by either client, for callers which need
+     * to adjust it for individual requests.
+     */
+    public RequestConfig getRequestConfig() {
+        return requestConfig;
+    }
+
+    /**
+     * @return the current utilisation of the connection pool, across all routes.
+     */
+    public PoolStats getTotalStats() {
+        return connectionManager.getTotalStats();
+    }
+
+    /**
+     * Creates a map describing the current utilisation of the connection pool.
+     *
+     * @return the pool utilisation gauges.
+     */
+    public Map<String, Object> createPoolStatsMap() {
+        final PoolStats stats = getTotalStats();
+        Map<String, Object> statsMap = Maps.newHashMap();
+        statsMap.put("leased", stats.getLeased());
+        statsMap.put("pending", stats.getPending());
+        statsMap.put("available", stats.getAvailable());
+        statsMap.put("max", stats.getMax());
+        statsMap.put("routes", connectionManager.getRoutes().size());
+
+        final PoolStats asyncStats = asyncConnectionManager.getTotalStats();
+        Map<String, Object> asyncStatsMap = Maps.newHashMap();
+        asyncStatsMap.put("leased", asyncStats.getLeased());
+        asyncStatsMap.put("pending", asyncStats.getPending());
+        asyncStatsMap.put("available", asyncStats.getAvailable());
+        asyncStatsMap.put("max", asyncStats.getMax());
+        statsMap.put("async", asyncStatsMap);
+        return statsMap;
+    }
+}
@@ -0,0 +1,234 @@
+package org.iplantc.de.server;
+
+import org.iplantc.de.server.auth.UrlConnector;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.SettableFuture;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionActivationListener;
+import javax.servlet.http.HttpSessionEvent;
+
+/**
+ * Fetches the data the desktop needs to start as soon as the user logs in, while the browser is
+ * still loading the desktop.
+ *
+ * The services in {@code prefetch.addresses} are called in parallel, on behalf of the user who just
+ * logged in, and their responses are kept in the user's HTTP session. The desktop then collects all
+ * of them with a single call to {@link #takeInitialState(HttpServletRequest)}, instead of calling
+ * each service in turn. Responses are only handed out once, and are dropped if they aren't collected
+ * within {@code prefetch.ttl-seconds}, since the desktop must not be started with stale data.
+ *
+ * The session attribute is serializable, but the responses are not: they are dropped if the session
+ * is passivated or replicated, and the desktop then makes the calls itself. The attribute stays with
+ * the session if its id is changed after authentication, which a map keyed by the session id
+ * would not.
+ */
+@Component
+public class InitialStatePrefetcher {
+
+    static final String PREFETCH_ATTRIBUTE = InitialStatePrefetcher.class.getName() + ".prefetch";
+
+    private final Logger LOG = LoggerFactory.getLogger(InitialStatePrefetcher.class);
+
+    @Autowired private ServiceCallResolver serviceResolver;
+    @Autowired private UrlConnector urlConnector;
+    @Autowired private HttpClientPool httpClientPool;
+
+    @Value("${org.iplantc.discoveryenvironment.prefetch.enabled:true}") private boolean enabled = true;
+    @Value("${org.iplantc.discoveryenvironment.prefetch.addresses:}") private String addresses = "";
+    @Value("${org.iplantc.discoveryenvironment.prefetch.ttl-seconds:120}") private long ttl = 120;
+    @Value("${org.iplantc.discoveryenvironment.prefetch.wait-ms:5000}") private long maxWait = 5000;
+
+    void setEnabled(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    void setAddresses(final String addresses) {
+        this.addresses = addresses;
+    }
+
+    void setTtl(final long ttl) {
+        this.ttl = ttl;
+    }
+
+    void setMaxWait(final long maxWait) {
+        this.maxWait = maxWait;
+    }
+
+    void setServiceResolver(final ServiceCallResolver serviceResolver) {
+        this.serviceResolver = serviceResolver;
+    }
+
+    void setUrlConnector(final UrlConnector urlConnector) {
+        this.urlConnector = urlConnector;
+    }
+
+    void setHttpClientPool(final HttpClientPool httpClientPool) {
+        this.httpClientPool = httpClientPool;
+    }
+
+    /**
+     * Starts fetching the initial state of the user who has just logged in.
+     *
+     * @param request the login request.
+     * @param principal the authenticated user, which may not be available from the request yet.
+     */
+    public void prefetch(final HttpServletRequest request, final Principal principal) {
+        final List<String> addressList = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(addresses);
+        if (!enabled || addressList.isEmpty()) {
+            return;
+        }
+
+        // The security context isn't populated until authentication has completed.
+        final HttpServletRequest userRequest = new AuthenticatedRequest(request, principal);
+        final Prefetch prefetch = new Prefetch(System.currentTimeMillis() + ttl * 1000);
+        for (String address : addressList) {
+            prefetch.responses.put(address, fetch(userRequest, address));
+        }
+        request.getSession().setAttribute(PREFETCH_ATTRIBUTE, prefetch);
+    }
+
+    /**
+     * Hands out the prefetched initial state of the request's user, waiting at most
+     * {@code prefetch.wait-ms} for calls still in progress. Calls which failed or are still in
+     * progress are left out; the desktop makes them itself.
+     *
+     * @param request the request for the initial state.
+     * @return the prefetched response bodies, by the addresses the desktop calls them with.
+     */
+    public Map<String, String> takeInitialState(final HttpServletRequest request) {
+        final Map<String, String> state = Maps.newLinkedHashMap();
+        final HttpSession session = request.getSession(false);
+        if (session == null) {
+            return state;
+        }
+        final Object attribute = session.getAttribute(PREFETCH_ATTRIBUTE);
+        session.removeAttribute(PREFETCH_ATTRIBUTE);
+        if (!(attribute instanceof Prefetch)) {
+            return state;
+        }
+
+        final Prefetch prefetch = (Prefetch)attribute;
+        final Map<String, SettableFuture<String>> responses = prefetch.responses;
+        if (responses == null) {
+            LOG.debug("Discarding initial state dropped from a passivated session");
+            return state;
+        }
+        if (prefetch.expiresAt < System.currentTimeMillis()) {
+            LOG.debug("Discarding expired initial state");
+            return state;
+        }
+        final long deadline = System.currentTimeMillis() + maxWait;
+        for (Map.Entry<String, SettableFuture<String>> entry : responses.entrySet()) {
+            try {
+                final String body = entry.getValue().get(Math.max(0, deadline - System.currentTimeMillis()),
+                                                         TimeUnit.MILLISECONDS);
+                if (body != null) {
+                    state.put(entry.getKey(), body);
+                }
+            } catch (TimeoutException | ExecutionException e) {
+                LOG.debug("Prefetched call to {} didn't complete", entry.getKey(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * @return a future for the response body, which is null if the call didn't succeed.
+     */
+    private SettableFuture<String> fetch(final HttpServletRequest request, final String address) {
+        final SettableFuture<String> future = SettableFuture.create();
+        final HttpGet get;
+        final String resolvedAddress;
+        try {
+            resolvedAddress = serviceResolver.resolveAddress(address);
+            get = urlConnector.getRequest(request, resolvedAddress);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Unable to create the prefetch request for {}", address, e);
+            future.set(null);
+            return future;
+        }
+        // The asynchronous client doesn't decompress responses.
+        get.setHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+
+        httpClientPool.executeAsync(serviceResolver.getServiceKey(resolvedAddress), get, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    final int status = response.getStatusLine().getStatusCode();
+                    if (status >= 200 && status < 300 && response.getEntity() != null) {
+                        future.set(EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+                    } else {
+                        LOG.debug("Prefetched call to {} returned status {}", address, status);
+                        future.set(null);
+                    }
+                } catch (IOException e) {
+                    failed(e);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                LOG.debug("Prefetched call to {} failed", address, ex);
+                future.set(null);
+            }
+
+            @Override
+            public void cancelled() {
+                future.set(null);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * The responses being prefetched for one login, which are only kept while the session is in
+     * memory.
+     */
+    static final class Prefetch implements Serializable, HttpSessionActivationListener {
+        private static final long serialVersionUID = 1L;
+
+        private transient volatile Map<String, SettableFuture<String>> responses = Maps.newLinkedHashMap();
+        private final long expiresAt;
+
+        Prefetch(final long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        @Override
+        public void sessionWillPassivate(final HttpSessionEvent event) {
+            responses = null;
+        }
+
+        @Override
+        public void sessionDidActivate(final HttpSessionEvent event) {
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package org.iplantc.de.server;
+
+import static org.iplantc.de.server.AppLoggerConstants.PUSH_KEY;
+import org.iplantc.de.server.auth.UrlConnector;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Relays changes to users' notification counts to their open desktops.
+ *
+ * Every desktop a user has open subscribes to the hub, but the hub makes a single, non-blocking
+ * poll of the user's message counts every {@code poll-interval-seconds}, no matter how many
+ * desktops are open, and pushes the counts to them only when they change. A new subscriber is
+ * sent the last known counts straight away. Subscribers are sent a heartbeat every
+ * {@code heartbeat-seconds}, which is also how closed connections are found; they're dropped as
+ * soon as a write to them fails.
+ *
+ * Backend calls are made on behalf of the user who subscribed first among those still connected,
+ * using a snapshot of their request, since the servlet request itself may not be used once its
+ * thread has returned.
+ *
+ * The numbers of users, subscribers, polls and pushed events are periodically written to the API
+ * metrics log under the {@link AppLoggerConstants#PUSH_KEY} MDC key.
+ */
+@Component
+public class NotificationHub implements InitializingBean, DisposableBean, AppLoggerUtil.StatsSource {
+
+    /**
+     * Receives the events pushed to one desktop.
+     */
+    public interface Subscriber {
+
+        /**
+         * Sends an event. Implementations must not block for long.
+         *
+         * @param event the event name, or null for a heartbeat.
+         * @param data the event data.
+         * @return false if the subscriber is no longer connected.
+         */
+        boolean send(String event, String data);
+    }
+
+    static final String COUNTS_EVENT = "counts";
+
+    private final Logger LOG = LoggerFactory.getLogger(NotificationHub.class);
+
+    @Value("${org.iplantc.discoveryenvironment.notifications.push.enabled:true}") private boolean enabled = true;
+    @Value("${org.iplantc.discoveryenvironment.notifications.push.poll-interval-seconds:15}") private long pollInterval = 15;
+    @Value("${org.iplantc.discoveryenvironment.notifications.push.heartbeat-seconds:30}") private long heartbeatInterval = 30;
+    @Value("${org.iplantc.discoveryenvironment.notifications.push.max-subscribers:10000}") private int maxSubscribers = 10000;
+    @Value("${org.iplantc.discoveryenvironment.notifications.push.metrics-interval-seconds:60}") private long metricsInterval;
+    @Value("${org.iplantc.discoveryenvironment.muleServiceBaseUrl:}notifications/count-messages?seen=false")
+    private String countsAddress;
+
+    @Autowired private ServiceCallResolver serviceResolver;
+    @Autowired private UrlConnector urlConnector;
+    @Autowired private HttpClientPool httpClientPool;
+
+    private final ConcurrentMap<String, UserChannel> channels = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Subscriber, UserChannel> subscriberChannels = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong failedPolls = new AtomicLong();
+    private final AtomicLong pushedEvents = new AtomicLong();
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> statsLogging;
+
+    void setPollInterval(final long pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    void setHeartbeatInterval(final long heartbeatInterval) {
+        this.heartbeatInterval = heartbeatInterval;
+    }
+
+    void setCountsAddress(final String countsAddress) {
+        this.countsAddress = countsAddress;
+    }
+
+    void setServiceResolver(final ServiceCallResolver serviceResolver) {
+        this.serviceResolver = serviceResolver;
+    }
+
+    void setUrlConnector(final UrlConnector urlConnector) {
+        this.urlConnector = urlConnector;
+    }
+
+    void setHttpClientPool(final HttpClientPool httpClientPool) {
+        this.httpClientPool = httpClientPool;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        LOG.info("Notification push {}: poll-interval = {}s, heartbeat = {}s, max-subscribers = {}",
+                 enabled ? "enabled" : "disabled", pollInterval, heartbeatInterval, maxSubscribers);
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder().setNameFormat("notification-hub-%d")
+                                                                                        .setDaemon(true)
+                                                                                        .build());
+        if (pollInterval > 0) {
+            executor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    pollAll();
+                }
+            }, pollInterval, pollInterval, TimeUnit.SECONDS);
+        }
+        if (heartbeatInterval > 0) {
+            executor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    sendHeartbeats();
+                }
+            }, heartbeatInterval, heartbeatInterval, TimeUnit.SECONDS);
+        }
+        if (metricsInterval > 0) {
+            statsLogging = AppLoggerUtil.getInstance().scheduleStats(PUSH_KEY,
+                                                                     "Notification push stats",
+                                                                     metricsInterval,
+                                                                     this);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (statsLogging != null) {
+            statsLogging.cancel(false);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return true if desktops may subscribe to pushed notifications.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds a subscriber for the user making a request. This must be called on the request's thread.
+     *
+     * @param request the servlet request of the subscriber.
+     * @param subscriber the subscriber.
+     * @return false if the subscriber was refused, because push is disabled, the request isn't
+     * attributed to a user, or there are already {@code max-subscribers} subscribers.
+     */
+    public boolean subscribe(final HttpServletRequest request, final Subscriber subscriber) {
+        final Principal principal = request.getUserPrincipal();
+        if (!enabled || principal == null) {
+            return false;
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return false;
+        }
+
+        final String username = principal.getName();
+        final Subscription subscription = new Subscription(AuthenticatedRequest.detach(request), subscriber);
+        UserChannel channel;
+        while (true) {
+            channel = channels.get(username);
+            if (channel == null) {
+                final UserChannel newChannel = new UserChannel(username);
+                channel = channels.putIfAbsent(username, newChannel);
+                if (channel == null) {
+                    channel = newChannel;
+                }
+            }
+            if (channel.add(subscription)) {
+                break;
+            }
+            // The channel was closed by its last subscriber leaving; start again with a new one.
+            channels.remove(username, channel);
+        }
+        subscriberChannels.put(subscriber, channel);
+
+        final String counts = channel.lastCounts;
+        if (counts != null) {
+            send(channel, subscription, COUNTS_EVENT, counts);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a subscriber; removing one which isn't subscribed has no effect.
+     *
+     * @param subscriber the subscriber.
+     */
+    public void unsubscribe(final Subscriber subscriber) {
+        final UserChannel channel = subscriberChannels.get(subscriber);
+        if (channel == null) {
+            return;
+        }
+        for (Subscription subscription : channel.subscriptions) {
+            if (subscription.subscriber == subscriber) {
+                remove(channel, subscription);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Starts a poll of the message counts of every user with a subscriber, skipping users whose
+     * previous poll hasn't finished.
+     */
+    void pollAll() {
+        for (UserChannel channel : channels.values()) {
+            poll(channel);
+        }
+    }
+
+    void sendHeartbeats() {
+        for (UserChannel channel : channels.values()) {
+            channel.broadcast(null, "");
+        }
+    }
+
+    private void poll(final UserChannel channel) {
+        final Subscription subscription = channel.first();
+        if (subscription == null || !channel.polling.compareAndSet(false, true)) {
+            return;
+        }
+        polls.incrementAndGet();
+
+        final HttpGet request;
+        final String address;
+        try {
+            address = serviceResolver.resolveAddress(countsAddress);
+            request = urlConnector.getRequest(subscription.request, address);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Unable to create the message count request for {}", channel.username, e);
+            failedPolls.incrementAndGet();
+            channel.polling.set(false);
+            return;
+        }
+        request.setHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+
+        httpClientPool.executeAsync(serviceResolver.getServiceKey(address), request, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    final int status = response.getStatusLine().getStatusCode();
+                    final String body = response.getEntity() == null
+                                        ? null
+                                        : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+                    if (status >= 200 && status < 300 && body != null) {
+                        // Writing to subscribers may block, so it mustn't happen on the client's I/O thread.
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                channel.update(body);
+                            }
+                        });
+                    } else {
+                        LOG.debug("Message count poll for {} returned status {}", channel.username, status);
+                        failedPolls.incrementAndGet();
+                    }
+                } catch (IOException e) {
+                    failed(e);
+                } finally {
+                    channel.polling.set(false);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                LOG.debug("Message count poll for {} failed", channel.username, ex);
+                failedPolls.incrementAndGet();
+                channel.polling.set(false);
+            }
+
+            @Override
+            public void cancelled() {
+                channel.polling.set(false);
+            }
+        });
+    }
+
+    private void send(final UserChannel channel,
+                      final Subscription subscription,
+                      final String event,
+                      final String data) {
+        if (subscription.subscriber.send(event, data)) {
+            if (event != null) {
+                pushedEvents.incrementAndGet();
+            }
+        } else {
+            remove(channel, subscription);
+        }
+    }
+
+    private void remove(final UserChannel channel, final Subscription subscription) {
+        if (channel.remove(subscription)) {
+            subscriberChannels.remove(subscription.subscriber);
+            subscriberCount.decrementAndGet();
+            if (channel.isClosed()) {
+                channels.remove(channel.username, channel);
+            }
+        }
+    }
+
+    /**
+     * Creates a map describing the subscribers and the work done for them since the last call; the
+     * counters are reset.
+     *
+     * @return the gauges and counters.
+     */
+    @Override
+    public Map<String, Object> createStatsMap() {
+        Map<String, Object> statsMap = Maps.newHashMap();
+        statsMap.put("users", channels.size());
+        statsMap.put("subscribers", subscriberCount.get());
+        statsMap.put("polls", polls.getAndSet(0));
+        statsMap.put("failed-polls", failedPolls.getAndSet(0));
+        statsMap.put("pushed-events", pushedEvents.getAndSet(0));
+        return statsMap;
+    }
+
+    /**
+     * The subscribers of one user, and the state of the user's shared poll.
+     */
+    private final class UserChannel {
+        private final String username;
+        private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean polling = new AtomicBoolean();
+        private volatile String lastCounts;
+        private boolean closed;
+
+        UserChannel(final String username) {
+            this.username = username;
+        }
+
+        synchronized boolean add(final Subscription subscription) {
+            if (closed) {
+                return false;
+            }
+            subscriptions.add(subscription);
+            return true;
+        }
+
+        synchronized boolean remove(final Subscription subscription) {
+            final boolean removed = subscriptions.remove(subscription);
+            if (subscriptions.isEmpty()) {
+                closed = true;
+            }
+            return removed;
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        Subscription first() {
+            final List<Subscription> current = subscriptions;
+            return current.isEmpty() ? null : current.get(0);
+        }
+
+        void update(final String counts) {
+            if (counts.equals(lastCounts)) {
+                return;
+            }
+            lastCounts = counts;
+            broadcast(COUNTS_EVENT, counts);
+        }
+
+        void broadcast(final String event, final String data) {
+            for (Subscription subscription : subscriptions) {
+                send(this, subscription, event, data);
+            }
+        }
+    }
+
+    private static final class Subscription {
+        private final AuthenticatedRequest request;
+        private final Subscriber subscriber;
+
+        Subscription(final AuthenticatedRequest request, final Subscriber subscriber) {
+            this.request = request;
+            this.subscriber = subscriber;
+        }
+    }
+}
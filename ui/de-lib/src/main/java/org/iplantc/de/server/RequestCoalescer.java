@@ -0,0 +1,296 @@
+package org.iplantc.de.server;
+
+import static org.iplantc.de.server.AppLoggerConstants.COALESCER_KEY;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.concurrent.FutureCallback;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets concurrent, identical backend calls share a single request.
+ *
+ * The first caller for a key performs the call; callers arriving with the same key while it is in
+ * flight wait for it and receive the same response body, or the same exception. Nothing is cached:
+ * once the call completes, the next caller for the key performs a new call. Callers are
+ * responsible for choosing keys which only match calls whose responses are interchangeable, i.e.
+ * idempotent requests made on behalf of the same user. Synchronous and asynchronous callers with
+ * the same key share calls with each other. An asynchronous caller may stop waiting for a call; the
+ * call itself is only cancelled once none of its callers are waiting for it.
+ *
+ * The number of calls, and the number of backend calls saved by coalescing, are periodically
+ * written to the API metrics log under the {@link AppLoggerConstants#COALESCER_KEY} MDC key.
+ */
+@Component
+public class RequestCoalescer implements InitializingBean, DisposableBean, AppLoggerUtil.StatsSource {
+
+    /**
+     * A backend call which may be shared by several callers.
+     */
+    public interface Call {
+        String execute() throws IOException;
+    }
+
+    /**
+     * A non-blocking backend call which may be shared by several callers.
+     */
+    public interface AsyncCall {
+        /**
+         * @param callback receives the response body, or the failure.
+         * @return cancels the backend call.
+         */
+        Cancellable execute(FutureCallback<String> callback);
+    }
+
+    @Value("${org.iplantc.discoveryenvironment.coalescer.enabled:true}") private boolean enabled = true;
+    @Value("${org.iplantc.discoveryenvironment.coalescer.metrics-interval-seconds:60}") private long metricsInterval;
+
+    private final ConcurrentMap<String, InFlightCall> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong coalescedCalls = new AtomicLong();
+    private ScheduledFuture<?> statsLogging;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled && metricsInterval > 0) {
+            statsLogging = AppLoggerUtil.getInstance().scheduleStats(COALESCER_KEY,
+                                                                     "Request coalescer stats",
+                                                                     metricsInterval,
+                                                                     this);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (statsLogging != null) {
+            statsLogging.cancel(false);
+        }
+    }
+
+    /**
+     * Performs a call, or waits for an identical call which is already in flight.
+     *
+     * @param key identifies calls whose responses are interchangeable.
+     * @param call performs the backend call.
+     * @return the response body.
+     * @throws IOException if the shared call fails.
+     */
+    public String execute(final String key, final Call call) throws IOException {
+        if (!enabled) {
+            return call.execute();
+        }
+
+        calls.incrementAndGet();
+        final InFlightCall newCall = new InFlightCall();
+        final InFlightCall existingCall = inFlight.putIfAbsent(key, newCall);
+        if (existingCall != null) {
+            coalescedCalls.incrementAndGet();
+            return existingCall.await();
+        }
+
+        try {
+            newCall.complete(call.execute(), null);
+        } catch (Throwable t) {
+            // Waiting callers must always be released, whatever the call throws.
+            newCall.complete(null, t);
+            throw t;
+        } finally {
+            inFlight.remove(key, newCall);
+        }
+        return newCall.result;
+    }
+
+    /**
+     * Starts a non-blocking call, or joins an identical call which is already in flight.
+     *
+     * @param key identifies calls whose responses are interchangeable.
+     * @param call starts the backend call.
+     * @param callback receives the response body or failure.
+     * @return stops the callback from waiting for the call, and cancels the call if no other
+     * callers are waiting for it.
+     */
+    public Cancellable executeAsync(final String key, final AsyncCall call, final FutureCallback<String> callback) {
+        if (!enabled) {
+            return call.execute(callback);
+        }
+
+        calls.incrementAndGet();
+        final InFlightCall newCall = new InFlightCall();
+        InFlightCall existingCall;
+        while ((existingCall = inFlight.putIfAbsent(key, newCall)) != null) {
+            if (existingCall.addCallback(callback)) {
+                coalescedCalls.incrementAndGet();
+                return leave(key, existingCall, callback);
+            }
+            // All of that call's callers have left; it's being cancelled.
+            inFlight.remove(key, existingCall);
+        }
+
+        newCall.addCallback(callback);
+        newCall.setBackendCall(call.execute(new FutureCallback<String>() {
+            @Override
+            public void completed(String result) {
+                inFlight.remove(key, newCall);
+                newCall.complete(result, null);
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                inFlight.remove(key, newCall);
+                newCall.complete(null, ex);
+            }
+
+            @Override
+            public void cancelled() {
+                failed(new InterruptedIOException("shared backend call cancelled"));
+            }
+        }));
+        return leave(key, newCall, callback);
+    }
+
+    private Cancellable leave(final String key, final InFlightCall call, final FutureCallback<String> callback) {
+        return new Cancellable() {
+            @Override
+            public boolean cancel() {
+                if (!call.removeCallback(callback)) {
+                    return false;
+                }
+                inFlight.remove(key, call);
+                call.cancelBackendCall();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Creates a map describing coalescing since the previous call, and resets the counters.
+     *
+     * @return the coalescing counters.
+     */
+    @Override
+    public Map<String, Object> createStatsMap() {
+        final long callCount = calls.getAndSet(0);
+        final long coalescedCount = coalescedCalls.getAndSet(0);
+        Map<String, Object> statsMap = Maps.newHashMap();
+        statsMap.put("calls", callCount);
+        statsMap.put("coalesced", coalescedCount);
+        statsMap.put("hit-rate", callCount == 0 ? 0.0 : (double)coalescedCount / callCount);
+        statsMap.put("in-flight", inFlight.size());
+        return statsMap;
+    }
+
+    private static final class InFlightCall {
+        private final CountDownLatch done = new CountDownLatch(1);
+        private final List<FutureCallback<String>> callbacks = Lists.newArrayList();
+        private volatile String result;
+        private volatile Throwable failure;
+        private volatile boolean abandoned;
+        private volatile Cancellable backendCall;
+
+        void complete(final String result, final Throwable failure) {
+            final List<FutureCallback<String>> waiting;
+            synchronized (callbacks) {
+                this.result = result;
+                this.failure = failure;
+                done.countDown();
+                waiting = Lists.newArrayList(callbacks);
+                callbacks.clear();
+            }
+            for (FutureCallback<String> callback : waiting) {
+                notify(callback);
+            }
+        }
+
+        /**
+         * Registers a callback for the result, calling it at once if the call is already complete.
+         *
+         * @return false if the call was abandoned by its other callers before it completed.
+         */
+        boolean addCallback(final FutureCallback<String> callback) {
+            synchronized (callbacks) {
+                if (done.getCount() > 0) {
+                    if (abandoned) {
+                        return false;
+                    }
+                    callbacks.add(callback);
+                    return true;
+                }
+            }
+            notify(callback);
+            return true;
+        }
+
+        /**
+         * Unregisters the callback of a caller which no longer waits for the result.
+         *
+         * @return true if no callers are left waiting, so the backend call should be cancelled.
+         */
+        boolean removeCallback(final FutureCallback<String> callback) {
+            synchronized (callbacks) {
+                if (done.getCount() == 0 || !callbacks.remove(callback) || !callbacks.isEmpty()) {
+                    return false;
+                }
+                abandoned = true;
+                return true;
+            }
+        }
+
+        void setBackendCall(final Cancellable backendCall) {
+            this.backendCall = backendCall;
+            if (abandoned) {
+                backendCall.cancel();
+            }
+        }
+
+        void cancelBackendCall() {
+            final Cancellable call = backendCall;
+            if (call != null) {
+                call.cancel();
+            }
+        }
+
+        private void notify(final FutureCallback<String> callback) {
+            if (failure == null) {
+                callback.completed(result);
+            } else if (failure instanceof Exception) {
+                callback.failed((Exception)failure);
+            } else {
+                callback.failed(new IOException(failure));
+            }
+        }
+
+        String await() throws IOException {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for a shared backend call");
+            }
+            if (failure instanceof IOException) {
+                throw (IOException)failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException)failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error)failure;
+            }
+            return result;
+        }
+    }
+}
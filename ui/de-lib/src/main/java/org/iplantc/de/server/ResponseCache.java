@@ -0,0 +1,255 @@
+package org.iplantc.de.server;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A short-lived, per-user cache of responses to idempotent backend GETs.
+ *
+ * Only endpoints with a configured time-to-live are cached. The TTLs are given as a comma-separated
+ * list of {@code path=seconds} rules, where a rule applies to every endpoint whose path ends with
+ * {@code path}. The first segment of a rule's path names its resource family; a mutating call made
+ * by a user to any path within that family (e.g. a POST to {@code /secured/filetypes/...} for the
+ * {@code filetypes/type-list} rule) drops that user's cached responses for the rule.
+ *
+ * The cache holds at most a fixed number of entries, evicting the least recently used ones first.
+ * Responses are never stored if a mutating call completed while they were being fetched, since
+ * they could predate the change.
+ */
+@Component
+public class ResponseCache implements InitializingBean {
+
+    private final Logger LOG = LoggerFactory.getLogger(ResponseCache.class);
+
+    @Value("${org.iplantc.discoveryenvironment.response-cache.enabled:true}") private boolean enabled = true;
+    @Value("${org.iplantc.discoveryenvironment.response-cache.max-entries:10000}") private long maxEntries = 10000;
+    @Value("${org.iplantc.discoveryenvironment.response-cache.ttls:"
+               + "filetypes/type-list=300,metadata/templates=300,apps/categories=60,reference-genomes=300,bootstrap=30}")
+    private String ttls = "";
+
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+    private List<Rule> rules;
+    private Cache<String, CachedResponse> cache;
+
+    void setTtls(final String ttls) {
+        this.ttls = ttls;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        rules = parseRules(ttls);
+        long maxTtl = 0;
+        for (Rule rule : rules) {
+            maxTtl = Math.max(maxTtl, rule.ttlMillis);
+        }
+        cache = CacheBuilder.newBuilder()
+                            .maximumSize(maxEntries)
+                            .expireAfterWrite(Math.max(1, maxTtl), TimeUnit.MILLISECONDS)
+                            .recordStats()
+                            .build();
+        LOG.info("Response cache {}: max-entries = {}, rules = {}", enabled ? "enabled" : "disabled", maxEntries, rules);
+    }
+
+    /**
+     * @return a token to pass to {@link #put} once the response being fetched is available.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Looks up a cached response.
+     *
+     * @param username the user making the request.
+     * @param address the resolved service address, including the query string.
+     * @param endpoint the path of the service address.
+     * @return the cached response body, or null if there is none.
+     */
+    public String get(final String username, final String address, final String endpoint) {
+        if (!enabled || findRule(endpoint) == null) {
+            return null;
+        }
+        final String key = createKey(username, address);
+        final CachedResponse response = cache.getIfPresent(key);
+        if (response == null) {
+            return null;
+        }
+        if (response.expiresAt < System.currentTimeMillis()) {
+            cache.invalidate(key);
+            return null;
+        }
+        return response.body;
+    }
+
+    /**
+     * Stores a response, if its endpoint is cacheable and no mutating call completed since the
+     * generation was obtained.
+     *
+     * @param username the user who made the request.
+     * @param address the resolved service address, including the query string.
+     * @param endpoint the path of the service address.
+     * @param body the response body.
+     * @param fetchGeneration the result of {@link #getGeneration()} before the request was sent.
+     */
+    public void put(final String username,
+                    final String address,
+                    final String endpoint,
+                    final String body,
+                    final long fetchGeneration) {
+        if (!enabled || body == null) {
+            return;
+        }
+        final Rule rule = findRule(endpoint);
+        if (rule == null || fetchGeneration != generation.get()) {
+            return;
+        }
+        cache.put(createKey(username, address),
+                  new CachedResponse(username, rule, body, System.currentTimeMillis() + rule.ttlMillis));
+    }
+
+    /**
+     * Drops the user's cached responses in the resource family of a mutating call.
+     *
+     * @param username the user who made the mutating call.
+     * @param endpoint the path of the service address.
+     */
+    public void invalidate(final String username, final String endpoint) {
+        if (!enabled) {
+            return;
+        }
+        generation.incrementAndGet();
+        for (Iterator<CachedResponse> it = cache.asMap().values().iterator(); it.hasNext(); ) {
+            final CachedResponse response = it.next();
+            if (response.username.equals(username) && response.rule.isInFamily(endpoint)) {
+                it.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Drops every cached response.
+     */
+    public void flush() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Drops every cached response belonging to a user.
+     *
+     * @param username the user.
+     */
+    public void flush(final String username) {
+        generation.incrementAndGet();
+        for (Iterator<CachedResponse> it = cache.asMap().values().iterator(); it.hasNext(); ) {
+            if (it.next().username.equals(username)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * @return the cache configuration and statistics, as a map which can be serialized to JSON.
+     */
+    public Map<String, Object> createStatsMap() {
+        final CacheStats stats = cache.stats();
+        Map<String, Object> statsMap = Maps.newLinkedHashMap();
+        statsMap.put("enabled", enabled);
+        statsMap.put("size", cache.size());
+        statsMap.put("max-entries", maxEntries);
+        statsMap.put("hits", stats.hitCount());
+        statsMap.put("misses", stats.missCount());
+        statsMap.put("hit-rate", stats.hitRate());
+        statsMap.put("evictions", stats.evictionCount());
+        statsMap.put("invalidations", invalidations.get());
+        statsMap.put("rules", rules.toString());
+        return statsMap;
+    }
+
+    private Rule findRule(final String endpoint) {
+        for (Rule rule : rules) {
+            if (endpoint.endsWith(rule.path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private String createKey(final String username, final String address) {
+        return username + '\n' + address;
+    }
+
+    static List<Rule> parseRules(final String spec) {
+        final List<Rule> rules = Lists.newArrayList();
+        final Map<String, String> ttls = Strings.isNullOrEmpty(spec.trim())
+                                         ? Maps.<String, String>newHashMap()
+                                         : Splitter.on(',').trimResults().omitEmptyStrings()
+                                                   .withKeyValueSeparator(Splitter.on('=').trimResults())
+                                                   .split(spec);
+        for (Map.Entry<String, String> entry : ttls.entrySet()) {
+            rules.add(new Rule(entry.getKey(), TimeUnit.SECONDS.toMillis(Long.parseLong(entry.getValue()))));
+        }
+        return rules;
+    }
+
+    static final class Rule {
+        private final String path;
+        private final String family;
+        private final long ttlMillis;
+
+        Rule(final String path, final long ttlMillis) {
+            final String trimmed = path.startsWith("/") ? path.substring(1) : path;
+            final int slash = trimmed.indexOf('/');
+            this.path = "/" + trimmed;
+            this.family = "/" + (slash < 0 ? trimmed : trimmed.substring(0, slash));
+            this.ttlMillis = ttlMillis;
+        }
+
+        boolean isInFamily(final String endpoint) {
+            final int index = endpoint.indexOf(family);
+            if (index < 0) {
+                return false;
+            }
+            final int end = index + family.length();
+            return end == endpoint.length() || endpoint.charAt(end) == '/';
+        }
+
+        @Override
+        public String toString() {
+            return path + "=" + TimeUnit.MILLISECONDS.toSeconds(ttlMillis) + "s";
+        }
+    }
+
+    private static final class CachedResponse {
+        private final String username;
+        private final Rule rule;
+        private final String body;
+        private final long expiresAt;
+
+        CachedResponse(final String username, final Rule rule, final String body, final long expiresAt) {
+            this.username = username;
+            this.rule = rule;
+            this.body = body;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
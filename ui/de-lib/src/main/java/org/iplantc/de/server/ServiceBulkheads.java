@@ -0,0 +1,356 @@
+package org.iplantc.de.server;
+
+import static org.iplantc.de.server.AppLoggerConstants.BULKHEAD_KEY;
+
+import org.iplantc.de.shared.exceptions.HttpException;
+
+import com.google.common.base.Splitter;
+import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Isolates backend services from each other, so that a degraded service can't tie up the
+ * connections and threads needed to call healthy ones.
+ *
+ * Calls are classified by service key (see {@link ServiceCallResolver#getServiceKey(String)}) or, for
+ * addresses which don't belong to a known service, by the first two segments of their path. Each
+ * class has:
+ * <ul>
+ * <li>a bulkhead, which allows at most {@code max-concurrent} calls in flight at once, or the limit
+ * given for the class in {@code limits};</li>
+ * <li>a circuit breaker, which opens when at least {@code failure-ratio} of the last
+ * {@code window-size} calls either failed or took longer than {@code slow-call-ms}. While open,
+ * calls fail at once; after {@code open-seconds} a single trial call is let through, which closes
+ * the circuit if it's fast and successful, and opens it again otherwise.</li>
+ * </ul>
+ * Calls which aren't allowed fail with a 503 {@link HttpException} whose body is a service error
+ * with the {@code ERR_SERVICE_UNAVAILABLE} error code.
+ *
+ * Circuit state changes are written to the API metrics log as they happen, and the number of
+ * rejected calls per class periodically, under the {@link AppLoggerConstants#BULKHEAD_KEY} MDC key.
+ */
+@Component
+public class ServiceBulkheads implements InitializingBean, DisposableBean {
+
+    /**
+     * A call's claim on its class's bulkhead, which must be released exactly once.
+     */
+    public interface Permit {
+
+        /**
+         * @param failed true if the backend failed to respond, or responded with a server error.
+         */
+        void release(boolean failed);
+    }
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    static final String ERROR_CODE = "ERR_SERVICE_UNAVAILABLE";
+
+    private final Logger LOG = LoggerFactory.getLogger(ServiceBulkheads.class);
+
+    @Value("${org.iplantc.discoveryenvironment.bulkhead.enabled:true}") private boolean enabled = true;
+    @Value("${org.iplantc.discoveryenvironment.bulkhead.max-concurrent:50}") private int maxConcurrent = 50;
+    @Value("${org.iplantc.discoveryenvironment.bulkhead.limits:}") private String limits = "";
+    @Value("${org.iplantc.discoveryenvironment.bulkhead.window-size:20}") private int windowSize = 20;
+    @Value("${org.iplantc.discoveryenvironment.bulkhead.slow-call-ms:10000}") private long slowCallMillis = 10000;
+    @Value("${org.iplantc.discoveryenvironment.bulkhead.failure-ratio:0.5}") private double failureRatio = 0.5;
+    @Value("${org.iplantc.discoveryenvironment.bulkhead.open-seconds:30}") private long openSeconds = 30;
+    @Value("${org.iplantc.discoveryenvironment.bulkhead.metrics-interval-seconds:60}") private long metricsInterval;
+
+    private final ConcurrentMap<String, ServiceClass> classes = new ConcurrentHashMap<>();
+    private Map<String, Integer> classLimits = Maps.newHashMap();
+    private ScheduledFuture<?> statsLogging;
+    private final AppLoggerUtil loggerUtil = AppLoggerUtil.getInstance();
+
+    void setLimits(final String limits) {
+        this.limits = limits;
+    }
+
+    void setWindowSize(final int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    void setSlowCallMillis(final long slowCallMillis) {
+        this.slowCallMillis = slowCallMillis;
+    }
+
+    void setOpenSeconds(final long openSeconds) {
+        this.openSeconds = openSeconds;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        classLimits = Maps.newHashMap();
+        if (!Strings.isNullOrEmpty(limits.trim())) {
+            for (Map.Entry<String, String> limit : Splitter.on(',').trimResults().omitEmptyStrings()
+                                                           .withKeyValueSeparator(Splitter.on('=').trimResults())
+                                                           .split(limits).entrySet()) {
+                classLimits.put(limit.getKey(), Integer.parseInt(limit.getValue()));
+            }
+        }
+        LOG.info("Service bulkheads {}: max-concurrent = {}, limits = {}",
+                 enabled ? "enabled" : "disabled", maxConcurrent, classLimits);
+
+        if (enabled && metricsInterval > 0) {
+            final AppLoggerUtil.StatsSource stats = new AppLoggerUtil.StatsSource() {
+                @Override
+                public Map<String, Object> createStatsMap() {
+                    return classes.isEmpty() ? null : ServiceBulkheads.this.createStatsMap();
+                }
+            };
+            statsLogging = loggerUtil.scheduleStats(BULKHEAD_KEY, "Service bulkhead stats", metricsInterval, stats);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (statsLogging != null) {
+            statsLogging.cancel(false);
+        }
+    }
+
+    /**
+     * Determines the class of a call.
+     *
+     * @param serviceKey the key of the service the call is made to, or null if it's unknown.
+     * @param endpoint the path of the service address.
+     * @return the class name.
+     */
+    public String classify(final String serviceKey, final String endpoint) {
+        if (serviceKey != null) {
+            return serviceKey;
+        }
+        int end = endpoint.indexOf('/', 1);
+        if (end > 0) {
+            final int next = endpoint.indexOf('/', end + 1);
+            end = next > 0 ? next : endpoint.length();
+        } else {
+            end = endpoint.length();
+        }
+        return endpoint.substring(0, end);
+    }
+
+    /**
+     * Claims a place in a class's bulkhead.
+     *
+     * @param serviceClass the class of the call, from {@link #classify}.
+     * @return the permit, to be released when the call completes.
+     * @throws HttpException with a 503 status if the bulkhead is full or the circuit is open.
+     */
+    public Permit acquire(final String serviceClass) throws HttpException {
+        if (!enabled) {
+            return NO_OP_PERMIT;
+        }
+        return getServiceClass(serviceClass).acquire();
+    }
+
+    /**
+     * Creates a map describing each class which has been called, and resets the rejection counts.
+     *
+     * @return the circuit state, calls in flight and rejected calls, by class.
+     */
+    public Map<String, Object> createStatsMap() {
+        Map<String, Object> statsMap = Maps.newTreeMap();
+        for (ServiceClass serviceClass : classes.values()) {
+            statsMap.put(serviceClass.name, serviceClass.createStatsMap());
+        }
+        return statsMap;
+    }
+
+    State getState(final String serviceClass) {
+        return getServiceClass(serviceClass).state;
+    }
+
+    private void logStateChange(final String serviceClass, final State from, final State to) {
+        LOG.info("Circuit for {} changed from {} to {}", serviceClass, from, to);
+        if (!loggerUtil.isApiMetricsEnabled()) {
+            return;
+        }
+        Map<String, Object> change = Maps.newHashMap();
+        change.put("service", serviceClass);
+        change.put("from", from.toString());
+        change.put("to", to.toString());
+        loggerUtil.logStats(BULKHEAD_KEY, "Service circuit state changed", change);
+    }
+
+    private ServiceClass getServiceClass(final String name) {
+        ServiceClass serviceClass = classes.get(name);
+        if (serviceClass == null) {
+            final Integer limit = classLimits.get(name);
+            final ServiceClass newClass = new ServiceClass(name, limit == null ? maxConcurrent : limit);
+            serviceClass = classes.putIfAbsent(name, newClass);
+            if (serviceClass == null) {
+                serviceClass = newClass;
+            }
+        }
+        return serviceClass;
+    }
+
+    private HttpException unavailable(final String serviceClass, final String reason) {
+        Map<String, Object> error = Maps.newLinkedHashMap();
+        error.put("error_code", ERROR_CODE);
+        error.put("reason", reason);
+        error.put("service", serviceClass);
+        String body;
+        try {
+            body = loggerUtil.toJson(error);
+        } catch (JsonProcessingException e) {
+            body = reason;
+        }
+        return new HttpException(503, body);
+    }
+
+    private static final Permit NO_OP_PERMIT = new Permit() {
+        @Override
+        public void release(boolean failed) {
+        }
+    };
+
+    /**
+     * The bulkhead and circuit breaker of one class of calls. The circuit's fields are guarded by
+     * the instance's lock.
+     */
+    private final class ServiceClass {
+        private final String name;
+        private final int limit;
+        private final Semaphore bulkhead;
+        private final boolean[] window = new boolean[windowSize];
+        private int windowCount;
+        private int windowIndex;
+        private int badCalls;
+        private volatile State state = State.CLOSED;
+        private long openedAt;
+        private boolean trialInFlight;
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong shortCircuited = new AtomicLong();
+
+        ServiceClass(final String name, final int limit) {
+            this.name = name;
+            this.limit = limit;
+            this.bulkhead = new Semaphore(limit);
+        }
+
+        Permit acquire() throws HttpException {
+            final boolean trial;
+            synchronized (this) {
+                if (state == State.OPEN && System.currentTimeMillis() - openedAt >= TimeUnit.SECONDS.toMillis(openSeconds)) {
+                    changeState(State.HALF_OPEN);
+                }
+                if (state == State.OPEN || (state == State.HALF_OPEN && trialInFlight)) {
+                    shortCircuited.incrementAndGet();
+                    throw unavailable(name, "The " + name + " service is temporarily unavailable.");
+                }
+                trial = state == State.HALF_OPEN;
+                if (trial) {
+                    trialInFlight = true;
+                }
+            }
+            if (!bulkhead.tryAcquire()) {
+                if (trial) {
+                    synchronized (this) {
+                        trialInFlight = false;
+                    }
+                }
+                rejected.incrementAndGet();
+                throw unavailable(name, "Too many requests to the " + name + " service are in progress.");
+            }
+
+            final long start = System.currentTimeMillis();
+            return new Permit() {
+                private boolean released;
+
+                @Override
+                public void release(boolean failed) {
+                    synchronized (this) {
+                        if (released) {
+                            return;
+                        }
+                        released = true;
+                    }
+                    bulkhead.release();
+                    record(trial, failed || System.currentTimeMillis() - start > slowCallMillis);
+                }
+            };
+        }
+
+        synchronized void record(final boolean trial, final boolean bad) {
+            if (trial) {
+                trialInFlight = false;
+                if (bad) {
+                    open();
+                } else {
+                    resetWindow();
+                    changeState(State.CLOSED);
+                }
+                return;
+            }
+            if (state != State.CLOSED) {
+                // Calls started before the circuit opened don't affect it.
+                return;
+            }
+            if (windowCount == window.length) {
+                if (window[windowIndex]) {
+                    badCalls--;
+                }
+            } else {
+                windowCount++;
+            }
+            window[windowIndex] = bad;
+            if (bad) {
+                badCalls++;
+            }
+            windowIndex = (windowIndex + 1) % window.length;
+            if (windowCount == window.length && badCalls >= failureRatio * window.length) {
+                open();
+            }
+        }
+
+        private void open() {
+            openedAt = System.currentTimeMillis();
+            resetWindow();
+            changeState(State.OPEN);
+        }
+
+        private void resetWindow() {
+            windowCount = 0;
+            windowIndex = 0;
+            badCalls = 0;
+        }
+
+        private void changeState(final State newState) {
+            final State oldState = state;
+            if (oldState != newState) {
+                state = newState;
+                logStateChange(name, oldState, newState);
+            }
+        }
+
+        Map<String, Object> createStatsMap() {
+            Map<String, Object> statsMap = Maps.newHashMap();
+            statsMap.put("state", state.toString());
+            statsMap.put("in-flight", limit - bulkhead.availablePermits());
+            statsMap.put("max", limit);
+            statsMap.put("rejected", rejected.getAndSet(0));
+            statsMap.put("short-circuited", shortCircuited.getAndSet(0));
+            return statsMap;
+        }
+    }
+}
@@ -7,32 +7,61 @@ import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
 import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
 import org.springframework.stereotype.Component;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
+ * Resolves service keys, such as {@code org.iplantc.services.analyses/shredder?foo=bar}, to
+ * service URLs.
+ *
+ * The base URL of every service key found in the environment is read once into an immutable,
+ * sorted table, so that resolving an address is a scan of the address followed by a binary search
+ * which allocates nothing but the resulting string. Keys which can't be enumerated from the
+ * environment are still looked up in it directly. Call {@link #refresh()} when the underlying
+ * property sources change; this also happens whenever the application context is refreshed.
+ *
+ * The table also maps resolved addresses back to service keys, so that calls can be attributed to
+ * a backend service even when the client sent a full URL.
+ *
  * @author jstroot
  */
 @Component
-public class ServiceCallResolver {
+public class ServiceCallResolver implements ApplicationListener<ContextRefreshedEvent> {
     private static final Logger LOG = LoggerFactory.getLogger(ServiceCallResolver.class);
     private static final String PREFIX_KEY = "prefix";
 
     private Environment environment;
 
+    private String prefix;
+
+    /**
+     * The immutable table of known service keys and their base URLs, replaced as a unit on refresh.
+     */
+    private volatile ServiceTable serviceTable = ServiceTable.EMPTY;
+
     @Autowired
     public void setAppProperties(Environment environment) {
         LOG.trace("Set app properties");
         this.environment = environment;
         setPrefix();
         validatePrefix();
+        refresh();
     }
 
-//    private Properties appProperties;
-    private String prefix;
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        refresh();
+    }
 
     private void validatePrefix() {
         if (StringUtils.isEmpty(prefix)) {
@@ -45,6 +74,33 @@ public class ServiceCallResolver {
         prefix = environment.getProperty(PREFIX_KEY);
     }
 
+    /**
+     * Rebuilds the table of service base URLs from the environment's property sources.
+     */
+    public void refresh() {
+        final TreeMap<String, String> services = new TreeMap<>();
+        if (environment instanceof ConfigurableEnvironment) {
+            for (PropertySource<?> source : ((ConfigurableEnvironment) environment).getPropertySources()) {
+                if (!(source instanceof EnumerablePropertySource)) {
+                    continue;
+                }
+                for (String name : ((EnumerablePropertySource<?>) source).getPropertyNames()) {
+                    if (name.length() > prefix.length()
+                            && name.startsWith(prefix)
+                            && !services.containsKey(name)) {
+                        // Go through the environment so that placeholders and source precedence apply.
+                        final String value = environment.getProperty(name);
+                        if (value != null) {
+                            services.put(name, value);
+                        }
+                    }
+                }
+            }
+        }
+        serviceTable = new ServiceTable(services);
+        LOG.debug("Loaded {} service base URLs", services.size());
+    }
+
     /**
      * Resolves a service call to a valid service address.
      *
@@ -60,6 +116,23 @@ public class ServiceCallResolver {
         return resolveAddress(wrapper.getAddress());
     }
 
+    /**
+     * Resolves a service call to the URL it is sent to, including the call's arguments as the query
+     * string.
+     *
+     * @param wrapper service call wrapper containing metadata for a call.
+     * @return a string representing a valid URL.
+     * @throws UnresolvableServiceNameException if a service name that couldn't be resolved is passed to the resolver.
+     */
+    public String resolveCallAddress(BaseServiceCallWrapper wrapper) {
+        final String address = resolveAddress(wrapper);
+        if (!wrapper.hasArguments()) {
+            return address;
+        }
+        final String args = wrapper.getArguments();
+        return args.startsWith("?") ? address + args : address + "?" + args;
+    }
+
     /**
      * Resolves a service call for a specific service name.
      *
@@ -68,118 +141,185 @@ public class ServiceCallResolver {
      * @throws UnresolvableServiceNameException if the service name can't be resolved.
      */
     public String resolveAddress(String serviceName) {
-        NamedServiceCall serviceCall = NamedServiceCall.parse(prefix, serviceName);
-        final String retVal = serviceCall == null ? serviceName : serviceCall.resolve(environment);
+        final int nameEnd = serviceNameEnd(serviceName);
+        final String retVal = nameEnd < 0 ? serviceName : resolve(serviceName, nameEnd);
         LOG.debug("\"{}\" resolved to: {}", serviceName, retVal);
         return retVal;
     }
 
     /**
-     * Represents a named service call that can be resolved against a set of properties.
+     * Finds the service whose base URL is the longest prefix of a resolved address, ending at a
+     * path or query boundary.
+     *
+     * @param resolvedAddress the resolved service address.
+     * @return the service key, or null if the address doesn't belong to a known service.
      */
-    private static class NamedServiceCall {
+    public String getServiceKey(String resolvedAddress) {
+        return serviceTable.findByAddress(resolvedAddress);
+    }
 
-        private static final Logger LOG = LoggerFactory.getLogger(NamedServiceCall.class);
-        /**
-         * The name of the service.
-         */
-        private String serviceName;
+    /**
+     * Gets the endpoint of a resolved service address, which is its path without the query string.
+     * Calls are logged by endpoint.
+     *
+     * @param resolvedAddress the resolved service address.
+     * @return the endpoint.
+     */
+    public static String getEndpoint(String resolvedAddress) {
+        int slashSlash = resolvedAddress.indexOf("//") + 2;
+        int singleSlash = resolvedAddress.indexOf("/", slashSlash);
+        int questionMark = resolvedAddress.contains("?") ? resolvedAddress.indexOf("?") : resolvedAddress.length();
 
-        /**
-         * Any additional path components to add to the resolved URL, if applicable.
-         */
-        private String additionalPath;
+        return resolvedAddress.substring(singleSlash, questionMark);
+    }
 
-        /**
-         * The query string to add to the resolved URL, if applicable.
-         */
-        private String query;
+    /**
+     * Determines where the service name ends within an address. The service name is the prefix
+     * followed by at least one character which isn't a path separator or the start of the query.
+     *
+     * @param address the address to parse.
+     * @return the end index of the service name, or -1 if the address isn't a named service call.
+     */
+    private int serviceNameEnd(final String address) {
+        if (!address.startsWith(prefix)) {
+            return -1;
+        }
+        final int length = address.length();
+        int i = prefix.length();
+        while (i < length) {
+            final char c = address.charAt(i);
+            if (c == '/' || c == '?') {
+                break;
+            }
+            i++;
+        }
+        return i == prefix.length() ? -1 : i;
+    }
 
-        /**
-         * @return the additional path components to add to the URL or the empty string.
-         */
-        private String getAdditionalPath() {
-            return additionalPath == null ? "" : additionalPath;
+    /**
+     * Replaces the service name at the start of the address with its base URL, keeping any
+     * additional path components and query string.
+     */
+    private String resolve(final String address, final int nameEnd) {
+        String baseUrl = serviceTable.get(address, nameEnd);
+        if (baseUrl == null) {
+            baseUrl = getServiceBaseUrl(address.substring(0, nameEnd));
         }
+        if (nameEnd == address.length()) {
+            return baseUrl;
+        }
+        return new StringBuilder(baseUrl.length() + address.length() - nameEnd).append(baseUrl)
+                                                                                .append(address, nameEnd, address.length())
+                                                                                .toString();
+    }
 
-        /**
-         * @return the query string to add to the URL or the empty string.
-         */
-        private String getQuery() {
-            return query == null ? "" : query;
+    /**
+     * Gets the base URL of a service which isn't in the service table directly from the environment.
+     *
+     * @param serviceName the name of the service.
+     * @return the base URL to use when connecting to the service.
+     * @throws UnresolvableServiceNameException if the service name isn't found in the properties.
+     */
+    private String getServiceBaseUrl(final String serviceName) {
+        String result = environment.getProperty(serviceName);
+        if (result == null) {
+            LOG.error("unknown service name: {}", serviceName);
+            throw new UnresolvableServiceNameException(serviceName);
         }
+        return result;
+    }
+
+    /**
+     * An immutable table of service names and base URLs, sorted by name so that it can be searched
+     * with a region of an address as the key.
+     */
+    private static final class ServiceTable {
+
+        static final ServiceTable EMPTY = new ServiceTable(new TreeMap<String, String>());
+
+        private final String[] names;
+        private final String[] baseUrls;
 
         /**
-         * @param serviceName the name of the service.
-         * @param additionalPath any additional path components to add to the resolved URL, may be null.
-         * @param query the query string to add to the resolved URL, may be null.
+         * Indices into the arrays above, longest base URL first.
          */
-        private NamedServiceCall(String serviceName, String additionalPath, String query) {
-            this.serviceName = serviceName;
-            this.additionalPath = additionalPath;
-            this.query = query;
-            LOG.trace("Constructor args:\n\t" +
-                         "serviceName = {}\n\t" +
-                         "additionalPath = {}\n\t" +
-                         "query = {}", serviceName, additionalPath, query);
+        private final Integer[] byBaseUrlLength;
+
+        ServiceTable(final TreeMap<String, String> services) {
+            names = new String[services.size()];
+            baseUrls = new String[services.size()];
+            byBaseUrlLength = new Integer[services.size()];
+            int i = 0;
+            for (Map.Entry<String, String> entry : services.entrySet()) {
+                names[i] = entry.getKey();
+                baseUrls[i] = entry.getValue();
+                byBaseUrlLength[i] = i;
+                i++;
+            }
+            Arrays.sort(byBaseUrlLength, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer a, Integer b) {
+                    return baseUrls[b].length() - baseUrls[a].length();
+                }
+            });
         }
 
         /**
-         * Parses an address into a named service call.  If the address appears to correspond to a named service
-         * call then a new NamedServiceCall will be returned.  Otherwise, null will be returned.
-         *
-         * @param prefix the property name prefix for named service calls.
-         * @param address the address to convert.
-         * @return the NamedServiceCall instance or null if the address doesn't represent a named service call.
+         * @param address a resolved service address.
+         * @return the name of the service with the longest base URL prefixing the address, or null.
          */
-        public static NamedServiceCall parse(String prefix, String address) {
-            Pattern pattern = Pattern.compile("(\\Q" + prefix + "\\E[^/?]+)(/[^?]*)?(\\?.*)?");
-            Matcher matcher = pattern.matcher(address);
-            if (matcher.matches()) {
-                return new NamedServiceCall(matcher.group(1), matcher.group(2), matcher.group(3));
-            }
-            else {
-                LOG.debug("Parsing failed for;\n\t" +
-                              "prefix = {}\n\t" +
-                              "address = {}", prefix, address);
-                return null;
+        String findByAddress(final String address) {
+            for (Integer i : byBaseUrlLength) {
+                final String baseUrl = baseUrls[i];
+                if (!baseUrl.isEmpty() && address.startsWith(baseUrl)) {
+                    final int end = baseUrl.length();
+                    if (end == address.length()
+                            || baseUrl.charAt(end - 1) == '/'
+                            || address.charAt(end) == '/'
+                            || address.charAt(end) == '?') {
+                        return names[i];
+                    }
+                }
             }
+            return null;
         }
 
         /**
-         * Resolves a named service call.
-         *
-         * @param props the properties to use when resolving the call.
-         * @return the resolved URL.
-         * @throws UnresolvableServiceNameException if the service name isn't found in the properties.
+         * @param address the address containing the service name.
+         * @param nameEnd the end index of the service name within the address.
+         * @return the base URL of the service, or null if the service isn't in the table.
          */
-        public String resolve(Environment props) {
-            final String retVal = getServiceBaseUrl(props) + getAdditionalPath() + getQuery();
-            LOG.trace("RESOLVED\n\t" +
-                          "service name: {}\n\t" +
-                          "to: {}", serviceName, retVal);
-            return retVal;
+        String get(final String address, final int nameEnd) {
+            int low = 0;
+            int high = names.length - 1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final int cmp = compare(names[mid], address, nameEnd);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return baseUrls[mid];
+                }
+            }
+            return null;
         }
 
         /**
-         * Gets the base URL for this named service call.
-         *
-         * @param props the properties to use when resolving the service call.
-         * @return the base URL to use when connecting to the service.
-         * @throws UnresolvableServiceNameException if the service name isn't found in the properties.
+         * Compares a name to the first {@code length} characters of an address, with the same
+         * ordering as {@link String#compareTo(String)}.
          */
-        private String getServiceBaseUrl(Environment props) {
-            String result = props.getProperty(serviceName);
-            if (result == null) {
-                LOG.error("unknown service name: {}", serviceName);
-//                if (LOG.isDebugEnabled()) {
-//                    for (String prop : new TreeSet<>(props.stringPropertyNames())) {
-//                        LOG.debug("configuration setting: {} = {}", prop, props.getProperty(prop));
-//                    }
-//                }
-                throw new UnresolvableServiceNameException(serviceName);
+        private static int compare(final String name, final String address, final int length) {
+            final int limit = Math.min(name.length(), length);
+            for (int i = 0; i < limit; i++) {
+                final char a = name.charAt(i);
+                final char b = address.charAt(i);
+                if (a != b) {
+                    return a - b;
+                }
             }
-            return result;
+            return name.length() - length;
         }
     }
 }
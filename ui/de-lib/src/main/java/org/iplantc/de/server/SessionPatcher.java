@@ -0,0 +1,178 @@
+package org.iplantc.de.server;
+
+import org.iplantc.de.server.auth.UrlConnector;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.WebUtils;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Applies patches of the desktop's window states to the user's saved session.
+ *
+ * The desktop only sends the window states which changed since its last save, the keys of the
+ * windows which were closed, and the keys of all open windows in stacking order:
+ *
+ * <pre>
+ * {"reset": false, "put": {"DATA_": {...}}, "remove": ["APPS_"], "order": ["DATA_", "ANALYSES_"]}
+ * </pre>
+ *
+ * The sessions service only accepts the complete list of window states, so the window states last
+ * saved by each HTTP session are kept in the session, and the patched list is saved on the user's
+ * behalf. A patch with {@code reset} set replaces the kept window states instead of patching them.
+ * A patch which doesn't apply to the kept window states, e.g. because the HTTP session is new, is
+ * refused, and the desktop is expected to send its complete window state with {@code reset} set.
+ */
+@Component
+public class SessionPatcher {
+
+    static final String WINDOW_STATES_ATTRIBUTE = SessionPatcher.class.getName() + ".windowStates";
+
+    private final Logger LOG = LoggerFactory.getLogger(SessionPatcher.class);
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired private ServiceCallResolver serviceResolver;
+    @Autowired private UrlConnector urlConnector;
+    @Autowired private HttpClientPool httpClientPool;
+    @Autowired private ResponseCache responseCache;
+
+    @Value("${org.iplantc.discoveryenvironment.muleServiceBaseUrl:}sessions") private String sessionsAddress;
+
+    void setSessionsAddress(final String sessionsAddress) {
+        this.sessionsAddress = sessionsAddress;
+    }
+
+    void setServiceResolver(final ServiceCallResolver serviceResolver) {
+        this.serviceResolver = serviceResolver;
+    }
+
+    void setUrlConnector(final UrlConnector urlConnector) {
+        this.urlConnector = urlConnector;
+    }
+
+    void setHttpClientPool(final HttpClientPool httpClientPool) {
+        this.httpClientPool = httpClientPool;
+    }
+
+    void setResponseCache(final ResponseCache responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    /**
+     * Applies a patch to the window states last saved by the request's HTTP session, and saves the
+     * result.
+     *
+     * @param request the request containing the patch.
+     * @param patch the patch, as JSON.
+     * @return false if the patch doesn't apply to the kept window states, in which case nothing is
+     * saved.
+     * @throws IOException if the patch can't be parsed, or the session can't be saved.
+     */
+    public boolean apply(final HttpServletRequest request, final String patch) throws IOException {
+        final JsonNode patchNode = mapper.readTree(patch);
+        if (patchNode == null || !patchNode.isObject()) {
+            throw new IOException("the session patch must be a JSON object");
+        }
+
+        final HttpSession session = request.getSession();
+        synchronized (WebUtils.getSessionMutex(session)) {
+            @SuppressWarnings("unchecked")
+            final LinkedHashMap<String, String> saved =
+                    (LinkedHashMap<String, String>)session.getAttribute(WINDOW_STATES_ATTRIBUTE);
+            final boolean reset = patchNode.path("reset").asBoolean(false);
+            if (!reset && saved == null) {
+                return false;
+            }
+
+            final LinkedHashMap<String, String> patched = patch(reset ? null : saved, patchNode);
+            if (patched == null) {
+                return false;
+            }
+            save(request, patched.values());
+            session.setAttribute(WINDOW_STATES_ATTRIBUTE, patched);
+        }
+        return true;
+    }
+
+    /**
+     * @return the patched window states in stacking order, or null if the patch doesn't apply.
+     */
+    LinkedHashMap<String, String> patch(final Map<String, String> saved, final JsonNode patchNode) throws IOException {
+        final Map<String, String> windowStates = new LinkedHashMap<>();
+        if (saved != null) {
+            windowStates.putAll(saved);
+        }
+        for (JsonNode key : patchNode.path("remove")) {
+            windowStates.remove(key.asText());
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = patchNode.path("put").fields(); it.hasNext(); ) {
+            final Map.Entry<String, JsonNode> entry = it.next();
+            windowStates.put(entry.getKey(), mapper.writeValueAsString(entry.getValue()));
+        }
+
+        final LinkedHashMap<String, String> ordered = new LinkedHashMap<>();
+        for (JsonNode key : patchNode.path("order")) {
+            final String windowState = windowStates.get(key.asText());
+            if (windowState == null || ordered.put(key.asText(), windowState) != null) {
+                LOG.debug("Session patch refers to an unknown or repeated window: {}", key.asText());
+                return null;
+            }
+        }
+        if (ordered.size() != windowStates.size()) {
+            LOG.debug("Session patch leaves {} windows out of the stacking order",
+                      windowStates.size() - ordered.size());
+            return null;
+        }
+        return ordered;
+    }
+
+    private void save(final HttpServletRequest request, final Iterable<String> windowStates) throws IOException {
+        final StringBuilder body = new StringBuilder("{\"windowStates\":[");
+        for (String windowState : windowStates) {
+            if (body.charAt(body.length() - 1) != '[') {
+                body.append(',');
+            }
+            body.append(windowState);
+        }
+        body.append("]}");
+
+        final String address = serviceResolver.resolveAddress(sessionsAddress);
+        final HttpPost post = urlConnector.postRequest(request, address);
+        post.setEntity(new StringEntity(body.toString(), ContentType.APPLICATION_JSON));
+        try (CloseableHttpResponse response = httpClientPool.getClient(serviceResolver.getServiceKey(address))
+                                                            .execute(post)) {
+            final int status = response.getStatusLine().getStatusCode();
+            if (response.getEntity() != null) {
+                EntityUtils.consume(response.getEntity());
+            }
+            if (status < 200 || status > 299) {
+                throw new IOException("saving the session returned status " + status);
+            }
+        } finally {
+            final Principal principal = request.getUserPrincipal();
+            if (principal != null) {
+                responseCache.invalidate(principal.getName(), post.getURI().getPath());
+            }
+        }
+    }
+}
@@ -1,34 +1,104 @@
 package org.iplantc.de.server.auth;
 
+import org.iplantc.de.server.AppLoggerUtil;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.Maps;
+
 import org.jasig.cas.client.authentication.AttributePrincipal;
 import org.jose4j.jws.AlgorithmIdentifiers;
 import org.jose4j.jws.JsonWebSignature;
 import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.NumericDate;
 import org.jose4j.lang.JoseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.Assert;
 
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
 import java.security.PrivateKey;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
+import static org.iplantc.de.server.AppLoggerConstants.JWT_CACHE_KEY;
 import static org.iplantc.de.server.auth.PemKeyUtils.loadPrivateKey;
 import static org.iplantc.de.server.util.CasUtils.attributePrincipalFromServletRequest;
 
 /**
  * Builds signed JWTs for the current user.
  *
+ * Signed tokens are cached per principal for a short, configurable lifetime so that repeated
+ * requests in the same session don't pay for an RSA signature each time. The lifetime of the
+ * cache entries must be shorter than the validity period written into the {@code exp} claim.
+ *
+ * The cache's hit and miss counts are periodically written to the API metrics log under the
+ * {@link org.iplantc.de.server.AppLoggerConstants#JWT_CACHE_KEY} MDC key.
+ *
  * @author dennis
  */
 @Component
-public class DefaultJwtBuilder implements JwtBuilder {
+public class DefaultJwtBuilder implements JwtBuilder, InitializingBean, DisposableBean, AppLoggerUtil.StatsSource {
+
+    private static final Pattern BLANK_PATTERN = Pattern.compile("^\\s*$");
+    private static final Pattern LIST_BRACKETS_PATTERN = Pattern.compile("^\\s*\\[|\\]\\s*$");
+    private static final Pattern LIST_DELIMITER_PATTERN = Pattern.compile(",\\s*");
+
+    private final Logger LOG = LoggerFactory.getLogger(DefaultJwtBuilder.class);
 
     @Value("${org.iplantc.discoveryenvironment.jwt.private-key-path}") private String privateKeyPath;
     @Value("${org.iplantc.discoveryenvironment.jwt.private-key-password}") private String privateKeyPassword;
+    @Value("${org.iplantc.discoveryenvironment.jwt.validity-seconds:300}") private long validitySeconds;
+    @Value("${org.iplantc.discoveryenvironment.jwt.cache-lifetime-seconds:60}") private long cacheLifetimeSeconds;
+    @Value("${org.iplantc.discoveryenvironment.jwt.cache-max-size:10000}") private long cacheMaxSize;
+    @Value("${org.iplantc.discoveryenvironment.jwt.metrics-interval-seconds:60}") private long metricsInterval;
 
     private PrivateKey privateKey;
 
+    /**
+     * Compact JWT serializations, keyed by principal name.
+     */
+    private Cache<String, String> jwtCache;
+
+    /**
+     * The cache's counts when they were last logged.
+     */
+    private CacheStats loggedStats = new CacheStats(0, 0, 0, 0, 0, 0);
+    private ScheduledFuture<?> statsLogging;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        Assert.isTrue(cacheLifetimeSeconds < validitySeconds,
+                      "the JWT cache lifetime must be shorter than the JWT validity period");
+        jwtCache = CacheBuilder.newBuilder()
+                               .expireAfterWrite(cacheLifetimeSeconds, TimeUnit.SECONDS)
+                               .maximumSize(cacheMaxSize)
+                               .recordStats()
+                               .build();
+        if (cacheLifetimeSeconds > 0 && metricsInterval > 0) {
+            statsLogging = AppLoggerUtil.getInstance().scheduleStats(JWT_CACHE_KEY,
+                                                                     "Signed JWT cache stats",
+                                                                     metricsInterval,
+                                                                     this);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (statsLogging != null) {
+            statsLogging.cancel(false);
+        }
+    }
+
     private PrivateKey getPrivateKey() {
         if (privateKey == null) {
             try {
@@ -45,14 +115,58 @@ public class DefaultJwtBuilder implements JwtBuilder {
     @Override
     public String buildJwt(final HttpServletRequest request) throws JoseException {
         final AttributePrincipal principal = attributePrincipalFromServletRequest(request);
+        if (cacheLifetimeSeconds <= 0) {
+            return signJwt(principal);
+        }
+
+        String jwt = jwtCache.getIfPresent(principal.getName());
+        if (jwt == null) {
+            jwt = signJwt(principal);
+            jwtCache.put(principal.getName(), jwt);
+        }
+        return jwt;
+    }
+
+    @Override
+    public void invalidate(final String principalName) {
+        if (principalName != null) {
+            LOG.debug("Invalidating cached JWT for {}", principalName);
+            jwtCache.invalidate(principalName);
+        }
+    }
+
+    /**
+     * Creates a map describing the use of the signed JWT cache since the last call.
+     *
+     * @return the hit and miss counts, and the number of cached tokens.
+     */
+    @Override
+    public synchronized Map<String, Object> createStatsMap() {
+        final CacheStats stats = jwtCache.stats();
+        final CacheStats recent = stats.minus(loggedStats);
+        loggedStats = stats;
+
+        Map<String, Object> statsMap = Maps.newHashMap();
+        statsMap.put("hits", recent.hitCount());
+        statsMap.put("misses", recent.missCount());
+        statsMap.put("hit-rate", recent.hitRate());
+        statsMap.put("evictions", recent.evictionCount());
+        statsMap.put("size", jwtCache.size());
+        return statsMap;
+    }
+
+    private String signJwt(final AttributePrincipal principal) throws JoseException {
 
         // Extract the user's first and last name from the attributes.
         final String firstName = getStringAttribute(principal, "firstName");
         final String lastName = getStringAttribute(principal, "lastName");
 
         // Build the JWT claims.
+        final NumericDate now = NumericDate.now();
         JwtClaims claims = new JwtClaims();
         claims.setSubject(principal.getName());
+        claims.setIssuedAt(now);
+        claims.setExpirationTime(NumericDate.fromSeconds(now.getValue() + validitySeconds));
         claims.setClaim("email", getStringAttribute(principal, "email"));
         claims.setClaim("given_name", firstName);
         claims.setClaim("family_name", lastName);
@@ -89,11 +203,11 @@ public class DefaultJwtBuilder implements JwtBuilder {
      */
     private String[] extractGroups(final AttributePrincipal principal) {
         final String groupStr = getStringAttribute(principal, "entitlement");
-        if (groupStr == null || groupStr.matches("^\\s*$")) {
+        if (groupStr == null || BLANK_PATTERN.matcher(groupStr).matches()) {
             return null;
         }
 
         // Remove the leading and trailing square brackets then split the string.
-        return groupStr.replaceAll("^\\s*\\[|\\]\\s*$", "").split(",\\s*");
+        return LIST_DELIMITER_PATTERN.split(LIST_BRACKETS_PATTERN.matcher(groupStr).replaceAll(""));
     }
 }
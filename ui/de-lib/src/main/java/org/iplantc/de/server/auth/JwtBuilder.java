@@ -19,4 +19,11 @@ public interface JwtBuilder {
      * @throws JoseException if the JWT can't be generated or signed.
      */
     String buildJwt(final HttpServletRequest request) throws JoseException;
+
+    /**
+     * Discards any previously built JWT for the given user, so that the next request signs a new one.
+     *
+     * @param principalName the name of the user whose JWT should be discarded.
+     */
+    void invalidate(final String principalName);
 }
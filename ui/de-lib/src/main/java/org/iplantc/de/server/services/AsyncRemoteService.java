@@ -0,0 +1,48 @@
+package org.iplantc.de.server.services;
+
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.concurrent.FutureCallback;
+
+import java.lang.reflect.Method;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * This interface is for wrapped RPC implementations which can complete some calls without holding
+ * the servlet thread while they wait on a backend.
+ */
+public interface AsyncRemoteService {
+
+    /**
+     * Returned for calls which can no longer be cancelled, e.g. because they completed before
+     * {@link #invokeAsync} returned.
+     */
+    Cancellable NOT_CANCELLABLE = new Cancellable() {
+        @Override
+        public boolean cancel() {
+            return false;
+        }
+    };
+
+    /**
+     * @param method the decoded RPC method.
+     * @return true if calls to the method can be made with {@link #invokeAsync}.
+     */
+    boolean isAsync(Method method);
+
+    /**
+     * Starts a call. The callback may be invoked on any thread, and must only fail with exceptions
+     * which the method declares.
+     *
+     * @param request the servlet request, which is in asynchronous mode.
+     * @param method the decoded RPC method.
+     * @param parameters the decoded RPC parameters.
+     * @param callback receives the method's return value, or the exception it would have thrown.
+     * @return cancels the call once its request no longer waits for it, e.g. after a timeout. A call
+     * which hasn't reached the backend yet is then never made.
+     */
+    Cancellable invokeAsync(HttpServletRequest request,
+                     Method method,
+                     Object[] parameters,
+                     FutureCallback<Object> callback);
+}
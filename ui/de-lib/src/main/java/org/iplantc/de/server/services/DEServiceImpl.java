@@ -1,43 +1,64 @@
 package org.iplantc.de.server.services;
 
-import static org.iplantc.de.server.AppLoggerConstants.REQUEST_KEY;
-import static org.iplantc.de.server.AppLoggerConstants.RESPONSE_KEY;
 import org.iplantc.de.server.AppLoggerConstants;
 import org.iplantc.de.server.AppLoggerUtil;
+import org.iplantc.de.server.AsyncRequestLimiter;
+import org.iplantc.de.server.AuthenticatedRequest;
+import org.iplantc.de.server.HttpClientPool;
+import org.iplantc.de.server.RequestCoalescer;
+import org.iplantc.de.server.ResponseCache;
+import org.iplantc.de.server.ServiceBulkheads;
 import org.iplantc.de.server.ServiceCallResolver;
+import org.iplantc.de.server.auth.DESecurityConstants;
 import org.iplantc.de.server.auth.UrlConnector;
 import org.iplantc.de.shared.exceptions.AuthenticationException;
 import org.iplantc.de.shared.exceptions.HttpException;
 import org.iplantc.de.shared.exceptions.HttpRedirectException;
 import org.iplantc.de.shared.services.BaseServiceCallWrapper;
 import org.iplantc.de.shared.services.DEService;
+import org.iplantc.de.shared.services.ServiceCallResult;
 import org.iplantc.de.shared.services.ServiceCallWrapper;
 
+import com.google.common.collect.Lists;
 import com.google.gwt.user.client.rpc.SerializationException;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpHeaders;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.entity.DeflateDecompressingEntity;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPatch;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.entity.ContentType;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.concurrent.FutureCallback;
 import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.security.Principal;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.servlet.http.HttpServletRequest;
 
@@ -47,6 +68,7 @@ import javax.servlet.http.HttpServletRequest;
  * @author jstroot
  */
 public class DEServiceImpl implements DEService,
+                                      AsyncRemoteService,
                                       HasHttpServletRequest {
     private final Logger API_METRICS_LOG = LoggerFactory.getLogger(AppLoggerConstants.API_METRICS_LOGGER);
     private final AppLoggerUtil loggerUtil = AppLoggerUtil.getInstance();
@@ -63,10 +85,52 @@ public class DEServiceImpl implements DEService,
      */
     private UrlConnector urlConnector;
 
+    /**
+     * The shared pool of backend connections.
+     */
+    private HttpClientPool httpClientPool;
+
+    /**
+     * Shares backend calls between concurrent, identical GET requests.
+     */
+    private RequestCoalescer requestCoalescer;
+
+    /**
+     * Holds recent responses to cacheable GET requests.
+     */
+    private ResponseCache responseCache;
+
+    /**
+     * Runs the calls of batched requests in parallel.
+     */
+    private ExecutorService batchExecutor;
+
+    /**
+     * Bounds the backend calls of asynchronous requests.
+     */
+    private AsyncRequestLimiter asyncRequestLimiter;
+
+    /**
+     * Isolates backend services from each other.
+     */
+    private ServiceBulkheads serviceBulkheads;
+
     public DEServiceImpl(final ServiceCallResolver serviceResolver,
-                         final UrlConnector urlConnector) {
+                         final UrlConnector urlConnector,
+                         final HttpClientPool httpClientPool,
+                         final RequestCoalescer requestCoalescer,
+                         final ResponseCache responseCache,
+                         final ExecutorService batchExecutor,
+                         final AsyncRequestLimiter asyncRequestLimiter,
+                         final ServiceBulkheads serviceBulkheads) {
         this.urlConnector = urlConnector;
         this.serviceResolver = serviceResolver;
+        this.httpClientPool = httpClientPool;
+        this.requestCoalescer = requestCoalescer;
+        this.responseCache = responseCache;
+        this.batchExecutor = batchExecutor;
+        this.asyncRequestLimiter = asyncRequestLimiter;
+        this.serviceBulkheads = serviceBulkheads;
     }
 
     /**
@@ -80,21 +144,90 @@ public class DEServiceImpl implements DEService,
     @Override
     public String getServiceData(ServiceCallWrapper wrapper) throws SerializationException, AuthenticationException,
                                                                     HttpException {
-        String json = null;
-        if (isValidServiceCall(wrapper)) {
-            String address = retrieveServiceAddress(wrapper);
+        return getServiceData(getRequest(), wrapper);
+    }
 
-            CloseableHttpClient client = HttpClients.createDefault();
+    /**
+     * Sends a batch of calls to the backend in parallel. Each call is processed as if it had been
+     * sent on its own, and its outcome, whether a response or an error, is returned in its position
+     * in the batch. Calls beyond the capacity of the batch executor run on the request thread.
+     *
+     * @param wrappers the services call wrappers.
+     * @return the result of each call.
+     */
+    @Override
+    public ArrayList<ServiceCallResult> getServiceDataBatch(ArrayList<ServiceCallWrapper> wrappers) {
+        // Batched calls may run on executor threads, which have neither the request's security
+        // context nor its logging context.
+        final HttpServletRequest servletRequest = new AuthenticatedRequest(getRequest());
+        final Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+
+        final List<Future<ServiceCallResult>> futures = Lists.newArrayListWithCapacity(wrappers.size());
+        for (final ServiceCallWrapper wrapper : wrappers) {
+            futures.add(batchExecutor.submit(new Callable<ServiceCallResult>() {
+                @Override
+                public ServiceCallResult call() {
+                    return getBatchedServiceData(servletRequest, wrapper, mdcContext);
+                }
+            }));
+        }
+
+        final ArrayList<ServiceCallResult> results = Lists.newArrayListWithCapacity(wrappers.size());
+        for (Future<ServiceCallResult> future : futures) {
             try {
-                json = getResponse(client, wrapper, address);
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.add(ServiceCallResult.failure("interrupted while waiting for the batch"));
+            } catch (ExecutionException e) {
+                results.add(ServiceCallResult.failure(e.getCause().getMessage()));
+            }
+        }
+        return results;
+    }
+
+    private ServiceCallResult getBatchedServiceData(final HttpServletRequest servletRequest,
+                                                    final ServiceCallWrapper wrapper,
+                                                    final Map<String, String> mdcContext) {
+        final Map<String, String> previousContext = MDC.getCopyOfContextMap();
+        setMdcContext(mdcContext);
+        try {
+            return ServiceCallResult.success(getServiceData(servletRequest, wrapper));
+        } catch (AuthenticationException e) {
+            return ServiceCallResult.authenticationFailure();
+        } catch (HttpException e) {
+            return ServiceCallResult.failure(e);
+        } catch (SerializationException e) {
+            return ServiceCallResult.failure(e.getMessage());
+        } finally {
+            setMdcContext(previousContext);
+        }
+    }
+
+    private void setMdcContext(final Map<String, String> context) {
+        if (context == null) {
+            MDC.clear();
+        } else {
+            MDC.setContextMap(context);
+        }
+    }
 
+    private String getServiceData(final HttpServletRequest servletRequest,
+                                  final ServiceCallWrapper wrapper) throws SerializationException, AuthenticationException,
+                                                                           HttpException {
+        String json = null;
+        if (isValidServiceCall(wrapper)) {
+            String address = serviceResolver.resolveCallAddress(wrapper);
 
+            try {
+                json = getResponse(httpClientPool.getClient(serviceResolver.getServiceKey(address)),
+                                   servletRequest,
+                                   wrapper,
+                                   address);
             } catch (AuthenticationException | HttpException ex) {
                 throw ex;
             } catch (Exception ex) {
                 throw new SerializationException(ex);
-            } finally {
-                IOUtils.closeQuietly(client);
             }
         }
         return json;
@@ -124,6 +257,253 @@ public class DEServiceImpl implements DEService,
         return ret;
     }
 
+    @Override
+    public boolean isAsync(final Method method) {
+        return asyncRequestLimiter.isEnabled() && "getServiceData".equals(method.getName());
+    }
+
+    /**
+     * Starts either variant of {@code getServiceData} without waiting for the backend. The backend
+     * call is made with the non-blocking client, and is subject to the concurrency limit and
+     * per-endpoint timeouts of the {@link AsyncRequestLimiter}.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Cancellable invokeAsync(final HttpServletRequest servletRequest,
+                                   final Method method,
+                                   final Object[] parameters,
+                                   final FutureCallback<Object> callback) {
+        final Map<String, String> mdcContext = new HashMap<>();
+        final Map<String, String> currentContext = MDC.getCopyOfContextMap();
+        if (currentContext != null) {
+            mdcContext.putAll(currentContext);
+        }
+        if (parameters.length > 1 && parameters[1] != null) {
+            mdcContext.putAll((Map<String, String>)parameters[1]);
+        }
+        return getServiceDataAsync(servletRequest, (ServiceCallWrapper)parameters[0], mdcContext, callback);
+    }
+
+    private Cancellable getServiceDataAsync(final HttpServletRequest servletRequest,
+                                            final ServiceCallWrapper wrapper,
+                                            final Map<String, String> mdcContext,
+                                            final FutureCallback<Object> callback) {
+        if (!isValidServiceCall(wrapper)) {
+            callback.completed(null);
+            return NOT_CANCELLABLE;
+        }
+
+        final String resolvedAddress = serviceResolver.resolveCallAddress(wrapper);
+        final String endpoint = ServiceCallResolver.getEndpoint(resolvedAddress);
+        final BaseServiceCallWrapper.Type type = wrapper.getType();
+        final String body = updateRequestBody(wrapper.getBody());
+
+        final String username = getUsername(servletRequest);
+        final boolean isGet = type == BaseServiceCallWrapper.Type.GET;
+        if (isGet && username != null) {
+            final String cachedBody = responseCache.get(username, resolvedAddress, endpoint);
+            if (cachedBody != null) {
+                callback.completed(cachedBody);
+                return NOT_CANCELLABLE;
+            }
+        }
+        final long cacheGeneration = responseCache.getGeneration();
+
+        final HttpRequestBase request;
+        try {
+            request = createRequest(servletRequest, type, resolvedAddress, body);
+        } catch (IOException e) {
+            API_METRICS_LOG.error(type.toString() + " " + endpoint, e);
+            callback.failed(toDeclaredException(e));
+            return NOT_CANCELLABLE;
+        }
+        final int timeout = asyncRequestLimiter.getTimeout(endpoint);
+        if (timeout >= 0) {
+            request.setConfig(RequestConfig.copy(httpClientPool.getRequestConfig()).setSocketTimeout(timeout).build());
+        }
+        loggerUtil.logRequest(request, body, type.toString(), endpoint);
+
+        final FutureCallback<String> responseCallback = new FutureCallback<String>() {
+            @Override
+            public void completed(String responseBody) {
+                if (username != null) {
+                    if (isGet) {
+                        responseCache.put(username, resolvedAddress, endpoint, responseBody, cacheGeneration);
+                    } else {
+                        responseCache.invalidate(username, endpoint);
+                    }
+                }
+                callback.completed(responseBody);
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                API_METRICS_LOG.error(type.toString() + " " + endpoint, ex);
+                if (!isGet && username != null) {
+                    responseCache.invalidate(username, endpoint);
+                }
+                callback.failed(toDeclaredException(ex));
+            }
+
+            @Override
+            public void cancelled() {
+                failed(new InterruptedIOException("backend call cancelled"));
+            }
+        };
+
+        final RequestCoalescer.AsyncCall call = new RequestCoalescer.AsyncCall() {
+            @Override
+            public Cancellable execute(final FutureCallback<String> callCallback) {
+                final AtomicBoolean cancelled = new AtomicBoolean();
+                final Runnable send = new Runnable() {
+                    @Override
+                    public void run() {
+                        if (cancelled.get()) {
+                            // Taken off the queue just as the request stopped waiting for it.
+                            asyncRequestLimiter.release();
+                            return;
+                        }
+                        // The permit is only taken once the call leaves the queue, so that queued
+                        // calls hold no place in the bulkhead and their wait doesn't count as latency.
+                        final ServiceBulkheads.Permit permit;
+                        try {
+                            permit = serviceBulkheads.acquire(getServiceClass(request, endpoint));
+                        } catch (HttpException e) {
+                            asyncRequestLimiter.release();
+                            callCallback.failed(e);
+                            return;
+                        }
+                        sendRequestAsync(request, type, endpoint, permit, mdcContext, callCallback);
+                    }
+                };
+                if (!asyncRequestLimiter.tryExecute(send)) {
+                    callCallback.failed(new HttpException(503, "Too many requests are waiting on backend services"));
+                    return NOT_CANCELLABLE;
+                }
+                return new Cancellable() {
+                    @Override
+                    public boolean cancel() {
+                        cancelled.set(true);
+                        return asyncRequestLimiter.cancel(send);
+                    }
+                };
+            }
+        };
+
+        final String coalescingKey = isGet && username != null
+                                     ? getCoalescingKey(username, request, resolvedAddress)
+                                     : null;
+        if (coalescingKey == null) {
+            return call.execute(responseCallback);
+        }
+        return requestCoalescer.executeAsync(coalescingKey, call, responseCallback);
+    }
+
+    /**
+     * Sends a request with the non-blocking client, or the service's HTTP/2 client. The callback
+     * runs on one of the client's threads, with the logging context of the original request. Unlike
+     * the blocking client, neither negotiates compression itself, so it's done here.
+     *
+     * @param request the outgoing request.
+     * @param type the request method.
+     * @param endpoint the endpoint, used for logging.
+     * @param permit the call's place in its service's bulkhead, released when the call completes.
+     * @param mdcContext the logging context of the servlet request.
+     * @param callback receives the response body, or the failure.
+     */
+    private void sendRequestAsync(final HttpRequestBase request,
+                                  final BaseServiceCallWrapper.Type type,
+                                  final String endpoint,
+                                  final ServiceBulkheads.Permit permit,
+                                  final Map<String, String> mdcContext,
+                                  final FutureCallback<String> callback) {
+        request.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip,deflate");
+        final long requestStartTime = System.currentTimeMillis();
+        final FutureCallback<HttpResponse> responseCallback = new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                final Map<String, String> previousContext = MDC.getCopyOfContextMap();
+                setMdcContext(mdcContext);
+                try {
+                    final String responseBody;
+                    try {
+                        loggerUtil.copyRequestIdHeader(request, response);
+                        decodeContent(response);
+                        responseBody = getResponseBody(response);
+                        loggerUtil.logResponse(response,
+                                               type,
+                                               endpoint,
+                                               responseBody,
+                                               System.currentTimeMillis() - requestStartTime);
+                    } catch (IOException e) {
+                        permit.release(isBackendFailure(e));
+                        callback.failed(e);
+                        return;
+                    }
+                    permit.release(false);
+                    callback.completed(responseBody);
+                } finally {
+                    asyncRequestLimiter.release();
+                    setMdcContext(previousContext);
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                final Map<String, String> previousContext = MDC.getCopyOfContextMap();
+                setMdcContext(mdcContext);
+                try {
+                    permit.release(true);
+                    callback.failed(ex);
+                } finally {
+                    asyncRequestLimiter.release();
+                    setMdcContext(previousContext);
+                }
+            }
+
+            @Override
+            public void cancelled() {
+                failed(new InterruptedIOException("backend call cancelled"));
+            }
+        };
+        try {
+            httpClientPool.executeAsync(serviceResolver.getServiceKey(request.getURI().toString()),
+                                        request,
+                                        responseCallback);
+        } catch (RuntimeException e) {
+            responseCallback.failed(e);
+        }
+    }
+
+    /**
+     * Replaces a gzip or deflate encoded response entity with one which decodes it.
+     *
+     * @param response the HTTP response.
+     */
+    private void decodeContent(final HttpResponse response) {
+        final HttpEntity entity = response.getEntity();
+        if (entity == null || entity.getContentEncoding() == null) {
+            return;
+        }
+        final String encoding = entity.getContentEncoding().getValue().trim().toLowerCase(Locale.ROOT);
+        if (encoding.equals("gzip") || encoding.equals("x-gzip")) {
+            response.setEntity(new GzipDecompressingEntity(entity));
+        } else if (encoding.equals("deflate")) {
+            response.setEntity(new DeflateDecompressingEntity(entity));
+        }
+    }
+
+    /**
+     * @return the exception, if {@code getServiceData} declares it, or a serialization exception
+     * wrapping it.
+     */
+    private Exception toDeclaredException(final Exception e) {
+        if (e instanceof AuthenticationException || e instanceof HttpException) {
+            return e;
+        }
+        return new SerializationException(e);
+    }
+
     /**
      * Sets the current servlet request.
      *
@@ -180,103 +560,211 @@ public class DEServiceImpl implements DEService,
         return new StringEntity(body, ContentType.APPLICATION_JSON);
     }
 
-    private String getEndpointFromRequestAddress(final String address){
-        int slashSlash = address.indexOf("//") + 2;
-        int singleSlash = address.indexOf("/", slashSlash);
-        int questionMark = address.contains("?") ? address.indexOf("?") : address.length();
-
-        return address.substring(singleSlash, questionMark);
-    }
-
     /**
      * Gets the response for an HTTP connection.
      *
      * @param client  the HTTP client to use.
+     * @param servletRequest the servlet request the call is made for.
      * @param wrapper the services call wrapper.
      * @return the response.
      * @throws IOException if an I/O error occurs.
      */
     private String getResponse(final HttpClient client,
-                                     final ServiceCallWrapper wrapper,
-                                     final String resolvedAddress) throws IOException {
+                               final HttpServletRequest servletRequest,
+                               final ServiceCallWrapper wrapper,
+                               final String resolvedAddress) throws IOException {
 
         String body = updateRequestBody(wrapper.getBody());
-        String endpoint = getEndpointFromRequestAddress(resolvedAddress);
+        String endpoint = ServiceCallResolver.getEndpoint(resolvedAddress);
 
         BaseServiceCallWrapper.Type type = wrapper.getType();
         HttpRequestBase request = null;
-        HttpResponse response;
         String responseBody;
 
-        try {
-
-            switch (type) {
-                case GET:
-                    request = urlConnector.getRequest(getRequest(), resolvedAddress);
-                    break;
-
-                case PUT:
-                    request = urlConnector.putRequest(getRequest(), resolvedAddress);
-                    ((HttpPut)request).setEntity(createEntity(body));
-                    break;
+        // Serve recent responses to cacheable GETs without calling the backend.
+        final String username = getUsername(servletRequest);
+        final boolean isGet = type == BaseServiceCallWrapper.Type.GET;
+        if (isGet && username != null) {
+            final String cachedBody = responseCache.get(username, resolvedAddress, endpoint);
+            if (cachedBody != null) {
+                return cachedBody;
+            }
+        }
+        final long cacheGeneration = responseCache.getGeneration();
 
-                case POST:
-                    request = urlConnector.postRequest(getRequest(), resolvedAddress);
-                    ((HttpPost)request).setEntity(createEntity(body));
-                    break;
+        try {
 
-                case DELETE:
-                    request = urlConnector.deleteRequest(getRequest(), resolvedAddress);
-                    break;
+            request = createRequest(servletRequest, type, resolvedAddress, body);
 
-                case PATCH:
-                    request = urlConnector.patchRequest(getRequest(), resolvedAddress);
-                    ((HttpPatch)request).setEntity(createEntity(body));
-                    break;
+            // Log Request
+            loggerUtil.logRequest(request, body, type.toString(), endpoint);
+
+            // Send request to API, sharing the call with identical GETs which are already in flight.
+            final String coalescingKey = isGet && username != null
+                                         ? getCoalescingKey(username, request, resolvedAddress)
+                                         : null;
+            if (coalescingKey == null) {
+                responseBody = sendRequest(client, request, type, endpoint);
+            } else {
+                final HttpRequestBase outgoingRequest = request;
+                final String outgoingEndpoint = endpoint;
+                responseBody = requestCoalescer.execute(coalescingKey, new RequestCoalescer.Call() {
+                    @Override
+                    public String execute() throws IOException {
+                        return sendRequest(client, outgoingRequest, BaseServiceCallWrapper.Type.GET, outgoingEndpoint);
+                    }
+                });
+                responseCache.put(username, resolvedAddress, endpoint, responseBody, cacheGeneration);
+            }
 
-                default:
-                    throw new UnsupportedOperationException("HTTP method " + type + " not supported");
+        } catch (Exception e) {
+            API_METRICS_LOG.error(type.toString() + " " + endpoint, e);
+            throw e;
+        } finally {
+            // Even a failed mutating call may have changed something, so always drop stale responses.
+            if (!isGet && username != null) {
+                responseCache.invalidate(username, endpoint);
             }
+        }
 
-            // Add request to MDC
-            final Map<String, Object> requestMap = loggerUtil.createMdcRequestMap(request, body);
-            final String mapAsString = new ObjectMapper().writeValueAsString(requestMap);
+        return responseBody;
 
-            // Log Request
-            MDC.put(REQUEST_KEY, mapAsString);
-            API_METRICS_LOG.info("{} {}", type.toString(), endpoint);
-            MDC.remove(REQUEST_KEY);
+    }
 
-            // Send request to API
+    /**
+     * Creates the outgoing request for a service call.
+     *
+     * @param servletRequest the servlet request the call is made for.
+     * @param type the request method.
+     * @param resolvedAddress the resolved service address.
+     * @param body the request body, for methods which send one.
+     * @return the outgoing request.
+     * @throws IOException if the request can't be created.
+     */
+    private HttpRequestBase createRequest(final HttpServletRequest servletRequest,
+                                          final BaseServiceCallWrapper.Type type,
+                                          final String resolvedAddress,
+                                          final String body) throws IOException {
+        HttpRequestBase request;
+        switch (type) {
+            case GET:
+                request = urlConnector.getRequest(servletRequest, resolvedAddress);
+                break;
+
+            case PUT:
+                request = urlConnector.putRequest(servletRequest, resolvedAddress);
+                ((HttpPut)request).setEntity(createEntity(body));
+                break;
+
+            case POST:
+                request = urlConnector.postRequest(servletRequest, resolvedAddress);
+                ((HttpPost)request).setEntity(createEntity(body));
+                break;
+
+            case DELETE:
+                request = urlConnector.deleteRequest(servletRequest, resolvedAddress);
+                break;
+
+            case PATCH:
+                request = urlConnector.patchRequest(servletRequest, resolvedAddress);
+                ((HttpPatch)request).setEntity(createEntity(body));
+                break;
+
+            default:
+                throw new UnsupportedOperationException("HTTP method " + type + " not supported");
+        }
+        return request;
+    }
+
+    /**
+     * Sends a request to a backend service and reads the response.
+     *
+     * @param client the HTTP client to use.
+     * @param request the outgoing request.
+     * @param type the request method.
+     * @param endpoint the endpoint, used for logging.
+     * @return the response body.
+     * @throws IOException if an I/O error occurs or the server returns an error status.
+     */
+    private String sendRequest(final HttpClient client,
+                               final HttpRequestBase request,
+                               final BaseServiceCallWrapper.Type type,
+                               final String endpoint) throws IOException {
+        final ServiceBulkheads.Permit permit = serviceBulkheads.acquire(getServiceClass(request, endpoint));
+        boolean failed = true;
+        HttpResponse response = null;
+        try {
             final long requestStartTime = System.currentTimeMillis();
             response = client.execute(request);
             response = loggerUtil.copyRequestIdHeader(request, response);
 
             // Set return value
-            responseBody = getResponseBody(response);
+            final String responseBody = getResponseBody(response);
             final long requestEndTime = System.currentTimeMillis();
 
-            final String responseMapJson = loggerUtil.createMdcResponseMapJson(response,
-                                                                               wrapper.getType(),
-                                                                               endpoint,
-                                                                               responseBody,
-                                                                               requestEndTime - requestStartTime);
-
             // Log Response
-            MDC.put(RESPONSE_KEY, responseMapJson);
-            API_METRICS_LOG.info("{} {}", wrapper.getType(), endpoint);
-            MDC.remove(RESPONSE_KEY);
-
-        } catch (Exception e) {
-            API_METRICS_LOG.error(type.toString() + " " + endpoint, e);
+            loggerUtil.logResponse(response, type, endpoint, responseBody, requestEndTime - requestStartTime);
+            failed = false;
+            return responseBody;
+        } catch (IOException e) {
+            failed = isBackendFailure(e);
             throw e;
         } finally {
-            MDC.remove(REQUEST_KEY);
-            MDC.remove(RESPONSE_KEY);
+            permit.release(failed);
+            // Release the connection back to the pool.
+            if (response instanceof CloseableHttpResponse) {
+                IOUtils.closeQuietly((CloseableHttpResponse) response);
+            }
         }
+    }
 
-        return responseBody;
+    /**
+     * @return the bulkhead class of a request: the key of the service it's sent to, if known.
+     */
+    private String getServiceClass(final HttpRequestBase request, final String endpoint) {
+        return serviceBulkheads.classify(serviceResolver.getServiceKey(request.getURI().toString()), endpoint);
+    }
 
+    /**
+     * @return true if the exception shows that the backend is unhealthy, rather than that the
+     * request was refused.
+     */
+    private boolean isBackendFailure(final IOException e) {
+        return !(e instanceof HttpException) || ((HttpException)e).getStatusCode() >= 500;
+    }
+
+    /**
+     * @return the name of the authenticated user, or null if the current request isn't attributed
+     * to a user, in which case its responses must be neither shared nor cached.
+     */
+    private String getUsername(final HttpServletRequest servletRequest) {
+        final Principal principal = servletRequest.getUserPrincipal();
+        return principal == null ? null : principal.getName();
+    }
+
+    /**
+     * Builds the key identifying GET requests which may share a backend call: requests made by the
+     * same user, for the same resolved address, with the same headers. The JWT and request ID
+     * headers are left out, since they identify the individual call rather than what it asks for.
+     *
+     * @param username the user making the request.
+     * @param request the outgoing request.
+     * @param resolvedAddress the resolved service address.
+     * @return the key.
+     */
+    private String getCoalescingKey(final String username,
+                                    final HttpRequestBase request,
+                                    final String resolvedAddress) {
+        final StringBuilder key = new StringBuilder(username).append('\n').append(resolvedAddress);
+        for (Header header : request.getAllHeaders()) {
+            final String name = header.getName();
+            if (!name.equalsIgnoreCase(DESecurityConstants.JWT_CUSTOM_HEADER)
+                    && !name.equalsIgnoreCase(AppLoggerConstants.REQUEST_ID_HEADER)
+                    && !name.equalsIgnoreCase(AppLoggerConstants.REQUEST_ID_HEADER_FWD)) {
+                key.append('\n').append(name).append(": ").append(header.getValue());
+            }
+        }
+        return key.toString();
     }
 
     /**
@@ -336,19 +824,4 @@ public class DEServiceImpl implements DEService,
         return (in != null && in.length() > 0);
     }
 
-    /**
-     * Retrieve the services address for the wrapper.
-     *
-     * @param wrapper services call wrapper containing metadata for a call.
-     * @return a string representing a valid URL.
-     */
-    private String retrieveServiceAddress(BaseServiceCallWrapper wrapper) {
-        String address = serviceResolver.resolveAddress(wrapper);
-        if (wrapper.hasArguments()) {
-            String args = wrapper.getArguments();
-            address += (args.startsWith("?")) ? args : "?" + args;
-        }
-        return address;
-    }
-
 }
@@ -7,6 +7,7 @@ import com.google.gwt.user.client.rpc.RemoteService;
 import com.google.gwt.user.client.rpc.RemoteServiceRelativePath;
 import com.google.gwt.user.client.rpc.SerializationException;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 
 /**
@@ -33,4 +34,12 @@ public interface DEService extends RemoteService {
                           HashMap<String, String> extraLoggerMdcItems) throws SerializationException, AuthenticationException,
                                                                               HttpException;
 
+    /**
+     * Sends several calls in one round trip. The calls are made in parallel, and the outcome of each
+     * is returned in its position in the batch.
+     * @param wrappers the services call wrappers, in the order their results are returned.
+     * @return the result of each call: its response body, or the error it failed with.
+     */
+    ArrayList<ServiceCallResult> getServiceDataBatch(ArrayList<ServiceCallWrapper> wrappers);
+
 }
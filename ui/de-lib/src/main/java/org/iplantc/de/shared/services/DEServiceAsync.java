@@ -3,6 +3,7 @@ package org.iplantc.de.shared.services;
 import com.google.gwt.http.client.Request;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 
 /**
@@ -17,4 +18,7 @@ public interface DEServiceAsync {
     Request getServiceData(ServiceCallWrapper wrapper,
                            HashMap<String, String> extraLoggerMdcItems,
                            AsyncCallback<String> async);
+
+    Request getServiceDataBatch(ArrayList<ServiceCallWrapper> wrappers,
+                                AsyncCallback<ArrayList<ServiceCallResult>> callback);
 }
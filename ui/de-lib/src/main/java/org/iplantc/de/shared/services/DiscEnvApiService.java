@@ -1,23 +1,62 @@
 package org.iplantc.de.shared.services;
 
+import org.iplantc.de.client.DEClientConstants;
 import org.iplantc.de.shared.AsyncCallbackWrapper;
+import org.iplantc.de.shared.exceptions.AuthenticationException;
+import org.iplantc.de.shared.exceptions.HttpException;
 
+import com.google.gwt.core.client.Duration;
+import com.google.gwt.core.client.Scheduler;
 import com.google.gwt.http.client.Request;
+import com.google.gwt.http.client.RequestBuilder;
+import com.google.gwt.http.client.RequestCallback;
+import com.google.gwt.http.client.RequestException;
+import com.google.gwt.http.client.Response;
+import com.google.gwt.http.client.URL;
 import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.inject.Inject;
+import com.google.web.bindery.autobean.shared.Splittable;
+import com.google.web.bindery.autobean.shared.impl.StringQuoter;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 
 /**
  * This class is intended to be used for all DE API service calls.
  * It simply wraps the given {@code AsyncCallback} in an {@code AsyncCallbackWrapper}, which performs
  * common operations for DE API and auth-related transactions.
  *
+ * GET calls marked with {@link ServiceCallWrapper#setStreamed(boolean)} are sent to the streaming
+ * endpoint instead of the RPC service, which relays large responses without buffering them on the
+ * server.
+ *
+ * Calls marked with {@link ServiceCallWrapper#setBatchable(boolean)} are queued until the end of
+ * the current event loop turn, and then sent to the server in a single round trip. Since batched
+ * calls have no individual {@code Request}, they return null.
+ *
+ * GET calls to addresses loaded with {@link #loadPrefetchedResponses(String, AsyncCallback)} are
+ * answered once from the prefetched responses, without a round trip, and also return null.
+ * Prefetched responses which aren't used within {@link #PREFETCHED_RESPONSE_TTL} are dropped.
+ *
  * @author jstroot
  */
 public class DiscEnvApiService {
 
+    private static final String JSON_CONTENT_TYPE = "application/json";
+
+    /**
+     * How long prefetched responses may be used for, in milliseconds.
+     */
+    static final int PREFETCHED_RESPONSE_TTL = 60000;
+
     @Inject DEServiceAsync deService;
+    @Inject DEClientConstants constants;
+
+    private final List<ServiceCallWrapper> batchedWrappers = new ArrayList<>();
+    private final List<AsyncCallback<String>> batchedCallbacks = new ArrayList<>();
+    private final HashMap<String, String> prefetchedResponses = new HashMap<>();
+    private double prefetchedResponsesLoadedAt;
 
     @Inject
     public DiscEnvApiService() {
@@ -25,6 +64,23 @@ public class DiscEnvApiService {
 
     public Request getServiceData(ServiceCallWrapper wrapper,
                                   AsyncCallback<String> callback) {
+        if (!prefetchedResponses.isEmpty()
+                && wrapper.getType() == BaseServiceCallWrapper.Type.GET
+                && !wrapper.hasArguments()) {
+            if (Duration.currentTimeMillis() - prefetchedResponsesLoadedAt > PREFETCHED_RESPONSE_TTL) {
+                prefetchedResponses.clear();
+            } else if (prefetchedResponses.containsKey(wrapper.getAddress())) {
+                answerFromPrefetched(prefetchedResponses.remove(wrapper.getAddress()), callback);
+                return null;
+            }
+        }
+        if (wrapper.isStreamed() && wrapper.getType() == BaseServiceCallWrapper.Type.GET) {
+            return getStreamedServiceData(wrapper, new AsyncCallbackWrapper<>(callback));
+        }
+        if (wrapper.isBatchable()) {
+            addToBatch(wrapper, new AsyncCallbackWrapper<>(callback));
+            return null;
+        }
         return deService.getServiceData(wrapper,
                                         new AsyncCallbackWrapper<>(callback));
     }
@@ -36,4 +92,146 @@ public class DiscEnvApiService {
                                         mdcMap,
                                         new AsyncCallbackWrapper<>(callback));
     }
+
+    /**
+     * Loads the responses the server prefetched for the current user, so that the first GET call to
+     * each of their addresses is answered without a round trip.
+     *
+     * @param url the relative URL of the endpoint returning the prefetched responses.
+     * @param callback called once the responses are loaded, or couldn't be.
+     */
+    public void loadPrefetchedResponses(final String url, final AsyncCallback<Void> callback) {
+        RequestBuilder builder = new RequestBuilder(RequestBuilder.GET, url);
+        sendJsonRequest(builder, null, new AsyncCallbackWrapper<>(new AsyncCallback<String>() {
+            @Override
+            public void onFailure(Throwable caught) {
+                callback.onFailure(caught);
+            }
+
+            @Override
+            public void onSuccess(String result) {
+                final Splittable responses = StringQuoter.split(result);
+                prefetchedResponsesLoadedAt = Duration.currentTimeMillis();
+                for (String address : responses.getPropertyKeys()) {
+                    if (responses.get(address).isString()) {
+                        prefetchedResponses.put(address, responses.get(address).asString());
+                    }
+                }
+                callback.onSuccess(null);
+            }
+        }));
+    }
+
+    private void answerFromPrefetched(final String response, final AsyncCallback<String> callback) {
+        // Answered after the caller returns, like any other call.
+        Scheduler.get().scheduleDeferred(new Scheduler.ScheduledCommand() {
+            @Override
+            public void execute() {
+                callback.onSuccess(response);
+            }
+        });
+    }
+
+    void addToBatch(final ServiceCallWrapper wrapper, final AsyncCallback<String> callback) {
+        if (batchedWrappers.isEmpty()) {
+            Scheduler.get().scheduleFinally(new Scheduler.ScheduledCommand() {
+                @Override
+                public void execute() {
+                    sendBatch();
+                }
+            });
+        }
+        batchedWrappers.add(wrapper);
+        batchedCallbacks.add(callback);
+    }
+
+    void sendBatch() {
+        final ArrayList<ServiceCallWrapper> wrappers = new ArrayList<>(batchedWrappers);
+        final List<AsyncCallback<String>> callbacks = new ArrayList<>(batchedCallbacks);
+        batchedWrappers.clear();
+        batchedCallbacks.clear();
+
+        if (wrappers.size() == 1) {
+            deService.getServiceData(wrappers.get(0), callbacks.get(0));
+            return;
+        }
+        deService.getServiceDataBatch(wrappers, new AsyncCallback<ArrayList<ServiceCallResult>>() {
+            @Override
+            public void onFailure(Throwable caught) {
+                for (AsyncCallback<String> callback : callbacks) {
+                    callback.onFailure(caught);
+                }
+            }
+
+            @Override
+            public void onSuccess(ArrayList<ServiceCallResult> results) {
+                for (int i = 0; i < callbacks.size(); i++) {
+                    final ServiceCallResult result = results.get(i);
+                    if (result.isSuccess()) {
+                        callbacks.get(i).onSuccess(result.getBody());
+                    } else {
+                        callbacks.get(i).onFailure(result.getError());
+                    }
+                }
+            }
+        });
+    }
+
+    Request getStreamedServiceData(final ServiceCallWrapper wrapper,
+                                   final AsyncCallback<String> callback) {
+        StringBuilder url = new StringBuilder(constants.serviceDataStreamServlet());
+        url.append("?address=").append(URL.encodeQueryString(wrapper.getAddress()));
+        if (wrapper.hasArguments()) {
+            url.append("&args=").append(URL.encodeQueryString(wrapper.getArguments()));
+        }
+
+        RequestBuilder builder = new RequestBuilder(RequestBuilder.GET, url.toString());
+        return sendJsonRequest(builder, null, callback);
+    }
+
+    /**
+     * Posts JSON directly to one of the webapp's own endpoints, rather than to a backend service
+     * through the RPC service.
+     *
+     * @param url the relative URL of the endpoint.
+     * @param json the request body.
+     * @param callback receives the response body, or an {@link HttpException} for error statuses.
+     * @return the request, or null if it couldn't be sent.
+     */
+    public Request postJson(final String url, final String json, final AsyncCallback<String> callback) {
+        RequestBuilder builder = new RequestBuilder(RequestBuilder.POST, url);
+        builder.setHeader("Content-Type", JSON_CONTENT_TYPE);
+        return sendJsonRequest(builder, json, new AsyncCallbackWrapper<>(callback));
+    }
+
+    private Request sendJsonRequest(final RequestBuilder builder,
+                                    final String body,
+                                    final AsyncCallback<String> callback) {
+        builder.setHeader("Accept", JSON_CONTENT_TYPE);
+        try {
+            return builder.sendRequest(body, new RequestCallback() {
+                @Override
+                public void onResponseReceived(Request request, Response response) {
+                    final int status = response.getStatusCode();
+                    final String contentType = response.getHeader("Content-Type");
+                    if (status < 200 || status > 299) {
+                        callback.onFailure(new HttpException(status, response.getText()));
+                    } else if (contentType == null || !contentType.startsWith(JSON_CONTENT_TYPE)) {
+                        // The landing page is served in place of the response when the session has expired.
+                        callback.onFailure(new AuthenticationException());
+                    } else {
+                        callback.onSuccess(response.getText());
+                    }
+                }
+
+                @Override
+                public void onError(Request request, Throwable exception) {
+                    callback.onFailure(exception);
+                }
+            });
+        } catch (RequestException e) {
+            callback.onFailure(e);
+            return null;
+        }
+    }
 }
@@ -0,0 +1,74 @@
+package org.iplantc.de.shared.services;
+
+import org.iplantc.de.shared.exceptions.AuthenticationException;
+import org.iplantc.de.shared.exceptions.HttpException;
+
+import com.google.gwt.user.client.rpc.IsSerializable;
+import com.google.gwt.user.client.rpc.SerializationException;
+
+/**
+ * The outcome of a single call within a batch sent to {@link DEService#getServiceDataBatch}: either
+ * the response body, or a description of the error the call would have thrown on its own.
+ */
+public class ServiceCallResult implements IsSerializable {
+
+    private String body;
+    private HttpException httpException;
+    private boolean authenticationFailure;
+    private String errorMessage;
+
+    public ServiceCallResult() {
+    }
+
+    public static ServiceCallResult success(final String body) {
+        ServiceCallResult result = new ServiceCallResult();
+        result.body = body;
+        return result;
+    }
+
+    public static ServiceCallResult failure(final HttpException httpException) {
+        ServiceCallResult result = new ServiceCallResult();
+        result.httpException = httpException;
+        return result;
+    }
+
+    public static ServiceCallResult authenticationFailure() {
+        ServiceCallResult result = new ServiceCallResult();
+        result.authenticationFailure = true;
+        return result;
+    }
+
+    public static ServiceCallResult failure(final String errorMessage) {
+        ServiceCallResult result = new ServiceCallResult();
+        result.errorMessage = errorMessage == null ? "" : errorMessage;
+        return result;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * @return true if the call succeeded.
+     */
+    public boolean isSuccess() {
+        return httpException == null && !authenticationFailure && errorMessage == null;
+    }
+
+    /**
+     * @return the exception the call would have failed with if it had been sent on its own, or null
+     * if it succeeded.
+     */
+    public Throwable getError() {
+        if (authenticationFailure) {
+            return new AuthenticationException();
+        }
+        if (httpException != null) {
+            return httpException;
+        }
+        if (errorMessage != null) {
+            return new SerializationException(errorMessage);
+        }
+        return null;
+    }
+}
@@ -9,6 +9,16 @@ public class ServiceCallWrapper extends BaseServiceCallWrapper implements IsSeri
     private static final long serialVersionUID = 8930304388034394781L;
     private String body = "";
 
+    /**
+     * Client-side hint only; never sent over RPC.
+     */
+    private transient boolean streamed;
+
+    /**
+     * Client-side hint only; never sent over RPC.
+     */
+    private transient boolean batchable;
+
     public ServiceCallWrapper() {
     }
 
@@ -28,4 +38,39 @@ public class ServiceCallWrapper extends BaseServiceCallWrapper implements IsSeri
     public String getBody() {
         return body;
     }
+
+    /**
+     * @return true if the response should be fetched through the streaming endpoint instead of RPC.
+     */
+    public boolean isStreamed() {
+        return streamed;
+    }
+
+    /**
+     * Marks a large-payload GET so that {@link DiscEnvApiService} relays its response through the
+     * streaming endpoint instead of GWT RPC.
+     *
+     * @param streamed true to use the streaming endpoint.
+     */
+    public void setStreamed(boolean streamed) {
+        this.streamed = streamed;
+    }
+
+    /**
+     * @return true if the call may be sent in a batch with other calls.
+     */
+    public boolean isBatchable() {
+        return batchable;
+    }
+
+    /**
+     * Marks a call whose {@link com.google.gwt.http.client.Request} is not needed by the caller, so
+     * that {@link DiscEnvApiService} may send it together with the other batchable calls issued in
+     * the same event loop turn.
+     *
+     * @param batchable true to allow batching.
+     */
+    public void setBatchable(boolean batchable) {
+        this.batchable = batchable;
+    }
 }
@@ -12,6 +12,12 @@ public interface DiskResourceMessages extends Messages {
 
     String browse();
 
+    String chunkedUpload();
+
+    String chunkedUploadHeading();
+
+    String chunkedUploadProgress(int filesDone, int fileCount, int percent);
+
     String collapseAll();
 
     String createDataLinksError();
@@ -138,6 +144,8 @@ public interface DiskResourceMessages extends Messages {
 
     String uploadingToFolder(String path);
 
+    String uploadProgress(int percent);
+
     String urlImport();
 
     String urlPrompt();
@@ -0,0 +1,79 @@
+package org.iplantc.de.theme.base.client.diskResource.dialogs;
+
+import org.iplantc.de.diskResource.client.views.dialogs.ChunkedFileUploadDialog;
+import org.iplantc.de.resources.client.messages.IplantDisplayStrings;
+import org.iplantc.de.resources.client.messages.IplantErrorStrings;
+import org.iplantc.de.theme.base.client.diskResource.DiskResourceMessages;
+
+import com.google.gwt.core.client.GWT;
+import com.google.gwt.safehtml.shared.SafeHtml;
+
+import com.sencha.gxt.core.client.util.Format;
+
+import java.util.List;
+
+public class ChunkedFileUploadDialogDefaultAppearance implements ChunkedFileUploadDialog.ChunkedFileUploadDialogAppearance {
+
+    private final DiskResourceMessages diskResourceMessages;
+    private final IplantDisplayStrings iplantDisplayStrings;
+    private final IplantErrorStrings iplantErrorStrings;
+    private final SimpleFileUploadDialogDefaultAppearance.Templates templates;
+
+    public ChunkedFileUploadDialogDefaultAppearance() {
+        this(GWT.<DiskResourceMessages> create(DiskResourceMessages.class),
+             GWT.<IplantDisplayStrings> create(IplantDisplayStrings.class),
+             GWT.<IplantErrorStrings> create(IplantErrorStrings.class),
+             GWT.<SimpleFileUploadDialogDefaultAppearance.Templates> create(SimpleFileUploadDialogDefaultAppearance.Templates.class));
+    }
+
+    ChunkedFileUploadDialogDefaultAppearance(final DiskResourceMessages diskResourceMessages,
+                                             final IplantDisplayStrings iplantDisplayStrings,
+                                             final IplantErrorStrings iplantErrorStrings,
+                                             final SimpleFileUploadDialogDefaultAppearance.Templates templates) {
+        this.diskResourceMessages = diskResourceMessages;
+        this.iplantDisplayStrings = iplantDisplayStrings;
+        this.iplantErrorStrings = iplantErrorStrings;
+        this.templates = templates;
+    }
+
+    @Override
+    public String closeConfirmMessage() {
+        return iplantDisplayStrings.transferCloseConfirmMessage();
+    }
+
+    @Override
+    public String confirmAction() {
+        return iplantDisplayStrings.confirmAction();
+    }
+
+    @Override
+    public String fileExist() {
+        return iplantErrorStrings.fileExist();
+    }
+
+    @Override
+    public String fileUploadsFailed(List<String> strings) {
+        return iplantErrorStrings.fileUploadsFailed(strings);
+    }
+
+    @Override
+    public String heading() {
+        return diskResourceMessages.chunkedUploadHeading();
+    }
+
+    @Override
+    public SafeHtml renderDestinationPathLabel(String destPath, String parentPath) {
+        final String truncatedParent = Format.ellipse(diskResourceMessages.uploadingToFolder(parentPath), 50);
+        return templates.destinationPathLabel(destPath, truncatedParent);
+    }
+
+    @Override
+    public String upload() {
+        return iplantDisplayStrings.upload();
+    }
+
+    @Override
+    public String uploadProgress(int filesDone, int fileCount, int percent) {
+        return diskResourceMessages.chunkedUploadProgress(filesDone, fileCount, percent);
+    }
+}
@@ -57,6 +57,11 @@ public class SimpleFileUploadDialogDefaultAppearance implements SimpleFileUpload
         this.resources = resources;
     }
 
+    @Override
+    public String chunkedUpload() {
+        return diskResourceMessages.chunkedUpload();
+    }
+
     @Override
     public String confirmAction() {
         return iplantDisplayStrings.confirmAction();
@@ -103,4 +108,9 @@ public class SimpleFileUploadDialogDefaultAppearance implements SimpleFileUpload
         return iplantDisplayStrings.upload();
     }
 
+    @Override
+    public String uploadProgress(int percent) {
+        return diskResourceMessages.uploadProgress(percent);
+    }
+
 }
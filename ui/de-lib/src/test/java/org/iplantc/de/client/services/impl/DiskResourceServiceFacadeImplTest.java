@@ -8,6 +8,7 @@ import org.iplantc.de.client.models.UserInfo;
 import org.iplantc.de.client.models.diskResources.DiskResourceAutoBeanFactory;
 import org.iplantc.de.client.models.diskResources.Folder;
 import org.iplantc.de.client.services.converters.AsyncCallbackConverter;
+import org.iplantc.de.diskResource.client.events.FileUploadedEvent;
 import org.iplantc.de.shared.services.DiscEnvApiService;
 import org.iplantc.de.shared.services.ServiceCallWrapper;
 
@@ -16,6 +17,8 @@ import com.google.gwt.user.client.rpc.AsyncCallback;
 import com.google.gwtmockito.GwtMockitoTestRunner;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 import org.junit.Before;
@@ -26,6 +29,7 @@ import org.mockito.Matchers;
 import org.mockito.Mock;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -60,7 +64,7 @@ public class DiskResourceServiceFacadeImplTest {
             public void removeChildren(Folder parent){
 
             }
-            public void getSubFolders(Folder parent, AsyncCallback<List<Folder>> callback){
+            void listSubFolders(Folder parent, AsyncCallback<List<Folder>> callback){
                 callback.onSuccess(Lists.<Folder>newArrayList());
             }
         });
@@ -72,8 +76,9 @@ public class DiskResourceServiceFacadeImplTest {
 
 
         ArgumentCaptor<FolderRefreshedEvent> folderRefreshedEventCaptor = ArgumentCaptor.forClass(FolderRefreshedEvent.class);
-        verify(spy).removeChildren(eq(folderMock));
-        verify(folderMock).setFolders(Matchers.<List<Folder>>eq(null));
+        // The cached subfolders are kept until the new listing is applied to them.
+        verify(spy, never()).removeChildren(eq(folderMock));
+        verify(folderMock, never()).setFolders(Matchers.<List<Folder>>eq(null));
 
         verify(folderListCallbackMock).onSuccess(Matchers.<List<Folder>>any());
         verify(eventBusMock).fireEvent(folderRefreshedEventCaptor.capture());
@@ -95,7 +100,7 @@ public class DiskResourceServiceFacadeImplTest {
 
             public void removeChildren(Folder parent){ }
 
-            public void getSubFolders(Folder parent, AsyncCallback<List<Folder>> callback){
+            void listSubFolders(Folder parent, AsyncCallback<List<Folder>> callback){
                 callback.onFailure(throwableMock);
             }
         });
@@ -105,11 +110,14 @@ public class DiskResourceServiceFacadeImplTest {
         // Call unit under test
         spy.refreshFolder(folderMock, folderListCallbackMock);
 
-        verify(spy).removeChildren(eq(folderMock));
-        verify(folderMock).setFolders(Matchers.<List<Folder>>eq(null));
+        // The cached subfolders are kept until the new listing is applied to them.
+        verify(spy, never()).removeChildren(eq(folderMock));
+        verify(folderMock, never()).setFolders(Matchers.<List<Folder>>eq(null));
 
         verify(folderListCallbackMock).onFailure(eq(throwableMock));
-        verifyZeroInteractions(eventBusMock);
+        // Only the constructor's upload handler registration.
+        verify(eventBusMock).addHandler(eq(FileUploadedEvent.TYPE), any(FileUploadedEvent.FileUploadedEventHandler.class));
+        verifyNoMoreInteractions(eventBusMock);
     }
 
     @Test public void getSubFolders_hasFoldersLoaded() {
@@ -158,4 +166,60 @@ public class DiskResourceServiceFacadeImplTest {
                                 Matchers.<AsyncCallbackConverter<String, List<Folder>>>any());
         verify(folderListCallbackMock, never()).onSuccess(Matchers.<List<Folder>>any());
     }
+
+    /**
+     * Verifies that a listing only adds, removes and updates the subfolders which have changed, and
+     * that unchanged subfolders keep their cached subtrees.
+     */
+    @Test public void syncSubFolders_appliesChangesOnly() {
+        DiskResourceServiceFacadeImpl uut = new DiskResourceServiceFacadeImpl(deServiceFacadeMock,
+                                                                              dePropertiesMock,
+                                                                              deConstantsMock,
+                                                                              drAutoBeanFactoryMock,
+                                                                              userInfoMock,
+                                                                              eventBusMock);
+        Date before = new Date(1000);
+        Date after = new Date(2000);
+        Folder parent = mockFolder("/home", before);
+        Folder unchanged = mockFolder("/home/unchanged", before);
+        Folder modified = mockFolder("/home/modified", before);
+        Folder deleted = mockFolder("/home/deleted", before);
+        Folder grandchild = mockFolder("/home/unchanged/grandchild", before);
+        Folder staleGrandchild = mockFolder("/home/modified/grandchild", before);
+        List<Folder> unchangedSubfolders = Lists.newArrayList(grandchild);
+        when(unchanged.getFolders()).thenReturn(unchangedSubfolders);
+        uut.add(parent);
+        // Listings are sorted by name, so the listed subfolders are cached in the same order.
+        uut.add(parent, Lists.newArrayList(modified, unchanged, deleted));
+        uut.add(unchanged, grandchild);
+        uut.add(modified, staleGrandchild);
+
+        Folder added = mockFolder("/home/added", after);
+        Folder modifiedListing = mockFolder("/home/modified", after);
+        Folder unchangedListing = mockFolder("/home/unchanged", before);
+
+        // Call unit under test
+        List<Folder> subfolders = uut.syncSubFolders(parent, Lists.newArrayList(added, modifiedListing, unchangedListing));
+
+        assertEquals(Lists.newArrayList(added, modifiedListing, unchanged), subfolders);
+        List<Folder> children = uut.getChildren(parent);
+        assertEquals(3, children.size());
+        assertSame(added, children.get(0));
+        assertSame(unchanged, children.get(2));
+        verify(parent).setFolders(subfolders);
+        assertNull(uut.findModelWithKey("/home/deleted"));
+        // The unchanged folder keeps its subtree, which the modified folder has to list again.
+        assertSame(grandchild, uut.findModelWithKey("/home/unchanged/grandchild"));
+        assertNull(uut.findModelWithKey("/home/modified/grandchild"));
+        verify(modifiedListing).setFolders(null);
+        verify(unchanged, never()).setFolders(Matchers.<List<Folder>>any());
+    }
+
+    private Folder mockFolder(String path, Date lastModified) {
+        Folder folder = mock(Folder.class);
+        when(folder.getId()).thenReturn(path);
+        when(folder.getPath()).thenReturn(path);
+        when(folder.getLastModified()).thenReturn(lastModified);
+        return folder;
+    }
 }
\ No newline at end of file
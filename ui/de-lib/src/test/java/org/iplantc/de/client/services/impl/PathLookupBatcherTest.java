@@ -0,0 +1,120 @@
+package org.iplantc.de.client.services.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.google.gwtmockito.GwtMockitoTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Mockito.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+
+import java.util.List;
+import java.util.Map;
+
+@RunWith(GwtMockitoTestRunner.class)
+public class PathLookupBatcherTest {
+
+    @Mock PathLookupBatcher.Lookup<Boolean> lookupMock;
+    @Mock AsyncCallback<Map<String, Boolean>> callbackMock1;
+    @Mock AsyncCallback<Map<String, Boolean>> callbackMock2;
+
+    @Captor ArgumentCaptor<List<String>> pathsCaptor;
+    @Captor ArgumentCaptor<AsyncCallback<Map<String, Boolean>>> lookupCallbackCaptor;
+
+    private PathLookupBatcher<Boolean> uut;
+
+    @Before public void setUp() {
+        uut = new PathLookupBatcher<>(lookupMock);
+    }
+
+    /**
+     * Verifies that the paths requested by separate callers are looked up once, in a single batch.
+     */
+    @Test public void testLookUp_coalescesAndDedupesPaths() {
+        uut.lookUp(Lists.newArrayList("/a", "/b", "/a"), callbackMock1);
+        uut.lookUp(Lists.newArrayList("/b", "/c"), callbackMock2);
+        verifyZeroInteractions(lookupMock);
+
+        uut.flush();
+
+        verify(lookupMock).lookUp(pathsCaptor.capture(), lookupCallbackCaptor.capture());
+        assertEquals(Lists.newArrayList("/a", "/b", "/c"), pathsCaptor.getValue());
+
+        lookupCallbackCaptor.getValue().onSuccess(ImmutableMap.of("/a", true, "/b", false, "/c", true));
+        verify(callbackMock1).onSuccess(ImmutableMap.of("/a", true, "/b", false));
+        verify(callbackMock2).onSuccess(ImmutableMap.of("/b", false, "/c", true));
+    }
+
+    /**
+     * Verifies that cached results are used until they are invalidated.
+     */
+    @SuppressWarnings("unchecked")
+    @Test public void testLookUp_cachesUntilInvalidated() {
+        uut.lookUp(Lists.newArrayList("/a"), callbackMock1);
+        uut.flush();
+        verify(lookupMock).lookUp(anyListOf(String.class), lookupCallbackCaptor.capture());
+        lookupCallbackCaptor.getValue().onSuccess(ImmutableMap.of("/a", false));
+
+        uut.lookUp(Lists.newArrayList("/a"), callbackMock2);
+        verify(callbackMock2).onSuccess(ImmutableMap.of("/a", false));
+        uut.flush();
+        verifyNoMoreInteractions(lookupMock);
+
+        uut.invalidate();
+        uut.lookUp(Lists.newArrayList("/a"), callbackMock2);
+        uut.flush();
+        verify(lookupMock, times(2)).lookUp(anyListOf(String.class), any(AsyncCallback.class));
+    }
+
+    /**
+     * Verifies that a failed lookup of a single caller's paths fails that caller, once.
+     */
+    @SuppressWarnings("unchecked")
+    @Test public void testLookUp_failure() {
+        Throwable caught = mock(Throwable.class);
+        uut.lookUp(Lists.newArrayList("/a", "/b"), callbackMock1);
+        uut.flush();
+        verify(lookupMock).lookUp(anyListOf(String.class), lookupCallbackCaptor.capture());
+
+        lookupCallbackCaptor.getValue().onFailure(caught);
+        verify(callbackMock1).onFailure(caught);
+        verifyNoMoreInteractions(callbackMock1, lookupMock);
+    }
+
+    /**
+     * Verifies that when a batch fails, each caller's paths are looked up again on their own, so that
+     * one caller's missing path doesn't fail another caller.
+     */
+    @Test public void testLookUp_failureIsNotSharedWithOtherCallers() {
+        Throwable caught = mock(Throwable.class);
+        uut.lookUp(Lists.newArrayList("/a", "/missing"), callbackMock1);
+        uut.flush();
+        verify(lookupMock).lookUp(pathsCaptor.capture(), lookupCallbackCaptor.capture());
+
+        // Joins the lookup in progress.
+        uut.lookUp(Lists.newArrayList("/a"), callbackMock2);
+        uut.flush();
+
+        lookupCallbackCaptor.getValue().onFailure(caught);
+        verify(lookupMock, times(3)).lookUp(pathsCaptor.capture(), lookupCallbackCaptor.capture());
+        List<List<String>> lookups = pathsCaptor.getAllValues();
+        assertEquals(Lists.newArrayList("/a", "/missing"), lookups.get(lookups.size() - 2));
+        assertEquals(Lists.newArrayList("/a"), lookups.get(lookups.size() - 1));
+        verifyZeroInteractions(callbackMock1, callbackMock2);
+
+        List<AsyncCallback<Map<String, Boolean>>> retries = lookupCallbackCaptor.getAllValues();
+        retries.get(retries.size() - 2).onFailure(caught);
+        retries.get(retries.size() - 1).onSuccess(ImmutableMap.of("/a", true));
+        verify(callbackMock1).onFailure(caught);
+        verify(callbackMock2).onSuccess(ImmutableMap.of("/a", true));
+        verifyNoMoreInteractions(callbackMock1, callbackMock2);
+    }
+}
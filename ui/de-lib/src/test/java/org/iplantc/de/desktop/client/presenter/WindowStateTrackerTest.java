@@ -0,0 +1,36 @@
+package org.iplantc.de.desktop.client.presenter;
+
+import com.google.gwtmockito.GxtMockitoTestRunner;
+import com.google.web.bindery.autobean.shared.Splittable;
+import com.google.web.bindery.autobean.shared.impl.StringQuoter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(GxtMockitoTestRunner.class)
+public class WindowStateTrackerTest {
+
+    /**
+     * Verifies that window configs with the same values hash alike, whatever the order of their
+     * properties, without being compared by their payloads.
+     */
+    @Test public void hash_isStructural() {
+        Splittable config = StringQuoter.split("{\"tag\":\"data\",\"path\":\"/iplant/home\",\"ids\":[1,2],\"view\":{\"grid\":true}}");
+        Splittable reordered = StringQuoter.split("{\"view\":{\"grid\":true},\"ids\":[1,2],\"path\":\"/iplant/home\",\"tag\":\"data\"}");
+
+        assertEquals(WindowStateTracker.hash(config), WindowStateTracker.hash(reordered));
+    }
+
+    /**
+     * Verifies that changing any value of a window config, however deeply nested, changes its hash.
+     */
+    @Test public void hash_changesWithNestedValues() {
+        int hash = WindowStateTracker.hash(StringQuoter.split("{\"tag\":\"data\",\"ids\":[1,2],\"view\":{\"grid\":true}}"));
+
+        assertFalse(hash == WindowStateTracker.hash(StringQuoter.split("{\"tag\":\"data\",\"ids\":[2,1],\"view\":{\"grid\":true}}")));
+        assertFalse(hash == WindowStateTracker.hash(StringQuoter.split("{\"tag\":\"data\",\"ids\":[1,2],\"view\":{\"grid\":false}}")));
+        assertFalse(hash == WindowStateTracker.hash(StringQuoter.split("{\"tag\":\"apps\",\"ids\":[1,2],\"view\":{\"grid\":true}}")));
+    }
+}
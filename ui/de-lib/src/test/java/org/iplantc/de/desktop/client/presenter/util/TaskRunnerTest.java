@@ -0,0 +1,160 @@
+package org.iplantc.de.desktop.client.presenter.util;
+
+import com.google.gwtmockito.GwtMockitoTestRunner;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+@RunWith(GwtMockitoTestRunner.class)
+public class TaskRunnerTest {
+
+    private static final int INTERVAL = 10000;
+
+    private double now;
+    private double random;
+    private TaskRunner uut;
+
+    @Before public void setUp() {
+        now = 0;
+        random = 0;
+        uut = new TaskRunner(INTERVAL, new TaskRunner.Clock() {
+            @Override
+            public double now() {
+                return now;
+            }
+        }, new TaskRunner.RandomSource() {
+            @Override
+            public double nextDouble() {
+                return random;
+            }
+        });
+    }
+
+    /**
+     * Verifies that the first run of a task may come anywhere in its first interval.
+     */
+    @Test public void addTask_spreadsFirstRunsOverTheFirstInterval() {
+        CountingTask immediate = new CountingTask();
+        uut.addTask(immediate, INTERVAL / 1000);
+        random = 0.75;
+        CountingTask delayed = new CountingTask();
+        uut.addTask(delayed, INTERVAL / 1000);
+
+        /** CALL METHOD UNDER TEST **/
+        uut.runDueTasks();
+        assertEquals(1, immediate.runs);
+        assertEquals(0, delayed.runs);
+
+        runAt(INTERVAL * 0.75 - 1);
+        assertEquals(0, delayed.runs);
+        runAt(INTERVAL * 0.75);
+        assertEquals(1, delayed.runs);
+    }
+
+    /**
+     * Verifies that repeated runs are delayed by their interval plus at most {@link TaskRunner#JITTER}
+     * of it.
+     */
+    @Test public void finish_addsBoundedJitter() {
+        CountingTask task = new CountingTask();
+        uut.addTask(task, INTERVAL / 1000);
+        uut.runDueTasks();
+        assertEquals(1, task.runs);
+
+        random = 0.75;
+        runAt(INTERVAL);
+        assertEquals(2, task.runs);
+
+        final double jittered = INTERVAL + INTERVAL * (1 + 0.75 * TaskRunner.JITTER);
+        runAt(jittered - 1);
+        assertEquals(2, task.runs);
+        runAt(jittered + 1);
+        assertEquals(3, task.runs);
+        runAt(jittered + 1 + INTERVAL * (1 + TaskRunner.JITTER));
+        assertEquals(4, task.runs);
+    }
+
+    /**
+     * Verifies that tasks which find nothing new back off exponentially up to
+     * {@link TaskRunner#MAX_BACKOFF_FACTOR}, and return to their base interval once they find
+     * something.
+     */
+    @Test public void finish_backsOffUnchangedTasks() {
+        AdaptiveCountingTask task = new AdaptiveCountingTask();
+        uut.addTask(task, INTERVAL / 1000);
+
+        double last = 0;
+        for (int factor : new int[] {2, 4, 8, 8}) {
+            runAt(last);
+            int runs = task.runs;
+            runAt(last + factor * INTERVAL - 1);
+            assertEquals(runs, task.runs);
+            last += factor * INTERVAL;
+        }
+
+        task.changed = true;
+        runAt(last);
+        final int runs = task.runs;
+        runAt(last + INTERVAL);
+        assertEquals(runs + 1, task.runs);
+    }
+
+    /**
+     * Verifies that a reset runs backed off tasks straight away, at their base interval.
+     */
+    @Test public void reset_runsBackedOffTasks() {
+        AdaptiveCountingTask task = new AdaptiveCountingTask();
+        uut.addTask(task, INTERVAL / 1000);
+        runAt(0);
+        runAt(2 * INTERVAL);
+        assertEquals(2, task.runs);
+
+        now = 2 * INTERVAL + 1;
+        /** CALL METHOD UNDER TEST **/
+        uut.reset();
+        uut.runDueTasks();
+        assertEquals(3, task.runs);
+
+        // The reset task backs off from its base interval again.
+        runAt(4 * INTERVAL);
+        assertEquals(3, task.runs);
+        runAt(4 * INTERVAL + 1);
+        assertEquals(4, task.runs);
+    }
+
+    private void runAt(double time) {
+        now = time;
+        uut.runDueTasks();
+    }
+
+    private static class CountingTask implements Runnable {
+        int runs;
+
+        @Override
+        public void run() {
+            runs++;
+        }
+    }
+
+    private static class AdaptiveCountingTask implements AdaptiveTask {
+        int runs;
+        boolean changed;
+
+        @Override
+        public void run() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void run(Outcome outcome) {
+            runs++;
+            if (changed) {
+                outcome.changed();
+            } else {
+                outcome.unchanged();
+            }
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package org.iplantc.de.diskResource.client.presenters.grid.proxy;
 
 import org.iplantc.de.client.models.diskResources.DiskResource;
+import org.iplantc.de.client.models.diskResources.File;
 import org.iplantc.de.client.models.diskResources.Folder;
 import org.iplantc.de.client.models.diskResources.TYPE;
 import org.iplantc.de.client.models.search.DiskResourceQueryTemplate;
@@ -10,6 +11,7 @@ import org.iplantc.de.client.services.FileSystemMetadataServiceFacade;
 import org.iplantc.de.client.services.SearchServiceFacade;
 import org.iplantc.de.commons.client.info.IplantAnnouncer;
 import org.iplantc.de.diskResource.client.GridView;
+import org.iplantc.de.diskResource.client.presenters.prefetch.DiskResourcePrefetcher;
 import org.iplantc.de.diskResource.client.presenters.grid.proxy.FolderContentsRpcProxyImpl.FolderContentsCallback;
 
 import com.google.common.collect.Lists;
@@ -28,6 +30,7 @@ import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyDouble;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.anyList;
@@ -58,6 +61,8 @@ public class FolderContentsRpcProxyTest {
     @Mock FileSystemMetadataServiceFacade mockFileSystemMetadataService;
     @Mock HasSafeHtml mockHasSafeHtml;
     @Mock GridView.Presenter.Appearance appearanceMock;
+    @Mock FolderContentsCache cacheMock;
+    @Mock DiskResourcePrefetcher prefetcherMock;
 
     @Captor ArgumentCaptor<AsyncCallback<PagingLoadResult<DiskResource>>> pagingAsyncCaptor;
     @Captor ArgumentCaptor<PagingLoadResult<DiskResource>> pagingLoadResultArgumentCaptor;
@@ -223,6 +228,153 @@ public class FolderContentsRpcProxyTest {
         verify(pagingAsyncMock).onFailure(any(Throwable.class));
     }
 
+    /**
+     * Verifies that a cached page is shown right away, and is not shown again when the
+     * revalidated page hasn't changed.
+     */
+    @Test public void testLoad_cachedPageUnchanged() {
+        FolderContentsLoadConfig loadConfigMock = mock(FolderContentsLoadConfig.class);
+        Folder mockFolder = mock(Folder.class);
+        Folder cachedPage = mock(Folder.class);
+        Folder revalidatedPage = mock(Folder.class);
+        FolderContentsCache.Key key = new FolderContentsCache.Key("/path", "/path|0|100");
+        when(loadConfigMock.getFolder()).thenReturn(mockFolder);
+        when(cacheMock.getKey(eq(mockFolder), anyListOf(InfoType.class), any(TYPE.class), eq(loadConfigMock))).thenReturn(key);
+        when(cacheMock.get(key)).thenReturn(cachedPage);
+        when(cacheMock.put(key, revalidatedPage)).thenReturn(false);
+        folderContentsRpcProxy.cache = cacheMock;
+
+        folderContentsRpcProxy.load(loadConfigMock, pagingAsyncMock);
+        verify(pagingAsyncMock).onSuccess(any(PagingLoadResultBean.class));
+
+        ArgumentCaptor<FolderContentsRpcProxyImpl.FolderContentsCallback> callBackCaptor
+            = ArgumentCaptor.forClass(FolderContentsRpcProxyImpl.FolderContentsCallback.class);
+        verify(diskResourceService).getFolderContents(eq(mockFolder), anyList(), any(TYPE.class), eq(loadConfigMock), callBackCaptor.capture());
+        callBackCaptor.getValue().onSuccess(revalidatedPage);
+
+        verify(cacheMock).put(key, revalidatedPage);
+        verifyNoMoreInteractions(pagingAsyncMock);
+    }
+
+    /**
+     * Verifies that a cached page is replaced when the revalidated page has changed, unless another
+     * page has been loaded since.
+     */
+    @Test public void testLoad_cachedPageChanged() {
+        FolderContentsLoadConfig loadConfigMock = mock(FolderContentsLoadConfig.class);
+        Folder mockFolder = mock(Folder.class);
+        Folder revalidatedPage = mock(Folder.class);
+        FolderContentsCache.Key key = new FolderContentsCache.Key("/path", "/path|0|100");
+        when(loadConfigMock.getFolder()).thenReturn(mockFolder);
+        when(cacheMock.getKey(eq(mockFolder), anyListOf(InfoType.class), any(TYPE.class), eq(loadConfigMock))).thenReturn(key);
+        when(cacheMock.get(key)).thenReturn(mock(Folder.class));
+        when(cacheMock.put(key, revalidatedPage)).thenReturn(true);
+        folderContentsRpcProxy.cache = cacheMock;
+
+        folderContentsRpcProxy.load(loadConfigMock, pagingAsyncMock);
+        folderContentsRpcProxy.load(loadConfigMock, pagingAsyncMock);
+
+        ArgumentCaptor<FolderContentsRpcProxyImpl.FolderContentsCallback> callBackCaptor
+            = ArgumentCaptor.forClass(FolderContentsRpcProxyImpl.FolderContentsCallback.class);
+        verify(diskResourceService, times(2)).getFolderContents(eq(mockFolder), anyList(), any(TYPE.class), eq(loadConfigMock), callBackCaptor.capture());
+        verify(pagingAsyncMock, times(2)).onSuccess(any(PagingLoadResultBean.class));
+
+        // The first load has been superseded by the second.
+        callBackCaptor.getAllValues().get(0).onSuccess(revalidatedPage);
+        verify(pagingAsyncMock, times(2)).onSuccess(any(PagingLoadResultBean.class));
+
+        callBackCaptor.getAllValues().get(1).onSuccess(revalidatedPage);
+        verify(pagingAsyncMock, times(3)).onSuccess(any(PagingLoadResultBean.class));
+
+        // Failed revalidations keep the cached page.
+        callBackCaptor.getAllValues().get(1).onFailure(mock(Throwable.class));
+        verify(pagingAsyncMock, never()).onFailure(any(Throwable.class));
+    }
+
+    /**
+     * Verifies that a page which is being prefetched is not requested again, and that the
+     * following page is prefetched once it is shown.
+     */
+    @SuppressWarnings("unchecked")
+    @Test public void testLoad_pageBeingPrefetched() {
+        FolderContentsLoadConfig loadConfigMock = mock(FolderContentsLoadConfig.class);
+        Folder mockFolder = mock(Folder.class);
+        Folder prefetchedPage = mock(Folder.class);
+        FolderContentsCache.Key key = new FolderContentsCache.Key("/path", "/path|100|100");
+        when(loadConfigMock.getFolder()).thenReturn(mockFolder);
+        when(prefetchedPage.getTotal()).thenReturn(1000);
+        when(cacheMock.getKey(eq(mockFolder), anyListOf(InfoType.class), any(TYPE.class), eq(loadConfigMock))).thenReturn(key);
+        when(prefetcherMock.joinPrefetch(eq(key), any(AsyncCallback.class))).thenReturn(true);
+        folderContentsRpcProxy.cache = cacheMock;
+        folderContentsRpcProxy.prefetcher = prefetcherMock;
+
+        folderContentsRpcProxy.load(loadConfigMock, pagingAsyncMock);
+
+        verify(prefetcherMock).cancel(folderContentsRpcProxy);
+        ArgumentCaptor<AsyncCallback> joinCaptor = ArgumentCaptor.forClass(AsyncCallback.class);
+        verify(prefetcherMock).joinPrefetch(eq(key), joinCaptor.capture());
+        verifyZeroInteractions(diskResourceService);
+
+        joinCaptor.getValue().onSuccess(prefetchedPage);
+        verify(pagingAsyncMock).onSuccess(any(PagingLoadResultBean.class));
+        verify(prefetcherMock).prefetchNextPage(eq(folderContentsRpcProxy),
+                                                eq(mockFolder),
+                                                anyListOf(InfoType.class),
+                                                any(TYPE.class),
+                                                eq(loadConfigMock),
+                                                eq(1000));
+    }
+
+    /**
+     * Verifies that a window which the live grid requests while scrolling through a large folder
+     * is assembled from the cached and loaded pages which hold it.
+     */
+    @SuppressWarnings("unchecked")
+    @Test public void testLoad_windowAssembledFromPages() {
+        Folder mockFolder = mock(Folder.class);
+        FolderContentsLoadConfig loadConfig = new FolderContentsLoadConfig();
+        loadConfig.setFolder(mockFolder);
+        loadConfig.setOffset(50250);
+        loadConfig.setLimit(500);
+        Folder cachedPage = mockPage(50000, 500, 100000);
+        Folder loadedPage = mockPage(50500, 500, 100000);
+        FolderContentsCache.Key cachedKey = new FolderContentsCache.Key("/path", "/path|50000|500");
+        FolderContentsCache.Key loadedKey = new FolderContentsCache.Key("/path", "/path|50500|500");
+        when(cacheMock.getKey(eq(mockFolder), anyListOf(InfoType.class), any(TYPE.class), any(FolderContentsLoadConfig.class)))
+            .thenReturn(cachedKey, loadedKey);
+        when(cacheMock.get(cachedKey)).thenReturn(cachedPage);
+        folderContentsRpcProxy.cache = cacheMock;
+
+        folderContentsRpcProxy.load(loadConfig, pagingAsyncMock);
+
+        ArgumentCaptor<FolderContentsLoadConfig> pageConfigCaptor = ArgumentCaptor.forClass(FolderContentsLoadConfig.class);
+        ArgumentCaptor<AsyncCallback> callBackCaptor = ArgumentCaptor.forClass(AsyncCallback.class);
+        verify(diskResourceService).getFolderContents(eq(mockFolder), anyList(), any(TYPE.class), pageConfigCaptor.capture(), callBackCaptor.capture());
+        assertEquals(50500, pageConfigCaptor.getValue().getOffset());
+        assertEquals(500, pageConfigCaptor.getValue().getLimit());
+
+        callBackCaptor.getValue().onSuccess(loadedPage);
+        verify(cacheMock).put(loadedKey, loadedPage);
+        verify(pagingAsyncMock).onSuccess(pagingLoadResultArgumentCaptor.capture());
+        PagingLoadResult<DiskResource> window = pagingLoadResultArgumentCaptor.getValue();
+        assertEquals(50250, window.getOffset());
+        assertEquals(100000, window.getTotalLength());
+        assertEquals(500, window.getData().size());
+        assertEquals(cachedPage.getFiles().get(250), window.getData().get(0));
+        assertEquals(loadedPage.getFiles().get(249), window.getData().get(499));
+    }
+
+    private Folder mockPage(final int offset, final int limit, final int total) {
+        List<File> files = Lists.newArrayList();
+        for (int i = offset; i < Math.min(offset + limit, total); i++) {
+            files.add(mock(File.class));
+        }
+        Folder page = mock(Folder.class);
+        when(page.getFiles()).thenReturn(files);
+        when(page.getTotal()).thenReturn(total);
+        return page;
+    }
+
     /**
      * Verifies functionality of the inner callback class onSuccess method when
      * the result and given callback (the one which is accessed vi
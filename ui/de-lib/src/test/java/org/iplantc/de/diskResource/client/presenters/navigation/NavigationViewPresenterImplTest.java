@@ -7,6 +7,7 @@ import org.iplantc.de.client.models.diskResources.Folder;
 import org.iplantc.de.client.util.DiskResourceUtil;
 import org.iplantc.de.diskResource.client.DiskResourceView;
 import org.iplantc.de.diskResource.client.NavigationView;
+import org.iplantc.de.diskResource.client.events.FolderHoveredEvent;
 import org.iplantc.de.diskResource.client.events.FolderSelectionEvent;
 import org.iplantc.de.diskResource.client.events.RequestImportFromUrlEvent;
 import org.iplantc.de.diskResource.client.events.RequestSimpleUploadEvent;
@@ -82,6 +83,7 @@ public class NavigationViewPresenterImplTest {
 
     private void verifyConstructor(NavigationPresenterImpl uut) {
         verify(viewMock).addFolderSelectedEventHandler(eq(uut));
+        verify(viewMock).addFolderHoveredEventHandler(eq(uut));
         verify(viewMock).getTree();
         verify(treeStoreMock).addStoreDataChangeHandler(any(NavigationPresenterImpl.FolderStoreDataChangeHandler.class));
         verify(eventBusMock, times(5)).addHandler(Matchers.<GwtEvent.Type<NavigationPresenterImpl>>any(), eq(uut));
@@ -151,6 +153,7 @@ public class NavigationViewPresenterImplTest {
             }
         });
         verify(viewMock, times(2)).addFolderSelectedEventHandler(Matchers.<FolderSelectionEvent.FolderSelectionEventHandler>any());
+        verify(viewMock, times(2)).addFolderHoveredEventHandler(Matchers.<FolderHoveredEvent.FolderHoveredEventHandler>any());
         verify(viewMock, times(2)).getTree();
         verify(eventBusMock, times(10)).addHandler(Matchers.<GwtEvent.Type<NavigationPresenterImpl>>any(), Matchers.<NavigationPresenterImpl>any());
         ImportFromUrlSelected eventMock = mock(ImportFromUrlSelected.class);
@@ -180,6 +183,7 @@ public class NavigationViewPresenterImplTest {
             }
         });
         verify(viewMock, times(2)).addFolderSelectedEventHandler(Matchers.<FolderSelectionEvent.FolderSelectionEventHandler>any());
+        verify(viewMock, times(2)).addFolderHoveredEventHandler(Matchers.<FolderHoveredEvent.FolderHoveredEventHandler>any());
         verify(viewMock, times(2)).getTree();
         verify(eventBusMock, times(10)).addHandler(Matchers.<GwtEvent.Type<NavigationPresenterImpl>>any(), Matchers.<NavigationPresenterImpl>any());
         ImportFromUrlSelected eventMock = mock(ImportFromUrlSelected.class);
@@ -211,6 +215,7 @@ public class NavigationViewPresenterImplTest {
             }
         });
         verify(viewMock, times(2)).addFolderSelectedEventHandler(Matchers.<FolderSelectionEvent.FolderSelectionEventHandler>any());
+        verify(viewMock, times(2)).addFolderHoveredEventHandler(Matchers.<FolderHoveredEvent.FolderHoveredEventHandler>any());
         verify(viewMock, times(2)).getTree();
         verify(eventBusMock, times(10)).addHandler(Matchers.<GwtEvent.Type<NavigationPresenterImpl>>any(), Matchers.<NavigationPresenterImpl>any());
         SimpleUploadSelected eventMock = mock(SimpleUploadSelected.class);
@@ -241,6 +246,7 @@ public class NavigationViewPresenterImplTest {
             }
         });
         verify(viewMock, times(2)).addFolderSelectedEventHandler(Matchers.<FolderSelectionEvent.FolderSelectionEventHandler>any());
+        verify(viewMock, times(2)).addFolderHoveredEventHandler(Matchers.<FolderHoveredEvent.FolderHoveredEventHandler>any());
         verify(viewMock, times(2)).getTree();
         verify(eventBusMock, times(10)).addHandler(Matchers.<GwtEvent.Type<NavigationPresenterImpl>>any(), Matchers.<NavigationPresenterImpl>any());
         SimpleUploadSelected eventMock = mock(SimpleUploadSelected.class);
@@ -269,6 +275,7 @@ public class NavigationViewPresenterImplTest {
             }
         });
         verify(viewMock, times(2)).addFolderSelectedEventHandler(Matchers.<FolderSelectionEvent.FolderSelectionEventHandler>any());
+        verify(viewMock, times(2)).addFolderHoveredEventHandler(Matchers.<FolderHoveredEvent.FolderHoveredEventHandler>any());
         verify(viewMock, times(2)).getTree();
         verify(eventBusMock, times(10)).addHandler(Matchers.<GwtEvent.Type<NavigationPresenterImpl>>any(), Matchers.<NavigationPresenterImpl>any());
         FolderRefreshedEvent eventMock = mock(FolderRefreshedEvent.class);
@@ -424,7 +431,37 @@ public class NavigationViewPresenterImplTest {
         verify(folderMock).getId();
         verify(selectedFolderMock).getId();
         verify(spy).setSelectedFolder((HasPath) eq(selectedFolderMock));
-        verify(treeLoaderMock, never()).load(Matchers.<Folder>any());
+        verify(spy, never()).removeChildren(Matchers.<Folder>any());
+        verify(treeLoaderMock).load(eq(folderMock));
+    }
+
+    @Test public void dropChangedSubtree_keepsPendingExpansionsOfOtherSubtrees() {
+        Folder firstMock = mock(Folder.class);
+        Folder secondMock = mock(Folder.class);
+        when(firstMock.getId()).thenReturn("first");
+        when(secondMock.getId()).thenReturn("second");
+        when(treeMock.isExpanded(Matchers.<Folder>any())).thenReturn(true);
+        when(treeStoreMock.getAllChildren(Matchers.<Folder>any())).thenReturn(Lists.<Folder>newArrayList());
+        when(treeStoreMock.findModel(eq(firstMock))).thenReturn(firstMock);
+        when(treeStoreMock.findModel(eq(secondMock))).thenReturn(secondMock);
+        when(treeMock.findNode(Matchers.<Folder>any())).thenReturn(treeNodeMock);
+
+        /** CALL METHOD UNDER TEST **/
+        uut.dropChangedSubtree(firstMock);
+        uut.dropChangedSubtree(secondMock);
+        verify(treeMock).setExpanded(eq(firstMock), eq(false));
+        verify(treeMock).setExpanded(eq(secondMock), eq(false));
+
+        // Only the second subtree has been reloaded so far.
+        when(treeStoreMock.findModelWithKey("second")).thenReturn(secondMock);
+        uut.expandReloadedFolders();
+        verify(treeMock).setExpanded(eq(secondMock), eq(true));
+        verify(treeMock, never()).setExpanded(eq(firstMock), eq(true));
+
+        when(treeStoreMock.findModelWithKey("first")).thenReturn(firstMock);
+        uut.expandReloadedFolders();
+        verify(treeMock).setExpanded(eq(firstMock), eq(true));
+        verify(treeMock).setExpanded(eq(secondMock), eq(true));
     }
 
     private Folder initMockFolder(String path) {
@@ -0,0 +1,88 @@
+package org.iplantc.de.diskResource.client.presenters.navigation.proxy;
+
+import org.iplantc.de.client.models.diskResources.Folder;
+
+import com.google.common.collect.Lists;
+import com.google.gwtmockito.GwtMockitoTestRunner;
+
+import com.sencha.gxt.data.shared.ModelKeyProvider;
+import com.sencha.gxt.data.shared.TreeStore;
+import com.sencha.gxt.data.shared.loader.LoadEvent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+
+@RunWith(GwtMockitoTestRunner.class)
+public class CachedFolderTreeStoreBindingTest {
+
+    private TreeStore<Folder> store;
+    private final List<Folder> dropped = Lists.newArrayList();
+    private CachedFolderTreeStoreBinding uut;
+
+    @Before public void setUp() {
+        store = new TreeStore<>(new ModelKeyProvider<Folder>() {
+            @Override
+            public String getKey(Folder item) {
+                return item.getId();
+            }
+        });
+        uut = new CachedFolderTreeStoreBinding(store) {
+            @Override
+            protected void dropSubtree(Folder folder) {
+                dropped.add(folder);
+                super.dropSubtree(folder);
+            }
+        };
+    }
+
+    /**
+     * Verifies that reloading a folder only adds, removes and updates the subfolders which have
+     * changed, and that unchanged subfolders keep their subtrees.
+     */
+    @Test public void onLoad_appliesChangesOnly() {
+        Folder parent = mockFolder("/home");
+        Folder unchanged = mockFolder("/home/unchanged");
+        Folder modified = mockFolder("/home/modified");
+        Folder deleted = mockFolder("/home/deleted");
+        Folder grandchild = mockFolder("/home/unchanged/grandchild");
+        Folder staleGrandchild = mockFolder("/home/modified/grandchild");
+        when(unchanged.getFolders()).thenReturn(Lists.newArrayList(grandchild));
+        store.add(parent);
+        // Listings are sorted by name, so the listed subfolders are cached in the same order.
+        store.add(parent, Lists.newArrayList(modified, unchanged, deleted));
+        store.add(unchanged, grandchild);
+        store.add(modified, staleGrandchild);
+
+        Folder added = mockFolder("/home/added");
+        Folder modifiedListing = mockFolder("/home/modified");
+        // The service facade no longer caches the modified folder's subfolders.
+        when(modifiedListing.getFolders()).thenReturn(null);
+
+        /** CALL METHOD UNDER TEST **/
+        uut.onLoad(new LoadEvent<Folder, List<Folder>>(parent,
+                                                       Lists.newArrayList(added, modifiedListing, unchanged)));
+
+        List<Folder> children = store.getChildren(parent);
+        assertEquals(Lists.newArrayList(added, modifiedListing, unchanged), children);
+        assertNull(store.findModelWithKey("/home/deleted"));
+        // The unchanged folder keeps its subtree, which the modified folder has to load again.
+        assertSame(grandchild, store.findModelWithKey("/home/unchanged/grandchild"));
+        assertNull(store.findModelWithKey("/home/modified/grandchild"));
+        assertEquals(Lists.newArrayList(modified), dropped);
+    }
+
+    private Folder mockFolder(String path) {
+        Folder folder = mock(Folder.class);
+        when(folder.getId()).thenReturn(path);
+        when(folder.getPath()).thenReturn(path);
+        return folder;
+    }
+}
@@ -0,0 +1,237 @@
+package org.iplantc.de.diskResource.client.presenters.prefetch;
+
+import org.iplantc.de.client.models.diskResources.Folder;
+import org.iplantc.de.client.models.diskResources.TYPE;
+import org.iplantc.de.client.models.viewer.InfoType;
+import org.iplantc.de.client.services.DiskResourceServiceFacade;
+import org.iplantc.de.diskResource.client.presenters.grid.proxy.FolderContentsCache;
+import org.iplantc.de.diskResource.client.presenters.grid.proxy.FolderContentsLoadConfig;
+
+import com.google.common.collect.Lists;
+import com.google.gwt.user.client.Command;
+import com.google.gwt.user.client.rpc.AsyncCallback;
+import com.google.gwtmockito.GxtMockitoTestRunner;
+
+import com.sencha.gxt.data.shared.loader.FilterPagingLoadConfigBean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.List;
+
+@RunWith(GxtMockitoTestRunner.class)
+public class DiskResourcePrefetcherTest {
+
+    @Mock DiskResourceServiceFacade drServiceMock;
+    @Mock FolderContentsCache cacheMock;
+    @Mock IdleScheduler idleSchedulerMock;
+
+    private final List<Command> idleCommands = Lists.newArrayList();
+    private final Object owner = new Object();
+    private DiskResourcePrefetcher uut;
+
+    @Before public void setUp() {
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                idleCommands.add((Command)invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(idleSchedulerMock).scheduleIdle(any(Command.class));
+        when(cacheMock.getKey(any(Folder.class),
+                              anyListOf(InfoType.class),
+                              any(TYPE.class),
+                              any(FolderContentsLoadConfig.class))).thenCallRealMethod();
+
+        uut = new DiskResourcePrefetcher(drServiceMock, cacheMock, idleSchedulerMock);
+    }
+
+    /**
+     * Verifies that nothing is fetched until the browser is idle, and then only
+     * {@link DiskResourcePrefetcher#MAX_CONCURRENT} prefetches run at once, newest first.
+     */
+    @Test public void prefetchSubFolders_runsNewestFirstWhenIdle() {
+        Folder first = mockFolder("/iplant/home/first");
+        Folder second = mockFolder("/iplant/home/second");
+        Folder third = mockFolder("/iplant/home/third");
+
+        /** CALL METHOD UNDER TEST **/
+        uut.prefetchSubFolders(owner, first);
+        uut.prefetchSubFolders(owner, second);
+        uut.prefetchSubFolders(owner, third);
+        verifyZeroInteractions(drServiceMock);
+
+        runIdleCommands();
+        assertEquals(2, DiskResourcePrefetcher.MAX_CONCURRENT);
+        AsyncCallback<List<Folder>> thirdCallback = verifySubFoldersFetched(third);
+        verifySubFoldersFetched(second);
+        verify(drServiceMock, never()).getSubFolders(eq(first), any(AsyncCallback.class));
+
+        // Each finished prefetch lets a queued one run.
+        thirdCallback.onSuccess(Lists.<Folder>newArrayList());
+        runIdleCommands();
+        verifySubFoldersFetched(first);
+    }
+
+    /**
+     * Verifies that at most {@link DiskResourcePrefetcher#MAX_QUEUED} prefetches are queued, and
+     * that the oldest are dropped first.
+     */
+    @Test public void prefetchSubFolders_dropsTheOldestBeyondTheQueueCap() {
+        doAnswer(new Answer<Void>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Void answer(InvocationOnMock invocation) {
+                ((AsyncCallback<List<Folder>>)invocation.getArguments()[1]).onSuccess(Lists.<Folder>newArrayList());
+                return null;
+            }
+        }).when(drServiceMock).getSubFolders(any(Folder.class), any(AsyncCallback.class));
+        List<Folder> folders = Lists.newArrayList();
+        for (int i = 0; i <= DiskResourcePrefetcher.MAX_QUEUED; i++) {
+            folders.add(mockFolder("/iplant/home/folder" + i));
+        }
+
+        /** CALL METHOD UNDER TEST **/
+        for (Folder folder : folders) {
+            uut.prefetchSubFolders(owner, folder);
+        }
+        runIdleCommands();
+
+        verify(drServiceMock, never()).getSubFolders(eq(folders.get(0)), any(AsyncCallback.class));
+        InOrder inOrder = inOrder(drServiceMock);
+        for (int i = DiskResourcePrefetcher.MAX_QUEUED; i > 0; i--) {
+            inOrder.verify(drServiceMock).getSubFolders(eq(folders.get(i)), any(AsyncCallback.class));
+        }
+    }
+
+    /**
+     * Verifies that cancelling drops the queued prefetches of one requester only, and that a folder
+     * which is already being prefetched isn't requested again.
+     */
+    @Test public void cancel_dropsTheRequestersQueuedPrefetches() {
+        Object otherOwner = new Object();
+        Folder running = mockFolder("/iplant/home/running");
+        Folder cancelled = mockFolder("/iplant/home/cancelled");
+        Folder kept = mockFolder("/iplant/home/kept");
+        uut.prefetchSubFolders(otherOwner, running);
+        runIdleCommands();
+        verifySubFoldersFetched(running);
+
+        uut.prefetchSubFolders(owner, cancelled);
+        uut.prefetchSubFolders(otherOwner, kept);
+        uut.prefetchSubFolders(owner, running);
+
+        /** CALL METHOD UNDER TEST **/
+        uut.cancel(owner);
+        runIdleCommands();
+
+        verifySubFoldersFetched(kept);
+        verify(drServiceMock, never()).getSubFolders(eq(cancelled), any(AsyncCallback.class));
+        verify(drServiceMock, times(1)).getSubFolders(eq(running), any(AsyncCallback.class));
+    }
+
+    /**
+     * Verifies that callers which join a page being prefetched receive it, and that the page is
+     * cached.
+     */
+    @Test public void joinPrefetch_receivesThePrefetchedPage() {
+        Folder folder = mockFolder("/iplant/home/ipctest");
+        FolderContentsLoadConfig loadConfig = new FolderContentsLoadConfig();
+        loadConfig.setFolder(folder);
+        loadConfig.setLimit(100);
+        loadConfig.setOffset(0);
+
+        /** CALL METHOD UNDER TEST **/
+        uut.prefetchNextPage(owner, folder, null, TYPE.ANY, loadConfig, 250);
+        FolderContentsCache.Key key = cacheMock.getKey(folder, null, TYPE.ANY, loadConfig.withOffset(100));
+        AsyncCallback<Folder> joined = mock(AsyncCallback.class);
+        assertFalse(uut.joinPrefetch(key, joined));
+
+        runIdleCommands();
+        ArgumentCaptor<FilterPagingLoadConfigBean> nextConfig = ArgumentCaptor.forClass(FilterPagingLoadConfigBean.class);
+        ArgumentCaptor<AsyncCallback> callback = ArgumentCaptor.forClass(AsyncCallback.class);
+        verify(drServiceMock).getFolderContents(eq(folder), any(List.class), eq(TYPE.ANY), nextConfig.capture(), callback.capture());
+        assertEquals(100, nextConfig.getValue().getOffset());
+        assertTrue(uut.joinPrefetch(key, joined));
+
+        Folder page = mock(Folder.class);
+        callback.getValue().onSuccess(page);
+        verify(joined).onSuccess(page);
+        verify(cacheMock).put(key, page);
+        assertFalse(uut.joinPrefetch(key, mock(AsyncCallback.class)));
+    }
+
+    /**
+     * Verifies that callers which join a page being prefetched are told when it fails.
+     */
+    @Test public void joinPrefetch_receivesFailures() {
+        Folder folder = mockFolder("/iplant/home/ipctest");
+        FolderContentsLoadConfig loadConfig = new FolderContentsLoadConfig();
+        loadConfig.setFolder(folder);
+        loadConfig.setLimit(100);
+        loadConfig.setOffset(100);
+
+        /** CALL METHOD UNDER TEST **/
+        uut.prefetchNextPage(owner, folder, null, TYPE.ANY, loadConfig, 250);
+        runIdleCommands();
+        ArgumentCaptor<AsyncCallback> callback = ArgumentCaptor.forClass(AsyncCallback.class);
+        verify(drServiceMock).getFolderContents(eq(folder), any(List.class), eq(TYPE.ANY), any(FilterPagingLoadConfigBean.class), callback.capture());
+        AsyncCallback<Folder> joined = mock(AsyncCallback.class);
+        assertTrue(uut.joinPrefetch(cacheMock.getKey(folder, null, TYPE.ANY, loadConfig.withOffset(200)), joined));
+
+        Throwable caught = new RuntimeException("unavailable");
+        callback.getValue().onFailure(caught);
+        verify(joined).onFailure(caught);
+        verify(cacheMock, never()).put(any(FolderContentsCache.Key.class), any(Folder.class));
+    }
+
+    /**
+     * Verifies that the last page of a folder has no next page to prefetch.
+     */
+    @Test public void prefetchNextPage_ignoresTheLastPage() {
+        Folder folder = mockFolder("/iplant/home/ipctest");
+        FolderContentsLoadConfig loadConfig = new FolderContentsLoadConfig();
+        loadConfig.setFolder(folder);
+        loadConfig.setLimit(100);
+        loadConfig.setOffset(200);
+
+        /** CALL METHOD UNDER TEST **/
+        uut.prefetchNextPage(owner, folder, null, TYPE.ANY, loadConfig, 250);
+
+        verifyZeroInteractions(idleSchedulerMock);
+    }
+
+    private void runIdleCommands() {
+        while (!idleCommands.isEmpty()) {
+            idleCommands.remove(0).execute();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private AsyncCallback<List<Folder>> verifySubFoldersFetched(Folder folder) {
+        ArgumentCaptor<AsyncCallback> callback = ArgumentCaptor.forClass(AsyncCallback.class);
+        verify(drServiceMock).getSubFolders(eq(folder), callback.capture());
+        return callback.getValue();
+    }
+
+    private Folder mockFolder(String path) {
+        Folder folder = mock(Folder.class);
+        when(folder.getId()).thenReturn(path);
+        when(folder.getPath()).thenReturn(path);
+        when(folder.hasSubDirs()).thenReturn(true);
+        return folder;
+    }
+}
@@ -0,0 +1,185 @@
+package org.iplantc.de.server;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Measures the CPU cost of compressing typical proxied JSON responses (a page of a data folder
+ * listing, an analyses listing and an app listing) at the gzip levels worth considering for the
+ * RPC and streaming responses, and with raw deflate.
+ *
+ * Running {@link #main} first prints the raw and compressed size of each payload.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompressionBenchmark {
+
+    @Param({"folder-listing", "analyses", "apps"})
+    private String payload;
+
+    @Param({"1", "6"})
+    private int level;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        json = createPayload(payload);
+    }
+
+    @Benchmark
+    public int gzip() throws IOException {
+        return gzip(json, level).length;
+    }
+
+    @Benchmark
+    public int deflate() throws IOException {
+        return deflate(json, level).length;
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        System.out.println(String.format("%-16s %10s %10s %10s %10s",
+                                         "payload", "raw", "gzip -1", "gzip -6", "deflate -6"));
+        for (String name : new String[] {"folder-listing", "analyses", "apps"}) {
+            final byte[] raw = createPayload(name);
+            System.out.println(String.format("%-16s %10d %10d %10d %10d",
+                                             name,
+                                             raw.length,
+                                             gzip(raw, 1).length,
+                                             gzip(raw, 6).length,
+                                             deflate(raw, 6).length));
+        }
+
+        new Runner(new OptionsBuilder().include(CompressionBenchmark.class.getSimpleName())
+                                       .build()).run();
+    }
+
+    private static byte[] gzip(final byte[] input, final int level) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(input.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            out.write(input);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] deflate(final byte[] input, final int level) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(input.length / 4);
+        final Deflater deflater = new Deflater(level);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes, deflater)) {
+            out.write(input);
+        } finally {
+            deflater.end();
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] createPayload(final String name) {
+        switch (name) {
+            case "folder-listing":
+                return createFolderListing(500);
+            case "analyses":
+                return createAnalysesListing(100);
+            case "apps":
+                return createAppListing(200);
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    private static byte[] createFolderListing(final int count) {
+        final StringBuilder json = new StringBuilder("{\"id\":\"5b4d0c6e-6d1f-11e5-8b2a-3c4a92e4a804\","
+                                                     + "\"path\":\"/iplant/home/ipctest/analyses\","
+                                                     + "\"label\":\"analyses\",\"total\":" + count
+                                                     + ",\"files\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(uuid(i)).append("\",")
+                .append("\"path\":\"/iplant/home/ipctest/analyses/wc_").append(i).append("/output_").append(i).append(".txt\",")
+                .append("\"label\":\"output_").append(i).append(".txt\",")
+                .append("\"file-size\":").append(1024L * (i * 37 % 9973)).append(',')
+                .append("\"date-created\":").append(1444000000000L + i * 61000L).append(',')
+                .append("\"date-modified\":").append(1444000500000L + i * 61000L).append(',')
+                .append("\"permission\":\"own\",\"badName\":false,\"isFavorite\":false,")
+                .append("\"infoType\":\"\",\"md5\":\"").append(uuid(i * 7).replace("-", "")).append("\"}");
+        }
+        return json.append("],\"folders\":[]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] createAnalysesListing(final int count) {
+        final StringBuilder json = new StringBuilder("{\"analyses\":[");
+        final String[] statuses = {"Completed", "Failed", "Running", "Submitted"};
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(uuid(i)).append("\",")
+                .append("\"name\":\"Word_Count_analysis_").append(i).append("\",")
+                .append("\"description\":\"\",\"app_id\":\"").append(uuid(i % 12)).append("\",")
+                .append("\"app_name\":\"Word Count\",\"app_description\":\"Counts the number of words in a file\",")
+                .append("\"system_id\":\"de\",\"username\":\"ipctest@iplantcollaborative.org\",")
+                .append("\"resultfolderid\":\"/iplant/home/ipctest/analyses/Word_Count_analysis_").append(i).append("\",")
+                .append("\"startdate\":\"").append(1444000000000L + i * 3600000L).append("\",")
+                .append("\"enddate\":\"").append(1444000900000L + i * 3600000L).append("\",")
+                .append("\"status\":\"").append(statuses[i % statuses.length]).append("\",")
+                .append("\"batch\":false,\"can_share\":true,\"notify\":true,\"app_disabled\":false}");
+        }
+        return json.append("],\"timestamp\":\"1444400000000\",\"total\":").append(count).append('}')
+                   .toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] createAppListing(final int count) {
+        final StringBuilder json = new StringBuilder("{\"app_count\":").append(count).append(",\"apps\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"").append(uuid(i)).append("\",")
+                .append("\"name\":\"Tool ").append(i).append("\",")
+                .append("\"description\":\"Runs version ").append(i % 9).append(" of the tool on the selected input files.\",")
+                .append("\"integrator_name\":\"Default DE Tools\",\"integrator_email\":\"support@iplantcollaborative.org\",")
+                .append("\"integration_date\":").append(1400000000000L + i * 86400000L).append(',')
+                .append("\"edited_date\":").append(1410000000000L + i * 86400000L).append(',')
+                .append("\"rating\":{\"average\":").append(i % 5).append(".5,\"total\":").append(i % 17).append("},")
+                .append("\"is_public\":true,\"disabled\":false,\"deleted\":false,\"is_favorite\":false,")
+                .append("\"beta\":false,\"step_count\":1,\"pipeline_eligibility\":{\"is_valid\":true,\"reason\":\"\"},")
+                .append("\"app_type\":\"DE\",\"wiki_url\":\"https://wiki.cyverse.org/wiki/display/DEapps/Tool+")
+                .append(i).append("\",\"can_run\":true,\"can_favor\":true,\"can_rate\":true,\"permission\":\"read\"}");
+        }
+        return json.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String uuid(final int seed) {
+        return String.format("%08x-%04x-11e5-%04x-%012x", seed * 2654435761L & 0xffffffffL, seed & 0xffff,
+                             (seed * 31) & 0xffff, seed * 40503L);
+    }
+}
@@ -0,0 +1,159 @@
+package org.iplantc.de.server;
+
+import org.iplantc.de.client.services.impl.AnalysisServiceFacadeImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compares the per-call regex parsing formerly done by {@link ServiceCallResolver} with its
+ * precompiled service table, using addresses like those sent by the service facades.
+ *
+ * Run with {@code -prof gc} to compare allocation rates as well as throughput, e.g. from the
+ * {@link #main(String[])} method with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServiceCallResolverBenchmark {
+
+    private static final String PREFIX = "org.iplantc.services";
+    private static final String TERRAIN = "http://terrain.example.org:31325";
+
+    @Param({"analyses", "analysis", "paged-directory", "passthrough"})
+    public String addressType;
+
+    private String address;
+    private Environment environment;
+    private ServiceCallResolver resolver;
+
+    @Setup
+    public void setUp() {
+        environment = createEnvironment();
+        resolver = new ServiceCallResolver();
+        resolver.setAppProperties(environment);
+
+        switch (addressType) {
+            case "analyses":
+                address = AnalysisServiceFacadeImpl.ANALYSES
+                              + "?limit=100&offset=0&sort-field=startdate&sort-dir=DESC";
+                break;
+            case "analysis":
+                address = AnalysisServiceFacadeImpl.ANALYSES
+                              + "/0b5b1e10-7e3c-11e5-b2a1-3c4a92e4a804/parameters";
+                break;
+            case "paged-directory":
+                address = PREFIX + ".de-data-mgmt.base"
+                              + "/paged-directory?path=%2Fiplant%2Fhome%2Fipctest&limit=100&offset=0"
+                              + "&sort-col=NAME&sort-dir=ASC";
+                break;
+            default:
+                // Data management calls are usually sent with the base URL already resolved.
+                address = TERRAIN + "/secured/filesystem/paged-directory?path=%2Fiplant%2Fhome%2Fipctest"
+                              + "&limit=100&offset=0&sort-col=NAME&sort-dir=ASC";
+        }
+
+        // Make sure both resolution paths are measured doing the same, successful, lookup.
+        final String resolved = resolver.resolveAddress(address);
+        if (!resolved.startsWith(TERRAIN) || !resolved.equals(legacyResolve(environment, address))) {
+            throw new IllegalStateException("Address " + address + " isn't resolved the same way by both resolvers");
+        }
+    }
+
+    @Benchmark
+    public String legacyRegex() {
+        return legacyResolve(environment, address);
+    }
+
+    @Benchmark
+    public String precompiledTable() {
+        return resolver.resolveAddress(address);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ServiceCallResolverBenchmark.class.getSimpleName())
+                                       .build()).run();
+    }
+
+    /**
+     * The resolution path used before the service table was introduced.
+     */
+    private static String legacyResolve(final Environment environment, final String address) {
+        Pattern pattern = Pattern.compile("(\\Q" + PREFIX + "\\E[^/?]+)(/[^?]*)?(\\?.*)?");
+        Matcher matcher = pattern.matcher(address);
+        if (!matcher.matches()) {
+            return address;
+        }
+        final String path = matcher.group(2);
+        final String query = matcher.group(3);
+        return environment.getProperty(matcher.group(1)) + (path == null ? "" : path)
+                   + (query == null ? "" : query);
+    }
+
+    private static Environment createEnvironment() {
+        final String[] services = {
+                "bootstrap=/secured/bootstrap",
+                "logout=/secured/logout",
+                "de-data-mgmt.base=/secured/filesystem/",
+                "admin.de-data-mgmt.base=/admin/filesystem/",
+                "file-io.base.secured=/secured/fileio/",
+                "buggalo.baseUrl=/secured/buggalo",
+                "toolRequests=/secured/tool-requests",
+                "toolRequests.statusCodes=/secured/tool-requests/status-codes",
+                "admin.toolRequests=/admin/tool-requests",
+                "permIdRequests=/secured/permanent-id-requests",
+                "admin.permIdRequests=/admin/permanent-id-requests",
+                "apps=/secured/apps",
+                "apps.ids=/secured/apps/ids",
+                "apps.categories=/secured/apps/categories",
+                "apps.elements=/secured/apps/elements",
+                "apps.elements.tools=/secured/apps/elements/tools",
+                "apps.argPreview=/secured/apps/arg-preview",
+                "admin.apps=/admin/apps",
+                "admin.apps.categories=/admin/apps/categories",
+                "apps.pipelines=/secured/apps/pipelines",
+                "referenceGenomes=/secured/reference-genomes",
+                "analyses=/secured/analyses",
+                "tools=/secured/tools",
+                "admin.tools=/admin/tools",
+                "filesystem.index=/secured/filesystem/index",
+                "filesystem.index-status=/admin/filesystem/index-status",
+                "email-base=/secured/email",
+                "admin.notifications.system=/admin/notifications/system"};
+
+        final Map<String, Object> properties = new HashMap<>();
+        properties.put("prefix", PREFIX);
+        for (String service : services) {
+            final String[] pieces = service.split("=");
+            properties.put(PREFIX + "." + pieces[0], TERRAIN + pieces[1]);
+        }
+
+        final StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("de", properties));
+        return environment;
+    }
+}
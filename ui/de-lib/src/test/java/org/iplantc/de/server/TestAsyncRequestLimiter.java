@@ -0,0 +1,82 @@
+package org.iplantc.de.server;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class TestAsyncRequestLimiter {
+
+    private AsyncRequestLimiter limiter;
+    private List<String> started;
+
+    @Before
+    public void setUp() {
+        limiter = new AsyncRequestLimiter();
+        limiter.setMaxConcurrent(2);
+        limiter.setMaxQueued(1);
+        limiter.setTimeouts("index=120000, /read-csv-chunk=60000");
+        limiter.afterPropertiesSet();
+        started = new ArrayList<>();
+    }
+
+    @Test
+    public void testCallsBeyondTheLimitAreQueuedThenRejected() {
+        assertTrue(limiter.tryExecute(start("first")));
+        assertTrue(limiter.tryExecute(start("second")));
+        assertTrue(limiter.tryExecute(start("queued")));
+        assertFalse(limiter.tryExecute(start("rejected")));
+        assertEquals(2, started.size());
+
+        limiter.release();
+        assertEquals("queued", started.get(2));
+
+        final Map<String, Object> stats = limiter.createStatsMap();
+        assertEquals(2, stats.get("running-calls"));
+        assertEquals(0, stats.get("queued-calls"));
+        assertEquals(1L, stats.get("rejected"));
+
+        limiter.release();
+        limiter.release();
+        assertEquals(0, limiter.createStatsMap().get("running-calls"));
+    }
+
+    @Test
+    public void testCancelledCallsLeaveTheQueue() {
+        final Runnable queued = start("queued");
+        assertTrue(limiter.tryExecute(start("first")));
+        assertTrue(limiter.tryExecute(start("second")));
+        assertTrue(limiter.tryExecute(queued));
+
+        assertTrue(limiter.cancel(queued));
+        assertFalse(limiter.cancel(queued));
+        assertEquals(0, limiter.createStatsMap().get("queued-calls"));
+
+        // The freed place goes to the next call instead.
+        assertTrue(limiter.tryExecute(start("next")));
+        limiter.release();
+        assertEquals("next", started.get(2));
+        assertFalse(started.contains("queued"));
+    }
+
+    @Test
+    public void testTimeoutsMatchTheEndOfTheEndpoint() {
+        assertEquals(120000, limiter.getTimeout("/secured/filesystem/index"));
+        assertEquals(60000, limiter.getTimeout("/secured/filesystem/read-csv-chunk"));
+        assertEquals(-1, limiter.getTimeout("/secured/filesystem/reindex"));
+        assertEquals(-1, limiter.getTimeout("/secured/filesystem/directory"));
+    }
+
+    private Runnable start(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                started.add(name);
+            }
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package org.iplantc.de.server;
 
+import org.iplantc.de.shared.exceptions.UnresolvableServiceNameException;
 import org.iplantc.de.shared.services.BaseServiceCallWrapper;
 import org.iplantc.de.shared.services.ServiceCallWrapper;
 
@@ -10,9 +11,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.springframework.core.env.AbstractEnvironment;
 import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
 
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
 
 public class TestDefaultServiceCallResolver {
@@ -127,6 +132,72 @@ public class TestDefaultServiceCallResolver {
         verifyURLParses(actual, true);
     }
 
+    @Test public void testEnumerablePropertiesResolveWithPathAndQuery() {
+        Map<String, Object> props = new HashMap<>();
+        props.put("prefix", "org.iplantc.services");
+        props.put("org.iplantc.services.apps", "http://ndy.sixfifty.org/secured/apps");
+        props.put("org.iplantc.services.apps.categories", "http://ndy.sixfifty.org/secured/apps/categories");
+        props.put("org.iplantc.services.analyses", "http://ndy.sixfifty.org/secured/analyses");
+        StandardEnvironment env = new StandardEnvironment();
+        env.getPropertySources().addFirst(new MapPropertySource("test", props));
+        resolver = new ServiceCallResolver();
+        resolver.setAppProperties(env);
+
+        assertEquals("http://ndy.sixfifty.org/secured/apps",
+                     resolver.resolveAddress("org.iplantc.services.apps"));
+        assertEquals("http://ndy.sixfifty.org/secured/apps/categories?public=true",
+                     resolver.resolveAddress("org.iplantc.services.apps.categories?public=true"));
+        assertEquals("http://ndy.sixfifty.org/secured/analyses/some-id/stop?a=b/c",
+                     resolver.resolveAddress("org.iplantc.services.analyses/some-id/stop?a=b/c"));
+        assertEquals("org.iplantc.services/analyses",
+                     resolver.resolveAddress("org.iplantc.services/analyses"));
+
+        props.put("org.iplantc.services.tools", "http://ndy.sixfifty.org/secured/tools");
+        resolver.refresh();
+        assertEquals("http://ndy.sixfifty.org/secured/tools/1",
+                     resolver.resolveAddress("org.iplantc.services.tools/1"));
+    }
+
+    @Test public void testResolvedAddressesMapBackToTheMostSpecificService() {
+        Map<String, Object> props = new HashMap<>();
+        props.put("prefix", "org.iplantc.services");
+        props.put("org.iplantc.services.de-data-mgmt.base", "http://ndy.sixfifty.org/secured/filesystem/");
+        props.put("org.iplantc.services.filesystem.index", "http://ndy.sixfifty.org/secured/filesystem/index");
+        props.put("org.iplantc.services.apps", "http://ndy.sixfifty.org/secured/apps");
+        StandardEnvironment env = new StandardEnvironment();
+        env.getPropertySources().addFirst(new MapPropertySource("test", props));
+        resolver = new ServiceCallResolver();
+        resolver.setAppProperties(env);
+
+        assertEquals("org.iplantc.services.filesystem.index",
+                     resolver.getServiceKey("http://ndy.sixfifty.org/secured/filesystem/index?q=foo"));
+        assertEquals("org.iplantc.services.de-data-mgmt.base",
+                     resolver.getServiceKey("http://ndy.sixfifty.org/secured/filesystem/index-status"));
+        assertEquals("org.iplantc.services.apps",
+                     resolver.getServiceKey("http://ndy.sixfifty.org/secured/apps/some-id"));
+        assertNull(resolver.getServiceKey("http://ndy.sixfifty.org/secured/apps-elsewhere"));
+        assertNull(resolver.getServiceKey("http://ndy.sixfifty.org/secured/notifications/messages"));
+    }
+
+    @Test public void testCallAddressesIncludeArgumentsAndEndpointsExcludeThem() {
+        ServiceCallWrapper wrapper = new ServiceCallWrapper("org.iplantc.services.acctmgmt.fetchStates/us");
+        assertEquals("http://ndy.sixfifty.org/accountmanagementv2/fetch-states/us",
+                     resolver.resolveCallAddress(wrapper));
+
+        wrapper.setArguments("limit=10");
+        String address = resolver.resolveCallAddress(wrapper);
+        assertEquals("http://ndy.sixfifty.org/accountmanagementv2/fetch-states/us?limit=10", address);
+        assertEquals("/accountmanagementv2/fetch-states/us", ServiceCallResolver.getEndpoint(address));
+
+        wrapper.setArguments("?limit=10");
+        assertEquals(address, resolver.resolveCallAddress(wrapper));
+    }
+
+    @Test(expected = UnresolvableServiceNameException.class)
+    public void testUnknownServiceNameFails() {
+        resolver.resolveAddress(wrapper("org.iplantc.services.acctmgmt.unknown/path?query"));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testResolverFailsWithoutPrefix() {
         wrappedProperties.remove("prefix");
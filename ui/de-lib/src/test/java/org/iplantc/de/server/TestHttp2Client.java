@@ -0,0 +1,206 @@
+package org.iplantc.de.server;
+
+import static org.junit.Assert.*;
+
+import com.google.common.collect.ImmutableList;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+/**
+ * Sends requests through the adapter to a local cleartext HTTP/2 server.
+ */
+public class TestHttp2Client {
+
+    private MockWebServer server;
+    private OkHttpClient okHttpClient;
+    private Http2Transport.StreamStats stats;
+    private Http2Client client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.setProtocols(ImmutableList.of(Protocol.H2_PRIOR_KNOWLEDGE));
+        server.start();
+
+        okHttpClient = new OkHttpClient.Builder().protocols(ImmutableList.of(Protocol.H2_PRIOR_KNOWLEDGE))
+                                                 .readTimeout(5, TimeUnit.SECONDS)
+                                                 .build();
+        stats = new Http2Transport.StreamStats();
+        client = new Http2Client("org.iplantc.services.terrain", okHttpClient, stats);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        okHttpClient.dispatcher().executorService().shutdown();
+        okHttpClient.connectionPool().evictAll();
+        server.shutdown();
+    }
+
+    @Test
+    public void testRequestsAndResponsesAreTranslated() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(201)
+                                         .setHeader("Content-Type", "application/json")
+                                         .setHeader("X-Backend", "terrain")
+                                         .setBody("{\"id\":\"created\"}"));
+        final HttpPost post = new HttpPost(server.url("/secured/filesystem/directory/create").uri());
+        post.setHeader("X-Request-Id", "UI-test");
+        post.setHeader("Connection", "keep-alive");
+        post.setEntity(new StringEntity("{\"path\":\"/iplant/home/ipctest/new\"}", ContentType.APPLICATION_JSON));
+
+        try (CloseableHttpResponse response = client.execute(post)) {
+            assertEquals(201, response.getStatusLine().getStatusCode());
+            assertEquals(2, response.getStatusLine().getProtocolVersion().getMajor());
+            assertEquals("terrain", response.getFirstHeader("X-Backend").getValue());
+            assertEquals("application/json", response.getEntity().getContentType().getValue());
+            assertEquals("{\"id\":\"created\"}", IOUtils.toString(response.getEntity().getContent()));
+        }
+
+        final RecordedRequest recorded = server.takeRequest();
+        assertEquals("POST", recorded.getMethod());
+        assertEquals("/secured/filesystem/directory/create", recorded.getPath());
+        assertEquals("UI-test", recorded.getHeader("X-Request-Id"));
+        assertNull(recorded.getHeader("Connection"));
+        assertEquals(ContentType.APPLICATION_JSON.toString(), recorded.getHeader("Content-Type"));
+        assertEquals("{\"path\":\"/iplant/home/ipctest/new\"}", recorded.getBody().readUtf8());
+        assertEquals(1L, stats.createStatsMap().get("http2-streams"));
+    }
+
+    @Test
+    public void testRelativeRequestsAreSentToTheTarget() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404).setBody("not found"));
+        final HttpHost target = new HttpHost(server.getHostName(), server.getPort());
+
+        try (CloseableHttpResponse response = client.execute(target, new HttpGet("/secured/missing?limit=1"))) {
+            assertEquals(404, response.getStatusLine().getStatusCode());
+            assertEquals("not found", IOUtils.toString(response.getEntity().getContent()));
+        }
+        assertEquals("/secured/missing?limit=1", server.takeRequest().getPath());
+    }
+
+    @Test
+    public void testBodilessPostsSendAnEmptyBody() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(204));
+
+        try (CloseableHttpResponse response = client.execute(new HttpPost(server.url("/secured/touch").uri()))) {
+            assertEquals(204, response.getStatusLine().getStatusCode());
+        }
+        final RecordedRequest recorded = server.takeRequest();
+        assertEquals("POST", recorded.getMethod());
+        assertEquals(0, recorded.getBodySize());
+    }
+
+    @Test
+    public void testRequestSocketTimeoutsReplaceTheReadTimeout() throws Exception {
+        server.enqueue(new MockResponse().setHeadersDelay(2, TimeUnit.SECONDS).setBody("late"));
+        final HttpGet get = new HttpGet(server.url("/secured/slow").uri());
+        get.setConfig(RequestConfig.custom().setSocketTimeout(100).build());
+
+        try {
+            client.execute(get).close();
+            fail("the request should have timed out");
+        } catch (SocketTimeoutException expected) {
+        }
+        assertEquals(1L, stats.createStatsMap().get("failures"));
+    }
+
+    @Test
+    public void testAsyncResponsesAreTranslated() throws Exception {
+        server.enqueue(new MockResponse().setHeader("Content-Encoding", "gzip")
+                                         .setBody("compressed"));
+        final HttpGet get = new HttpGet(server.url("/secured/filesystem/paged-directory").uri());
+        get.setHeader("Accept-Encoding", "gzip,deflate");
+
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<String> result = new AtomicReference<>();
+        client.execute(get, new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                try {
+                    // The encoded body is passed on, for the caller to decode.
+                    result.set(response.getStatusLine().getStatusCode() + " "
+                                   + response.getEntity().getContentEncoding().getValue() + " "
+                                   + IOUtils.toString(response.getEntity().getContent()));
+                } catch (IOException e) {
+                    result.set(e.toString());
+                } finally {
+                    done.countDown();
+                }
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                result.set(ex.toString());
+                done.countDown();
+            }
+
+            @Override
+            public void cancelled() {
+                result.set("cancelled");
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals("200 gzip compressed", result.get());
+        assertEquals("gzip,deflate", server.takeRequest().getHeader("Accept-Encoding"));
+    }
+
+    @Test
+    public void testAsyncFailuresAreReported() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        client.execute(new HttpGet(server.url("/secured/down").uri()), new FutureCallback<HttpResponse>() {
+            @Override
+            public void completed(HttpResponse response) {
+                done.countDown();
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                failure.set(ex);
+                done.countDown();
+            }
+
+            @Override
+            public void cancelled() {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertTrue(failure.get() instanceof IOException);
+        assertEquals(1L, stats.createStatsMap().get("failures"));
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testThereIsNoConnectionManager() {
+        assertNull(client.getConnectionManager());
+    }
+}
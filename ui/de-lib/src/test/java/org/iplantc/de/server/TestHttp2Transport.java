@@ -0,0 +1,54 @@
+package org.iplantc.de.server;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class TestHttp2Transport {
+
+    private Http2Transport transport;
+
+    @Before
+    public void setUp() {
+        transport = new Http2Transport();
+        transport.setServices("org.iplantc.services.terrain = h2c, org.iplantc.services.file-io=h2");
+        transport.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        transport.destroy();
+    }
+
+    @Test
+    public void testOnlyConfiguredServicesHaveClients() {
+        assertEquals("org.iplantc.services.terrain", transport.getClient("org.iplantc.services.terrain").getServiceKey());
+        assertNotNull(transport.getClient("org.iplantc.services.file-io"));
+        assertNull(transport.getClient("org.iplantc.services.data-info"));
+        assertNull(transport.getClient(null));
+    }
+
+    @Test
+    public void testStatsAreReportedPerService() {
+        final Map<String, Object> stats = transport.createStatsMap();
+        assertEquals(0, stats.get("connections"));
+        assertTrue(((Map<?, ?>)stats.get("services")).containsKey("org.iplantc.services.file-io"));
+    }
+
+    @Test
+    public void testNoServicesDisablesTheTransport() {
+        final Http2Transport disabled = new Http2Transport();
+        disabled.afterPropertiesSet();
+        assertNull(disabled.getClient("org.iplantc.services.terrain"));
+        assertTrue(disabled.createStatsMap().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownModesAreRejected() {
+        Http2Transport.parseServices("org.iplantc.services.terrain=spdy");
+    }
+}
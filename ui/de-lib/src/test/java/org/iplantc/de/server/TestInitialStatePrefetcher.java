@@ -0,0 +1,188 @@
+package org.iplantc.de.server;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+import org.iplantc.de.server.auth.UrlConnector;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.security.Principal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+import javax.servlet.http.HttpSessionActivationListener;
+import javax.servlet.http.HttpSessionEvent;
+
+public class TestInitialStatePrefetcher {
+
+    private static final String BOOTSTRAP = "org.iplantc.services.bootstrap";
+    private static final String PREFERENCES = "http://terrain/secured/preferences";
+
+    private InitialStatePrefetcher prefetcher;
+    private HttpClientPool httpClientPool;
+    private HttpServletRequest request;
+    private final Map<String, FutureCallback<HttpResponse>> callbacks = new LinkedHashMap<>();
+
+    @Before
+    public void setUp() throws IOException {
+        final ServiceCallResolver serviceResolver = mock(ServiceCallResolver.class);
+        when(serviceResolver.resolveAddress(anyString())).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                final String address = (String)invocation.getArguments()[0];
+                return BOOTSTRAP.equals(address) ? "http://terrain/secured/bootstrap" : address;
+            }
+        });
+        final UrlConnector urlConnector = mock(UrlConnector.class);
+        when(urlConnector.getRequest(any(HttpServletRequest.class), anyString())).thenAnswer(new Answer<HttpGet>() {
+            @Override
+            public HttpGet answer(InvocationOnMock invocation) {
+                return new HttpGet((String)invocation.getArguments()[1]);
+            }
+        });
+        httpClientPool = mock(HttpClientPool.class);
+        doAnswer(new Answer<Void>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Void answer(InvocationOnMock invocation) {
+                final HttpUriRequest request = (HttpUriRequest)invocation.getArguments()[1];
+                callbacks.put(request.getURI().toString(), (FutureCallback<HttpResponse>)invocation.getArguments()[2]);
+                return null;
+            }
+        }).when(httpClientPool).executeAsync(anyString(), any(HttpUriRequest.class), any(FutureCallback.class));
+
+        prefetcher = new InitialStatePrefetcher();
+        prefetcher.setAddresses(BOOTSTRAP + ", " + PREFERENCES);
+        prefetcher.setMaxWait(0);
+        prefetcher.setServiceResolver(serviceResolver);
+        prefetcher.setUrlConnector(urlConnector);
+        prefetcher.setHttpClientPool(httpClientPool);
+
+        request = mockRequest();
+    }
+
+    @Test
+    public void testPrefetchedResponsesAreHandedOutOnce() throws Exception {
+        prefetcher.prefetch(request, mock(Principal.class));
+        assertEquals(2, callbacks.size());
+        complete("http://terrain/secured/bootstrap", 200, "{\"user\":\"ipctest\"}");
+        complete(PREFERENCES, 500, "{}");
+
+        final Map<String, String> state = prefetcher.takeInitialState(request);
+        assertEquals(1, state.size());
+        // Responses are keyed by the addresses the desktop calls.
+        assertEquals("{\"user\":\"ipctest\"}", state.get(BOOTSTRAP));
+        assertTrue(prefetcher.takeInitialState(request).isEmpty());
+    }
+
+    @Test
+    public void testCallsStillInProgressAreLeftOut() throws Exception {
+        prefetcher.prefetch(request, mock(Principal.class));
+        complete(PREFERENCES, 200, "{}");
+
+        final Map<String, String> state = prefetcher.takeInitialState(request);
+        assertEquals(1, state.size());
+        assertEquals("{}", state.get(PREFERENCES));
+    }
+
+    @Test
+    public void testExpiredResponsesAreDropped() throws Exception {
+        prefetcher.setTtl(-1);
+        prefetcher.prefetch(request, mock(Principal.class));
+        complete("http://terrain/secured/bootstrap", 200, "{}");
+        complete(PREFERENCES, 200, "{}");
+
+        assertTrue(prefetcher.takeInitialState(request).isEmpty());
+    }
+
+    @Test
+    public void testResponsesAreDroppedWhenTheSessionIsPassivated() throws Exception {
+        prefetcher.prefetch(request, mock(Principal.class));
+        complete("http://terrain/secured/bootstrap", 200, "{}");
+        final HttpSession session = request.getSession();
+        final Object attribute = session.getAttribute(InitialStatePrefetcher.PREFETCH_ATTRIBUTE);
+        assertTrue(attribute instanceof HttpSessionActivationListener);
+
+        ((HttpSessionActivationListener)attribute).sessionWillPassivate(new HttpSessionEvent(session));
+        assertTrue(prefetcher.takeInitialState(request).isEmpty());
+    }
+
+    @Test
+    public void testResponsesAreNotReplicatedWithTheSession() throws Exception {
+        prefetcher.prefetch(request, mock(Principal.class));
+        complete("http://terrain/secured/bootstrap", 200, "{}");
+        final HttpSession session = request.getSession();
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(session.getAttribute(InitialStatePrefetcher.PREFETCH_ATTRIBUTE));
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            session.setAttribute(InitialStatePrefetcher.PREFETCH_ATTRIBUTE, in.readObject());
+        }
+        assertTrue(prefetcher.takeInitialState(request).isEmpty());
+    }
+
+    @Test
+    public void testNothingIsFetchedWhenDisabled() {
+        prefetcher.setEnabled(false);
+        prefetcher.prefetch(request, mock(Principal.class));
+        verify(httpClientPool, never()).executeAsync(anyString(), any(HttpUriRequest.class), any(FutureCallback.class));
+        assertTrue(prefetcher.takeInitialState(request).isEmpty());
+    }
+
+    private void complete(final String address, final int status, final String body) throws Exception {
+        final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, "");
+        response.setEntity(new StringEntity(body));
+        callbacks.get(address).completed(response);
+    }
+
+    private HttpServletRequest mockRequest() {
+        final Map<String, Object> attributes = new HashMap<>();
+        final HttpSession session = mock(HttpSession.class);
+        when(session.getAttribute(anyString())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return attributes.get(invocation.getArguments()[0]);
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                attributes.put((String)invocation.getArguments()[0], invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(session).setAttribute(anyString(), any());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                attributes.remove(invocation.getArguments()[0]);
+                return null;
+            }
+        }).when(session).removeAttribute(anyString());
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getSession()).thenReturn(session);
+        when(request.getSession(false)).thenReturn(session);
+        return request;
+    }
+}
@@ -0,0 +1,156 @@
+package org.iplantc.de.server;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+import org.iplantc.de.server.auth.UrlConnector;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.servlet.http.HttpServletRequest;
+
+public class TestNotificationHub {
+
+    private static final String COUNTS_ADDRESS = "http://terrain/secured/notifications/count-messages?seen=false";
+
+    private NotificationHub hub;
+    private HttpClientPool httpClientPool;
+    private UrlConnector urlConnector;
+
+    @Before
+    public void setUp() throws IOException {
+        final ServiceCallResolver serviceResolver = mock(ServiceCallResolver.class);
+        when(serviceResolver.resolveAddress(anyString())).thenReturn(COUNTS_ADDRESS);
+        urlConnector = mock(UrlConnector.class);
+        when(urlConnector.getRequest(any(HttpServletRequest.class), eq(COUNTS_ADDRESS))).thenReturn(new HttpGet(COUNTS_ADDRESS));
+        httpClientPool = mock(HttpClientPool.class);
+
+        hub = new NotificationHub();
+        hub.setPollInterval(0);
+        hub.setHeartbeatInterval(0);
+        hub.setCountsAddress(COUNTS_ADDRESS);
+        hub.setServiceResolver(serviceResolver);
+        hub.setUrlConnector(urlConnector);
+        hub.setHttpClientPool(httpClientPool);
+        hub.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        hub.destroy();
+    }
+
+    @Test
+    public void testOnePollServesEveryDesktopOfAUser() throws Exception {
+        final RecordingSubscriber first = new RecordingSubscriber();
+        final RecordingSubscriber second = new RecordingSubscriber();
+        assertTrue(hub.subscribe(requestFor("ipctest"), first));
+        assertTrue(hub.subscribe(requestFor("ipctest"), second));
+
+        hub.pollAll();
+        completePoll("{\"user-notifications\":1}");
+        first.await(1);
+        second.await(1);
+        assertEquals("{\"user-notifications\":1}", first.events.get(0));
+
+        // Unchanged counts aren't pushed again, but new subscribers get the last known counts.
+        hub.pollAll();
+        completePoll("{\"user-notifications\":1}");
+        final RecordingSubscriber third = new RecordingSubscriber();
+        assertTrue(hub.subscribe(requestFor("ipctest"), third));
+        assertEquals(1, third.events.size());
+        assertEquals(3L, hub.createStatsMap().get("pushed-events"));
+        assertEquals(1, first.events.size());
+    }
+
+    @Test
+    public void testDisconnectedSubscribersAreDropped() {
+        final RecordingSubscriber subscriber = new RecordingSubscriber();
+        subscriber.connected = false;
+        assertTrue(hub.subscribe(requestFor("ipctest"), subscriber));
+        hub.sendHeartbeats();
+        assertEquals(0, hub.createStatsMap().get("subscribers"));
+        assertEquals(0, hub.createStatsMap().get("users"));
+
+        hub.pollAll();
+        verify(httpClientPool, never()).executeAsync(anyString(), any(HttpUriRequest.class), any(FutureCallback.class));
+    }
+
+    @Test
+    public void testPollsDoNotReadTheSubscribingRequest() throws Exception {
+        final HttpServletRequest request = requestFor("ipctest");
+        when(request.getRemoteAddr()).thenReturn("10.0.0.1");
+        when(request.getHeader("User-Agent")).thenReturn("Mozilla/5.0");
+        assertTrue(hub.subscribe(request, new RecordingSubscriber()));
+        // The container may recycle the request once its response has been committed.
+        reset(request);
+
+        hub.pollAll();
+        final ArgumentCaptor<HttpServletRequest> polled = ArgumentCaptor.forClass(HttpServletRequest.class);
+        verify(urlConnector).getRequest(polled.capture(), eq(COUNTS_ADDRESS));
+        assertEquals("ipctest", polled.getValue().getUserPrincipal().getName());
+        assertEquals("10.0.0.1", polled.getValue().getRemoteAddr());
+        assertEquals("Mozilla/5.0", polled.getValue().getHeader("user-agent"));
+        assertNull(polled.getValue().getHeader("Cookie"));
+        verifyZeroInteractions(request);
+    }
+
+    @Test
+    public void testAnonymousRequestsAreRefused() {
+        assertFalse(hub.subscribe(mock(HttpServletRequest.class), new RecordingSubscriber()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void completePoll(final String body) throws Exception {
+        final ArgumentCaptor<FutureCallback> callback = ArgumentCaptor.forClass(FutureCallback.class);
+        verify(httpClientPool, atLeastOnce()).executeAsync(anyString(), any(HttpUriRequest.class), callback.capture());
+        final HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+        response.setEntity(new StringEntity(body));
+        callback.getValue().completed(response);
+    }
+
+    private HttpServletRequest requestFor(final String username) {
+        final Principal principal = mock(Principal.class);
+        when(principal.getName()).thenReturn(username);
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getUserPrincipal()).thenReturn(principal);
+        return request;
+    }
+
+    private static final class RecordingSubscriber implements NotificationHub.Subscriber {
+        private final List<String> events = new CopyOnWriteArrayList<>();
+        private volatile boolean connected = true;
+
+        @Override
+        public boolean send(String event, String data) {
+            if (connected && event != null) {
+                events.add(data);
+            }
+            return connected;
+        }
+
+        void await(final int count) throws InterruptedException {
+            for (int i = 0; i < 500 && events.size() < count; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(count, events.size());
+        }
+    }
+}
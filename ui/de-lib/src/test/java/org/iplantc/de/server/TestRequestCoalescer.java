@@ -0,0 +1,199 @@
+package org.iplantc.de.server;
+
+import static org.junit.Assert.*;
+
+import com.google.common.collect.Lists;
+
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.concurrent.FutureCallback;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class TestRequestCoalescer {
+
+    private static final int CALLERS = 5;
+
+    @Test
+    public void testConcurrentCallsShareOneBackendCall() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final AtomicInteger backendCalls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final List<Future<String>> results = startCallers(coalescer, new RequestCoalescer.Call() {
+            @Override
+            public String execute() throws IOException {
+                backendCalls.incrementAndGet();
+                awaitQuietly(release);
+                return "body";
+            }
+        });
+        letCallersQueue();
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertEquals("body", result.get(5, TimeUnit.SECONDS));
+        }
+        assertTrue(backendCalls.get() < CALLERS);
+
+        final Map<String, Object> stats = coalescer.createStatsMap();
+        assertEquals((long)CALLERS, stats.get("calls"));
+        assertEquals((long)(CALLERS - backendCalls.get()), stats.get("coalesced"));
+    }
+
+    @Test
+    public void testFailureIsSharedAndNotRemembered() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final List<Future<String>> results = startCallers(coalescer, new RequestCoalescer.Call() {
+            @Override
+            public String execute() throws IOException {
+                awaitQuietly(release);
+                throw new IOException("backend unavailable");
+            }
+        });
+        letCallersQueue();
+        release.countDown();
+
+        for (Future<String> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+                fail("the backend failure should have been propagated");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+        }
+
+        // Completed calls aren't cached, so the next caller performs a new call.
+        assertEquals("retried", coalescer.execute("key", new RequestCoalescer.Call() {
+            @Override
+            public String execute() {
+                return "retried";
+            }
+        }));
+    }
+
+    @Test
+    public void testAsyncCallsJoinTheCallInFlight() throws Exception {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final AtomicReference<FutureCallback<String>> backendCallback = new AtomicReference<>();
+        final AtomicInteger backendCalls = new AtomicInteger();
+        final RequestCoalescer.AsyncCall call = new RequestCoalescer.AsyncCall() {
+            @Override
+            public Cancellable execute(FutureCallback<String> callback) {
+                backendCalls.incrementAndGet();
+                backendCallback.set(callback);
+                return null;
+            }
+        };
+
+        final List<String> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            coalescer.executeAsync("key", call, collect(results));
+        }
+        assertEquals(1, backendCalls.get());
+        assertTrue(results.isEmpty());
+
+        backendCallback.get().completed("body");
+        assertEquals(CALLERS, results.size());
+        for (String result : results) {
+            assertEquals("body", result);
+        }
+    }
+
+    @Test
+    public void testAsyncCallIsCancelledOnceNoCallerWaits() {
+        final RequestCoalescer coalescer = new RequestCoalescer();
+        final AtomicInteger backendCalls = new AtomicInteger();
+        final AtomicInteger cancelledCalls = new AtomicInteger();
+        final AtomicReference<FutureCallback<String>> backendCallback = new AtomicReference<>();
+        final RequestCoalescer.AsyncCall call = new RequestCoalescer.AsyncCall() {
+            @Override
+            public Cancellable execute(FutureCallback<String> callback) {
+                backendCalls.incrementAndGet();
+                backendCallback.set(callback);
+                return new Cancellable() {
+                    @Override
+                    public boolean cancel() {
+                        cancelledCalls.incrementAndGet();
+                        return true;
+                    }
+                };
+            }
+        };
+
+        final List<String> results = new ArrayList<>();
+        final Cancellable first = coalescer.executeAsync("key", call, collect(results));
+        final Cancellable second = coalescer.executeAsync("key", call, collect(results));
+        assertFalse(first.cancel());
+        assertEquals(0, cancelledCalls.get());
+        assertTrue(second.cancel());
+        assertEquals(1, cancelledCalls.get());
+
+        // A later caller doesn't join the cancelled call.
+        coalescer.executeAsync("key", call, collect(results));
+        assertEquals(2, backendCalls.get());
+        backendCallback.get().completed("body");
+        assertEquals(Lists.newArrayList("body"), results);
+    }
+
+    private FutureCallback<String> collect(final List<String> results) {
+        return new FutureCallback<String>() {
+            @Override
+            public void completed(String result) {
+                results.add(result);
+            }
+
+            @Override
+            public void failed(Exception ex) {
+                fail("the call should have succeeded");
+            }
+
+            @Override
+            public void cancelled() {
+                fail("the call should not have been cancelled");
+            }
+        };
+    }
+
+    private List<Future<String>> startCallers(final RequestCoalescer coalescer, final RequestCoalescer.Call call) {
+        final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        final List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return coalescer.execute("key", call);
+                }
+            }));
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private void letCallersQueue() throws InterruptedException {
+        // Give the callers a chance to queue up behind the first one.
+        Thread.sleep(200);
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
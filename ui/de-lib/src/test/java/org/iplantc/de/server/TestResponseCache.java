@@ -0,0 +1,58 @@
+package org.iplantc.de.server;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestResponseCache {
+
+    private static final String TYPE_LIST = "http://terrain/secured/filetypes/type-list";
+    private static final String TYPE_LIST_PATH = "/secured/filetypes/type-list";
+
+    private ResponseCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new ResponseCache();
+        cache.setTtls("filetypes/type-list=300, apps/categories=60");
+        cache.afterPropertiesSet();
+    }
+
+    @Test
+    public void testResponsesAreCachedPerUser() {
+        cache.put("ipcdev", TYPE_LIST, TYPE_LIST_PATH, "types", cache.getGeneration());
+
+        assertEquals("types", cache.get("ipcdev", TYPE_LIST, TYPE_LIST_PATH));
+        assertNull(cache.get("other", TYPE_LIST, TYPE_LIST_PATH));
+    }
+
+    @Test
+    public void testUnconfiguredEndpointsAreNotCached() {
+        final String address = "http://terrain/secured/filesystem/paged-directory?path=/iplant/home";
+        cache.put("ipcdev", address, "/secured/filesystem/paged-directory", "listing", cache.getGeneration());
+
+        assertNull(cache.get("ipcdev", address, "/secured/filesystem/paged-directory"));
+    }
+
+    @Test
+    public void testMutationInvalidatesResourceFamily() {
+        final String categories = "http://terrain/apps/categories";
+        cache.put("ipcdev", TYPE_LIST, TYPE_LIST_PATH, "types", cache.getGeneration());
+        cache.put("ipcdev", categories, "/apps/categories", "categories", cache.getGeneration());
+
+        cache.invalidate("ipcdev", "/secured/filetypes/type");
+
+        assertNull(cache.get("ipcdev", TYPE_LIST, TYPE_LIST_PATH));
+        assertEquals("categories", cache.get("ipcdev", categories, "/apps/categories"));
+    }
+
+    @Test
+    public void testResponseFetchedDuringMutationIsNotStored() {
+        final long generation = cache.getGeneration();
+        cache.invalidate("ipcdev", "/secured/filetypes/type");
+        cache.put("ipcdev", TYPE_LIST, TYPE_LIST_PATH, "stale types", generation);
+
+        assertNull(cache.get("ipcdev", TYPE_LIST, TYPE_LIST_PATH));
+    }
+}
@@ -0,0 +1,91 @@
+package org.iplantc.de.server;
+
+import static org.junit.Assert.*;
+
+import org.iplantc.de.shared.exceptions.HttpException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class TestServiceBulkheads {
+
+    private static final String SERVICE = "org.iplantc.services.filesystem.index";
+
+    private ServiceBulkheads bulkheads;
+
+    @Before
+    public void setUp() {
+        bulkheads = new ServiceBulkheads();
+        bulkheads.setLimits(SERVICE + "=2");
+        bulkheads.setWindowSize(4);
+        bulkheads.setSlowCallMillis(10000);
+        bulkheads.setOpenSeconds(0);
+        bulkheads.afterPropertiesSet();
+    }
+
+    @Test
+    public void testCallsBeyondTheLimitFailFast() throws Exception {
+        final ServiceBulkheads.Permit first = bulkheads.acquire(SERVICE);
+        bulkheads.acquire(SERVICE);
+        try {
+            bulkheads.acquire(SERVICE);
+            fail("the bulkhead should have been full");
+        } catch (HttpException e) {
+            assertEquals(503, e.getStatusCode());
+            assertTrue(e.getResponseBody().contains(ServiceBulkheads.ERROR_CODE));
+        }
+
+        // Other services are unaffected.
+        bulkheads.acquire("org.iplantc.services.apps").release(false);
+
+        first.release(false);
+        bulkheads.acquire(SERVICE).release(false);
+
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> stats = (Map<String, Object>)bulkheads.createStatsMap().get(SERVICE);
+        assertEquals(1L, stats.get("rejected"));
+        assertEquals(1, stats.get("in-flight"));
+    }
+
+    @Test
+    public void testCircuitOpensOnFailuresAndClosesAfterASuccessfulTrial() throws Exception {
+        bulkheads.acquire(SERVICE).release(false);
+        bulkheads.acquire(SERVICE).release(false);
+        bulkheads.acquire(SERVICE).release(true);
+        assertEquals(ServiceBulkheads.State.CLOSED, bulkheads.getState(SERVICE));
+        bulkheads.acquire(SERVICE).release(true);
+        assertEquals(ServiceBulkheads.State.OPEN, bulkheads.getState(SERVICE));
+
+        // With no open period, the next call is the trial; others fail while it's in flight.
+        final ServiceBulkheads.Permit trial = bulkheads.acquire(SERVICE);
+        assertEquals(ServiceBulkheads.State.HALF_OPEN, bulkheads.getState(SERVICE));
+        try {
+            bulkheads.acquire(SERVICE);
+            fail("only the trial call should have been allowed");
+        } catch (HttpException e) {
+            assertEquals(503, e.getStatusCode());
+        }
+
+        trial.release(false);
+        assertEquals(ServiceBulkheads.State.CLOSED, bulkheads.getState(SERVICE));
+    }
+
+    @Test
+    public void testFailedTrialReopensTheCircuit() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            bulkheads.acquire(SERVICE).release(true);
+        }
+        bulkheads.acquire(SERVICE).release(true);
+        assertEquals(ServiceBulkheads.State.OPEN, bulkheads.getState(SERVICE));
+    }
+
+    @Test
+    public void testUnknownAddressesAreClassifiedByPath() {
+        assertEquals(SERVICE, bulkheads.classify(SERVICE, "/secured/filesystem/index"));
+        assertEquals("/secured/notifications", bulkheads.classify(null, "/secured/notifications/messages"));
+        assertEquals("/secured/bootstrap", bulkheads.classify(null, "/secured/bootstrap"));
+        assertEquals("/logout", bulkheads.classify(null, "/logout"));
+    }
+}
@@ -0,0 +1,136 @@
+package org.iplantc.de.server;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+import org.iplantc.de.server.auth.UrlConnector;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.util.EntityUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
+
+public class TestSessionPatcher {
+
+    private static final String SESSIONS_ADDRESS = "http://terrain/secured/sessions";
+
+    private SessionPatcher patcher;
+    private CloseableHttpClient client;
+    private CloseableHttpResponse response;
+    private HttpServletRequest request;
+
+    @Before
+    public void setUp() throws IOException {
+        final ServiceCallResolver serviceResolver = mock(ServiceCallResolver.class);
+        when(serviceResolver.resolveAddress(anyString())).thenReturn(SESSIONS_ADDRESS);
+        final UrlConnector urlConnector = mock(UrlConnector.class);
+        when(urlConnector.postRequest(any(HttpServletRequest.class),
+                                      eq(SESSIONS_ADDRESS))).thenAnswer(new Answer<HttpPost>() {
+            @Override
+            public HttpPost answer(InvocationOnMock invocation) {
+                return new HttpPost(SESSIONS_ADDRESS);
+            }
+        });
+        response = mock(CloseableHttpResponse.class);
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        client = mock(CloseableHttpClient.class);
+        when(client.execute(any(HttpPost.class))).thenReturn(response);
+        final HttpClientPool httpClientPool = mock(HttpClientPool.class);
+        when(httpClientPool.getClient(anyString())).thenReturn(client);
+
+        patcher = new SessionPatcher();
+        patcher.setSessionsAddress(SESSIONS_ADDRESS);
+        patcher.setServiceResolver(serviceResolver);
+        patcher.setUrlConnector(urlConnector);
+        patcher.setHttpClientPool(httpClientPool);
+        patcher.setResponseCache(mock(ResponseCache.class));
+
+        request = mockRequest();
+    }
+
+    @Test
+    public void testPatchesAreAppliedToTheLastSavedWindows() throws IOException {
+        assertTrue(patcher.apply(request, "{\"reset\":true,"
+                                          + "\"put\":{\"DATA_\":{\"width\":1},\"APPS_\":{\"width\":2}},"
+                                          + "\"order\":[\"DATA_\",\"APPS_\"]}"));
+        assertEquals("{\"windowStates\":[{\"width\":1},{\"width\":2}]}", lastSavedBody());
+
+        assertTrue(patcher.apply(request, "{\"put\":{\"ANALYSES_\":{\"width\":3}},"
+                                          + "\"remove\":[\"DATA_\"],"
+                                          + "\"order\":[\"ANALYSES_\",\"APPS_\"]}"));
+        assertEquals("{\"windowStates\":[{\"width\":3},{\"width\":2}]}", lastSavedBody());
+    }
+
+    @Test
+    public void testPatchesWithoutSavedWindowsAreRefused() throws IOException {
+        assertFalse(patcher.apply(request, "{\"put\":{},\"order\":[]}"));
+        verify(client, never()).execute(any(HttpPost.class));
+    }
+
+    @Test
+    public void testPatchesWhichDontMatchTheSavedWindowsAreRefused() throws IOException {
+        assertTrue(patcher.apply(request, "{\"reset\":true,\"put\":{\"DATA_\":{}},\"order\":[\"DATA_\"]}"));
+        // Refers to a window which was never saved.
+        assertFalse(patcher.apply(request, "{\"put\":{},\"order\":[\"DATA_\",\"APPS_\"]}"));
+        // Leaves a saved window out of the order without removing it.
+        assertFalse(patcher.apply(request, "{\"put\":{\"APPS_\":{}},\"order\":[\"APPS_\"]}"));
+        verify(client, times(1)).execute(any(HttpPost.class));
+    }
+
+    @Test
+    public void testFailedSavesKeepTheSavedWindows() throws IOException {
+        assertTrue(patcher.apply(request, "{\"reset\":true,\"put\":{\"DATA_\":{}},\"order\":[\"DATA_\"]}"));
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 500, "Error"));
+        try {
+            patcher.apply(request, "{\"put\":{\"APPS_\":{}},\"remove\":[\"DATA_\"],\"order\":[\"APPS_\"]}");
+            fail("a failed save must throw an IOException");
+        } catch (IOException e) {
+            // expected
+        }
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, "OK"));
+        assertTrue(patcher.apply(request, "{\"put\":{\"DATA_\":{\"width\":1}},\"order\":[\"DATA_\"]}"));
+    }
+
+    private String lastSavedBody() throws IOException {
+        final ArgumentCaptor<HttpPost> post = ArgumentCaptor.forClass(HttpPost.class);
+        verify(client, atLeastOnce()).execute(post.capture());
+        return EntityUtils.toString(post.getValue().getEntity());
+    }
+
+    private HttpServletRequest mockRequest() {
+        final Map<String, Object> attributes = new HashMap<>();
+        final HttpSession session = mock(HttpSession.class);
+        when(session.getAttribute(anyString())).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                return attributes.get(invocation.getArguments()[0]);
+            }
+        });
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                attributes.put((String)invocation.getArguments()[0], invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(session).setAttribute(anyString(), any());
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getSession()).thenReturn(session);
+        return request;
+    }
+}
@@ -0,0 +1,228 @@
+package org.iplantc.de.server.services;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+import org.iplantc.de.server.AppLoggerConstants;
+import org.iplantc.de.server.AsyncRequestLimiter;
+import org.iplantc.de.server.HttpClientPool;
+import org.iplantc.de.server.RequestCoalescer;
+import org.iplantc.de.server.ResponseCache;
+import org.iplantc.de.server.ServiceBulkheads;
+import org.iplantc.de.server.ServiceCallResolver;
+import org.iplantc.de.server.auth.UrlConnector;
+import org.iplantc.de.shared.services.BaseServiceCallWrapper;
+import org.iplantc.de.shared.services.DEService;
+import org.iplantc.de.shared.services.ServiceCallResult;
+import org.iplantc.de.shared.services.ServiceCallWrapper;
+
+import com.google.common.collect.Lists;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.IOException;
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.servlet.http.HttpServletRequest;
+
+public class TestDEServiceImpl {
+
+    private DEServiceImpl service;
+    private ServiceCallResolver serviceResolver;
+    private UrlConnector urlConnector;
+    private HttpClientPool httpClientPool;
+    private ResponseCache responseCache;
+    private ExecutorService batchExecutor;
+    private final Set<Thread> callThreads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+
+    @Before
+    public void setUp() throws IOException {
+        serviceResolver = mock(ServiceCallResolver.class);
+        when(serviceResolver.resolveCallAddress(any(BaseServiceCallWrapper.class))).thenAnswer(new Answer<String>() {
+            @Override
+            public String answer(InvocationOnMock invocation) {
+                return ((BaseServiceCallWrapper)invocation.getArguments()[0]).getAddress();
+            }
+        });
+
+        // Like the JWT URL connector, which can't sign a request without its user.
+        urlConnector = mock(UrlConnector.class);
+        when(urlConnector.getRequest(any(HttpServletRequest.class), anyString())).thenAnswer(new Answer<HttpGet>() {
+            @Override
+            public HttpGet answer(InvocationOnMock invocation) {
+                final HttpServletRequest request = (HttpServletRequest)invocation.getArguments()[0];
+                if (request.getUserPrincipal() == null) {
+                    throw new NullPointerException("no user principal");
+                }
+                callThreads.add(Thread.currentThread());
+                final HttpGet get = new HttpGet((String)invocation.getArguments()[1]);
+                get.addHeader(AppLoggerConstants.REQUEST_ID_HEADER, "UI-test");
+                return get;
+            }
+        });
+
+        final CloseableHttpClient client = mock(CloseableHttpClient.class);
+        when(client.execute(any(HttpUriRequest.class))).thenAnswer(new Answer<CloseableHttpResponse>() {
+            @Override
+            public CloseableHttpResponse answer(InvocationOnMock invocation) throws IOException {
+                final HttpUriRequest request = (HttpUriRequest)invocation.getArguments()[0];
+                final Response response = new Response();
+                response.setEntity(new StringEntity(request.getURI().toString()));
+                return response;
+            }
+        });
+        httpClientPool = mock(HttpClientPool.class);
+        when(httpClientPool.getClient(anyString())).thenReturn(client);
+
+        responseCache = new ResponseCache();
+        responseCache.afterPropertiesSet();
+        batchExecutor = Executors.newFixedThreadPool(2);
+        service = createService(mock(AsyncRequestLimiter.class), new ServiceBulkheads());
+    }
+
+    @After
+    public void tearDown() {
+        batchExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testBatchedCallsRunAsTheRequestsUser() {
+        final ArrayList<ServiceCallWrapper> wrappers = Lists.newArrayList(
+                new ServiceCallWrapper(BaseServiceCallWrapper.Type.GET, "http://terrain/secured/filesystem/paged-directory"),
+                new ServiceCallWrapper(BaseServiceCallWrapper.Type.GET, "http://terrain/secured/filetypes/type-list"));
+
+        final ArrayList<ServiceCallResult> results = service.getServiceDataBatch(wrappers);
+
+        assertEquals(2, results.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertTrue(results.get(i).isSuccess());
+            assertEquals(wrappers.get(i).getAddress(), results.get(i).getBody());
+        }
+        assertFalse(callThreads.isEmpty());
+        assertFalse(callThreads.contains(Thread.currentThread()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCallsCancelledWhileQueuedNeverReachTheBackend() throws Exception {
+        final List<Runnable> queuedCalls = new ArrayList<>();
+        final AsyncRequestLimiter asyncRequestLimiter = mockQueueingLimiter(queuedCalls);
+        // The call is taken off the queue just as its request times out.
+        when(asyncRequestLimiter.cancel(any(Runnable.class))).thenReturn(false);
+        service = createService(asyncRequestLimiter, new ServiceBulkheads());
+
+        final Cancellable call = invokeGetServiceDataAsync("http://terrain/secured/filesystem/paged-directory");
+        assertEquals(1, queuedCalls.size());
+
+        call.cancel();
+        queuedCalls.get(0).run();
+
+        verify(asyncRequestLimiter).cancel(queuedCalls.get(0));
+        verify(asyncRequestLimiter).release();
+        verify(httpClientPool, never()).executeAsync(anyString(),
+                                                     any(HttpUriRequest.class),
+                                                     any(FutureCallback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testQueuedCallsHoldNoBulkheadPermit() throws Exception {
+        final List<Runnable> queuedCalls = new ArrayList<>();
+        final AsyncRequestLimiter asyncRequestLimiter = mockQueueingLimiter(queuedCalls);
+        final ServiceBulkheads serviceBulkheads = mock(ServiceBulkheads.class);
+        when(serviceBulkheads.acquire(anyString())).thenReturn(mock(ServiceBulkheads.Permit.class));
+        service = createService(asyncRequestLimiter, serviceBulkheads);
+
+        invokeGetServiceDataAsync("http://terrain/secured/filesystem/paged-directory");
+        assertEquals(1, queuedCalls.size());
+        verify(serviceBulkheads, never()).acquire(anyString());
+
+        queuedCalls.get(0).run();
+        verify(serviceBulkheads).acquire(anyString());
+        verify(httpClientPool).executeAsync(anyString(), any(HttpUriRequest.class), any(FutureCallback.class));
+    }
+
+    private AsyncRequestLimiter mockQueueingLimiter(final List<Runnable> queuedCalls) {
+        final AsyncRequestLimiter asyncRequestLimiter = mock(AsyncRequestLimiter.class);
+        when(asyncRequestLimiter.getTimeout(anyString())).thenReturn(-1);
+        when(asyncRequestLimiter.tryExecute(any(Runnable.class))).thenAnswer(new Answer<Boolean>() {
+            @Override
+            public Boolean answer(InvocationOnMock invocation) {
+                queuedCalls.add((Runnable)invocation.getArguments()[0]);
+                return true;
+            }
+        });
+        return asyncRequestLimiter;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cancellable invokeGetServiceDataAsync(final String address) throws NoSuchMethodException {
+        return service.invokeAsync(mockAuthenticatedRequest(),
+                                   DEService.class.getMethod("getServiceData", ServiceCallWrapper.class),
+                                   new Object[] {new ServiceCallWrapper(BaseServiceCallWrapper.Type.GET, address)},
+                                   mock(FutureCallback.class));
+    }
+
+    private DEServiceImpl createService(final AsyncRequestLimiter asyncRequestLimiter,
+                                        final ServiceBulkheads serviceBulkheads) {
+        final DEServiceImpl deService = new DEServiceImpl(serviceResolver,
+                                                          urlConnector,
+                                                          httpClientPool,
+                                                          new RequestCoalescer(),
+                                                          responseCache,
+                                                          batchExecutor,
+                                                          asyncRequestLimiter,
+                                                          serviceBulkheads);
+        deService.setRequest(mockAuthenticatedRequest());
+        return deService;
+    }
+
+    /**
+     * @return a request whose user, like one looked up in the security context, is only known on
+     * the thread serving it.
+     */
+    private HttpServletRequest mockAuthenticatedRequest() {
+        final Thread requestThread = Thread.currentThread();
+        final Principal principal = mock(Principal.class);
+        when(principal.getName()).thenReturn("ipctest");
+        final HttpServletRequest request = mock(HttpServletRequest.class);
+        when(request.getUserPrincipal()).thenAnswer(new Answer<Principal>() {
+            @Override
+            public Principal answer(InvocationOnMock invocation) {
+                return Thread.currentThread() == requestThread ? principal : null;
+            }
+        });
+        return request;
+    }
+
+    private static final class Response extends BasicHttpResponse implements CloseableHttpResponse {
+        Response() {
+            super(HttpVersion.HTTP_1_1, 200, "OK");
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -6,10 +6,12 @@ import org.iplantc.de.server.DeLandingPage;
 import org.iplantc.de.server.MDCFilter;
 import org.iplantc.de.server.auth.CasGroupUserDetailsService;
 import org.iplantc.de.server.auth.CasLogoutSuccessHandler;
+import org.iplantc.de.server.auth.JwtBuilder;
 
 import static org.springframework.security.web.header.writers.frameoptions.XFrameOptionsHeaderWriter.XFrameOptionsMode.SAMEORIGIN;
 import org.jasig.cas.client.session.SingleSignOutFilter;
 import org.jasig.cas.client.validation.Cas20ServiceTicketValidator;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -51,6 +53,7 @@ public class AdminWebSecurityConfig extends WebSecurityConfigurerAdapter {
     @Value("${org.iplantc.discoveryenvironment.cas.logout-url}") private String logoutUrl;
     @Value("${org.iplantc.discoveryenvironment.cas.server-name}/belphegor") private String serverName;
     @Value("${org.iplantc.discoveryenvironment.cas.validation}") private String validation;
+    @Autowired private JwtBuilder jwtBuilder;
 
     @Bean
     public AuthenticationUserDetailsService<CasAssertionAuthenticationToken> adminAuthenticationUserDetailsService() {
@@ -100,6 +103,7 @@ public class AdminWebSecurityConfig extends WebSecurityConfigurerAdapter {
         logoutSuccessHandler.setLogoutUrl(casLogoutUrl);
         logoutSuccessHandler.setDefaultRedirectUrl(serverName + "/logged-out");
         logoutSuccessHandler.setRedirectUrlSelectorName("reason");
+        logoutSuccessHandler.setJwtBuilder(jwtBuilder);
         Map<String, String> redirectUrls = new HashMap<>();
         redirectUrls.put("unauthorized", serverName);
         logoutSuccessHandler.setRedirectUrls(redirectUrls);
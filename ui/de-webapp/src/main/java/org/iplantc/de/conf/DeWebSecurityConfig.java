@@ -5,12 +5,14 @@ import org.iplantc.de.server.DeCasAuthenticationEntryPoint;
 import org.iplantc.de.server.DeLandingPage;
 import org.iplantc.de.server.MDCFilter;
 import org.iplantc.de.server.auth.CasLogoutSuccessHandler;
+import org.iplantc.de.server.auth.JwtBuilder;
 
 import static org.springframework.security.web.header.writers.frameoptions.XFrameOptionsHeaderWriter.XFrameOptionsMode.SAMEORIGIN;
 import org.jasig.cas.client.session.SingleSignOutFilter;
 import org.jasig.cas.client.validation.Cas20ServiceTicketValidator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -45,6 +47,7 @@ public class DeWebSecurityConfig extends WebSecurityConfigurerAdapter {
     @Value("${org.iplantc.discoveryenvironment.cas.logout-url}") private String logoutUrl;
     @Value("${org.iplantc.discoveryenvironment.cas.server-name}/de") private String serverName;
     @Value("${org.iplantc.discoveryenvironment.cas.validation}") private String validation;
+    @Autowired private JwtBuilder jwtBuilder;
 
     @Bean
     public AuthenticationUserDetailsService<CasAssertionAuthenticationToken> deAuthenticationUserDetailsService() {
@@ -94,6 +97,7 @@ public class DeWebSecurityConfig extends WebSecurityConfigurerAdapter {
         CasLogoutSuccessHandler logoutSuccessHandler = new CasLogoutSuccessHandler();
         logoutSuccessHandler.setLogoutUrl(casLogoutUrl);
         logoutSuccessHandler.setDefaultRedirectUrl(serverName + "/logged-out");
+        logoutSuccessHandler.setJwtBuilder(jwtBuilder);
         return logoutSuccessHandler;
     }
 
@@ -1,5 +1,10 @@
 package org.iplantc.de.conf;
 
+import org.iplantc.de.server.AsyncRequestLimiter;
+import org.iplantc.de.server.HttpClientPool;
+import org.iplantc.de.server.RequestCoalescer;
+import org.iplantc.de.server.ResponseCache;
+import org.iplantc.de.server.ServiceBulkheads;
 import org.iplantc.de.server.ServiceCallResolver;
 import org.iplantc.de.server.auth.JwtUrlConnector;
 import org.iplantc.de.server.auth.UrlConnector;
@@ -12,6 +17,8 @@ import org.iplantc.de.server.services.IplantEmailClient;
 import org.iplantc.de.server.services.PropertyServiceImpl;
 import org.iplantc.de.server.services.UUIDServiceImpl;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -20,6 +27,10 @@ import org.springframework.core.env.Environment;
 import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
 
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.servlet.ServletConfig;
@@ -37,9 +48,17 @@ public class GwtRpcConfig {
     @Autowired private IplantEmailClient emailClient;
     @Autowired private UrlConnector urlConnector;
     @Autowired private ServletConfig servletConfig;
+    @Autowired private HttpClientPool httpClientPool;
+    @Autowired private RequestCoalescer requestCoalescer;
+    @Autowired private ResponseCache responseCache;
+    @Autowired private AsyncRequestLimiter asyncRequestLimiter;
+    @Autowired private ServiceBulkheads serviceBulkheads;
 
     @Value("${org.iplantc.discoveryenvironment.about.defaultBuildNumber}") private String defaultBuildNumber;
     @Value("${org.iplantc.discoveryenvironment.about.releaseVersion}") private String releaseVersion;
+    @Value("${org.iplantc.discoveryenvironment.compression.min-size:1024}") private int compressionMinSize;
+    @Value("${org.iplantc.discoveryenvironment.rpc-batch.threads:8}") private int rpcBatchThreads;
+    @Value("${org.iplantc.discoveryenvironment.rpc-batch.queue-size:100}") private int rpcBatchQueueSize;
 
     @Bean
     public GwtRpcController aboutRpcService(){
@@ -65,8 +84,32 @@ public class GwtRpcConfig {
 
     @Bean
     public GwtRpcController apiRpcService(){
-        return new GwtRpcController(new DEServiceImpl(serviceCallResolver,
-                                                      urlConnector));
+        final DEServiceImpl deService = new DEServiceImpl(serviceCallResolver,
+                                                          urlConnector,
+                                                          httpClientPool,
+                                                          requestCoalescer,
+                                                          responseCache,
+                                                          rpcBatchExecutor(),
+                                                          asyncRequestLimiter,
+                                                          serviceBulkheads);
+        final GwtRpcController controller = new GwtRpcController(deService, asyncRequestLimiter);
+        controller.setCompressionThreshold(compressionMinSize);
+        return controller;
+    }
+
+    /**
+     * Runs the calls of batched RPC requests. When the queue is full, calls run on the request
+     * thread instead, so a burst of batches slows down rather than fails.
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService rpcBatchExecutor() {
+        return new ThreadPoolExecutor(rpcBatchThreads,
+                                      rpcBatchThreads,
+                                      0L,
+                                      TimeUnit.MILLISECONDS,
+                                      new ArrayBlockingQueue<Runnable>(rpcBatchQueueSize),
+                                      new ThreadFactoryBuilder().setNameFormat("rpc-batch-%d").setDaemon(true).build(),
+                                      new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
     @Bean
@@ -1,9 +1,13 @@
 package org.iplantc.de.conf;
 
+import org.iplantc.de.server.StreamingUploadMultipartResolver;
+import org.iplantc.de.server.controllers.file.SecuredFileUploadController;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.multipart.MultipartResolver;
 import org.springframework.web.servlet.config.annotation.DefaultServletHandlerConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
@@ -11,6 +15,7 @@ import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
+import org.springframework.web.util.HttpSessionMutexListener;
 
 /**
  * @author jstroot
@@ -49,6 +54,24 @@ public class WebMvcConfig extends WebMvcConfigurerAdapter {
         configurer.enable();
     }
 
+    /**
+     * Replaces the default multipart resolver so that streamed uploads reach their controllers
+     * unparsed.
+     */
+    @Bean
+    public MultipartResolver multipartResolver() {
+        return new StreamingUploadMultipartResolver(SecuredFileUploadController.UPLOAD_PATH);
+    }
+
+    /**
+     * Gives each HTTP session a mutex object, so that requests of the same session can be
+     * serialized even when the container hands each of them a different session facade.
+     */
+    @Bean
+    public HttpSessionMutexListener sessionMutexListener() {
+        return new HttpSessionMutexListener();
+    }
+
     @Bean
     public InternalResourceViewResolver jspViewResolver() {
         InternalResourceViewResolver viewResolver = new InternalResourceViewResolver();
@@ -4,14 +4,18 @@ import static org.iplantc.de.server.util.ServletUtils.loadResource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.security.cas.ServiceProperties;
 import org.springframework.util.Assert;
 import org.stringtemplate.v4.ST;
+import org.stringtemplate.v4.STGroup;
 
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -19,25 +23,43 @@ import javax.servlet.http.HttpServletResponse;
 /**
  * Used to present a landing page to an unauthenticated DE user.
  *
+ * The templates are compiled once, and the maintenance file is watched by a
+ * {@link MaintenanceFileWatcher} rather than read for every request. Pages which don't depend on the
+ * request's parameters are rendered once per maintenance state and context path.
+ *
  * TODO Convert to jsp.
  * @see org.springframework.web.servlet.View#render(Map, HttpServletRequest, HttpServletResponse)
  *
  * @author jstroot
  */
-public class DeLandingPage implements LandingPage, InitializingBean {
+public class DeLandingPage implements LandingPage, InitializingBean, DisposableBean {
 
     private static final String ENCODING = "UTF-8";
 
     private enum Templates {
-        BOUNDED_MAINTENANCE_DIV(loadResource("bounded-maintenance-div-template.html")),
-        UNBOUNDED_MAINTENANCE_DIV(loadResource("unbounded-maintenance-div-template.html")),
-        LOGIN_DIV(loadResource("login-div-template.html")),
-        LANDING_PAGE(loadResource("landing-page-template.html"));
+        BOUNDED_MAINTENANCE_DIV(loadResource("bounded-maintenance-div-template.html"), "start_time,end_time"),
+        UNBOUNDED_MAINTENANCE_DIV(loadResource("unbounded-maintenance-div-template.html"), ""),
+        LOGIN_DIV(loadResource("login-div-template.html"), "extra_params,login_url,service_url"),
+        LANDING_PAGE(loadResource("landing-page-template.html"), "context_path,login_div");
 
         private final String text;
+        private final String args;
 
-        Templates(String text) {
+        Templates(String text, String args) {
             this.text = text;
+            this.args = args;
+        }
+
+        private static STGroup compile() {
+            STGroup group = new STGroup('$', '$');
+            for (Templates template : values()) {
+                if (template.args.isEmpty()) {
+                    group.defineTemplate(template.name(), template.text);
+                } else {
+                    group.defineTemplate(template.name(), template.args, template.text);
+                }
+            }
+            return group;
         }
 
         @Override
@@ -46,10 +68,26 @@ public class DeLandingPage implements LandingPage, InitializingBean {
         }
     }
 
+    /**
+     * The pages rendered for one state of the maintenance file, by context path.
+     */
+    private static final class RenderedPages {
+        private final DiscoveryEnvironmentMaintenance maintenance;
+        private final ConcurrentMap<String, String> pages = new ConcurrentHashMap<>();
+
+        RenderedPages(DiscoveryEnvironmentMaintenance maintenance) {
+            this.maintenance = maintenance;
+        }
+    }
+
+    private static final STGroup TEMPLATES = Templates.compile();
+
     private final Logger LOG = LoggerFactory.getLogger(DeLandingPage.class);
     private String deMaintenanceFile;
     private String loginUrl;
     private ServiceProperties casService;
+    private MaintenanceFileWatcher maintenanceWatcher;
+    private volatile RenderedPages renderedPages;
 
     public void setDeMaintenanceFile(String deMaintenanceFile) {
         this.deMaintenanceFile = deMaintenanceFile;
@@ -65,29 +103,61 @@ public class DeLandingPage implements LandingPage, InitializingBean {
         this.casService = casService;
     }
 
+    @Override
     public void afterPropertiesSet() throws Exception {
         Assert.hasLength(deMaintenanceFile, "the path to the DE maintenance file must be specified");
         Assert.hasLength(loginUrl, "the CAS login URL must be specified");
         Assert.notNull(casService, "the CAS service properties must be specified");
         Assert.hasLength(casService.getService(), "the CAS service name must be specified");
+        maintenanceWatcher = new MaintenanceFileWatcher(deMaintenanceFile);
+        maintenanceWatcher.start();
+    }
+
+    @Override
+    public void destroy() {
+        if (maintenanceWatcher != null) {
+            maintenanceWatcher.close();
+        }
     }
 
     public void display(HttpServletRequest req, HttpServletResponse res) throws IOException {
-        String contextPath = req.getContextPath();
-        String loginDiv = buildLoginDiv(req);
-        ST st = new ST(Templates.LANDING_PAGE.toString(), '$', '$');
-        st.add("context_path", contextPath);
-        st.add("login_div", loginDiv);
+        DiscoveryEnvironmentMaintenance deMaintenance = maintenanceWatcher.getMaintenance();
+        String page;
+        // Only the login div depends on the request, and only through its parameters.
+        if (deMaintenance.isUnderMaintenance() || req.getParameterMap().isEmpty()) {
+            page = getRenderedPage(req, deMaintenance);
+        } else {
+            page = buildLandingPage(req.getContextPath(), buildLoginDiv(req, deMaintenance));
+        }
         res.setContentType("text/html");
-        res.getWriter().print(st.render());
+        res.getWriter().print(page);
+    }
+
+    private String getRenderedPage(HttpServletRequest req, DiscoveryEnvironmentMaintenance deMaintenance)
+            throws IOException {
+        RenderedPages rendered = renderedPages;
+        if (rendered == null || rendered.maintenance != deMaintenance) {
+            rendered = new RenderedPages(deMaintenance);
+            renderedPages = rendered;
+        }
+        String contextPath = req.getContextPath();
+        String page = rendered.pages.get(contextPath);
+        if (page == null) {
+            page = buildLandingPage(contextPath, buildLoginDiv(req, deMaintenance));
+            rendered.pages.putIfAbsent(contextPath, page);
+        }
+        return page;
     }
 
-    private DiscoveryEnvironmentMaintenance getDeMaintenance() {
-        return new DiscoveryEnvironmentMaintenance(deMaintenanceFile);
+    private String buildLandingPage(String contextPath, String loginDiv) {
+        ST st = TEMPLATES.getInstanceOf(Templates.LANDING_PAGE.name());
+        st.add("context_path", contextPath);
+        st.add("login_div", loginDiv);
+        return st.render();
     }
 
-    private String buildLoginDiv(HttpServletRequest req) throws IOException {
-        DiscoveryEnvironmentMaintenance deMaintenance = getDeMaintenance();
+    private String buildLoginDiv(HttpServletRequest req, DiscoveryEnvironmentMaintenance deMaintenance)
+            throws IOException {
         if (deMaintenance.hasMaintenanceTimes()) {
             return buildBoundedMaintenanceDiv(deMaintenance);
         } else if (deMaintenance.isUnderMaintenance()) {
@@ -98,7 +168,7 @@ public class DeLandingPage implements LandingPage, InitializingBean {
     }
 
     private String buildBoundedMaintenanceDiv(DiscoveryEnvironmentMaintenance deMaintenance) {
-        ST st = new ST(Templates.BOUNDED_MAINTENANCE_DIV.toString(), '$', '$');
+        ST st = TEMPLATES.getInstanceOf(Templates.BOUNDED_MAINTENANCE_DIV.name());
         st.add("start_time", deMaintenance.getStartTime());
         st.add("end_time", deMaintenance.getEndTime());
         return st.render();
@@ -109,7 +179,7 @@ public class DeLandingPage implements LandingPage, InitializingBean {
     }
 
     private String buildLoginButtonDiv(HttpServletRequest req) throws IOException {
-        ST st = new ST(Templates.LOGIN_DIV.toString(), '$', '$');
+        ST st = TEMPLATES.getInstanceOf(Templates.LOGIN_DIV.name());
         st.add("extra_params", buildExtraParams(req));
         st.add("login_url", loginUrl);
         st.add("service_url", casService.getService());
@@ -5,8 +5,6 @@ import static org.iplantc.de.server.AppLoggerConstants.USER_IP_KEY;
 
 import com.google.common.base.Strings;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
@@ -46,10 +44,10 @@ public class MDCFilter implements Filter {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if(authentication != null){
             final HttpServletRequestWrapper servletRequestWrapper = (HttpServletRequestWrapper) servletRequest;
-            Map<String, Object> userMap = AppLoggerUtil.getInstance().createUserInfoMap((CasAuthenticationToken) authentication);
-            ObjectMapper mapper = new ObjectMapper();
+            final AppLoggerUtil loggerUtil = AppLoggerUtil.getInstance();
+            Map<String, Object> userMap = loggerUtil.createUserInfoMap((CasAuthenticationToken) authentication);
             // This put is also performed in the ApplicationAuthenticationListener. This is intentional.
-            MDC.put(USERINFO_KEY, mapper.writeValueAsString(userMap));
+            MDC.put(USERINFO_KEY, loggerUtil.toJson(userMap));
 
             // Look for NGINX ip header. If it doesn't exist, use the default.
             String remoteIP = servletRequestWrapper.getHeader(AppLoggerConstants.USER_IP_HEADER_NAME);
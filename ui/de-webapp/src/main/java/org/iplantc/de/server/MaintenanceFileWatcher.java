@@ -0,0 +1,143 @@
+package org.iplantc.de.server;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+/**
+ * Keeps an in-memory snapshot of the DE maintenance file, so that the file is only read when it is
+ * created, changed or removed, instead of once per request.
+ *
+ * The file's directory is watched from a daemon thread. If the directory can't be watched, for
+ * example because it doesn't exist yet, the file's modification time is checked instead, at most
+ * once every {@link #CHECK_INTERVAL_MS} milliseconds.
+ *
+ * @see DiscoveryEnvironmentMaintenance
+ */
+public class MaintenanceFileWatcher implements Closeable {
+
+    static final long CHECK_INTERVAL_MS = 5000;
+
+    private static final Logger LOG = LoggerFactory.getLogger(MaintenanceFileWatcher.class);
+
+    private final File file;
+    private volatile DiscoveryEnvironmentMaintenance maintenance;
+    private volatile WatchService watchService;
+    private volatile long lastModified;
+    private volatile long lastChecked;
+
+    public MaintenanceFileWatcher(String maintenanceFileName) {
+        this.file = new File(maintenanceFileName).getAbsoluteFile();
+        reload();
+    }
+
+    /**
+     * Starts watching the maintenance file.
+     */
+    public void start() {
+        final Path directory = file.getParentFile().toPath();
+        try {
+            watchService = directory.getFileSystem().newWatchService();
+            directory.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Unable to watch {}, checking the DE maintenance file every {} ms instead",
+                     directory, CHECK_INTERVAL_MS, e);
+            close();
+            return;
+        }
+        // The file may have changed before the directory was being watched.
+        reload();
+
+        final Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "de-maintenance-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return the current state of the maintenance file.
+     */
+    public DiscoveryEnvironmentMaintenance getMaintenance() {
+        if (watchService == null) {
+            checkModified();
+        }
+        return maintenance;
+    }
+
+    @Override
+    public void close() {
+        final WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException e) {
+                LOG.debug("Unable to close the DE maintenance file watcher", e);
+            }
+        }
+    }
+
+    private void watch() {
+        final Path fileName = file.toPath().getFileName();
+        try {
+            while (true) {
+                final WatchService service = watchService;
+                if (service == null) {
+                    return;
+                }
+                final WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    changed |= event.kind() == OVERFLOW || fileName.equals(event.context());
+                }
+                if (changed) {
+                    reload();
+                }
+                if (!key.reset()) {
+                    LOG.warn("The DE maintenance file's directory can no longer be watched");
+                    close();
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            LOG.debug("Stopped watching the DE maintenance file");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void checkModified() {
+        final long now = System.currentTimeMillis();
+        if (now - lastChecked < CHECK_INTERVAL_MS) {
+            return;
+        }
+        lastChecked = now;
+        // File.lastModified() is 0 for files which don't exist.
+        if (file.lastModified() != lastModified) {
+            reload();
+        }
+    }
+
+    private synchronized void reload() {
+        lastModified = file.lastModified();
+        maintenance = new DiscoveryEnvironmentMaintenance(file.getPath());
+        LOG.info("DE maintenance file {}: under maintenance = {}", file, maintenance.isUnderMaintenance());
+    }
+}
@@ -0,0 +1,35 @@
+package org.iplantc.de.server;
+
+import org.springframework.web.multipart.support.StandardServletMultipartResolver;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * A multipart resolver which leaves the requests sent to streaming upload endpoints untouched, so
+ * that their controllers can parse the multipart body incrementally instead of having the
+ * container spool every part first.
+ */
+public class StreamingUploadMultipartResolver extends StandardServletMultipartResolver {
+
+    private final List<String> streamingPaths;
+
+    /**
+     * @param streamingPaths the servlet paths of the endpoints which parse their own multipart requests.
+     */
+    public StreamingUploadMultipartResolver(final String... streamingPaths) {
+        this.streamingPaths = Arrays.asList(streamingPaths);
+    }
+
+    @Override
+    public boolean isMultipart(HttpServletRequest request) {
+        return !isStreamingRequest(request) && super.isMultipart(request);
+    }
+
+    private boolean isStreamingRequest(final HttpServletRequest request) {
+        final String path = request.getRequestURI().substring(request.getContextPath().length());
+        return streamingPaths.contains(path);
+    }
+}
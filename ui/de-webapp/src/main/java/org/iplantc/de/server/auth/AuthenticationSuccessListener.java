@@ -5,11 +5,11 @@ import static org.iplantc.de.server.AppLoggerConstants.USERINFO_KEY;
 import static org.iplantc.de.server.AppLoggerConstants.USER_IP_HEADER_NAME;
 import static org.iplantc.de.server.AppLoggerConstants.USER_IP_KEY;
 import org.iplantc.de.server.AppLoggerUtil;
+import org.iplantc.de.server.InitialStatePrefetcher;
 
 import com.google.common.base.Strings;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -25,7 +25,8 @@ import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 
 /**
- * Logs successful authentication. The authenticated user is added to the {@link org.slf4j.MDC} both
+ * Logs successful authentication, and starts prefetching the user's initial desktop state with the
+ * {@link InitialStatePrefetcher}. The authenticated user is added to the {@link org.slf4j.MDC} both
  * here and in {@link org.iplantc.de.server.MDCFilter}. This event is fired before the filter, and
  * the username wouldn't be in the {@code MDC} unless added here. However, this event only happens
  * once, and the filter is fired many times (during each execution of the security chain), so it is
@@ -39,13 +40,14 @@ public class AuthenticationSuccessListener implements ApplicationListener<Authen
     private final Logger LOG = LoggerFactory.getLogger(AuthenticationSuccessListener.class);
 
     private @Autowired HttpServletRequest request;
+    private @Autowired InitialStatePrefetcher initialStatePrefetcher;
     @Override
     public void onApplicationEvent(AuthenticationSuccessEvent event) {
 
-        Map<String, Object> userMap = AppLoggerUtil.getInstance().createUserInfoMap((CasAuthenticationToken) event.getAuthentication());
-        ObjectMapper mapper = new ObjectMapper();
+        final AppLoggerUtil loggerUtil = AppLoggerUtil.getInstance();
+        Map<String, Object> userMap = loggerUtil.createUserInfoMap((CasAuthenticationToken) event.getAuthentication());
         try {
-            MDC.put(USERINFO_KEY, mapper.writeValueAsString(userMap));
+            MDC.put(USERINFO_KEY, loggerUtil.toJson(userMap));
         } catch (JsonProcessingException e) {
             LOG.error("Error logging user info", e);
         }
@@ -57,5 +59,12 @@ public class AuthenticationSuccessListener implements ApplicationListener<Authen
         MDC.put(USER_IP_KEY, remoteIP);
 
         LOGIN_LOG.info("Login success");
+
+        try {
+            initialStatePrefetcher.prefetch(request, event.getAuthentication());
+        } catch (RuntimeException e) {
+            // The desktop fetches its initial state itself if it wasn't prefetched.
+            LOG.warn("Unable to prefetch the initial state", e);
+        }
     }
 }
@@ -56,6 +56,11 @@ public class CasLogoutSuccessHandler implements LogoutSuccessHandler {
      */
     private String redirectUrlSelectorName;
 
+    /**
+     * Used to discard the user's cached JWT on logout.
+     */
+    private JwtBuilder jwtBuilder;
+
     /**
      * @param logoutUrl the URL used to log out of CAS.
      */
@@ -84,6 +89,13 @@ public class CasLogoutSuccessHandler implements LogoutSuccessHandler {
         this.redirectUrlSelectorName = redirectUrlSelectorName;
     }
 
+    /**
+     * @param jwtBuilder the JWT builder whose cached token for the user is discarded on logout.
+     */
+    public void setJwtBuilder(JwtBuilder jwtBuilder) {
+        this.jwtBuilder = jwtBuilder;
+    }
+
     /**
      * Handles a successful logout request.
      *
@@ -96,6 +108,9 @@ public class CasLogoutSuccessHandler implements LogoutSuccessHandler {
     @Override
     public void onLogoutSuccess(HttpServletRequest req, HttpServletResponse res, Authentication auth)
             throws IOException, ServletException {
+        if (jwtBuilder != null && auth != null) {
+            jwtBuilder.invalidate(auth.getName());
+        }
         String fullLogoutUrl = buildFullLogoutUrl(req, determineRedirectUrl(req));
         LOG.debug("fullLogoutUrl = {}", fullLogoutUrl);
         redirectStrategy.sendRedirect(req, res, fullLogoutUrl);
@@ -0,0 +1,41 @@
+package org.iplantc.de.server.controllers;
+
+import org.iplantc.de.server.InitialStatePrefetcher;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Hands the desktop the service responses prefetched when the user logged in, as a JSON object
+ * mapping each service address to its response body. The object is empty if nothing was prefetched.
+ *
+ * @see InitialStatePrefetcher
+ */
+@Controller
+public class InitialStateController {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired private InitialStatePrefetcher initialStatePrefetcher;
+
+    @RequestMapping(value = "/de/secured/initial-state", method = RequestMethod.GET)
+    public ResponseEntity<String> getInitialState(final HttpServletRequest request) throws JsonProcessingException {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setCacheControl("no-cache, no-store");
+        return new ResponseEntity<>(mapper.writeValueAsString(initialStatePrefetcher.takeInitialState(request)),
+                                    headers,
+                                    HttpStatus.OK);
+    }
+}
@@ -0,0 +1,217 @@
+package org.iplantc.de.server.controllers;
+
+import org.iplantc.de.server.NotificationHub;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Streams notification count changes to the desktop as Server-Sent Events.
+ *
+ * Each connection is held open asynchronously, without a servlet thread, and is subscribed to the
+ * {@link NotificationHub}, which sends a {@code counts} event whenever the user's message counts
+ * change. Connections are closed after {@code connection-lifetime-seconds} so that the user's
+ * authentication is checked again when the browser reconnects. The desktop falls back to polling
+ * if this endpoint can't be reached, or responds with an error because push is disabled, the
+ * servlet chain doesn't support async requests, or too many desktops are subscribed.
+ *
+ * Events are written with non-blocking I/O, since they're sent from the hub's thread, which serves
+ * every subscriber. Events which can't be written yet are queued, and a desktop whose queue grows
+ * beyond {@link #MAX_PENDING_BYTES} is disconnected instead of holding up the others.
+ */
+@Controller
+public class NotificationStreamController {
+
+    private static final String EVENT_STREAM = "text/event-stream";
+
+    /**
+     * The most event data which may be waiting for a slow connection.
+     */
+    static final int MAX_PENDING_BYTES = 64 * 1024;
+
+    private final Logger LOG = LoggerFactory.getLogger(NotificationStreamController.class);
+
+    @Autowired private NotificationHub notificationHub;
+
+    @Value("${org.iplantc.discoveryenvironment.notifications.push.connection-lifetime-seconds:1800}")
+    private long connectionLifetime;
+    @Value("${org.iplantc.discoveryenvironment.notifications.push.retry-ms:5000}") private long retryDelay;
+
+    @RequestMapping(value = "/de/secured/notifications/stream", method = RequestMethod.GET)
+    public void streamNotifications(final HttpServletRequest request,
+                                    final HttpServletResponse response) throws IOException {
+        if (!notificationHub.isEnabled()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!request.isAsyncSupported()) {
+            // A filter in the chain can't hold the connection open, so the desktop has to poll.
+            LOG.warn("Notification push requires async support on every filter in its chain");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        response.setContentType(EVENT_STREAM);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        // Keeps nginx from buffering the stream.
+        response.setHeader("X-Accel-Buffering", "no");
+
+        final AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(connectionLifetime * 1000);
+        final EventStream stream = new EventStream(asyncContext);
+        asyncContext.addListener(stream);
+        // Tells the browser how long to wait before reconnecting; nothing is written until start().
+        stream.write("retry: " + retryDelay + "\n\n");
+
+        if (!notificationHub.subscribe(request, stream)) {
+            // An error status stops the browser from reconnecting, so the desktop falls back to polling.
+            LOG.debug("Notification push subscription refused");
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            asyncContext.complete();
+            return;
+        }
+        stream.start();
+    }
+
+    /**
+     * Writes the events sent to one desktop, and unsubscribes it when the connection ends.
+     */
+    private final class EventStream implements NotificationHub.Subscriber, AsyncListener, WriteListener {
+
+        private final AsyncContext asyncContext;
+        private final Queue<byte[]> pending = new ArrayDeque<>();
+        private int pendingBytes;
+        private ServletOutputStream output;
+        private boolean closed;
+
+        EventStream(final AsyncContext asyncContext) {
+            this.asyncContext = asyncContext;
+        }
+
+        /**
+         * Starts writing the queued events, whenever the connection can take them without blocking.
+         */
+        synchronized void start() throws IOException {
+            output = asyncContext.getResponse().getOutputStream();
+            output.setWriteListener(this);
+        }
+
+        @Override
+        public boolean send(final String event, final String data) {
+            if (event == null) {
+                return write(":\n\n");
+            }
+            final StringBuilder message = new StringBuilder("event: ").append(event).append('\n');
+            for (String line : data.split("\n", -1)) {
+                message.append("data: ").append(line).append('\n');
+            }
+            return write(message.append('\n').toString());
+        }
+
+        synchronized boolean write(final String message) {
+            if (closed) {
+                return false;
+            }
+            final byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+            if (pendingBytes + bytes.length > MAX_PENDING_BYTES) {
+                LOG.debug("Dropping a notification stream which isn't keeping up with its events");
+                end();
+                return false;
+            }
+            pending.add(bytes);
+            pendingBytes += bytes.length;
+            drain();
+            return !closed;
+        }
+
+        @Override
+        public synchronized void onWritePossible() {
+            drain();
+        }
+
+        /**
+         * Writes as many of the queued events as the connection takes without blocking. The
+         * container calls {@link #onWritePossible()} once it can take the rest.
+         */
+        private void drain() {
+            if (output == null || closed) {
+                return;
+            }
+            try {
+                while (!pending.isEmpty() && output.isReady()) {
+                    final byte[] bytes = pending.poll();
+                    pendingBytes -= bytes.length;
+                    output.write(bytes);
+                }
+                if (pending.isEmpty() && output.isReady()) {
+                    output.flush();
+                }
+            } catch (IOException | IllegalStateException e) {
+                end();
+            }
+        }
+
+        /**
+         * Ends a connection which can no longer be written to.
+         */
+        private void end() {
+            close();
+            try {
+                asyncContext.complete();
+            } catch (IllegalStateException e) {
+                // Already completed.
+            }
+        }
+
+        private synchronized void close() {
+            if (!closed) {
+                closed = true;
+                notificationHub.unsubscribe(this);
+            }
+        }
+
+        @Override
+        public void onComplete(final AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(final AsyncEvent event) {
+            end();
+        }
+
+        @Override
+        public void onError(final AsyncEvent event) {
+            end();
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            end();
+        }
+
+        @Override
+        public void onStartAsync(final AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.iplantc.de.server.controllers;
+
+import org.iplantc.de.server.ResponseCache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * Lets administrators inspect and flush the webapp's response cache. It lives under the admin
+ * portal's path, so it is only available to members of the authorized admin groups.
+ */
+@Controller
+public class ResponseCacheController {
+
+    public static final String RESPONSE_CACHE_PATH = "/belphegor/response-cache";
+
+    @Autowired private ResponseCache responseCache;
+
+    @RequestMapping(value = RESPONSE_CACHE_PATH, method = RequestMethod.GET)
+    public ResponseEntity<Object> getStats() {
+        return new ResponseEntity<Object>(responseCache.createStatsMap(), HttpStatus.OK);
+    }
+
+    /**
+     * Flushes the cached responses of one user, or of every user if no user is given.
+     */
+    @RequestMapping(value = RESPONSE_CACHE_PATH, method = RequestMethod.DELETE)
+    public ResponseEntity<Object> flush(@RequestParam(value = "user", required = false) final String user) {
+        if (user == null) {
+            responseCache.flush();
+        } else {
+            responseCache.flush(user);
+        }
+        return new ResponseEntity<Object>(responseCache.createStatsMap(), HttpStatus.OK);
+    }
+}
@@ -0,0 +1,197 @@
+package org.iplantc.de.server.controllers;
+
+import org.iplantc.de.server.AppLoggerConstants;
+import org.iplantc.de.server.AppLoggerUtil;
+import org.iplantc.de.server.HttpClientPool;
+import org.iplantc.de.server.ServiceCallResolver;
+import org.iplantc.de.server.auth.UrlConnector;
+import org.iplantc.de.shared.services.BaseServiceCallWrapper;
+import org.iplantc.de.shared.services.ServiceCallWrapper;
+
+import com.google.common.base.Strings;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Relays JSON responses from backend services directly to the browser.
+ *
+ * This is the streaming counterpart of {@link org.iplantc.de.server.services.DEServiceImpl} for
+ * large GET responses, such as paged directory listings, searches and analysis listings. The
+ * backend entity is copied to the servlet output stream through a fixed-size buffer instead of
+ * being read into a {@code String} and re-encoded by GWT RPC, so heap usage no longer grows with
+ * the size of the response.
+ *
+ * If the browser accepts gzip and pass-through is enabled, compressed backend responses are
+ * relayed without being decompressed. Other responses to browsers which accept gzip are compressed
+ * here, unless they're known to be smaller than {@code compression.min-size} bytes.
+ */
+@Controller
+public class ServiceDataStreamController {
+
+    private static final String GZIP = "gzip";
+
+    private final Logger API_METRICS_LOG = LoggerFactory.getLogger(AppLoggerConstants.API_METRICS_LOGGER);
+    private final AppLoggerUtil loggerUtil = AppLoggerUtil.getInstance();
+
+    @Autowired private ServiceCallResolver serviceResolver;
+    @Autowired private UrlConnector urlConnector;
+    @Autowired private HttpClientPool httpClientPool;
+
+    @Value("${org.iplantc.discoveryenvironment.stream.buffer-size:8192}") private int bufferSize;
+    @Value("${org.iplantc.discoveryenvironment.stream.gzip-passthrough:true}") private boolean gzipPassthrough;
+    @Value("${org.iplantc.discoveryenvironment.compression.min-size:1024}") private long compressionMinSize;
+
+    @RequestMapping(value = "/de/secured/serviceData", method = RequestMethod.GET)
+    public void streamServiceData(@RequestParam("address") final String address,
+                                  @RequestParam(value = "args",
+                                                required = false,
+                                                defaultValue = "") final String args,
+                                  final HttpServletRequest request,
+                                  final HttpServletResponse response) throws IOException {
+
+        final ServiceCallWrapper wrapper = new ServiceCallWrapper(address);
+        wrapper.setArguments(args);
+        final String resolvedAddress = serviceResolver.resolveCallAddress(wrapper);
+        final String endpoint = ServiceCallResolver.getEndpoint(resolvedAddress);
+
+        final boolean acceptsGzip = acceptsGzip(request);
+        final boolean passthrough = gzipPassthrough && acceptsGzip;
+        final HttpGet get = urlConnector.getRequest(request, resolvedAddress);
+        if (passthrough) {
+            get.setHeader(HttpHeaders.ACCEPT_ENCODING, GZIP);
+        }
+        loggerUtil.logRequest(get, null, "GET", endpoint);
+
+        final String serviceKey = serviceResolver.getServiceKey(resolvedAddress);
+        final CloseableHttpClient client = passthrough ? httpClientPool.getPassthroughClient(serviceKey)
+                                                       : httpClientPool.getClient(serviceKey);
+        try {
+            final long requestStartTime = System.currentTimeMillis();
+            final CloseableHttpResponse incomingResponse = loggerUtil.copyRequestIdHeader(get, client.execute(get));
+            try {
+                final long responseRecvTime = System.currentTimeMillis();
+                loggerUtil.logResponse(incomingResponse,
+                                       BaseServiceCallWrapper.Type.GET,
+                                       endpoint,
+                                       null,
+                                       responseRecvTime - requestStartTime);
+                sendResponse(response, incomingResponse, acceptsGzip);
+            } finally {
+                incomingResponse.close();
+            }
+        } catch (IOException e) {
+            API_METRICS_LOG.error("GET " + endpoint, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Copies the status, content headers and entity of the backend response to the outgoing
+     * response, using a buffer of at most {@code bufferSize} bytes.
+     *
+     * @param outgoingResponse the response back to the client.
+     * @param incomingResponse the response from the backend service.
+     * @param acceptsGzip true if the client accepts gzip encoded responses.
+     * @throws IOException if an I/O error occurs.
+     */
+    private void sendResponse(final HttpServletResponse outgoingResponse,
+                              final CloseableHttpResponse incomingResponse,
+                              final boolean acceptsGzip) throws IOException {
+        outgoingResponse.setStatus(incomingResponse.getStatusLine().getStatusCode());
+        outgoingResponse.setBufferSize(bufferSize);
+
+        final HttpEntity entity = incomingResponse.getEntity();
+        if (entity == null) {
+            outgoingResponse.setContentLength(0);
+            return;
+        }
+
+        final Header contentType = entity.getContentType();
+        outgoingResponse.setContentType(contentType == null ? MediaType.APPLICATION_JSON_VALUE
+                                                            : contentType.getValue());
+        final Header contentEncoding = entity.getContentEncoding();
+        final long contentLength = entity.getContentLength();
+        final boolean compress = acceptsGzip
+                                     && contentEncoding == null
+                                     && (contentLength < 0 || contentLength >= compressionMinSize);
+        outgoingResponse.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (compress) {
+            outgoingResponse.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP);
+        } else {
+            if (contentEncoding != null) {
+                outgoingResponse.setHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding.getValue());
+            }
+            if (contentLength >= 0) {
+                outgoingResponse.setHeader(HttpHeaders.CONTENT_LENGTH, Long.toString(contentLength));
+            }
+        }
+
+        final byte[] buffer = new byte[bufferSize];
+        if (!compress) {
+            final OutputStream out = outgoingResponse.getOutputStream();
+            copy(entity, out, buffer);
+            out.flush();
+            return;
+        }
+        final GzipStream out = new GzipStream(outgoingResponse.getOutputStream(), bufferSize);
+        try {
+            copy(entity, out, buffer);
+            out.finish();
+            out.flush();
+        } finally {
+            // Releases the deflater's native memory, whether or not the copy completed.
+            out.end();
+        }
+    }
+
+    private void copy(final HttpEntity entity, final OutputStream out, final byte[] buffer) throws IOException {
+        try (InputStream in = entity.getContent()) {
+            int count;
+            while ((count = in.read(buffer)) != -1) {
+                out.write(buffer, 0, count);
+            }
+        }
+    }
+
+    private boolean acceptsGzip(final HttpServletRequest request) {
+        final String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        return !Strings.isNullOrEmpty(acceptEncoding) && acceptEncoding.toLowerCase().contains(GZIP);
+    }
+
+    /**
+     * A gzip stream whose deflater can be released without writing the gzip trailer, so that a
+     * failed copy isn't passed off as a complete response.
+     */
+    private static final class GzipStream extends GZIPOutputStream {
+
+        GzipStream(final OutputStream out, final int size) throws IOException {
+            super(out, size);
+        }
+
+        void end() {
+            def.end();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.iplantc.de.server.controllers;
+
+import org.iplantc.de.server.SessionPatcher;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+
+import java.io.IOException;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Saves patches of the desktop's window states, which are much smaller than the complete window
+ * states the desktop would otherwise send. Responds with {@code 409 Conflict} when the patch doesn't
+ * apply to the window states this HTTP session last saved; the desktop then sends its complete
+ * window state instead.
+ *
+ * @see SessionPatcher
+ */
+@Controller
+public class SessionPatchController {
+
+    private final Logger LOG = LoggerFactory.getLogger(SessionPatchController.class);
+
+    @Autowired private SessionPatcher sessionPatcher;
+
+    @RequestMapping(value = "/de/secured/sessions/patch", method = RequestMethod.POST)
+    public ResponseEntity<String> patchSession(@RequestBody final String patch,
+                                               final HttpServletRequest request) {
+        HttpStatus status;
+        try {
+            status = sessionPatcher.apply(request, patch) ? HttpStatus.OK : HttpStatus.CONFLICT;
+        } catch (JsonProcessingException e) {
+            LOG.debug("Unable to parse session patch", e);
+            status = HttpStatus.BAD_REQUEST;
+        } catch (IOException e) {
+            LOG.error("Unable to save session patch", e);
+            status = HttpStatus.BAD_GATEWAY;
+        }
+
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return new ResponseEntity<>("{}", headers, status);
+    }
+}
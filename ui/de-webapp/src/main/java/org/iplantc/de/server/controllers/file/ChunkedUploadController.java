@@ -0,0 +1,199 @@
+package org.iplantc.de.server.controllers.file;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.iplantc.de.server.AppLoggerUtil;
+import org.iplantc.de.server.HttpClientPool;
+import org.iplantc.de.server.auth.DESecurityConstants;
+import org.iplantc.de.server.auth.JwtBuilder;
+import org.iplantc.de.server.upload.ChunkedUpload;
+import org.iplantc.de.server.upload.ChunkedUploadStore;
+import org.iplantc.de.server.upload.UploadQuotaExceededException;
+import org.iplantc.de.shared.services.BaseServiceCallWrapper;
+import org.jose4j.lang.JoseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+import static org.iplantc.de.server.AppLoggerConstants.API_METRICS_LOGGER;
+
+/**
+ * Handles chunked, resumable uploads.
+ *
+ * An upload is started with a POST describing the file, after which its chunks may be PUT in any
+ * order and in parallel, each with the CRC-32 of its contents in the {@code X-DE-Chunk-CRC32}
+ * header. The status of an upload lists the chunks received so far, so that an interrupted upload
+ * can be resumed by sending only the missing chunks. Once every chunk has arrived, completing the
+ * upload relays the assembled file to the upload service. Chunks which would exceed the staging
+ * quotas are rejected with 507 (Insufficient Storage), and may be sent again later. While an upload
+ * is being completed, further completions, chunks and cancellations are rejected with 409
+ * (Conflict).
+ */
+@Controller
+public class ChunkedUploadController {
+
+    public static final String CHUNKED_UPLOAD_PATH = "/de/secured/upload/chunked";
+    public static final String CHUNK_CRC_HEADER = "X-DE-Chunk-CRC32";
+
+    private final Logger API_REQUEST_LOG = LoggerFactory.getLogger(API_METRICS_LOGGER);
+    private final AppLoggerUtil loggerUtil = AppLoggerUtil.getInstance();
+
+    @Autowired private ChunkedUploadStore uploadStore;
+
+    @Autowired private JwtBuilder jwtBuilder;
+
+    @Autowired private HttpClientPool httpClientPool;
+
+    @Value("${org.iplantc.services.file-io.secured.file-upload}") String securedFileUploadUrl;
+
+    @RequestMapping(value = CHUNKED_UPLOAD_PATH, method = RequestMethod.POST)
+    public ResponseEntity<Object> startUpload(@RequestParam("dest") final String dest,
+                                              @RequestParam("fileName") final String fileName,
+                                              @RequestParam("size") final long size,
+                                              final HttpServletRequest request) throws IOException {
+        try {
+            final ChunkedUpload upload = uploadStore.create(getUsername(request), dest, fileName, size);
+            return new ResponseEntity<Object>(upload.toMap(), HttpStatus.CREATED);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<Object>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @RequestMapping(value = CHUNKED_UPLOAD_PATH + "/{uploadId}", method = RequestMethod.GET)
+    public ResponseEntity<Object> getUploadStatus(@PathVariable("uploadId") final String uploadId,
+                                                  final HttpServletRequest request) {
+        final ChunkedUpload upload = uploadStore.get(getUsername(request), uploadId);
+        if (upload == null) {
+            return new ResponseEntity<Object>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<Object>(upload.toMap(), HttpStatus.OK);
+    }
+
+    @RequestMapping(value = CHUNKED_UPLOAD_PATH + "/{uploadId}/{index}", method = RequestMethod.PUT)
+    public ResponseEntity<Object> uploadChunk(@PathVariable("uploadId") final String uploadId,
+                                              @PathVariable("index") final int index,
+                                              @RequestHeader(CHUNK_CRC_HEADER) final String crc,
+                                              final HttpServletRequest request) throws IOException {
+        final ChunkedUpload upload = uploadStore.get(getUsername(request), uploadId);
+        if (upload == null) {
+            return new ResponseEntity<Object>(HttpStatus.NOT_FOUND);
+        }
+        try {
+            uploadStore.writeChunk(upload, index, request.getInputStream(), Long.parseLong(crc, 16));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<Object>(e.getMessage(), HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            return new ResponseEntity<Object>(e.getMessage(), HttpStatus.CONFLICT);
+        } catch (UploadQuotaExceededException e) {
+            return new ResponseEntity<Object>(e.getMessage(), HttpStatus.INSUFFICIENT_STORAGE);
+        }
+        return new ResponseEntity<Object>(upload.toMap(), HttpStatus.OK);
+    }
+
+    @RequestMapping(value = CHUNKED_UPLOAD_PATH + "/{uploadId}", method = RequestMethod.DELETE)
+    public ResponseEntity<Object> cancelUpload(@PathVariable("uploadId") final String uploadId,
+                                               final HttpServletRequest request) {
+        final ChunkedUpload upload = uploadStore.get(getUsername(request), uploadId);
+        if (upload == null) {
+            return new ResponseEntity<Object>(HttpStatus.NOT_FOUND);
+        }
+        if (upload.isCompleting()) {
+            return new ResponseEntity<Object>(upload.toMap(), HttpStatus.CONFLICT);
+        }
+        uploadStore.remove(upload);
+        return new ResponseEntity<Object>(HttpStatus.NO_CONTENT);
+    }
+
+    /**
+     * Relays the assembled file to the upload service. The staged chunks are removed if the upload
+     * service accepts the file; otherwise they are kept so that completion can be retried. Only one
+     * completion of an upload may be in progress at a time, so the file is never relayed twice.
+     */
+    @RequestMapping(value = CHUNKED_UPLOAD_PATH + "/{uploadId}/complete", method = RequestMethod.POST)
+    public ResponseEntity<Object> completeUpload(@PathVariable("uploadId") final String uploadId,
+                                                 final HttpServletRequest request)
+            throws IOException, URISyntaxException {
+        final ChunkedUpload upload = uploadStore.get(getUsername(request), uploadId);
+        if (upload == null) {
+            return new ResponseEntity<Object>(HttpStatus.NOT_FOUND);
+        }
+        if (!upload.isComplete() || !upload.startCompletion()) {
+            return new ResponseEntity<Object>(upload.toMap(), HttpStatus.CONFLICT);
+        }
+        try {
+            return relayUpload(upload, request);
+        } finally {
+            upload.completionFinished();
+        }
+    }
+
+    private ResponseEntity<Object> relayUpload(final ChunkedUpload upload, final HttpServletRequest request)
+            throws IOException, URISyntaxException {
+        // Create the request.
+        final URI uri = new URIBuilder(securedFileUploadUrl).setParameter("dest", upload.getDest()).build();
+        final HttpPost post = new HttpPost(uri);
+        try {
+            post.setHeader(DESecurityConstants.JWT_CUSTOM_HEADER, jwtBuilder.buildJwt(request));
+            loggerUtil.addRequestIdHeader(post);
+            loggerUtil.logRequest(post, null, "POST", uri.toString());
+        } catch (JoseException e) {
+            API_REQUEST_LOG.error("POST " + uri.toString(), e);
+            throw new IOException("unable to generate JWT", e);
+        }
+
+        // Send the request.
+        try (InputStream in = uploadStore.openAssembled(upload)) {
+            post.setEntity(MultipartEntityBuilder.create()
+                                                 .addBinaryBody("file", in, ContentType.DEFAULT_BINARY, upload.getFileName())
+                                                 .build());
+            final long requestStartTime = System.currentTimeMillis();
+            try (CloseableHttpResponse incomingResponse = loggerUtil.copyRequestIdHeader(post, httpClientPool.getClient().execute(post))) {
+                final long responseRecvTime = System.currentTimeMillis();
+                loggerUtil.logResponse(incomingResponse,
+                                       BaseServiceCallWrapper.Type.POST,
+                                       uri.toString(),
+                                       null,
+                                       responseRecvTime - requestStartTime);
+                loggerUtil.logTransfer("POST",
+                                       uri.toString(),
+                                       incomingResponse.getStatusLine().getStatusCode(),
+                                       upload.getSize(),
+                                       responseRecvTime - requestStartTime);
+
+                final int status = incomingResponse.getStatusLine().getStatusCode();
+                final String body = IOUtils.toString(incomingResponse.getEntity().getContent());
+                if (status >= 200 && status <= 299) {
+                    uploadStore.remove(upload);
+                    return new ResponseEntity<Object>(body, HttpStatus.OK);
+                }
+                return new ResponseEntity<Object>(body, HttpStatus.BAD_GATEWAY);
+            }
+        } catch (IOException e) {
+            API_REQUEST_LOG.error("POST " + uri.toString(), e);
+            throw e;
+        }
+    }
+
+    private String getUsername(final HttpServletRequest request) {
+        return request.getUserPrincipal().getName();
+    }
+}
@@ -1,21 +1,20 @@
 package org.iplantc.de.server.controllers.file;
 
 import org.apache.commons.lang.StringUtils;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URIBuilder;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.iplantc.de.server.AppLoggerConstants;
 import org.iplantc.de.server.AppLoggerUtil;
+import org.iplantc.de.server.HttpClientPool;
 import org.iplantc.de.server.auth.DESecurityConstants;
 import org.iplantc.de.server.auth.JwtBuilder;
 import org.iplantc.de.shared.services.BaseServiceCallWrapper;
 import org.jose4j.lang.JoseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
@@ -28,30 +27,51 @@ import org.springframework.web.bind.annotation.RequestParam;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 
-import static org.iplantc.de.server.AppLoggerConstants.REQUEST_KEY;
-import static org.iplantc.de.server.AppLoggerConstants.RESPONSE_KEY;
-
 /**
  * Processes simple file download requests.
  *
+ * {@code Range} and {@code If-Range} headers are forwarded to the file download service, so that
+ * interrupted downloads can be resumed, and the partial content response is relayed to the client
+ * along with the headers it needs to issue further range requests.
+ *
  * @author jstroot
  */
 @Controller
 public class FileDownloadController {
 
+    /**
+     * The request headers forwarded to the file download service.
+     */
+    private static final String[] FORWARDED_REQUEST_HEADERS = {HttpHeaders.RANGE,
+                                                               HttpHeaders.IF_RANGE};
+
+    /**
+     * The response headers relayed from the file download service, if present.
+     */
+    private static final String[] RELAYED_RESPONSE_HEADERS = {HttpHeaders.CONTENT_DISPOSITION,
+                                                              HttpHeaders.CONTENT_RANGE,
+                                                              HttpHeaders.ACCEPT_RANGES,
+                                                              HttpHeaders.ETAG,
+                                                              HttpHeaders.LAST_MODIFIED};
+
     private final Logger API_REQUEST_LOG = LoggerFactory.getLogger(AppLoggerConstants.API_METRICS_LOGGER);
     private final AppLoggerUtil loggerUtil = AppLoggerUtil.getInstance();
-    private final AppLoggerUtil appLoggerUtil = loggerUtil;
 
     @Value("${org.iplantc.services.de-data-mgmt.base}") String dataMgmtServiceBaseUrl;
 
     @Value("${org.iplantc.services.file-io.base.secured}download") String fileIoBaseUrl;
 
+    @Value("${org.iplantc.discoveryenvironment.download.buffer-size:65536}") int bufferSize;
+
     @Autowired private JwtBuilder jwtBuilder;
 
+    @Autowired private HttpClientPool httpClientPool;
+
     @RequestMapping(value = "/de/secured/fileDownload", method = RequestMethod.GET)
     public void doSecureFileDownload(@RequestParam("path") final String path,
                                      @RequestParam(value = "attachment",
@@ -73,83 +93,101 @@ public class FileDownloadController {
         try {
             get.setHeader(DESecurityConstants.JWT_CUSTOM_HEADER, jwtBuilder.buildJwt(request));
             get.setHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_OCTET_STREAM_VALUE);
-            prepareForRequest(get, logRequestUri.toString());
+            forwardRequestHeaders(request, get);
+            loggerUtil.addRequestIdHeader(get);
+            loggerUtil.logRequest(get, null, "GET", logRequestUri.toString());
         } catch (JoseException e) {
             API_REQUEST_LOG.error("GET " + logRequestUri.toString(), e);
-            MDC.remove(RESPONSE_KEY);
             throw new IOException("unable to generate JWT", e);
         }
 
         // Send the request.
-        CloseableHttpClient client = HttpClients.createDefault();
         try {
             final long requestStartTime = System.currentTimeMillis();
-            final CloseableHttpResponse incomingResponse = loggerUtil.copyRequestIdHeader(get, client.execute(get));
+            final CloseableHttpResponse incomingResponse = loggerUtil.copyRequestIdHeader(get, httpClientPool.getClient().execute(get));
             final long responseRecvTime = System.currentTimeMillis();
-            final String responseJson = appLoggerUtil.createMdcResponseMapJson(incomingResponse,
-                                                                               BaseServiceCallWrapper.Type.GET,
-                                                                               logRequestUri.toString(),
-                                                                               null,
-                                                                               responseRecvTime - requestStartTime);
-            MDC.put(RESPONSE_KEY, responseJson);
-            API_REQUEST_LOG.info("GET {}", logRequestUri.toString());
-            sendResponse(response, incomingResponse);
+            loggerUtil.logResponse(incomingResponse,
+                                   BaseServiceCallWrapper.Type.GET,
+                                   logRequestUri.toString(),
+                                   null,
+                                   responseRecvTime - requestStartTime);
+            sendResponse(response, incomingResponse, logRequestUri.toString());
         } catch (Exception e) {
             API_REQUEST_LOG.error("GET " + logRequestUri.toString(), e);
             throw e;
-        } finally {
-            MDC.remove(RESPONSE_KEY);
-            client.close();
         }
     }
 
     /**
-     * Prepares for request processing. The request URI needs to be reassembled and stored in the
-     * Mapped Diagnostic Context (MDC). The URI itself also needs to be placed in the API request
-     * log.
+     * Copies the headers used for partial downloads from the client request to the forwarded request.
      *
-     * @param get the request
-     * @param logRequestUri the URI to use when forwarding the request.
+     * @param request the request from the client.
+     * @param get the request to the file download service.
      */
-    private void prepareForRequest(HttpGet get, final String logRequestUri) {
-
-        try {
-            HttpGet reqWithIdHeader = loggerUtil.addRequestIdHeader(get);
-            String request = appLoggerUtil.createMdcRequestMapAsJsonString(reqWithIdHeader);
-            MDC.put(REQUEST_KEY, request);
-            API_REQUEST_LOG.info("GET {}", logRequestUri);
-        } catch (Exception e) {
-            API_REQUEST_LOG.error("GET " + logRequestUri, e);
-        } finally {
-            MDC.remove(REQUEST_KEY);
-
+    private void forwardRequestHeaders(final HttpServletRequest request, final HttpGet get) {
+        for (String name : FORWARDED_REQUEST_HEADERS) {
+            final String value = request.getHeader(name);
+            if (!StringUtils.isEmpty(value)) {
+                get.setHeader(name, value);
+            }
         }
     }
 
     /**
-     * Streams the incoming response from the file download service back to the client.
+     * Streams the incoming response from the file download service back to the client, then logs
+     * the number of bytes sent and the transfer rate.
      *
      * @param outgoingResponse the response back to the client.
      * @param incomingResponse the response from the file download service.
+     * @param logRequestUri the URI to use in log messages.
      * @throws IOException if an I/O error occurs.
      */
-    private void sendResponse(HttpServletResponse outgoingResponse, CloseableHttpResponse incomingResponse)
-        throws IOException {
-
-        HttpEntity responseEntity = incomingResponse.getEntity();
-
-        // Prepare the outgoing response.
-        outgoingResponse.setStatus(incomingResponse.getStatusLine().getStatusCode());
-        outgoingResponse.setContentType(responseEntity.getContentType().getValue());
-        outgoingResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION,
-                incomingResponse.getFirstHeader(HttpHeaders.CONTENT_DISPOSITION).getValue());
-        outgoingResponse.setContentLength(new Long(responseEntity.getContentLength()).intValue());
-
-        // Copy the response entity.
+    private void sendResponse(final HttpServletResponse outgoingResponse,
+                              final CloseableHttpResponse incomingResponse,
+                              final String logRequestUri) throws IOException {
+        final int status = incomingResponse.getStatusLine().getStatusCode();
+        final long transferStartTime = System.currentTimeMillis();
+        long bytes = 0;
         try {
-            responseEntity.writeTo(outgoingResponse.getOutputStream());
+            // Prepare the outgoing response.
+            outgoingResponse.setStatus(status);
+            for (String name : RELAYED_RESPONSE_HEADERS) {
+                final Header header = incomingResponse.getFirstHeader(name);
+                if (header != null) {
+                    outgoingResponse.setHeader(name, header.getValue());
+                }
+            }
+
+            final HttpEntity responseEntity = incomingResponse.getEntity();
+            if (responseEntity == null) {
+                outgoingResponse.setContentLength(0);
+                return;
+            }
+            if (responseEntity.getContentType() != null) {
+                outgoingResponse.setContentType(responseEntity.getContentType().getValue());
+            }
+            if (responseEntity.getContentLength() >= 0) {
+                outgoingResponse.setContentLengthLong(responseEntity.getContentLength());
+            }
+
+            // Copy the response entity.
+            final byte[] buffer = new byte[bufferSize];
+            final OutputStream out = outgoingResponse.getOutputStream();
+            try (InputStream in = responseEntity.getContent()) {
+                int count;
+                while ((count = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, count);
+                    bytes += count;
+                }
+            }
+            out.flush();
         } finally {
             incomingResponse.close();
+            loggerUtil.logTransfer("GET",
+                                   logRequestUri,
+                                   status,
+                                   bytes,
+                                   System.currentTimeMillis() - transferStartTime);
         }
     }
 
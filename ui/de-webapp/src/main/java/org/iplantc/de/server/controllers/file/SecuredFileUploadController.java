@@ -1,22 +1,29 @@
 package org.iplantc.de.server.controllers.file;
 
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.MultipartStream;
+import org.apache.commons.fileupload.servlet.ServletFileUpload;
+import org.apache.commons.fileupload.util.Streams;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
 import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClients;
 import org.iplantc.de.server.AppLoggerUtil;
+import org.iplantc.de.server.HttpClientPool;
 import org.iplantc.de.server.auth.DESecurityConstants;
 import org.iplantc.de.server.auth.JwtBuilder;
+import org.iplantc.de.server.upload.UploadProgress;
+import org.iplantc.de.server.upload.UploadProgressRegistry;
 import org.iplantc.de.shared.services.BaseServiceCallWrapper;
 import org.jose4j.lang.JoseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
@@ -25,7 +32,8 @@ import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -33,33 +41,113 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Map;
 
 import static org.iplantc.de.server.AppLoggerConstants.API_METRICS_LOGGER;
-import static org.iplantc.de.server.AppLoggerConstants.REQUEST_KEY;
-import static org.iplantc.de.server.AppLoggerConstants.RESPONSE_KEY;
 
 /**
  * Performs secured file uploads.
  *
+ * The multipart request is parsed as it arrives, and the file part is piped directly into the
+ * request to the upload service, so uploads are neither buffered in memory nor spooled to disk by
+ * the webapp. For this to work, the {@code dest} field must precede the file in the form (it may
+ * also be given in the query string), and the request must not be resolved by the dispatcher's
+ * {@link org.springframework.web.multipart.MultipartResolver}; see
+ * {@link org.iplantc.de.server.StreamingUploadMultipartResolver}.
+ *
+ * If the client supplies an {@code uploadId} in the query string, the progress of the upload can
+ * be polled from {@code /de/secured/fileUpload/progress}.
+ *
  * @author jstroot
  * @author dennis
  */
 @Controller
 public class SecuredFileUploadController {
 
+    public static final String UPLOAD_PATH = "/de/secured/fileUpload";
+
+    private static final String DEST_PARAM = "dest";
+    private static final String UPLOAD_ID_PARAM = "uploadId";
+    private static final String UTF_8 = "UTF-8";
+
     private final Logger API_REQUEST_LOG = LoggerFactory.getLogger(API_METRICS_LOGGER);
     private final AppLoggerUtil loggerUtil = AppLoggerUtil.getInstance();
 
     @Autowired private JwtBuilder jwtBuilder;
 
+    @Autowired private HttpClientPool httpClientPool;
+
+    @Autowired private UploadProgressRegistry progressRegistry;
+
     @Value("${org.iplantc.services.file-io.secured.file-upload}") String securedFileUploadUrl;
 
-    @RequestMapping(value = "/de/secured/fileUpload", method = RequestMethod.POST)
-    public ResponseEntity<Object> doSecureFileUpload(@RequestParam("dest") final String dest,
-                                                     @RequestParam("file") final MultipartFile file,
-                                                     HttpServletRequest request)
+    @RequestMapping(value = UPLOAD_PATH, method = RequestMethod.POST)
+    public ResponseEntity<Object> doSecureFileUpload(final HttpServletRequest request)
             throws IOException, URISyntaxException, ServletException {
 
+        if (!ServletFileUpload.isMultipartContent(request)) {
+            return new ResponseEntity<Object>("a multipart request is required", HttpStatus.BAD_REQUEST);
+        }
+
+        // Request parameters must be read from the query string; reading them through the servlet
+        // request would make the container consume the multipart body.
+        final Map<String, String> queryParams = getQueryParams(request);
+        final UploadProgress progress = progressRegistry.start(request.getUserPrincipal().getName(),
+                                                               queryParams.get(UPLOAD_ID_PARAM),
+                                                               request.getContentLengthLong());
+        try {
+            final ServletFileUpload upload = new ServletFileUpload();
+            upload.setProgressListener(progress);
+            final FileItemIterator items = upload.getItemIterator(request);
+
+            String dest = queryParams.get(DEST_PARAM);
+            while (items.hasNext()) {
+                final FileItemStream item = items.next();
+                if (item.isFormField()) {
+                    if (DEST_PARAM.equals(item.getFieldName())) {
+                        dest = Streams.asString(item.openStream(), UTF_8);
+                    }
+                    continue;
+                }
+                if (StringUtils.isEmpty(dest)) {
+                    return new ResponseEntity<Object>("the destination must precede the file",
+                                                      HttpStatus.BAD_REQUEST);
+                }
+                return relayUpload(request, dest, item);
+            }
+            return new ResponseEntity<Object>("no file was uploaded", HttpStatus.BAD_REQUEST);
+        } catch (FileUploadException e) {
+            throw new ServletException("unable to parse the upload request", e);
+        } finally {
+            progress.complete();
+        }
+    }
+
+    @RequestMapping(value = UPLOAD_PATH + "/progress", method = RequestMethod.GET)
+    public ResponseEntity<Object> getUploadProgress(@RequestParam(UPLOAD_ID_PARAM) final String uploadId,
+                                                    final HttpServletRequest request) {
+        final UploadProgress progress = progressRegistry.get(request.getUserPrincipal().getName(), uploadId);
+        if (progress == null) {
+            return new ResponseEntity<Object>(HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<Object>(progress.toMap(), HttpStatus.OK);
+    }
+
+    /**
+     * Forwards a file part to the upload service as it is read from the client.
+     *
+     * @param request the upload request from the client.
+     * @param dest the destination folder.
+     * @param item the file part.
+     * @return the response to send back.
+     * @throws IOException if an I/O error occurs.
+     * @throws URISyntaxException if the base URI {@code securedFileUploadUrl} is malformed.
+     */
+    private ResponseEntity<Object> relayUpload(final HttpServletRequest request,
+                                               final String dest,
+                                               final FileItemStream item)
+            throws IOException, URISyntaxException {
+
         // Prepare to process the request.
         final URI logRequestUri = buildUri(dest);
 
@@ -68,60 +156,56 @@ public class SecuredFileUploadController {
         final HttpPost post = new HttpPost(uri);
         try {
             post.setHeader(DESecurityConstants.JWT_CUSTOM_HEADER, jwtBuilder.buildJwt(request));
-            post.setEntity(buildMultipartEntity(file));
-            prepareForRequest(post, logRequestUri.toString());
+            loggerUtil.addRequestIdHeader(post);
+            loggerUtil.logRequest(post, null, "POST", logRequestUri.toString());
         } catch (JoseException e) {
-            API_REQUEST_LOG.error("GET " + logRequestUri.toString(), e);
-            MDC.remove(RESPONSE_KEY);
+            API_REQUEST_LOG.error("POST " + logRequestUri.toString(), e);
             throw new IOException("unable to generate JWT", e);
         }
 
         // Send the request.
-        CloseableHttpClient client = HttpClients.createDefault();
-        ResponseEntity<Object> response = null;
-        try {
+        ResponseEntity<Object> response;
+        try (InputStream in = item.openStream()) {
+            post.setEntity(buildMultipartEntity(item, in));
             final long requestStartTime = System.currentTimeMillis();
-            final CloseableHttpResponse incomingResponse = loggerUtil.copyRequestIdHeader(post, client.execute(post));
+            final CloseableHttpResponse incomingResponse = loggerUtil.copyRequestIdHeader(post, httpClientPool.getClient().execute(post));
             final long responseRecvTime = System.currentTimeMillis();
-            final String responseJson = loggerUtil.createMdcResponseMapJson(incomingResponse,
-                                                                            BaseServiceCallWrapper.Type.GET,
-                                                                            logRequestUri.toString(),
-                                                                            null,
-                                                                            responseRecvTime - requestStartTime);
-            MDC.put(RESPONSE_KEY, responseJson);
-            API_REQUEST_LOG.info("POST {}", logRequestUri.toString());
+            loggerUtil.logResponse(incomingResponse,
+                                   BaseServiceCallWrapper.Type.POST,
+                                   logRequestUri.toString(),
+                                   null,
+                                   responseRecvTime - requestStartTime);
             response = formatResponse(incomingResponse);
+        } catch (MultipartStream.MalformedStreamException e) {
+            // The client's request ended before the file part did.
+            API_REQUEST_LOG.error("POST " + logRequestUri.toString(), e);
+            response = new ResponseEntity<Object>("the upload request was truncated", HttpStatus.BAD_REQUEST);
         } catch(Exception e) {
             API_REQUEST_LOG.error("POST " + logRequestUri.toString(), e);
-        } finally {
-            MDC.remove(RESPONSE_KEY);
-            client.close();
+            response = new ResponseEntity<Object>(HttpStatus.BAD_GATEWAY);
         }
 
         return response;
     }
 
     /**
-     * Prepares for request processing. The request URI needs to be reassembled and stored in the
-     * Mapped Diagnostic Context (MDC). The URI itself also needs to be placed in the API request
-     * log.
+     * Extracts the decoded parameters from the query string of a request without reading its body.
      *
-     * @param post the request
-     * @param logRequestUri the URI to use when forwarding the request.
+     * @param request the request.
+     * @return the query string parameters.
      */
-    private void prepareForRequest(HttpPost post, final String logRequestUri) {
-
-        try {
-            HttpPost reqWithHeader = loggerUtil.addRequestIdHeader(post);
-            String request = loggerUtil.createMdcRequestMapAsJsonString(reqWithHeader);
-            MDC.put(REQUEST_KEY, request);
-            API_REQUEST_LOG.info("POST {}", logRequestUri);
-        } catch (Exception e) {
-            API_REQUEST_LOG.error("POST " + logRequestUri, e);
-        } finally {
-            MDC.remove(REQUEST_KEY);
+    private Map<String, String> getQueryParams(final HttpServletRequest request) throws IOException {
+        final Map<String, String> params = UriComponentsBuilder.newInstance()
+                                                               .query(request.getQueryString())
+                                                               .build()
+                                                               .getQueryParams()
+                                                               .toSingleValueMap();
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            if (entry.getValue() != null) {
+                entry.setValue(UriUtils.decode(entry.getValue().replace('+', ' '), UTF_8));
+            }
         }
-
+        return params;
     }
 
     /**
@@ -138,19 +222,19 @@ public class SecuredFileUploadController {
     }
 
     /**
-     * Builds the entity for the forwarded request.
+     * Builds the entity for the forwarded request. The entity has no known length, so it is sent
+     * with chunked transfer encoding while the file part is read.
      *
-     * @param file the incoming multipart file.
+     * @param item the incoming file part.
+     * @param in the contents of the file part.
      * @return the outgoing request entity.
-     * @throws IOException if an I/O error occurs.
      */
-    private HttpEntity buildMultipartEntity(MultipartFile file) throws IOException {
-        final String name = file.getName();
-        final InputStream inputStream = file.getInputStream();
-        final ContentType contentType = ContentType.parse(file.getContentType());
-        final String fileName = file.getOriginalFilename();
+    private HttpEntity buildMultipartEntity(final FileItemStream item, final InputStream in) {
+        final ContentType contentType = StringUtils.isEmpty(item.getContentType())
+                                        ? ContentType.DEFAULT_BINARY
+                                        : ContentType.parse(item.getContentType());
         return MultipartEntityBuilder.create()
-                .addBinaryBody(name, inputStream, contentType, fileName)
+                .addBinaryBody(item.getFieldName(), in, contentType, item.getName())
                 .build();
     }
 
@@ -1,6 +1,7 @@
 package org.iplantc.de.server.controllers.file;
 
 import org.iplantc.de.server.AppLoggerConstants;
+import org.iplantc.de.server.HttpClientPool;
 
 import com.google.common.collect.Sets;
 
@@ -9,14 +10,13 @@ import net.sf.json.JSONObject;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpResponse;
-import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.entity.InputStreamEntity;
-import org.apache.http.impl.client.DefaultHttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -45,6 +45,9 @@ public class UnsecuredFileUploadController {
 
     @Value("${org.iplantc.services.file-io.secured.file-upload}") String securedFileUploadUrl;
     @Value("${org.iplantc.services.file-io.file-upload}") String unsecuredFileUploadUrl;
+
+    @Autowired private HttpClientPool httpClientPool;
+
     /**
      * The set of headers that should be skipped when copying headers.
      */
@@ -76,12 +79,10 @@ public class UnsecuredFileUploadController {
     protected void forwardRequest(final HttpEntityEnclosingRequestBase out,
                                   final HttpServletRequest request,
                                   final HttpServletResponse response) throws IOException {
-        HttpClient client = new DefaultHttpClient();
         try {
-
             copyHeaders(request, out);
             out.setEntity(new InputStreamEntity(request.getInputStream(), request.getContentLength()));
-            copyResponse(client.execute(out), response);
+            copyResponse(httpClientPool.getClient().execute(out), response);
         } finally {
             out.releaseConnection();
         }
@@ -1,19 +1,35 @@
 package org.iplantc.de.server.rpc;
 
 import org.iplantc.de.conf.WebMvcConfig;
+import org.iplantc.de.server.AsyncRequestLimiter;
+import org.iplantc.de.server.services.AsyncRemoteService;
 import org.iplantc.de.server.services.HasHttpServletRequest;
+import org.iplantc.de.shared.exceptions.HttpException;
 
 import com.google.gwt.user.client.rpc.IncompatibleRemoteServiceException;
 import com.google.gwt.user.client.rpc.RemoteService;
 import com.google.gwt.user.client.rpc.SerializationException;
 import com.google.gwt.user.server.rpc.RPC;
 import com.google.gwt.user.server.rpc.RPCRequest;
+import com.google.gwt.user.server.rpc.RPCServletUtils;
 import com.google.gwt.user.server.rpc.RemoteServiceServlet;
+import com.google.gwt.user.server.rpc.UnexpectedException;
 
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.concurrent.FutureCallback;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.web.context.ServletContextAware;
 import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.mvc.Controller;
 
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -33,6 +49,10 @@ import javax.servlet.http.HttpServletResponse;
  * Where did we get this magical POJO from you ask? Well we injected it into the class via the
  * setRemoteService setter back in the {@link WebMvcConfig} config file.
  *
+ * If the service is an {@link AsyncRemoteService} and an {@link AsyncRequestLimiter} is given, calls
+ * the service can make asynchronously are processed in Servlet 3 async mode: the request is parked,
+ * releasing the servlet thread, until the service completes the call.
+ *
  * @see <a href="http://en.wikipedia.org/wiki/Strategy_pattern">Strategy Pattern</a>
  * @see <a href="https://technophiliac.wordpress.com/2008/08/24/giving-gwt-a-spring-in-its-step/">Giving GWT a Spring in its step</a>
  *
@@ -47,20 +67,234 @@ public class GwtRpcController extends RemoteServiceServlet implements Controller
 
     private Class remoteServiceClass;
 
+    private AsyncRequestLimiter asyncRequestLimiter;
+
+    /**
+     * Responses of at least this many characters are gzipped for browsers which accept it.
+     */
+    private int compressionThreshold = 256;
+
+    private final Logger LOG = LoggerFactory.getLogger(GwtRpcController.class);
+
     public GwtRpcController(RemoteService remoteService) {
         setRemoteService(remoteService);
     }
 
+    public GwtRpcController(RemoteService remoteService, AsyncRequestLimiter asyncRequestLimiter) {
+        this(remoteService);
+        this.asyncRequestLimiter = asyncRequestLimiter;
+    }
+
     public ModelAndView handleRequest(HttpServletRequest request,
                                       HttpServletResponse response) throws Exception {
-        // Set request on service if required.
-        if(this.remoteService instanceof HasHttpServletRequest){
-            ((HasHttpServletRequest)this.remoteService).setRequest(request);
+        if (asyncRequestLimiter != null) {
+            asyncRequestLimiter.requestActive();
+        }
+        try {
+            // Set request on service if required.
+            if(this.remoteService instanceof HasHttpServletRequest){
+                ((HasHttpServletRequest)this.remoteService).setRequest(request);
+            }
+            if (isAsyncSupported(request)) {
+                processPostAsync(request, response);
+            } else {
+                super.doPost(request, response);
+            }
+        } finally {
+            if (asyncRequestLimiter != null) {
+                asyncRequestLimiter.requestInactive();
+            }
         }
-        super.doPost(request, response);
         return null;
     }
 
+    private boolean isAsyncSupported(final HttpServletRequest request) {
+        return asyncRequestLimiter != null
+                   && asyncRequestLimiter.isEnabled()
+                   && remoteService instanceof AsyncRemoteService
+                   && request.isAsyncSupported();
+    }
+
+    /**
+     * Decodes the call and, if the service can make it asynchronously, parks the request until the
+     * service completes it. Other calls are processed on the current thread, as usual.
+     */
+    private void processPostAsync(final HttpServletRequest request,
+                                  final HttpServletResponse response) throws IOException {
+        final RPCRequest rpcRequest;
+        try {
+            rpcRequest = RPC.decodeRequest(readContent(request), this.remoteServiceClass);
+        } catch (IncompatibleRemoteServiceException ex) {
+            getServletContext().log("An IncompatibleRemoteServiceException was thrown while processing this call.",
+                                    ex);
+            writeRpcResponse(request, response, encodeFailure(null, ex));
+            return;
+        } catch (Throwable t) {
+            RPCServletUtils.writeResponseForUnexpectedFailure(getServletContext(), response, t);
+            return;
+        }
+
+        final AsyncRemoteService asyncService = (AsyncRemoteService)this.remoteService;
+        if (!asyncService.isAsync(rpcRequest.getMethod())) {
+            try {
+                writeRpcResponse(request,
+                                 response,
+                                 RPC.invokeAndEncodeResponse(this.remoteService,
+                                                             rpcRequest.getMethod(),
+                                                             rpcRequest.getParameters()));
+            } catch (Throwable t) {
+                RPCServletUtils.writeResponseForUnexpectedFailure(getServletContext(), response, t);
+            }
+            return;
+        }
+
+        final AsyncContext asyncContext = request.startAsync(request, response);
+        asyncContext.setTimeout(asyncRequestLimiter.getRequestTimeout());
+        final AsyncRpcCall call = new AsyncRpcCall(asyncContext, rpcRequest.getMethod());
+        asyncContext.addListener(call);
+        asyncRequestLimiter.requestParked();
+        try {
+            call.setBackendCall(asyncService.invokeAsync(request,
+                                                         rpcRequest.getMethod(),
+                                                         rpcRequest.getParameters(),
+                                                         call));
+        } catch (RuntimeException e) {
+            call.failed(e);
+        }
+    }
+
+    private String encodeFailure(final Method method, final Throwable failure) {
+        try {
+            return RPC.encodeResponseForFailure(method, failure);
+        } catch (SerializationException | UnexpectedException e) {
+            try {
+                return RPC.encodeResponseForFailure(method, new SerializationException(failure));
+            } catch (SerializationException | UnexpectedException unexpected) {
+                throw new UnexpectedException("Unable to encode the failure of an RPC call", unexpected);
+            }
+        }
+    }
+
+    private void writeRpcResponse(final HttpServletRequest request,
+                                  final HttpServletResponse response,
+                                  final String responsePayload) throws IOException {
+        final boolean gzipEncode = RPCServletUtils.acceptsGzipEncoding(request)
+                                       && shouldCompressResponse(request, response, responsePayload);
+        RPCServletUtils.writeResponse(getServletContext(), response, responsePayload, gzipEncode);
+    }
+
+    /**
+     * Completes a parked request with the outcome of its call, or with an error if the request
+     * times out first. A call which hasn't reached the backend by then is cancelled.
+     */
+    private final class AsyncRpcCall implements FutureCallback<Object>, AsyncListener {
+        private final AsyncContext asyncContext;
+        private final Method method;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile boolean abandoned;
+        private volatile Cancellable backendCall;
+
+        AsyncRpcCall(final AsyncContext asyncContext, final Method method) {
+            this.asyncContext = asyncContext;
+            this.method = method;
+        }
+
+        void setBackendCall(final Cancellable backendCall) {
+            this.backendCall = backendCall;
+            if (abandoned) {
+                backendCall.cancel();
+            }
+        }
+
+        /**
+         * Cancels the backend call once the request no longer waits for it.
+         */
+        private void abandon() {
+            abandoned = true;
+            final Cancellable call = backendCall;
+            if (call != null) {
+                call.cancel();
+            }
+        }
+
+        @Override
+        public void completed(final Object result) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            // Encode and write on a servlet thread, rather than the thread which completed the call.
+            asyncContext.start(new Runnable() {
+                @Override
+                public void run() {
+                    String payload;
+                    try {
+                        payload = RPC.encodeResponseForSuccess(method, result);
+                    } catch (SerializationException e) {
+                        payload = encodeFailure(method, e);
+                    }
+                    writeAndComplete(payload);
+                }
+            });
+        }
+
+        @Override
+        public void failed(final Exception ex) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            asyncContext.start(new Runnable() {
+                @Override
+                public void run() {
+                    writeAndComplete(encodeFailure(method, ex));
+                }
+            });
+        }
+
+        @Override
+        public void cancelled() {
+            failed(new SerializationException("The call was cancelled"));
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            asyncRequestLimiter.requestTimedOut();
+            abandon();
+            // Already on a servlet thread; the response must be written before this returns.
+            writeAndComplete(encodeFailure(method, new HttpException(504, "Timed out waiting for a backend service")));
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            asyncRequestLimiter.requestResumed();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            if (done.compareAndSet(false, true)) {
+                abandon();
+            }
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+
+        private void writeAndComplete(final String payload) {
+            try {
+                writeRpcResponse((HttpServletRequest)asyncContext.getRequest(),
+                                 (HttpServletResponse)asyncContext.getResponse(),
+                                 payload);
+            } catch (IOException | RuntimeException e) {
+                LOG.warn("Unable to write an RPC response", e);
+            } finally {
+                asyncContext.complete();
+            }
+        }
+    }
+
     @Override
     public String processCall(String payload) throws SerializationException {
         try {
@@ -87,6 +321,17 @@ public class GwtRpcController extends RemoteServiceServlet implements Controller
         this.servletContext = servletContext;
     }
 
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    protected boolean shouldCompressResponse(HttpServletRequest request,
+                                             HttpServletResponse response,
+                                             String responsePayload) {
+        return responsePayload.length() >= compressionThreshold;
+    }
+
     public void setRemoteService(RemoteService remoteService) {
         this.remoteService = remoteService;
         this.remoteServiceClass = this.remoteService.getClass();
@@ -0,0 +1,204 @@
+package org.iplantc.de.server.upload;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The server-side state of a chunked upload: where the file is going, how it is divided into
+ * chunks and which of those chunks have been received so far.
+ *
+ * Chunks are numbered from zero. Every chunk is {@code chunkSize} bytes long, except for the last
+ * one, which holds the remainder of the file.
+ *
+ * While an upload is being completed, its chunks are streamed to the upload service, so no chunk
+ * may be written and no other completion may start until it has finished.
+ */
+public class ChunkedUpload {
+
+    private final String id;
+    private final String username;
+    private final String dest;
+    private final String fileName;
+    private final long size;
+    private final long chunkSize;
+    private final int chunkCount;
+    private final File directory;
+    private final BitSet received;
+    private long bytesReceived;
+    private long bytesReserved;
+    private boolean completing;
+    private volatile long lastUpdated;
+
+    ChunkedUpload(final String id,
+                  final String username,
+                  final String dest,
+                  final String fileName,
+                  final long size,
+                  final long chunkSize,
+                  final File directory) {
+        this.id = id;
+        this.username = username;
+        this.dest = dest;
+        this.fileName = fileName;
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.chunkCount = (int)Math.max(1, (size + chunkSize - 1) / chunkSize);
+        this.directory = directory;
+        this.received = new BitSet(chunkCount);
+        this.lastUpdated = System.currentTimeMillis();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getDest() {
+        return dest;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getChunkSize() {
+        return chunkSize;
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    File getDirectory() {
+        return directory;
+    }
+
+    long getLastUpdated() {
+        return lastUpdated;
+    }
+
+    void setLastUpdated(final long lastUpdated) {
+        this.lastUpdated = lastUpdated;
+    }
+
+    /**
+     * @param index the chunk number.
+     * @return the number of bytes the chunk must contain.
+     */
+    public long getChunkLength(final int index) {
+        return index == chunkCount - 1 ? size - chunkSize * index : chunkSize;
+    }
+
+    synchronized void markReceived(final int index) {
+        if (!received.get(index)) {
+            received.set(index);
+            bytesReceived += getChunkLength(index);
+        }
+        lastUpdated = System.currentTimeMillis();
+    }
+
+    /**
+     * Counts bytes which are being written to the staging directory towards the upload's staged
+     * bytes, until they are released.
+     */
+    synchronized void reserve(final long bytes) {
+        if (completing) {
+            throw new IllegalStateException("upload " + id + " is being completed");
+        }
+        bytesReserved += bytes;
+    }
+
+    synchronized void release(final long bytes) {
+        bytesReserved -= bytes;
+    }
+
+    /**
+     * @return the number of bytes the upload takes up in the staging directory, including chunks
+     * which are still being written.
+     */
+    synchronized long getStagedBytes() {
+        return bytesReceived + bytesReserved;
+    }
+
+    /**
+     * Marks the upload as being completed, unless it already is or chunks are still being written.
+     *
+     * @return true if the caller may complete the upload, and must call {@link #completionFinished()}
+     * once it's done.
+     */
+    public synchronized boolean startCompletion() {
+        if (completing || bytesReserved > 0) {
+            return false;
+        }
+        completing = true;
+        return true;
+    }
+
+    public synchronized void completionFinished() {
+        completing = false;
+    }
+
+    public synchronized boolean isCompleting() {
+        return completing;
+    }
+
+    /**
+     * @return true if the upload is being completed or has chunks being written, so that it must not
+     * be removed.
+     */
+    synchronized boolean isInUse() {
+        return completing || bytesReserved > 0;
+    }
+
+    public synchronized boolean isReceived(final int index) {
+        return received.get(index);
+    }
+
+    /**
+     * @return true if every chunk has been received.
+     */
+    public synchronized boolean isComplete() {
+        return received.cardinality() == chunkCount;
+    }
+
+    /**
+     * @return the number of bytes received so far.
+     */
+    public synchronized long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * @return the status of the upload as a map which can be serialized to JSON for the client.
+     */
+    public synchronized Map<String, Object> toMap() {
+        List<Integer> receivedChunks = Lists.newArrayListWithCapacity(received.cardinality());
+        for (int i = received.nextSetBit(0); i >= 0; i = received.nextSetBit(i + 1)) {
+            receivedChunks.add(i);
+        }
+
+        Map<String, Object> map = Maps.newHashMap();
+        map.put("uploadId", id);
+        map.put("dest", dest);
+        map.put("fileName", fileName);
+        map.put("size", size);
+        map.put("chunkSize", chunkSize);
+        map.put("chunkCount", chunkCount);
+        map.put("bytesReceived", getBytesReceived());
+        map.put("received", receivedChunks);
+        map.put("completing", completing);
+        return map;
+    }
+}
@@ -0,0 +1,443 @@
+package org.iplantc.de.server.upload;
+
+import com.google.common.collect.Lists;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Stages the chunks of resumable uploads on local disk until every chunk has arrived.
+ *
+ * Each upload gets its own directory under the staging directory, holding one file per received
+ * chunk. Chunks are written to a temporary file and only renamed into place once their length and
+ * CRC-32 have been verified, so a chunk is either completely present or absent. Uploads which
+ * haven't received a chunk within the expiry period are removed in the background, unless they are
+ * being completed or still have chunks being written.
+ *
+ * The description of each upload is kept in its directory along with its chunks, so that uploads
+ * staged before the webapp was restarted are restored when it starts and can still be resumed.
+ * Anything in the staging directory which can't be restored is left until it has expired.
+ *
+ * The bytes staged for each user, and for all users together, are limited by quotas. A chunk which
+ * would exceed either quota is rejected until enough uploads have completed, been cancelled or
+ * expired.
+ */
+@Component
+public class ChunkedUploadStore implements InitializingBean, DisposableBean {
+
+    private static final String METADATA_FILE_NAME = "upload.properties";
+    private static final String CHUNK_FILE_PREFIX = "chunk-";
+
+    private final Logger LOG = LoggerFactory.getLogger(ChunkedUploadStore.class);
+
+    @Value("${org.iplantc.discoveryenvironment.upload.staging-dir:${java.io.tmpdir}/de-chunked-uploads}") private String stagingPath;
+    @Value("${org.iplantc.discoveryenvironment.upload.chunk-size:8388608}") private long chunkSize;
+    @Value("${org.iplantc.discoveryenvironment.upload.expiry-minutes:1440}") private long expiryMinutes;
+    @Value("${org.iplantc.discoveryenvironment.upload.copy-buffer-size:65536}") private int bufferSize;
+    @Value("${org.iplantc.discoveryenvironment.upload.user-quota-bytes:21474836480}") private long userQuota;
+    @Value("${org.iplantc.discoveryenvironment.upload.total-quota-bytes:107374182400}") private long totalQuota;
+
+    private final Map<String, ChunkedUpload> uploads = new ConcurrentHashMap<>();
+    private final Object quotaLock = new Object();
+    private File stagingDir;
+    private ScheduledExecutorService cleanupExecutor;
+
+    void setStagingPath(final String stagingPath) {
+        this.stagingPath = stagingPath;
+    }
+
+    void setChunkSize(final long chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    void setExpiryMinutes(final long expiryMinutes) {
+        this.expiryMinutes = expiryMinutes;
+    }
+
+    void setBufferSize(final int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    void setQuotas(final long userQuota, final long totalQuota) {
+        this.userQuota = userQuota;
+        this.totalQuota = totalQuota;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        stagingDir = new File(stagingPath);
+        if (!stagingDir.isDirectory() && !stagingDir.mkdirs()) {
+            throw new IOException("unable to create upload staging directory " + stagingDir);
+        }
+        restoreUploads();
+        removeExpiredUploads();
+
+        cleanupExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "chunked-upload-cleanup");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        final long interval = Math.max(1, expiryMinutes / 10);
+        cleanupExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                removeExpiredUploads();
+            }
+        }, interval, interval, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void destroy() {
+        cleanupExecutor.shutdownNow();
+    }
+
+    /**
+     * Starts a new chunked upload.
+     *
+     * @param username the user performing the upload.
+     * @param dest the destination folder.
+     * @param fileName the name of the file being uploaded.
+     * @param size the size of the file, in bytes.
+     * @return the new upload.
+     * @throws IOException if the staging directory for the upload can't be created.
+     */
+    public ChunkedUpload create(final String username,
+                                final String dest,
+                                final String fileName,
+                                final long size) throws IOException {
+        if (size < 0) {
+            throw new IllegalArgumentException("the file size must not be negative");
+        }
+        final long quota = Math.min(userQuota, totalQuota);
+        if (size > quota) {
+            throw new IllegalArgumentException("the file size must not exceed the upload quota of " + quota + " bytes");
+        }
+        final String id = UUID.randomUUID().toString();
+        final File directory = new File(stagingDir, id);
+        if (!directory.mkdir()) {
+            throw new IOException("unable to create upload staging directory " + directory);
+        }
+        final ChunkedUpload upload = new ChunkedUpload(id, username, dest, fileName, size, chunkSize, directory);
+        try {
+            writeMetadata(upload);
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(directory);
+            throw e;
+        }
+        uploads.put(id, upload);
+        LOG.debug("Started chunked upload {} of {} bytes to {}", id, size, dest);
+        return upload;
+    }
+
+    /**
+     * @param username the user who started the upload.
+     * @param id the upload ID.
+     * @return the upload, or null if it doesn't exist or belongs to another user.
+     */
+    public ChunkedUpload get(final String username, final String id) {
+        final ChunkedUpload upload = uploads.get(id);
+        return upload != null && upload.getUsername().equals(username) ? upload : null;
+    }
+
+    /**
+     * Stores a chunk of an upload. Chunks which have already been stored are replaced.
+     *
+     * @param upload the upload the chunk belongs to.
+     * @param index the chunk number.
+     * @param in the contents of the chunk.
+     * @param expectedCrc the CRC-32 of the chunk computed by the client.
+     * @throws IllegalArgumentException if the chunk number, length or checksum is wrong.
+     * @throws IllegalStateException if the upload is being completed.
+     * @throws UploadQuotaExceededException if storing the chunk would exceed the user's or the total
+     * staging quota.
+     * @throws IOException if the chunk can't be written.
+     */
+    public void writeChunk(final ChunkedUpload upload,
+                           final int index,
+                           final InputStream in,
+                           final long expectedCrc) throws IOException {
+        if (index < 0 || index >= upload.getChunkCount()) {
+            throw new IllegalArgumentException("chunk " + index + " is out of range");
+        }
+        final long expectedLength = upload.getChunkLength(index);
+        reserve(upload, expectedLength);
+        final File partFile = new File(upload.getDirectory(), chunkFileName(index) + "." + UUID.randomUUID());
+        try {
+            final CheckedInputStream checked = new CheckedInputStream(in, new CRC32());
+            final long length;
+            try (OutputStream out = new FileOutputStream(partFile)) {
+                length = copy(checked, out, expectedLength);
+            }
+            if (length != expectedLength) {
+                throw new IllegalArgumentException("chunk " + index + " should contain " + expectedLength
+                                                   + " bytes, but contained " + length);
+            }
+            if (checked.getChecksum().getValue() != expectedCrc) {
+                throw new IllegalArgumentException("checksum mismatch for chunk " + index);
+            }
+            final File chunkFile = chunkFile(upload, index);
+            if ((chunkFile.exists() && !chunkFile.delete()) || !partFile.renameTo(chunkFile)) {
+                throw new IOException("unable to store chunk " + index + " of upload " + upload.getId());
+            }
+            upload.markReceived(index);
+        } finally {
+            upload.release(expectedLength);
+            FileUtils.deleteQuietly(partFile);
+        }
+    }
+
+    /**
+     * Opens the assembled file of a completed upload.
+     *
+     * @param upload the upload.
+     * @return a stream which reads the chunks in order.
+     * @throws IllegalStateException if some chunks haven't been received.
+     * @throws IOException if the chunks can't be opened.
+     */
+    public InputStream openAssembled(final ChunkedUpload upload) throws IOException {
+        if (!upload.isComplete()) {
+            throw new IllegalStateException("upload " + upload.getId() + " is missing chunks");
+        }
+        final List<InputStream> chunks = Lists.newArrayListWithCapacity(upload.getChunkCount());
+        try {
+            for (int i = 0; i < upload.getChunkCount(); i++) {
+                chunks.add(new FileInputStream(chunkFile(upload, i)));
+            }
+        } catch (IOException e) {
+            for (InputStream chunk : chunks) {
+                IOUtils.closeQuietly(chunk);
+            }
+            throw e;
+        }
+        return new BufferedInputStream(new SequenceInputStream(Collections.enumeration(chunks)), bufferSize);
+    }
+
+    /**
+     * Removes an upload and its staged chunks.
+     *
+     * @param upload the upload to remove.
+     */
+    public void remove(final ChunkedUpload upload) {
+        uploads.remove(upload.getId());
+        FileUtils.deleteQuietly(upload.getDirectory());
+        LOG.debug("Removed chunked upload {}", upload.getId());
+    }
+
+    /**
+     * Removes the uploads which haven't received a chunk within the expiry period and aren't in use,
+     * and anything else in the staging directory which hasn't been modified within it.
+     */
+    void removeExpiredUploads() {
+        final long cutoff = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(expiryMinutes);
+        for (Iterator<ChunkedUpload> it = uploads.values().iterator(); it.hasNext(); ) {
+            final ChunkedUpload upload = it.next();
+            if (upload.getLastUpdated() < cutoff && !upload.isInUse()) {
+                LOG.info("Removing expired chunked upload {} to {}", upload.getId(), upload.getDest());
+                remove(upload);
+            }
+        }
+
+        final File[] entries = stagingDir.listFiles();
+        if (entries == null) {
+            return;
+        }
+        for (File entry : entries) {
+            if (!uploads.containsKey(entry.getName()) && lastModified(entry) < cutoff) {
+                LOG.info("Removing expired upload staging entry {}", entry);
+                FileUtils.deleteQuietly(entry);
+            }
+        }
+    }
+
+    /**
+     * Restores the uploads found in the staging directory, along with the chunks they had received.
+     */
+    private void restoreUploads() {
+        final File[] entries = stagingDir.listFiles();
+        if (entries == null) {
+            return;
+        }
+        for (File entry : entries) {
+            if (entry.isDirectory()) {
+                final ChunkedUpload upload = readUpload(entry);
+                if (upload != null) {
+                    uploads.put(upload.getId(), upload);
+                }
+            }
+        }
+        LOG.info("Restored {} chunked uploads from {}", uploads.size(), stagingDir);
+    }
+
+    /**
+     * Reads an upload and its received chunks from its staging directory. Chunks which were still
+     * being written, or which don't have the expected length, are deleted.
+     *
+     * @param directory the upload's staging directory.
+     * @return the upload, or null if the directory doesn't describe an upload.
+     */
+    private ChunkedUpload readUpload(final File directory) {
+        final Properties metadata = new Properties();
+        try (InputStream in = new FileInputStream(new File(directory, METADATA_FILE_NAME))) {
+            metadata.load(in);
+        } catch (IOException e) {
+            LOG.warn("Unable to read chunked upload from {}", directory, e);
+            return null;
+        }
+        final String username = metadata.getProperty("username");
+        final String dest = metadata.getProperty("dest");
+        final String fileName = metadata.getProperty("fileName");
+        if (username == null || dest == null || fileName == null) {
+            LOG.warn("Unable to read chunked upload from {}: its description is incomplete", directory);
+            return null;
+        }
+        final ChunkedUpload upload;
+        try {
+            upload = new ChunkedUpload(directory.getName(),
+                                       username,
+                                       dest,
+                                       fileName,
+                                       Long.parseLong(metadata.getProperty("size")),
+                                       Long.parseLong(metadata.getProperty("chunkSize")),
+                                       directory);
+        } catch (NumberFormatException e) {
+            LOG.warn("Unable to read chunked upload from {}", directory, e);
+            return null;
+        }
+
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                final int index = chunkIndex(file.getName());
+                if (index >= 0 && index < upload.getChunkCount() && file.length() == upload.getChunkLength(index)) {
+                    upload.markReceived(index);
+                } else if (!file.getName().equals(METADATA_FILE_NAME)) {
+                    FileUtils.deleteQuietly(file);
+                }
+            }
+        }
+        upload.setLastUpdated(lastModified(directory));
+        return upload;
+    }
+
+    private void writeMetadata(final ChunkedUpload upload) throws IOException {
+        final Properties metadata = new Properties();
+        metadata.setProperty("username", upload.getUsername());
+        metadata.setProperty("dest", upload.getDest());
+        metadata.setProperty("fileName", upload.getFileName());
+        metadata.setProperty("size", Long.toString(upload.getSize()));
+        metadata.setProperty("chunkSize", Long.toString(upload.getChunkSize()));
+        try (OutputStream out = new FileOutputStream(new File(upload.getDirectory(), METADATA_FILE_NAME))) {
+            metadata.store(out, null);
+        }
+    }
+
+    /**
+     * Counts a chunk which is about to be written towards the staged bytes of its upload, unless
+     * that would take the staged bytes of the upload's user, or of all users, over their quota.
+     */
+    private void reserve(final ChunkedUpload upload, final long length) throws UploadQuotaExceededException {
+        synchronized (quotaLock) {
+            long userBytes = 0;
+            long totalBytes = 0;
+            for (ChunkedUpload staged : uploads.values()) {
+                final long bytes = staged.getStagedBytes();
+                totalBytes += bytes;
+                if (staged.getUsername().equals(upload.getUsername())) {
+                    userBytes += bytes;
+                }
+            }
+            if (userBytes + length > userQuota) {
+                throw new UploadQuotaExceededException("the uploads in progress must not exceed the upload quota of "
+                                                       + userQuota + " bytes");
+            }
+            if (totalBytes + length > totalQuota) {
+                throw new UploadQuotaExceededException("the upload staging area is full");
+            }
+            upload.reserve(length);
+        }
+    }
+
+    /**
+     * @return the time the file, or any file in the directory, was last modified.
+     */
+    private long lastModified(final File entry) {
+        long lastModified = entry.lastModified();
+        final File[] files = entry.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                lastModified = Math.max(lastModified, file.lastModified());
+            }
+        }
+        return lastModified;
+    }
+
+    /**
+     * Copies at most one byte more than expected, so that oversized chunks are detected without
+     * reading an unbounded request body.
+     */
+    private long copy(final InputStream in, final OutputStream out, final long expectedLength) throws IOException {
+        final byte[] buffer = new byte[bufferSize];
+        long total = 0;
+        int count;
+        while (total <= expectedLength
+                   && (count = in.read(buffer, 0, (int)Math.min(buffer.length, expectedLength + 1 - total))) != -1) {
+            out.write(buffer, 0, count);
+            total += count;
+        }
+        return total;
+    }
+
+    private File chunkFile(final ChunkedUpload upload, final int index) {
+        return new File(upload.getDirectory(), chunkFileName(index));
+    }
+
+    private String chunkFileName(final int index) {
+        return CHUNK_FILE_PREFIX + index;
+    }
+
+    /**
+     * @return the number of the chunk stored in the file with the given name, or -1 if the file
+     * isn't a stored chunk.
+     */
+    private int chunkIndex(final String fileName) {
+        if (!fileName.startsWith(CHUNK_FILE_PREFIX)) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(fileName.substring(CHUNK_FILE_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.iplantc.de.server.upload;
+
+import com.google.common.collect.Maps;
+
+import org.apache.commons.fileupload.ProgressListener;
+
+import java.util.Map;
+
+/**
+ * Tracks the number of bytes of a streamed upload which have been read from the client.
+ *
+ * Instances are updated by the upload parser on the request thread and read by progress polls on
+ * other threads.
+ */
+public class UploadProgress implements ProgressListener {
+
+    private volatile long bytesRead;
+    private volatile long contentLength;
+    private volatile boolean complete;
+
+    public UploadProgress(final long contentLength) {
+        this.contentLength = contentLength;
+    }
+
+    @Override
+    public void update(final long pBytesRead, final long pContentLength, final int pItems) {
+        bytesRead = pBytesRead;
+        if (pContentLength >= 0) {
+            contentLength = pContentLength;
+        }
+    }
+
+    /**
+     * Marks the upload as finished, whether or not it succeeded.
+     */
+    public void complete() {
+        complete = true;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return the length of the upload request, or -1 if the client didn't send one.
+     */
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return the progress as a map which can be serialized to JSON for the client.
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = Maps.newHashMap();
+        map.put("bytesRead", bytesRead);
+        map.put("contentLength", contentLength);
+        map.put("complete", complete);
+        return map;
+    }
+}
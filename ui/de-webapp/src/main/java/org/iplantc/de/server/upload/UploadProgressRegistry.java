@@ -0,0 +1,72 @@
+package org.iplantc.de.server.upload;
+
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the progress of the uploads currently being streamed through the webapp, so that the
+ * client can poll for it while its upload form is being submitted.
+ *
+ * Uploads are identified by a client-generated ID, scoped to the user who started them. Entries
+ * are retained for a short time after the last update so that the final state can still be read.
+ */
+@Component
+public class UploadProgressRegistry implements InitializingBean {
+
+    @Value("${org.iplantc.discoveryenvironment.upload.progress-retention-seconds:600}") private long retentionSeconds;
+    @Value("${org.iplantc.discoveryenvironment.upload.progress-max-entries:10000}") private long maxEntries;
+
+    private Cache<String, UploadProgress> uploads;
+
+    void setRetentionSeconds(final long retentionSeconds) {
+        this.retentionSeconds = retentionSeconds;
+    }
+
+    void setMaxEntries(final long maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        uploads = CacheBuilder.newBuilder()
+                              .expireAfterAccess(retentionSeconds, TimeUnit.SECONDS)
+                              .maximumSize(maxEntries)
+                              .build();
+    }
+
+    /**
+     * Starts tracking an upload.
+     *
+     * @param username the user performing the upload.
+     * @param uploadId the ID chosen by the client, may be empty if the client isn't tracking progress.
+     * @param contentLength the length of the upload request, or -1 if unknown.
+     * @return the progress of the upload, which is only registered if an ID was given.
+     */
+    public UploadProgress start(final String username, final String uploadId, final long contentLength) {
+        final UploadProgress progress = new UploadProgress(contentLength);
+        if (!Strings.isNullOrEmpty(uploadId)) {
+            uploads.put(key(username, uploadId), progress);
+        }
+        return progress;
+    }
+
+    /**
+     * @param username the user who started the upload.
+     * @param uploadId the ID chosen by the client.
+     * @return the progress of the upload, or null if it isn't known.
+     */
+    public UploadProgress get(final String username, final String uploadId) {
+        return uploads.getIfPresent(key(username, uploadId));
+    }
+
+    private String key(final String username, final String uploadId) {
+        return username + "/" + uploadId;
+    }
+}
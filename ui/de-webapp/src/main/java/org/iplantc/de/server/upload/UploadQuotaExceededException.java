@@ -0,0 +1,14 @@
+package org.iplantc.de.server.upload;
+
+import java.io.IOException;
+
+/**
+ * Thrown when storing a chunk would take the staged uploads of a user, or of all users, over their
+ * staging quota.
+ */
+public class UploadQuotaExceededException extends IOException {
+
+    public UploadQuotaExceededException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,155 @@
+package org.iplantc.de.server.controllers.file;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import org.iplantc.de.server.HttpClientPool;
+import org.iplantc.de.server.auth.JwtBuilder;
+import org.iplantc.de.server.upload.ChunkedUpload;
+import org.iplantc.de.server.upload.ChunkedUploadStore;
+import org.iplantc.de.server.upload.UploadQuotaExceededException;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.Principal;
+
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestChunkedUploadController {
+
+    private static final String UPLOAD_ID = "upload-id";
+
+    @Mock private ChunkedUploadStore uploadStore;
+    @Mock private JwtBuilder jwtBuilder;
+    @Mock private HttpClientPool httpClientPool;
+    @Mock private CloseableHttpClient httpClient;
+    @Mock private ChunkedUpload upload;
+    @Mock private HttpServletRequest request;
+
+    @InjectMocks private ChunkedUploadController controller;
+
+    @Before
+    public void setUp() throws Exception {
+        controller.securedFileUploadUrl = "http://file-io/upload";
+
+        final Principal principal = mock(Principal.class);
+        when(principal.getName()).thenReturn("ipctest");
+        when(request.getUserPrincipal()).thenReturn(principal);
+        when(request.getInputStream()).thenReturn(mock(ServletInputStream.class));
+        when(jwtBuilder.buildJwt(request)).thenReturn("jwt");
+        when(httpClientPool.getClient()).thenReturn(httpClient);
+
+        when(uploadStore.get("ipctest", UPLOAD_ID)).thenReturn(upload);
+        when(uploadStore.openAssembled(upload)).thenAnswer(new Answer<InputStream>() {
+            @Override
+            public InputStream answer(InvocationOnMock invocation) {
+                return new ByteArrayInputStream("contents".getBytes());
+            }
+        });
+        when(upload.getDest()).thenReturn("/iplant/home/ipctest");
+        when(upload.getFileName()).thenReturn("file.txt");
+        when(upload.isComplete()).thenReturn(true);
+    }
+
+    @Test
+    public void testChunksBeyondTheQuotaAreRejectedWithInsufficientStorage() throws IOException {
+        doThrow(new UploadQuotaExceededException("the upload staging area is full"))
+                .when(uploadStore).writeChunk(eq(upload), anyInt(), any(InputStream.class), anyLong());
+
+        assertEquals(HttpStatus.INSUFFICIENT_STORAGE, controller.uploadChunk(UPLOAD_ID, 0, "0", request).getStatusCode());
+    }
+
+    @Test
+    public void testChunksWithTheWrongChecksumAreRejected() throws IOException {
+        doThrow(new IllegalArgumentException("checksum mismatch for chunk 0"))
+                .when(uploadStore).writeChunk(eq(upload), anyInt(), any(InputStream.class), anyLong());
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.uploadChunk(UPLOAD_ID, 0, "1f", request).getStatusCode());
+    }
+
+    @Test
+    public void testChunksAreRejectedWhileTheUploadIsBeingCompleted() throws IOException {
+        doThrow(new IllegalStateException("upload upload-id is being completed"))
+                .when(uploadStore).writeChunk(eq(upload), anyInt(), any(InputStream.class), anyLong());
+        assertEquals(HttpStatus.CONFLICT, controller.uploadChunk(UPLOAD_ID, 0, "1f", request).getStatusCode());
+
+        when(upload.isCompleting()).thenReturn(true);
+        assertEquals(HttpStatus.CONFLICT, controller.cancelUpload(UPLOAD_ID, request).getStatusCode());
+        verify(uploadStore, never()).remove(upload);
+    }
+
+    @Test
+    public void testCompletedUploadsAreRelayedAndRemoved() throws Exception {
+        when(upload.startCompletion()).thenReturn(true);
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(new Response(200));
+
+        final ResponseEntity<Object> response = controller.completeUpload(UPLOAD_ID, request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(uploadStore).remove(upload);
+        verify(upload).completionFinished();
+    }
+
+    @Test
+    public void testFailedCompletionsKeepTheUpload() throws Exception {
+        when(upload.startCompletion()).thenReturn(true);
+        when(httpClient.execute(any(HttpUriRequest.class))).thenReturn(new Response(500));
+
+        assertEquals(HttpStatus.BAD_GATEWAY, controller.completeUpload(UPLOAD_ID, request).getStatusCode());
+        verify(uploadStore, never()).remove(upload);
+        verify(upload).completionFinished();
+    }
+
+    @Test
+    public void testCompletionsAreRejectedWhileAnotherIsInProgress() throws Exception {
+        when(upload.startCompletion()).thenReturn(false);
+
+        assertEquals(HttpStatus.CONFLICT, controller.completeUpload(UPLOAD_ID, request).getStatusCode());
+        verifyZeroInteractions(httpClient);
+        verify(upload, never()).completionFinished();
+        verify(uploadStore, never()).remove(upload);
+    }
+
+    @Test
+    public void testIncompleteUploadsAreNotRelayed() throws Exception {
+        when(upload.isComplete()).thenReturn(false);
+
+        assertEquals(HttpStatus.CONFLICT, controller.completeUpload(UPLOAD_ID, request).getStatusCode());
+        verify(upload, never()).startCompletion();
+        verifyZeroInteractions(httpClient);
+    }
+
+    private static final class Response extends BasicHttpResponse implements CloseableHttpResponse {
+        Response(final int status) {
+            super(HttpVersion.HTTP_1_1, status, "");
+            setEntity(new StringEntity("{}", "UTF-8"));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
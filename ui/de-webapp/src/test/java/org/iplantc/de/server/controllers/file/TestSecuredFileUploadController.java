@@ -0,0 +1,217 @@
+package org.iplantc.de.server.controllers.file;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+import org.iplantc.de.server.HttpClientPool;
+import org.iplantc.de.server.auth.JwtBuilder;
+import org.iplantc.de.server.upload.UploadProgress;
+import org.iplantc.de.server.upload.UploadProgressRegistry;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+
+@RunWith(MockitoJUnitRunner.class)
+public class TestSecuredFileUploadController {
+
+    private static final String BOUNDARY = "----boundary";
+    private static final String DEST_PART = part("Content-Disposition: form-data; name=\"dest\"", "/iplant/home/ipctest");
+    private static final String FILE_PART = part("Content-Disposition: form-data; name=\"file\"; filename=\"file.txt\"\r\n"
+                                                     + "Content-Type: text/plain",
+                                                 "file contents");
+
+    @Mock private JwtBuilder jwtBuilder;
+    @Mock private HttpClientPool httpClientPool;
+    @Mock private CloseableHttpClient httpClient;
+    @Mock private UploadProgressRegistry progressRegistry;
+    @Mock private HttpServletRequest request;
+
+    @InjectMocks private SecuredFileUploadController controller;
+
+    private UploadProgress progress;
+    private final ByteArrayOutputStream relayed = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() throws Exception {
+        controller.securedFileUploadUrl = "http://file-io/upload";
+
+        final Principal principal = mock(Principal.class);
+        when(principal.getName()).thenReturn("ipctest");
+        when(request.getUserPrincipal()).thenReturn(principal);
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getContentType()).thenReturn("multipart/form-data; boundary=" + BOUNDARY);
+        when(request.getQueryString()).thenReturn("uploadId=upload-1");
+        when(jwtBuilder.buildJwt(request)).thenReturn("jwt");
+        when(httpClientPool.getClient()).thenReturn(httpClient);
+
+        when(progressRegistry.start(eq("ipctest"), eq("upload-1"), anyLong())).thenAnswer(new Answer<UploadProgress>() {
+            @Override
+            public UploadProgress answer(InvocationOnMock invocation) {
+                progress = new UploadProgress((Long)invocation.getArguments()[2]);
+                return progress;
+            }
+        });
+        // Reads the relayed entity, and so the file part, as the upload service would.
+        when(httpClient.execute(any(HttpUriRequest.class))).thenAnswer(new Answer<CloseableHttpResponse>() {
+            @Override
+            public CloseableHttpResponse answer(InvocationOnMock invocation) throws IOException {
+                ((HttpPost)invocation.getArguments()[0]).getEntity().writeTo(relayed);
+                return new Response(200);
+            }
+        });
+    }
+
+    @Test
+    public void testFilesAreRelayedAsTheyAreParsed() throws Exception {
+        final String body = DEST_PART + FILE_PART + "--" + BOUNDARY + "--\r\n";
+        setBody(body);
+
+        final ResponseEntity<Object> response = controller.doSecureFileUpload(request);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        final ArgumentCaptor<HttpUriRequest> post = ArgumentCaptor.forClass(HttpUriRequest.class);
+        verify(httpClient).execute(post.capture());
+        assertEquals("dest=/iplant/home/ipctest", post.getValue().getURI().getQuery());
+        final String relayedBody = relayed.toString("UTF-8");
+        assertTrue(relayedBody.contains("filename=\"file.txt\""));
+        assertTrue(relayedBody.contains("file contents"));
+
+        assertEquals(body.length(), progress.getContentLength());
+        assertEquals(body.length(), progress.getBytesRead());
+        assertTrue(progress.isComplete());
+    }
+
+    @Test
+    public void testTruncatedFilesAreRejected() throws Exception {
+        final String body = DEST_PART + FILE_PART.substring(0, FILE_PART.length() - 6);
+        setBody(body);
+
+        final ResponseEntity<Object> response = controller.doSecureFileUpload(request);
+
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals(body.length(), progress.getBytesRead());
+        assertTrue(progress.isComplete());
+    }
+
+    @Test
+    public void testFilesMustFollowTheirDestination() throws Exception {
+        setBody(FILE_PART + DEST_PART + "--" + BOUNDARY + "--\r\n");
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.doSecureFileUpload(request).getStatusCode());
+        verifyZeroInteractions(httpClient);
+        assertTrue(progress.isComplete());
+    }
+
+    @Test
+    public void testRequestsWithoutPartsAreRejected() throws Exception {
+        setBody("not a multipart body");
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.doSecureFileUpload(request).getStatusCode());
+        verifyZeroInteractions(httpClient);
+        assertTrue(progress.isComplete());
+    }
+
+    @Test
+    public void testRequestsWhichAreNotMultipartAreRejected() throws Exception {
+        when(request.getContentType()).thenReturn("application/json");
+
+        assertEquals(HttpStatus.BAD_REQUEST, controller.doSecureFileUpload(request).getStatusCode());
+        verify(progressRegistry, never()).start(anyString(), anyString(), anyLong());
+    }
+
+    @Test
+    public void testProgressIsReportedForTheUser() {
+        final UploadProgress tracked = new UploadProgress(100);
+        tracked.update(40, 100, 1);
+        when(progressRegistry.get("ipctest", "upload-1")).thenReturn(tracked);
+
+        final ResponseEntity<Object> response = controller.getUploadProgress("upload-1", request);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(tracked.toMap(), response.getBody());
+        assertEquals(HttpStatus.NOT_FOUND, controller.getUploadProgress("upload-2", request).getStatusCode());
+    }
+
+    private void setBody(final String body) throws IOException {
+        final byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        when(request.getContentLength()).thenReturn(bytes.length);
+        when(request.getContentLengthLong()).thenReturn((long)bytes.length);
+        when(request.getInputStream()).thenReturn(new BodyStream(bytes));
+    }
+
+    private static String part(final String headers, final String content) {
+        return "--" + BOUNDARY + "\r\n" + headers + "\r\n\r\n" + content + "\r\n";
+    }
+
+    private static final class BodyStream extends ServletInputStream {
+        private final ByteArrayInputStream in;
+
+        BodyStream(final byte[] body) {
+            in = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public int read() {
+            return in.read();
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) {
+            return in.read(b, off, len);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(final ReadListener readListener) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private static final class Response extends BasicHttpResponse implements CloseableHttpResponse {
+        Response(final int status) {
+            super(HttpVersion.HTTP_1_1, status, "");
+            setEntity(new StringEntity("{}", "UTF-8"));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.iplantc.de.server.upload;
+
+import static org.junit.Assert.*;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+
+public class TestChunkedUploadStore {
+
+    private static final long CHUNK_SIZE = 4;
+
+    @Rule public TemporaryFolder stagingDir = new TemporaryFolder();
+
+    private ChunkedUploadStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = createStore();
+    }
+
+    @After
+    public void tearDown() {
+        store.destroy();
+    }
+
+    @Test
+    public void testChunksAreAssembledInOrder() throws IOException {
+        final ChunkedUpload upload = store.create("ipctest", "/iplant/home/ipctest", "file.txt", 6);
+        writeChunk(upload, 1, "ef");
+        assertFalse(upload.isComplete());
+        writeChunk(upload, 0, "abcd");
+
+        assertTrue(upload.isComplete());
+        assertEquals(6, upload.getBytesReceived());
+        try (InputStream in = store.openAssembled(upload)) {
+            assertEquals("abcdef", IOUtils.toString(in));
+        }
+    }
+
+    @Test
+    public void testChunksWithTheWrongChecksumAreRejected() throws IOException {
+        final ChunkedUpload upload = store.create("ipctest", "/iplant/home/ipctest", "file.txt", 4);
+        try {
+            store.writeChunk(upload, 0, stream("abcd"), crc("abce"));
+            fail("the chunk should have been rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        assertFalse(upload.isReceived(0));
+        assertEquals(0, upload.getStagedBytes());
+        assertEquals(1, upload.getDirectory().list().length);
+    }
+
+    @Test
+    public void testChunksBeyondTheQuotasAreRejected() throws IOException {
+        store.setQuotas(8, 12);
+        try {
+            store.create("ipctest", "/iplant/home/ipctest", "large.txt", 9);
+            fail("an upload larger than the quota should have been rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        final ChunkedUpload first = store.create("ipctest", "/iplant/home/ipctest", "first.txt", 8);
+        writeChunk(first, 0, "abcd");
+        writeChunk(first, 1, "efgh");
+        final ChunkedUpload second = store.create("ipctest", "/iplant/home/ipctest", "second.txt", 4);
+        try {
+            writeChunk(second, 0, "ijkl");
+            fail("the user's quota should have been exceeded");
+        } catch (UploadQuotaExceededException expected) {
+        }
+
+        writeChunk(store.create("other", "/iplant/home/other", "other.txt", 4), 0, "mnop");
+        try {
+            writeChunk(store.create("third", "/iplant/home/third", "third.txt", 4), 0, "qrst");
+            fail("the total quota should have been exceeded");
+        } catch (UploadQuotaExceededException expected) {
+        }
+
+        // Cancelled uploads no longer count towards the quotas.
+        store.remove(first);
+        writeChunk(second, 0, "ijkl");
+        assertEquals(4, second.getStagedBytes());
+    }
+
+    @Test
+    public void testUploadsAreRestoredAfterARestart() throws Exception {
+        final ChunkedUpload upload = store.create("ipctest", "/iplant/home/ipctest", "file.txt", 10);
+        writeChunk(upload, 0, "abcd");
+        writeChunk(upload, 2, "ij");
+        store.destroy();
+
+        store = createStore();
+        final ChunkedUpload restored = store.get("ipctest", upload.getId());
+        assertNotNull(restored);
+        assertNull(store.get("other", upload.getId()));
+        assertEquals("/iplant/home/ipctest", restored.getDest());
+        assertEquals("file.txt", restored.getFileName());
+        assertEquals(10, restored.getSize());
+        assertTrue(restored.isReceived(0));
+        assertFalse(restored.isReceived(1));
+        assertTrue(restored.isReceived(2));
+        assertEquals(6, restored.getBytesReceived());
+
+        writeChunk(restored, 1, "efgh");
+        try (InputStream in = store.openAssembled(restored)) {
+            assertEquals("abcdefghij", IOUtils.toString(in));
+        }
+    }
+
+    @Test
+    public void testExpiredUploadsAreRemovedUnlessInUse() throws IOException {
+        final ChunkedUpload expired = store.create("ipctest", "/iplant/home/ipctest", "expired.txt", 4);
+        final ChunkedUpload completing = store.create("ipctest", "/iplant/home/ipctest", "completing.txt", 4);
+        final ChunkedUpload active = store.create("ipctest", "/iplant/home/ipctest", "active.txt", 4);
+        writeChunk(completing, 0, "abcd");
+        assertTrue(completing.startCompletion());
+        expired.setLastUpdated(0);
+        completing.setLastUpdated(0);
+
+        store.removeExpiredUploads();
+
+        assertNull(store.get("ipctest", expired.getId()));
+        assertFalse(expired.getDirectory().exists());
+        assertSame(completing, store.get("ipctest", completing.getId()));
+        assertTrue(completing.getDirectory().exists());
+        assertSame(active, store.get("ipctest", active.getId()));
+    }
+
+    @Test
+    public void testOnlyOneCompletionRunsAtATime() throws IOException {
+        final ChunkedUpload upload = store.create("ipctest", "/iplant/home/ipctest", "file.txt", 4);
+        writeChunk(upload, 0, "abcd");
+
+        assertTrue(upload.startCompletion());
+        assertFalse(upload.startCompletion());
+        try {
+            writeChunk(upload, 0, "abcd");
+            fail("chunks shouldn't be written while the upload is being completed");
+        } catch (IllegalStateException expected) {
+        }
+
+        upload.completionFinished();
+        assertTrue(upload.startCompletion());
+    }
+
+    private ChunkedUploadStore createStore() throws Exception {
+        final ChunkedUploadStore chunkedUploadStore = new ChunkedUploadStore();
+        chunkedUploadStore.setStagingPath(stagingDir.getRoot().getPath());
+        chunkedUploadStore.setChunkSize(CHUNK_SIZE);
+        chunkedUploadStore.setExpiryMinutes(60);
+        chunkedUploadStore.setBufferSize(3);
+        chunkedUploadStore.setQuotas(1024, 1024);
+        chunkedUploadStore.afterPropertiesSet();
+        return chunkedUploadStore;
+    }
+
+    private void writeChunk(final ChunkedUpload upload, final int index, final String contents) throws IOException {
+        store.writeChunk(upload, index, stream(contents), crc(contents));
+    }
+
+    private static InputStream stream(final String contents) {
+        return new ByteArrayInputStream(contents.getBytes());
+    }
+
+    private static long crc(final String contents) {
+        final CRC32 crc = new CRC32();
+        crc.update(contents.getBytes());
+        return crc.getValue();
+    }
+}
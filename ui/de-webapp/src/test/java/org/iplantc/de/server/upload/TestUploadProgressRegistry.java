@@ -0,0 +1,78 @@
+package org.iplantc.de.server.upload;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestUploadProgressRegistry {
+
+    private UploadProgressRegistry registry;
+
+    @Before
+    public void setUp() throws Exception {
+        registry = createRegistry(600, 100);
+    }
+
+    @Test
+    public void testUploadsAreTrackedPerUser() {
+        final UploadProgress progress = registry.start("ipctest", "upload-1", 100);
+
+        assertSame(progress, registry.get("ipctest", "upload-1"));
+        assertNull(registry.get("someone-else", "upload-1"));
+        assertNull(registry.get("ipctest", "upload-2"));
+    }
+
+    @Test
+    public void testUploadsWithoutAnIdAreNotTracked() {
+        final UploadProgress progress = registry.start("ipctest", "", 100);
+
+        progress.update(10, 100, 1);
+        assertEquals(10, progress.getBytesRead());
+        assertNull(registry.get("ipctest", ""));
+    }
+
+    @Test
+    public void testProgressIsUpdatedUntilComplete() {
+        final UploadProgress progress = registry.start("ipctest", "upload-1", -1);
+        assertEquals(-1, progress.getContentLength());
+
+        progress.update(50, 200, 1);
+        assertEquals(50, registry.get("ipctest", "upload-1").getBytesRead());
+        assertEquals(200, registry.get("ipctest", "upload-1").getContentLength());
+        // An unknown length doesn't replace a known one.
+        progress.update(200, -1, 2);
+        assertEquals(200, registry.get("ipctest", "upload-1").getContentLength());
+        assertFalse(registry.get("ipctest", "upload-1").isComplete());
+
+        progress.complete();
+        assertEquals(Boolean.TRUE, registry.get("ipctest", "upload-1").toMap().get("complete"));
+        assertEquals(200L, registry.get("ipctest", "upload-1").toMap().get("bytesRead"));
+    }
+
+    @Test
+    public void testUploadsAreDroppedAfterTheirRetention() throws Exception {
+        registry = createRegistry(0, 100);
+        registry.start("ipctest", "upload-1", 100).complete();
+
+        assertNull(registry.get("ipctest", "upload-1"));
+    }
+
+    @Test
+    public void testTheOldestUploadsAreDroppedWhenTheRegistryIsFull() throws Exception {
+        registry = createRegistry(600, 1);
+        registry.start("ipctest", "upload-1", 100);
+        registry.start("ipctest", "upload-2", 100);
+
+        assertNull(registry.get("ipctest", "upload-1"));
+        assertNotNull(registry.get("ipctest", "upload-2"));
+    }
+
+    private UploadProgressRegistry createRegistry(final long retentionSeconds, final long maxEntries) throws Exception {
+        final UploadProgressRegistry registry = new UploadProgressRegistry();
+        registry.setRetentionSeconds(retentionSeconds);
+        registry.setMaxEntries(maxEntries);
+        registry.afterPropertiesSet();
+        return registry;
+    }
+}